@@ -0,0 +1,46 @@
+package securityscanapp;
+
+/**
+ * Heavy activities that run on their own task queue next to each workflow task queue
+ *
+ * Space reservations, clones, scans and storage uploads are routed to "<task queue>-<id>".
+ * The worker polls each group queue with a separate Temporal worker whose activity slots
+ * are the group's limit, so a task waits on the server until a slot is free instead of
+ * inside a running activity (where it would hold a slot and count against its
+ * StartToClose timeout).
+ *
+ * Reservations have their own queue because they wait in the PVC-wide space ledger, which
+ * spans pods; a waiting reservation then holds a reservation slot, never a clone slot.
+ * Releases, cleanup, planning, hub status and cache lookups stay on the workflow's task
+ * queue: they are short, and a release must never wait behind the reservations and
+ * clones it frees space for.
+ */
+public enum ActivityGroup {
+    SPACE("space", "Workspace space reservations (reserveWorkspaceSpace)"),
+    CLONE("clone", "Repository clones (cloneRepository)"),
+    SCAN("scan", "Detect scans (scanSignatures)"),
+    STORAGE("storage", "Result and report uploads (storeScanResults, storeReportFile)");
+    
+    private final String id;
+    private final String description;
+    
+    ActivityGroup(String id, String description) {
+        this.id = id;
+        this.description = description;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    /**
+     * Task queue of this group next to a workflow (or tool) task queue
+     */
+    public String queueFor(String taskQueue) {
+        return taskQueue + "-" + id;
+    }
+}
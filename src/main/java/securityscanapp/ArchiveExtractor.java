@@ -0,0 +1,462 @@
+package securityscanapp;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Streaming extractor for source archives (tar, tar.gz, zip)
+ *
+ * Entries are written straight from the input stream into the target directory,
+ * there is no temporary archive file. The format is detected from the leading
+ * bytes of the stream, so it works with any archive endpoint regardless of URL.
+ *
+ * - Leading path components are stripped (archive endpoints wrap content in a
+ *   top-level "<repo>-<ref>/" directory)
+ * - Sparse checkout paths act as an extraction filter, entries outside them are skipped
+ * - Entries resolving outside the target directory are rejected
+ * - Links and special files are skipped; signature scans only need regular files
+ *
+ * Has no Temporal dependency so it can be exercised against any InputStream.
+ */
+public class ArchiveExtractor {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int TAR_BLOCK_SIZE = 512;
+
+    // Minimum interval between progress callbacks
+    private static final long PROGRESS_INTERVAL_MS = 5000;
+
+    /**
+     * Receives extraction progress at a bounded rate
+     */
+    public interface ProgressListener {
+        void onProgress(long filesExtracted, long bytesExtracted);
+    }
+
+    /**
+     * Totals of an extraction
+     */
+    public static class Stats {
+        private long filesExtracted;
+        private long filesSkipped;
+        private long bytesExtracted;
+
+        public long getFilesExtracted() {
+            return filesExtracted;
+        }
+
+        public long getFilesSkipped() {
+            return filesSkipped;
+        }
+
+        public long getBytesExtracted() {
+            return bytesExtracted;
+        }
+    }
+
+    private final Path targetDir;
+    private final int stripComponents;
+    private final SparseFilter filter;
+    private final ProgressListener listener;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final Stats stats = new Stats();
+    private long lastProgress = System.currentTimeMillis();
+
+    /**
+     * @param targetDir Directory receiving the extracted files (created if missing)
+     * @param stripComponents Number of leading path components to remove from entry names
+     * @param sparsePaths Sparse checkout patterns to extract (null or empty = everything)
+     * @param listener Progress callback (may be null)
+     */
+    public ArchiveExtractor(Path targetDir, int stripComponents, List<String> sparsePaths,
+                            ProgressListener listener) {
+        this.targetDir = targetDir.toAbsolutePath().normalize();
+        this.stripComponents = stripComponents;
+        this.filter = new SparseFilter(sparsePaths);
+        this.listener = listener;
+    }
+
+    /**
+     * Extract an archive stream, detecting gzip, zip or plain tar from its first bytes
+     * The stream is consumed but not closed
+     */
+    public Stats extract(InputStream input) throws IOException {
+        Files.createDirectories(targetDir);
+
+        BufferedInputStream in = new BufferedInputStream(input, BUFFER_SIZE);
+        in.mark(4);
+        int b0 = in.read();
+        int b1 = in.read();
+        in.reset();
+
+        if (b0 == 0x1f && b1 == 0x8b) {
+            extractTar(new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE));
+        } else if (b0 == 'P' && b1 == 'K') {
+            extractZip(new ZipInputStream(in));
+        } else {
+            extractTar(in);
+        }
+
+        if (listener != null) {
+            listener.onProgress(stats.filesExtracted, stats.bytesExtracted);
+        }
+        return stats;
+    }
+
+    private void extractZip(ZipInputStream zip) throws IOException {
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            if (!entry.isDirectory()) {
+                writeEntry(entry.getName(), zip, -1, false);
+            }
+            zip.closeEntry();
+        }
+    }
+
+    private void extractTar(InputStream in) throws IOException {
+        byte[] header = new byte[TAR_BLOCK_SIZE];
+        String longName = null; // From a GNU 'L' or pax 'x' header, applies to the next entry
+
+        while (true) {
+            if (!readBlock(in, header)) {
+                return; // Truncated archive without end marker - keep what was extracted
+            }
+            if (isZeroBlock(header)) {
+                return; // End of archive
+            }
+
+            String name = parseString(header, 0, 100);
+            long size = parseOctal(header, 124, 12);
+            char type = (char) header[156];
+            String magic = parseString(header, 257, 6);
+            if (magic.startsWith("ustar")) {
+                String prefix = parseString(header, 345, 155);
+                if (!prefix.isEmpty()) {
+                    name = prefix + "/" + name;
+                }
+            }
+
+            switch (type) {
+                case 'L': // GNU long name
+                    longName = parseString(readContent(in, size), 0, (int) size);
+                    continue;
+                case 'x': // pax extended header for the next entry
+                    String paxPath = parsePaxPath(readContent(in, size));
+                    if (paxPath != null) {
+                        longName = paxPath;
+                    }
+                    continue;
+                case 'g': // pax global header (e.g. commit id comment)
+                case 'K': // GNU long link name
+                    skipContent(in, size);
+                    continue;
+                default:
+                    break;
+            }
+
+            if (longName != null) {
+                name = longName;
+                longName = null;
+            }
+
+            if (type == '0' || type == '\0' || type == '7') {
+                boolean executable = (parseOctal(header, 100, 8) & 0100) != 0;
+                writeEntry(name, in, size, executable);
+                skipPadding(in, size);
+            } else {
+                // Directories are created on demand; links and devices are not extracted
+                skipContent(in, size);
+            }
+        }
+    }
+
+    /**
+     * Write one regular file entry, or skip it if it is outside the sparse paths
+     * @param size Bytes to copy, or -1 to copy until the stream (zip entry) ends
+     */
+    private void writeEntry(String entryName, InputStream in, long size, boolean executable) throws IOException {
+        String relative = stripLeadingComponents(entryName);
+        if (relative == null || !filter.matches(relative)) {
+            stats.filesSkipped++;
+            if (size > 0) {
+                skipFully(in, size);
+            }
+            return;
+        }
+
+        Path destination = targetDir.resolve(relative).normalize();
+        if (!destination.startsWith(targetDir) || destination.equals(targetDir)) {
+            throw new IOException("Archive entry escapes target directory: " + entryName);
+        }
+
+        Files.createDirectories(destination.getParent());
+        try (OutputStream out = Files.newOutputStream(destination)) {
+            long remaining = size;
+            while (size < 0 || remaining > 0) {
+                int toRead = size < 0 ? buffer.length : (int) Math.min(buffer.length, remaining);
+                int read = in.read(buffer, 0, toRead);
+                if (read < 0) {
+                    if (size < 0) {
+                        break;
+                    }
+                    throw new EOFException("Archive truncated in entry: " + entryName);
+                }
+                out.write(buffer, 0, read);
+                remaining -= read;
+                stats.bytesExtracted += read;
+            }
+        }
+        if (executable) {
+            destination.toFile().setExecutable(true);
+        }
+
+        stats.filesExtracted++;
+        long now = System.currentTimeMillis();
+        if (listener != null && now - lastProgress >= PROGRESS_INTERVAL_MS) {
+            listener.onProgress(stats.filesExtracted, stats.bytesExtracted);
+            lastProgress = now;
+        }
+    }
+
+    /**
+     * Remove the first stripComponents path components
+     * @return Remaining relative path, or null if nothing is left
+     */
+    private String stripLeadingComponents(String entryName) {
+        String name = entryName.replace('\\', '/');
+        while (name.startsWith("/")) {
+            name = name.substring(1);
+        }
+        for (int i = 0; i < stripComponents; i++) {
+            int slash = name.indexOf('/');
+            if (slash < 0) {
+                return null;
+            }
+            name = name.substring(slash + 1);
+        }
+        return name.isEmpty() ? null : name;
+    }
+
+    private byte[] readContent(InputStream in, long size) throws IOException {
+        if (size > Integer.MAX_VALUE - TAR_BLOCK_SIZE) {
+            throw new IOException("Archive header entry too large: " + size);
+        }
+        byte[] content = new byte[(int) size];
+        int offset = 0;
+        while (offset < content.length) {
+            int read = in.read(content, offset, content.length - offset);
+            if (read < 0) {
+                throw new EOFException("Archive truncated in header entry");
+            }
+            offset += read;
+        }
+        skipPadding(in, size);
+        return content;
+    }
+
+    private void skipContent(InputStream in, long size) throws IOException {
+        skipFully(in, size);
+        skipPadding(in, size);
+    }
+
+    private void skipPadding(InputStream in, long size) throws IOException {
+        long remainder = size % TAR_BLOCK_SIZE;
+        if (remainder != 0) {
+            skipFully(in, TAR_BLOCK_SIZE - remainder);
+        }
+    }
+
+    private void skipFully(InputStream in, long count) throws IOException {
+        long remaining = count;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                throw new EOFException("Archive truncated");
+            }
+            remaining -= read;
+        }
+    }
+
+    private static boolean readBlock(InputStream in, byte[] block) throws IOException {
+        int offset = 0;
+        while (offset < block.length) {
+            int read = in.read(block, offset, block.length - offset);
+            if (read < 0) {
+                return false;
+            }
+            offset += read;
+        }
+        return true;
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String parseString(byte[] data, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && end < data.length && data[end] != 0) {
+            end++;
+        }
+        return new String(data, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static long parseOctal(byte[] data, int offset, int length) throws IOException {
+        // GNU base-256 encoding for sizes above 8GB
+        if ((data[offset] & 0x80) != 0) {
+            long value = 0;
+            for (int i = offset + 1; i < offset + length; i++) {
+                value = (value << 8) | (data[i] & 0xff);
+            }
+            return value;
+        }
+        String text = parseString(data, offset, length).trim();
+        if (text.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(text, 8);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid tar header field: " + text, e);
+        }
+    }
+
+    /**
+     * Extract the "path" record from pax extended header content ("<len> path=<value>\n" records)
+     */
+    private static String parsePaxPath(byte[] content) {
+        String records = new String(content, StandardCharsets.UTF_8);
+        int position = 0;
+        while (position < records.length()) {
+            int space = records.indexOf(' ', position);
+            if (space < 0) {
+                break;
+            }
+            int length;
+            try {
+                length = Integer.parseInt(records.substring(position, space));
+            } catch (NumberFormatException e) {
+                break;
+            }
+            int end = Math.min(records.length(), position + length);
+            String record = records.substring(space + 1, end);
+            if (record.endsWith("\n")) {
+                record = record.substring(0, record.length() - 1);
+            }
+            if (record.startsWith("path=")) {
+                return record.substring("path=".length());
+            }
+            if (length <= 0) {
+                break;
+            }
+            position += length;
+        }
+        return null;
+    }
+
+    /**
+     * Matches archive paths against sparse checkout patterns
+     *
+     * Follows the gitignore-style rules used in .git/info/sparse-checkout:
+     * - "src/" matches a directory named src at any depth
+     * - "*.java" (no slash) matches file or directory names at any depth
+     * - "/docs" or "config/app" (slash inside) is anchored at the repository root
+     * Negated ("!") patterns are not supported and are ignored.
+     */
+    static class SparseFilter {
+        private final List<Pattern> patterns = new ArrayList<>();
+
+        SparseFilter(List<String> sparsePaths) {
+            if (sparsePaths == null) {
+                return;
+            }
+            for (String raw : sparsePaths) {
+                String pattern = raw.trim();
+                if (pattern.isEmpty() || pattern.startsWith("#") || pattern.startsWith("!")) {
+                    continue;
+                }
+                patterns.add(new Pattern(pattern));
+            }
+        }
+
+        boolean matches(String relativePath) {
+            if (patterns.isEmpty()) {
+                return true;
+            }
+            String[] segments = relativePath.split("/");
+            for (Pattern pattern : patterns) {
+                if (pattern.matches(segments)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static class Pattern {
+            private final boolean directoryOnly;
+            private final boolean anchored;
+            private final PathMatcher[] parts;
+
+            Pattern(String pattern) {
+                String p = pattern;
+                directoryOnly = p.endsWith("/");
+                if (directoryOnly) {
+                    p = p.substring(0, p.length() - 1);
+                }
+                anchored = p.contains("/");
+                if (p.startsWith("/")) {
+                    p = p.substring(1);
+                }
+                String[] split = p.split("/");
+                parts = new PathMatcher[split.length];
+                for (int i = 0; i < split.length; i++) {
+                    parts[i] = FileSystems.getDefault().getPathMatcher("glob:" + split[i]);
+                }
+            }
+
+            /**
+             * A file matches if the pattern matches a run of its leading directories
+             * (anchored) or any run of its components (unanchored); directory-only
+             * patterns must end before the file name
+             */
+            boolean matches(String[] segments) {
+                int lastStart = segments.length - parts.length - (directoryOnly ? 1 : 0);
+                int maxStart = anchored ? Math.min(0, lastStart) : lastStart;
+                for (int start = 0; start <= maxStart; start++) {
+                    if (matchesAt(segments, start)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            private boolean matchesAt(String[] segments, int start) {
+                for (int i = 0; i < parts.length; i++) {
+                    if (!parts[i].matches(Paths.get(segments[start + i]))) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+    }
+}
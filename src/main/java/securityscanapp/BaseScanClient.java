@@ -29,8 +29,8 @@ public abstract class BaseScanClient {
                 .build()
         );
         
-        // Create Workflow client
-        this.client = WorkflowClient.newInstance(serviceStub);
+        // Create Workflow client (payload codecs must match the worker's)
+        this.client = WorkflowClient.newInstance(serviceStub, ScanDataConverter.clientOptions());
     }
     
     /**
@@ -0,0 +1,22 @@
+package securityscanapp;
+
+import io.temporal.activity.ActivityInterface;
+import io.temporal.activity.ActivityMethod;
+
+import java.util.List;
+
+/**
+ * Activity interface for following child scans a batch run handed over at continue-as-new
+ */
+@ActivityInterface
+public interface BatchChildActivity {
+
+    /**
+     * Look up child scan workflows started by earlier runs of a batch
+     * Returns at once; children that are still running are left out
+     * @param workflowIds Workflow IDs of the children
+     * @return Outcome of every child that has closed
+     */
+    @ActivityMethod
+    List<BatchChildOutcome> checkChildren(List<String> workflowIds);
+}
@@ -0,0 +1,64 @@
+package securityscanapp;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.enums.v1.WorkflowExecutionStatus;
+import io.temporal.api.workflowservice.v1.DescribeWorkflowExecutionRequest;
+import io.temporal.client.WorkflowClient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of the batch child activity using the worker's WorkflowClient
+ *
+ * Describes each child's latest run; the summary of a completed child is read to tell a
+ * successful scan from one that reported failures.
+ */
+public class BatchChildActivityImpl implements BatchChildActivity {
+
+    private final WorkflowClient client;
+
+    public BatchChildActivityImpl(WorkflowClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public List<BatchChildOutcome> checkChildren(List<String> workflowIds) {
+        List<BatchChildOutcome> outcomes = new ArrayList<>();
+        for (String workflowId : workflowIds) {
+            WorkflowExecutionStatus status;
+            try {
+                status = client.getWorkflowServiceStubs().blockingStub().describeWorkflowExecution(
+                    DescribeWorkflowExecutionRequest.newBuilder()
+                        .setNamespace(client.getOptions().getNamespace())
+                        .setExecution(WorkflowExecution.newBuilder().setWorkflowId(workflowId))
+                        .build())
+                    .getWorkflowExecutionInfo().getStatus();
+            } catch (StatusRuntimeException e) {
+                if (e.getStatus().getCode() == Status.Code.NOT_FOUND) {
+                    // Past retention: it closed long ago, the outcome is unknown
+                    outcomes.add(new BatchChildOutcome(workflowId, false, "scan workflow not found"));
+                    continue;
+                }
+                throw e;
+            }
+            switch (status) {
+                case WORKFLOW_EXECUTION_STATUS_RUNNING:
+                case WORKFLOW_EXECUTION_STATUS_CONTINUED_AS_NEW:
+                    break;
+                case WORKFLOW_EXECUTION_STATUS_COMPLETED:
+                    ScanSummary summary = client.newUntypedWorkflowStub(workflowId).getResult(ScanSummary.class);
+                    boolean success = summary != null && summary.isAllScansSuccessful();
+                    outcomes.add(new BatchChildOutcome(workflowId, success, success ? null : "scan reported failures"));
+                    break;
+                default:
+                    outcomes.add(new BatchChildOutcome(workflowId, false,
+                        "scan workflow " + status.name().replace("WORKFLOW_EXECUTION_STATUS_", "").toLowerCase()));
+            }
+        }
+        System.out.println("Checked " + workflowIds.size() + " batch child scans, " + outcomes.size() + " closed");
+        return outcomes;
+    }
+}
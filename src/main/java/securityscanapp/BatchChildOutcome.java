@@ -0,0 +1,47 @@
+package securityscanapp;
+
+/**
+ * Result of a child scan workflow started by an earlier run of a batch
+ *
+ * Reported by BatchChildActivity once the child has closed; children still running
+ * are not reported.
+ */
+public class BatchChildOutcome {
+    private String workflowId;
+    private boolean success;
+    private String failureReason; // Close status or "scan reported failures"; null on success
+
+    public BatchChildOutcome() {
+    }
+
+    public BatchChildOutcome(String workflowId, boolean success, String failureReason) {
+        this.workflowId = workflowId;
+        this.success = success;
+        this.failureReason = failureReason;
+    }
+
+    // Getters and Setters
+    public String getWorkflowId() {
+        return workflowId;
+    }
+
+    public void setWorkflowId(String workflowId) {
+        this.workflowId = workflowId;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    public void setFailureReason(String failureReason) {
+        this.failureReason = failureReason;
+    }
+}
@@ -0,0 +1,139 @@
+package securityscanapp;
+
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.serviceclient.WorkflowServiceStubs;
+
+import java.util.List;
+
+/**
+ * Client for submitting a batch of scans (e.g. a nightly portfolio sweep) as one workflow
+ *
+ * The batch workflow throttles the scan workflows it starts, so submitting thousands of
+ * requests does not flood the scan task queues. Its workflow ID is the handle for the
+ * whole sweep: query it for progress, cancel or terminate it to stop the sweep.
+ *
+ * Usage: BatchScanClient &lt;source.jsonl&gt; [batchId]
+ * The source is a JSON-lines file on the shared PVC with one ScanRequest per line.
+ *
+ * Configured from the environment:
+ * - BATCH_MAX_IN_FLIGHT: scan workflows running at the same time (default 20)
+ * - BATCH_TASK_QUEUE: task queue of the batch workflow itself (default SECURITY_SCAN_TASK_QUEUE)
+ */
+public class BatchScanClient {
+
+    // How often main prints progress while the batch runs
+    private static final long PROGRESS_INTERVAL_MS = 30000;
+
+    private final WorkflowServiceStubs serviceStub;
+    private final WorkflowClient client;
+    private final String taskQueue;
+
+    public BatchScanClient(String temporalAddress) {
+        this.serviceStub = WorkflowServiceStubs.newServiceStubs(
+            io.temporal.serviceclient.WorkflowServiceStubsOptions.newBuilder()
+                .setTarget(temporalAddress)
+                .build()
+        );
+        // Payload codecs must match the worker's
+        this.client = WorkflowClient.newInstance(serviceStub, ScanDataConverter.clientOptions());
+        this.taskQueue = System.getenv().getOrDefault("BATCH_TASK_QUEUE", Shared.SECURITY_SCAN_TASK_QUEUE_DEFAULT);
+    }
+
+    /**
+     * Create a batch request reading scan requests page by page from a JSON-lines file
+     */
+    public BatchScanRequest createBatchRequest(String batchId, String sourcePath) {
+        BatchScanRequest request = new BatchScanRequest(batchId, sourcePath);
+        request.setMaxInFlight(Integer.parseInt(System.getenv().getOrDefault(
+            "BATCH_MAX_IN_FLIGHT", String.valueOf(request.getMaxInFlight()))));
+        return request;
+    }
+
+    /**
+     * Create a batch request for scan requests built in memory
+     */
+    public BatchScanRequest createBatchRequest(String batchId, List<ScanRequest> requests) {
+        BatchScanRequest request = new BatchScanRequest(batchId, requests);
+        request.setMaxInFlight(Integer.parseInt(System.getenv().getOrDefault(
+            "BATCH_MAX_IN_FLIGHT", String.valueOf(request.getMaxInFlight()))));
+        return request;
+    }
+
+    /**
+     * Start a batch without waiting for it
+     * @return Workflow ID of the batch (batch-&lt;batchId&gt;)
+     */
+    public String submitBatch(BatchScanRequest request) {
+        if (request.getBatchId() == null || request.getBatchId().isEmpty()) {
+            throw new IllegalArgumentException("Batch ID must be specified in BatchScanRequest");
+        }
+        String workflowId = batchWorkflowId(request.getBatchId());
+        BatchScanWorkflow workflow = client.newWorkflowStub(BatchScanWorkflow.class,
+            WorkflowOptions.newBuilder()
+                .setTaskQueue(taskQueue)
+                .setWorkflowId(workflowId)
+                .build());
+
+        io.temporal.api.common.v1.WorkflowExecution execution =
+            WorkflowClient.start(workflow::executeBatch, request);
+
+        System.out.println("Batch workflow started successfully");
+        System.out.println("Workflow ID: " + workflowId);
+        System.out.println("Run ID: " + execution.getRunId());
+        System.out.println("Task Queue: " + taskQueue);
+        System.out.println("Max In Flight: " + request.getMaxInFlight());
+        return workflowId;
+    }
+
+    /**
+     * Query the progress of a batch (follows continue-as-new to the current run)
+     */
+    public BatchScanProgress getProgress(String workflowId) {
+        return client.newWorkflowStub(BatchScanWorkflow.class, workflowId).getProgress();
+    }
+
+    public void shutdown() {
+        serviceStub.shutdown();
+    }
+
+    static String batchWorkflowId(String batchId) {
+        return "batch-" + batchId;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: BatchScanClient <source.jsonl> [batchId]");
+            System.exit(1);
+        }
+        String temporalAddress = System.getenv("TEMPORAL_ADDRESS");
+        if (temporalAddress == null || temporalAddress.isEmpty()) {
+            temporalAddress = "localhost:7233";
+        }
+        String batchId = args.length > 1 ? args[1] : "sweep-" + System.currentTimeMillis();
+
+        BatchScanClient batchClient = new BatchScanClient(temporalAddress);
+        try {
+            String workflowId = batchClient.submitBatch(batchClient.createBatchRequest(batchId, args[0]));
+
+            BatchScanProgress progress;
+            do {
+                Thread.sleep(PROGRESS_INTERVAL_MS);
+                progress = batchClient.getProgress(workflowId);
+                System.out.println("Batch " + batchId + ": " + progress.getCompleted() + "/" +
+                    (progress.getTotalRequests() >= 0 ? String.valueOf(progress.getTotalRequests()) : "?") +
+                    " completed, " + progress.getFailed() + " failed, " + progress.getInFlight() + " in flight" +
+                    " (run " + progress.getRuns() + ")");
+            } while (!progress.isFinished());
+
+            for (String failure : progress.getFailures()) {
+                System.out.println("  Failed: " + failure);
+            }
+        } catch (Exception e) {
+            System.err.println("Batch execution failed: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            batchClient.shutdown();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package securityscanapp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progress of a batch of scans, returned by the progress query and as the batch result
+ */
+public class BatchScanProgress {
+
+    // Failed scans listed individually; the counters keep counting past this
+    static final int MAX_RECORDED_FAILURES = 100;
+
+    private String batchId;
+    private long totalRequests = -1; // -1 while a paged source has not been read to the end
+    private long started;
+    private long completed;
+    private long succeeded;
+    private long failed;
+    private int inFlight;
+    private int runs; // Workflow runs so far (continue-as-new count + 1)
+    private boolean finished;
+    private List<String> failures = new ArrayList<>(); // "workflowId: reason"
+
+    public BatchScanProgress() {
+    }
+
+    public BatchScanProgress(String batchId) {
+        this.batchId = batchId;
+    }
+
+    /**
+     * Record a scan that finished, successfully or not
+     */
+    public void recordCompleted(String workflowId, boolean success, String failureReason) {
+        completed++;
+        if (success) {
+            succeeded++;
+        } else {
+            failed++;
+            if (failures.size() < MAX_RECORDED_FAILURES) {
+                failures.add(workflowId + ": " + failureReason);
+            }
+        }
+    }
+
+    // Getters and Setters
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(String batchId) {
+        this.batchId = batchId;
+    }
+
+    public long getTotalRequests() {
+        return totalRequests;
+    }
+
+    public void setTotalRequests(long totalRequests) {
+        this.totalRequests = totalRequests;
+    }
+
+    public long getStarted() {
+        return started;
+    }
+
+    public void setStarted(long started) {
+        this.started = started;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(long completed) {
+        this.completed = completed;
+    }
+
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(long succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public void setInFlight(int inFlight) {
+        this.inFlight = inFlight;
+    }
+
+    public int getRuns() {
+        return runs;
+    }
+
+    public void setRuns(int runs) {
+        this.runs = runs;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public void setFinished(boolean finished) {
+        this.finished = finished;
+    }
+
+    public List<String> getFailures() {
+        return failures;
+    }
+
+    public void setFailures(List<String> failures) {
+        this.failures = failures;
+    }
+}
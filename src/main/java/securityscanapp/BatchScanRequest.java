@@ -0,0 +1,128 @@
+package securityscanapp;
+
+import java.util.List;
+
+/**
+ * Request for a batch of scans run by BatchScanWorkflow
+ *
+ * Scan requests are either passed inline (requests) or read page by page from a
+ * JSON-lines file on the shared PVC (sourcePath, one ScanRequest per line), which keeps
+ * thousands of requests out of the workflow input. The workflow continues as new every
+ * childrenPerRun scans; offset, sourceByteOffset and progress carry the state into the next run,
+ * and inFlightWorkflowIds the children that were still running.
+ */
+public class BatchScanRequest {
+    private String batchId;
+    private List<ScanRequest> requests; // Inline requests (remaining ones after continue-as-new)
+    private String sourcePath; // JSON-lines file of ScanRequests, used when requests is null
+    private int pageSize = 100; // Requests read from sourcePath per activity call
+    private int maxInFlight = 20; // Child scan workflows running at the same time
+    private int childrenPerRun = 500; // Child scan workflows started before continue-as-new
+    private long offset; // Requests of sourcePath already started by previous runs
+    private Long sourceByteOffset; // Byte offset in sourcePath after those requests (null: resume by offset)
+    private List<String> inFlightWorkflowIds; // Children of previous runs still running at continue-as-new
+    private int carriedPollSeconds = 60; // Seconds between lookups of those children
+    private BatchScanProgress progress; // Counters carried over from previous runs
+
+    public BatchScanRequest() {
+    }
+
+    public BatchScanRequest(String batchId, List<ScanRequest> requests) {
+        this.batchId = batchId;
+        this.requests = requests;
+    }
+
+    public BatchScanRequest(String batchId, String sourcePath) {
+        this.batchId = batchId;
+        this.sourcePath = sourcePath;
+    }
+
+    // Getters and Setters
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(String batchId) {
+        this.batchId = batchId;
+    }
+
+    public List<ScanRequest> getRequests() {
+        return requests;
+    }
+
+    public void setRequests(List<ScanRequest> requests) {
+        this.requests = requests;
+    }
+
+    public String getSourcePath() {
+        return sourcePath;
+    }
+
+    public void setSourcePath(String sourcePath) {
+        this.sourcePath = sourcePath;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public int getChildrenPerRun() {
+        return childrenPerRun;
+    }
+
+    public void setChildrenPerRun(int childrenPerRun) {
+        this.childrenPerRun = childrenPerRun;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public Long getSourceByteOffset() {
+        return sourceByteOffset;
+    }
+
+    public void setSourceByteOffset(Long sourceByteOffset) {
+        this.sourceByteOffset = sourceByteOffset;
+    }
+
+    public List<String> getInFlightWorkflowIds() {
+        return inFlightWorkflowIds;
+    }
+
+    public void setInFlightWorkflowIds(List<String> inFlightWorkflowIds) {
+        this.inFlightWorkflowIds = inFlightWorkflowIds;
+    }
+
+    public int getCarriedPollSeconds() {
+        return carriedPollSeconds;
+    }
+
+    public void setCarriedPollSeconds(int carriedPollSeconds) {
+        this.carriedPollSeconds = carriedPollSeconds;
+    }
+
+    public BatchScanProgress getProgress() {
+        return progress;
+    }
+
+    public void setProgress(BatchScanProgress progress) {
+        this.progress = progress;
+    }
+}
@@ -0,0 +1,29 @@
+package securityscanapp;
+
+import io.temporal.workflow.QueryMethod;
+import io.temporal.workflow.WorkflowInterface;
+import io.temporal.workflow.WorkflowMethod;
+
+/**
+ * Workflow interface for running a large batch of scans (e.g. a nightly portfolio sweep)
+ * Each request runs as a SecurityScanWorkflow child, with a bounded number in flight
+ */
+@WorkflowInterface
+public interface BatchScanWorkflow {
+
+    /**
+     * Run every scan request of the batch
+     * @param request Batch request with inline requests or a paged request source
+     * @return Final progress counters of the batch
+     */
+    @WorkflowMethod
+    BatchScanProgress executeBatch(BatchScanRequest request);
+
+    /**
+     * Query method to retrieve the progress of the batch
+     * Counters cover all runs of the batch, not only the current one
+     * @return Current progress
+     */
+    @QueryMethod
+    BatchScanProgress getProgress();
+}
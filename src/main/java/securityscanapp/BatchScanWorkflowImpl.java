@@ -0,0 +1,321 @@
+package securityscanapp;
+
+import io.temporal.activity.ActivityOptions;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.enums.v1.ParentClosePolicy;
+import io.temporal.common.RetryOptions;
+import io.temporal.failure.ActivityFailure;
+import io.temporal.failure.TemporalFailure;
+import io.temporal.workflow.Async;
+import io.temporal.workflow.ChildWorkflowOptions;
+import io.temporal.workflow.Promise;
+import io.temporal.workflow.Workflow;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Implementation of the batch scan workflow
+ *
+ * Starts one SecurityScanWorkflow child per request, never more than maxInFlight at a
+ * time, so a sweep of thousands of repositories queues here instead of on the scan task
+ * queues. Children get the same workflow ID and task queue as a scan submitted on its own.
+ *
+ * After childrenPerRun children the run continues as new with the remaining requests
+ * (or the next source offset) and the progress so far, which keeps the history of each
+ * run bounded. Children are started with ParentClosePolicy.ABANDON, so the run does not
+ * wait for them: their workflow IDs are handed to the next run, where they count against
+ * maxInFlight and their outcomes are looked up (BatchChildActivity) every
+ * carriedPollSeconds. Only the last run waits for every child.
+ *
+ * A paged source is read from the byte offset where the previous page stopped. A line
+ * that is not a valid ScanRequest counts as a failed request; the batch goes on.
+ */
+public class BatchScanWorkflowImpl implements BatchScanWorkflow {
+
+    // Change ID for Workflow.getVersion (never rename or reuse)
+    static final String BYTE_OFFSET_CHANGE = "byte-offset"; // fetchPage by byte offset instead of fetchRequests
+    static final String ABANDON_CHILDREN_CHANGE = "abandon-children"; // continue-as-new without draining children
+
+    // Reading a page is a small file read on the PVC; a malformed source is not retried
+    private final ActivityOptions sourceActivityOptions = ActivityOptions.newBuilder()
+        .setRetryOptions(RetryOptions.newBuilder()
+            .setInitialInterval(Duration.ofSeconds(5))
+            .setMaximumAttempts(5)
+            .setDoNotRetry(IllegalArgumentException.class.getName())
+            .build())
+        .setStartToCloseTimeout(Duration.ofMinutes(2))
+        .build();
+
+    private final BatchSourceActivity sourceActivity =
+        Workflow.newActivityStub(BatchSourceActivity.class, sourceActivityOptions);
+
+    // Lookups only describe workflows; a failed lookup is simply repeated at the next poll
+    private final BatchChildActivity childActivity = Workflow.newActivityStub(BatchChildActivity.class,
+        ActivityOptions.newBuilder()
+            .setRetryOptions(RetryOptions.newBuilder().setMaximumAttempts(3).build())
+            .setStartToCloseTimeout(Duration.ofMinutes(2))
+            .build());
+
+    private BatchScanProgress progress;
+
+    // Children started by this run
+    private final List<RunningChild> inFlight = new ArrayList<>();
+
+    // Children started by earlier runs, by workflow ID
+    private final List<String> carried = new ArrayList<>();
+
+    private Promise<Void> carriedPoll;
+
+    private Duration carriedPollInterval;
+
+    private boolean abandonChildren;
+
+    /**
+     * Child scan started by this run
+     */
+    private static class RunningChild {
+        final String workflowId;
+        final Promise<WorkflowExecution> execution; // Completes once the child has started
+        final Promise<Void> done; // Completes (never fails) once the child closed and was recorded
+
+        RunningChild(String workflowId, Promise<WorkflowExecution> execution, Promise<Void> done) {
+            this.workflowId = workflowId;
+            this.execution = execution;
+            this.done = done;
+        }
+    }
+
+    @Override
+    public BatchScanProgress executeBatch(BatchScanRequest request) {
+        progress = request.getProgress() != null ? request.getProgress() : new BatchScanProgress(request.getBatchId());
+        progress.setRuns(progress.getRuns() + 1);
+
+        List<ScanRequest> inline = request.getRequests();
+        boolean paged = inline == null;
+        if (paged && request.getSourcePath() == null) {
+            throw new IllegalArgumentException("Batch request needs either requests or a sourcePath");
+        }
+        if (!paged && progress.getTotalRequests() < 0) {
+            progress.setTotalRequests(inline.size());
+        }
+        int maxInFlight = Math.max(1, request.getMaxInFlight());
+        int childrenPerRun = Math.max(1, request.getChildrenPerRun());
+        int pageSize = Math.max(1, request.getPageSize());
+
+        abandonChildren = Workflow.getVersion(ABANDON_CHILDREN_CHANGE, Workflow.DEFAULT_VERSION, 1)
+            != Workflow.DEFAULT_VERSION;
+        carriedPollInterval = Duration.ofSeconds(Math.max(1, request.getCarriedPollSeconds()));
+        if (request.getInFlightWorkflowIds() != null) {
+            carried.addAll(request.getInFlightWorkflowIds());
+        }
+        progress.setInFlight(carried.size());
+
+        Deque<ScanRequest> pending = new ArrayDeque<>();
+        int nextInline = 0;
+        long sourceOffset = request.getOffset();
+        // Runs continued from before byte offsets resume by skipping sourceOffset requests once
+        long sourceByteOffset = request.getSourceByteOffset() != null ? request.getSourceByteOffset() : 0;
+        long skipRecords = request.getSourceByteOffset() != null ? 0 : sourceOffset;
+        boolean byteOffsets = paged
+            && Workflow.getVersion(BYTE_OFFSET_CHANGE, Workflow.DEFAULT_VERSION, 1) != Workflow.DEFAULT_VERSION;
+        boolean sourceExhausted = false;
+        int startedThisRun = 0;
+
+        while (startedThisRun < childrenPerRun) {
+            if (pending.isEmpty()) {
+                if (!paged) {
+                    if (nextInline >= inline.size()) {
+                        break;
+                    }
+                    pending.add(inline.get(nextInline++));
+                } else {
+                    if (sourceExhausted) {
+                        break;
+                    }
+                    // Never read past this run, so nothing read is left unstarted at continue-as-new
+                    int limit = Math.min(pageSize, childrenPerRun - startedThisRun);
+                    if (byteOffsets) {
+                        BatchSourcePage page = sourceActivity.fetchPage(
+                            request.getSourcePath(), sourceByteOffset, skipRecords, limit);
+                        skipRecords = 0;
+                        sourceByteOffset = page.getNextOffset();
+                        sourceOffset += page.getRecords();
+                        for (String invalidLine : page.getInvalidLines()) {
+                            progress.setStarted(progress.getStarted() + 1);
+                            progress.recordCompleted("invalid request", false, invalidLine);
+                            startedThisRun++;
+                        }
+                        if (page.isEndOfSource()) {
+                            sourceExhausted = true;
+                            progress.setTotalRequests(sourceOffset);
+                        }
+                        pending.addAll(page.getRequests());
+                        continue;
+                    }
+                    List<ScanRequest> page = sourceActivity.fetchRequests(request.getSourcePath(), sourceOffset, limit);
+                    sourceOffset += page.size();
+                    if (page.size() < limit) {
+                        sourceExhausted = true;
+                        progress.setTotalRequests(sourceOffset);
+                    }
+                    pending.addAll(page);
+                    continue;
+                }
+            }
+
+            // Backpressure: wait for a child to finish before starting another
+            while (inFlight.size() + carried.size() >= maxInFlight) {
+                awaitAny();
+            }
+            RunningChild child = startChild(pending.poll());
+            if (child != null) {
+                inFlight.add(child);
+                progress.setInFlight(inFlight.size() + carried.size());
+            }
+            startedThisRun++;
+        }
+
+        boolean moreRequests = paged ? !sourceExhausted : nextInline < inline.size();
+        if (!moreRequests || !abandonChildren) {
+            while (!inFlight.isEmpty() || !carried.isEmpty()) {
+                awaitAny();
+            }
+        }
+
+        if (moreRequests) {
+            BatchScanRequest next = new BatchScanRequest();
+            next.setBatchId(request.getBatchId());
+            next.setSourcePath(request.getSourcePath());
+            next.setPageSize(request.getPageSize());
+            next.setMaxInFlight(request.getMaxInFlight());
+            next.setChildrenPerRun(request.getChildrenPerRun());
+            next.setCarriedPollSeconds(request.getCarriedPollSeconds());
+            next.setOffset(sourceOffset);
+            if (byteOffsets) {
+                next.setSourceByteOffset(sourceByteOffset);
+            }
+            if (!paged) {
+                next.setRequests(new ArrayList<>(inline.subList(nextInline, inline.size())));
+            }
+            if (abandonChildren) {
+                // Abandoned children must have started before this run closes. Children that
+                // closed while waiting were already recorded by their promise
+                for (RunningChild child : inFlight) {
+                    try {
+                        child.execution.get();
+                    } catch (RuntimeException e) {
+                        // Not started (e.g. duplicate workflow ID); recorded as failed by its promise
+                    }
+                }
+                List<String> running = new ArrayList<>(carried);
+                for (RunningChild child : inFlight) {
+                    if (child.execution.getFailure() == null && !child.done.isCompleted()) {
+                        running.add(child.workflowId);
+                    }
+                }
+                next.setInFlightWorkflowIds(running);
+            }
+            next.setProgress(progress);
+            Workflow.continueAsNew(next);
+        }
+
+        progress.setFinished(true);
+        return progress;
+    }
+
+    @Override
+    public BatchScanProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Start the scan workflow of one request
+     * @return The started child, or null if it could not be started
+     */
+    private RunningChild startChild(ScanRequest scanRequest) {
+        progress.setStarted(progress.getStarted() + 1);
+
+        String workflowId;
+        try {
+            workflowId = scanRequest.generateWorkflowId();
+        } catch (IllegalStateException e) {
+            progress.recordCompleted(String.valueOf(scanRequest.getScanId()), false, e.getMessage());
+            return null;
+        }
+
+        // Same routing as a scan submitted on its own: explicit queue, else the tool type's queue
+        ScanConfig config = scanRequest.getScanConfig();
+        String taskQueue = config != null && config.getTaskQueue() != null && !config.getTaskQueue().isEmpty()
+            ? config.getTaskQueue() : Shared.getTaskQueueForScanType(scanRequest.getToolType());
+        ChildWorkflowOptions.Builder options = ChildWorkflowOptions.newBuilder()
+            .setWorkflowId(workflowId)
+            .setTaskQueue(taskQueue);
+        if (abandonChildren) {
+            // Keeps running when this run continues as new
+            options.setParentClosePolicy(ParentClosePolicy.PARENT_CLOSE_POLICY_ABANDON);
+        }
+        if (config != null && config.getWorkflowTimeoutSeconds() != null) {
+            options.setWorkflowExecutionTimeout(Duration.ofSeconds(config.getWorkflowTimeoutSeconds()));
+        }
+        SecurityScanWorkflow scan = Workflow.newChildWorkflowStub(SecurityScanWorkflow.class, options.build());
+
+        // A failed scan (including a duplicate workflow ID) is counted, not propagated
+        Promise<Void> done = Async.function(scan::executeScans, scanRequest).handle((summary, failure) -> {
+            if (failure != null) {
+                Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+                progress.recordCompleted(workflowId, false, cause instanceof TemporalFailure
+                    ? ((TemporalFailure) cause).getOriginalMessage() : cause.getMessage());
+            } else {
+                progress.recordCompleted(workflowId, summary.isAllScansSuccessful(),
+                    "scan reported failures");
+            }
+            return null;
+        });
+        return new RunningChild(workflowId, Workflow.getWorkflowExecution(scan), done);
+    }
+
+    /**
+     * Wait until a child of this run finished or, with children of earlier runs, until
+     * the next lookup of those
+     */
+    private void awaitAny() {
+        List<Promise<Void>> waits = new ArrayList<>();
+        for (RunningChild child : inFlight) {
+            waits.add(child.done);
+        }
+        if (!carried.isEmpty()) {
+            if (carriedPoll == null) {
+                carriedPoll = Workflow.newTimer(carriedPollInterval);
+            }
+            waits.add(carriedPoll);
+        }
+        Promise.anyOf(waits).get();
+        inFlight.removeIf(child -> child.done.isCompleted());
+        if (carriedPoll != null && carriedPoll.isCompleted()) {
+            carriedPoll = null;
+            checkCarried();
+        }
+        progress.setInFlight(inFlight.size() + carried.size());
+    }
+
+    /**
+     * Record the children of earlier runs that have closed
+     */
+    private void checkCarried() {
+        List<BatchChildOutcome> outcomes;
+        try {
+            outcomes = childActivity.checkChildren(new ArrayList<>(carried));
+        } catch (ActivityFailure e) {
+            return;
+        }
+        for (BatchChildOutcome outcome : outcomes) {
+            if (carried.remove(outcome.getWorkflowId())) {
+                progress.recordCompleted(outcome.getWorkflowId(), outcome.isSuccess(), outcome.getFailureReason());
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package securityscanapp;
+
+import io.temporal.activity.ActivityInterface;
+import io.temporal.activity.ActivityMethod;
+
+import java.util.List;
+
+/**
+ * Activity interface for reading batch scan requests page by page
+ */
+@ActivityInterface
+public interface BatchSourceActivity {
+
+    /**
+     * Read a page of scan requests from a JSON-lines source, starting at a byte offset
+     * @param sourcePath JSON-lines file on the shared PVC, one ScanRequest per line
+     * @param byteOffset Byte offset to start at (BatchSourcePage.nextOffset of the previous page)
+     * @param skipRecords Requests to skip first (blank lines do not count); only for batches
+     *                    resumed from a record offset written before byte offsets
+     * @param limit Maximum number of lines to read, valid or not
+     * @return Requests read, malformed lines and the offset to continue from
+     */
+    @ActivityMethod
+    BatchSourcePage fetchPage(String sourcePath, long byteOffset, long skipRecords, int limit);
+
+    /**
+     * Read a page of scan requests from a JSON-lines source
+     *
+     * Reads the file from the start on every call; kept for batch runs started before fetchPage.
+     * @param sourcePath JSON-lines file on the shared PVC, one ScanRequest per line
+     * @param offset Requests to skip (blank lines do not count)
+     * @param limit Maximum number of requests to return
+     * @return Requests read; fewer than limit when the end of the source was reached
+     */
+    @ActivityMethod
+    List<ScanRequest> fetchRequests(String sourcePath, long offset, int limit);
+}
@@ -0,0 +1,113 @@
+package securityscanapp;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of the batch source activity reading JSON-lines files from the PVC
+ *
+ * Each page starts at the byte offset where the previous one stopped, so a sweep reads
+ * the file once in total, and memory use is bounded by one page regardless of its size.
+ */
+public class BatchSourceActivityImpl implements BatchSourceActivity {
+
+    private final Gson gson = new Gson();
+
+    @Override
+    public BatchSourcePage fetchPage(String sourcePath, long byteOffset, long skipRecords, int limit) {
+        BatchSourcePage page = new BatchSourcePage();
+        long position = byteOffset;
+        long skipped = 0;
+        try (FileChannel channel = FileChannel.open(Paths.get(sourcePath), StandardOpenOption.READ)) {
+            channel.position(byteOffset);
+            InputStream in = new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024);
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            while (page.getRecords() < limit) {
+                long lineOffset = position;
+                line.reset();
+                int b;
+                while ((b = in.read()) != -1 && b != '\n') {
+                    line.write(b);
+                }
+                if (b == -1 && line.size() == 0) {
+                    page.setEndOfSource(true);
+                    break;
+                }
+                position += line.size() + (b == -1 ? 0 : 1);
+
+                String text = new String(line.toByteArray(), StandardCharsets.UTF_8).trim();
+                if (text.isEmpty()) {
+                    continue;
+                }
+                if (skipped < skipRecords) {
+                    skipped++;
+                    continue;
+                }
+                page.setRecords(page.getRecords() + 1);
+                try {
+                    ScanRequest request = gson.fromJson(text, ScanRequest.class);
+                    if (request == null || !request.deriveIds()) {
+                        page.getInvalidLines().add(sourcePath + "@" + lineOffset +
+                            ": appId, component, buildId and toolType are required");
+                    } else {
+                        page.getRequests().add(request);
+                    }
+                } catch (JsonParseException e) {
+                    page.getInvalidLines().add(sourcePath + "@" + lineOffset + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read batch source " + sourcePath + ": " + e.getMessage(), e);
+        }
+        page.setNextOffset(position);
+        System.out.println("Read " + page.getRecords() + " scan request lines (" + page.getInvalidLines().size() +
+            " invalid) from " + sourcePath + " at byte " + byteOffset);
+        return page;
+    }
+
+    @Override
+    public List<ScanRequest> fetchRequests(String sourcePath, long offset, int limit) {
+        List<ScanRequest> page = new ArrayList<>();
+        long index = 0;
+        long lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(sourcePath), StandardCharsets.UTF_8)) {
+            String line;
+            while (page.size() < limit && (line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                if (index++ < offset) {
+                    continue;
+                }
+                try {
+                    ScanRequest request = gson.fromJson(line, ScanRequest.class);
+                    request.deriveIds();
+                    page.add(request);
+                } catch (JsonParseException e) {
+                    // Not retryable: the sweep file has to be fixed
+                    throw new IllegalArgumentException("Invalid scan request at " + sourcePath + ":" +
+                        lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read batch source " + sourcePath + ": " + e.getMessage(), e);
+        }
+        System.out.println("Read " + page.size() + " scan requests from " + sourcePath + " at offset " + offset);
+        return page;
+    }
+}
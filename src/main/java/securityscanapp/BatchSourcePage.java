@@ -0,0 +1,63 @@
+package securityscanapp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of a batch source read by BatchSourceActivity
+ *
+ * Carries the byte offset to continue from, so the next page is read without
+ * re-reading the lines before it. Malformed lines are reported, not thrown, so one bad
+ * line is counted as a failed request instead of failing the whole batch.
+ */
+public class BatchSourcePage {
+    private List<ScanRequest> requests = new ArrayList<>();
+    private List<String> invalidLines = new ArrayList<>(); // "<sourcePath>@<byte offset>: reason"
+    private long records; // Non-blank lines read, valid or not
+    private long nextOffset; // Byte offset after the last line read
+    private boolean endOfSource; // End of the file was reached before limit records
+
+    public BatchSourcePage() {
+    }
+
+    // Getters and Setters
+    public List<ScanRequest> getRequests() {
+        return requests;
+    }
+
+    public void setRequests(List<ScanRequest> requests) {
+        this.requests = requests;
+    }
+
+    public List<String> getInvalidLines() {
+        return invalidLines;
+    }
+
+    public void setInvalidLines(List<String> invalidLines) {
+        this.invalidLines = invalidLines;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public void setRecords(long records) {
+        this.records = records;
+    }
+
+    public long getNextOffset() {
+        return nextOffset;
+    }
+
+    public void setNextOffset(long nextOffset) {
+        this.nextOffset = nextOffset;
+    }
+
+    public boolean isEndOfSource() {
+        return endOfSource;
+    }
+
+    public void setEndOfSource(boolean endOfSource) {
+        this.endOfSource = endOfSource;
+    }
+}
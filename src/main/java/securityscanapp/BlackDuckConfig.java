@@ -29,6 +29,26 @@ public class BlackDuckConfig {
     public BlackDuckConfig() {
     }
     
+    /**
+     * Copy constructor (for a tool of a multi-tool scan, which sets its own scan mode)
+     */
+    public BlackDuckConfig(BlackDuckConfig other) {
+        this.alm = other.alm;
+        this.appId = other.appId;
+        this.component = other.component;
+        this.buildId = other.buildId;
+        this.srcFilename = other.srcFilename;
+        this.srcUrl = other.srcUrl;
+        this.sourceSystem = other.sourceSystem;
+        this.transId = other.transId;
+        this.scanSourceType = other.scanSourceType;
+        this.hubUrl = other.hubUrl;
+        this.hubApiToken = other.hubApiToken;
+        this.rapidScan = other.rapidScan;
+        this.projectName = other.projectName;
+        this.projectVersion = other.projectVersion;
+    }
+    
     // Getters and Setters
     public String getAlm() {
         return alm;
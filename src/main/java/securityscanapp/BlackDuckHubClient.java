@@ -0,0 +1,234 @@
+package securityscanapp;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Minimal BlackDuck Hub REST client for checking scan processing status and findings
+ *
+ * Authenticates with an API token (POST /api/tokens/authenticate) and uses the returned
+ * bearer token for:
+ * - Project version lookup by name (/api/projects, /versions)
+ * - Code location scan status (latest scan of each code location of the version)
+ * - Risk profile (vulnerability/license/operational counts) and policy status
+ */
+public class BlackDuckHubClient {
+
+    private static final int CONNECT_TIMEOUT_MS = 10000;
+    private static final int READ_TIMEOUT_MS = 30000;
+
+    // Scan summary statuses after which the hub will not change the scan any more
+    private static final Set<String> COMPLETE_STATUSES = Set.of("COMPLETE", "COMPLETED");
+    private static final Set<String> FAILED_STATUSES = Set.of("ERROR", "ERROR_SCANNING", "ERROR_SAVING_SCAN_DATA",
+        "ERROR_BUILDING_BOM", "CANCELLED");
+
+    private final String hubUrl;
+    private final String apiToken;
+    private String bearerToken;
+
+    public BlackDuckHubClient(String hubUrl, String apiToken) {
+        this.hubUrl = hubUrl.endsWith("/") ? hubUrl.substring(0, hubUrl.length() - 1) : hubUrl;
+        this.apiToken = apiToken;
+    }
+
+    /**
+     * Check whether the hub has finished processing the scans of a project version
+     *
+     * @param projectVersionUrl Version URL reported by Detect, or null to look it up by name
+     * @param projectName Project name (used when projectVersionUrl is null)
+     * @param versionName Version name (used when projectVersionUrl is null)
+     * @param codeLocationName Only consider this code location (null = all of the version)
+     */
+    public HubScanStatus checkStatus(String projectVersionUrl, String projectName, String versionName,
+                                     String codeLocationName) throws IOException {
+        String versionUrl = projectVersionUrl != null ? projectVersionUrl : findProjectVersion(projectName, versionName);
+        if (versionUrl == null) {
+            return new HubScanStatus(HubScanStatus.State.NOT_FOUND,
+                "Project version not found: " + projectName + " / " + versionName);
+        }
+
+        int total = 0;
+        int complete = 0;
+        String failure = null;
+        for (JsonElement element : items(getJson(versionUrl + "/codelocations?limit=100"))) {
+            JsonObject codeLocation = element.getAsJsonObject();
+            if (codeLocationName != null && !codeLocationName.equals(string(codeLocation, "name"))) {
+                continue;
+            }
+            total++;
+            String status = latestScanStatus(codeLocation);
+            if (status != null && COMPLETE_STATUSES.contains(status)) {
+                complete++;
+            } else if (status != null && FAILED_STATUSES.contains(status)) {
+                failure = string(codeLocation, "name") + ": " + status;
+            }
+        }
+
+        HubScanStatus status;
+        if (failure != null) {
+            status = new HubScanStatus(HubScanStatus.State.FAILED, "Hub failed processing " + failure);
+        } else if (total == 0 || complete < total) {
+            // No code locations yet means the upload has not been registered
+            status = new HubScanStatus(HubScanStatus.State.PENDING,
+                complete + " of " + total + " code locations processed");
+        } else {
+            status = new HubScanStatus(HubScanStatus.State.COMPLETE, total + " code locations processed");
+            addFindings(versionUrl, status);
+        }
+        status.setProjectVersionUrl(versionUrl);
+        return status;
+    }
+
+    /**
+     * Risk profile counts and policy status of a processed version
+     */
+    private void addFindings(String versionUrl, HubScanStatus status) throws IOException {
+        JsonObject riskProfile = getJson(versionUrl + "/risk-profile");
+        JsonObject categories = riskProfile.has("categories") ? riskProfile.getAsJsonObject("categories") : null;
+        if (categories != null) {
+            for (Map.Entry<String, JsonElement> category : categories.entrySet()) {
+                if (!category.getValue().isJsonObject()) {
+                    continue;
+                }
+                for (Map.Entry<String, JsonElement> severity : category.getValue().getAsJsonObject().entrySet()) {
+                    status.addRiskCount(category.getKey() + "." + severity.getKey(), severity.getValue().getAsLong());
+                }
+            }
+        }
+
+        JsonObject policyStatus = getJson(versionUrl + "/policy-status");
+        status.setPolicyStatus(string(policyStatus, "overallStatus"));
+    }
+
+    /**
+     * Status of the newest scan of a code location
+     */
+    private String latestScanStatus(JsonObject codeLocation) throws IOException {
+        String latestScan = link(codeLocation, "latest-scan");
+        if (latestScan != null) {
+            return string(getJson(latestScan), "status");
+        }
+        String scans = link(codeLocation, "scans");
+        if (scans == null) {
+            return null;
+        }
+        JsonArray items = items(getJson(scans + "?sort=updatedAt%20DESC&limit=1"));
+        return items.size() > 0 ? string(items.get(0).getAsJsonObject(), "status") : null;
+    }
+
+    private String findProjectVersion(String projectName, String versionName) throws IOException {
+        if (projectName == null || versionName == null) {
+            return null;
+        }
+        String projectsUrl = hubUrl + "/api/projects?limit=100&q=" + encode("name:" + projectName);
+        for (JsonElement project : items(getJson(projectsUrl))) {
+            JsonObject projectObject = project.getAsJsonObject();
+            if (!projectName.equals(string(projectObject, "name"))) {
+                continue;
+            }
+            String versionsUrl = href(projectObject) + "/versions?limit=100&q=" + encode("versionName:" + versionName);
+            for (JsonElement version : items(getJson(versionsUrl))) {
+                JsonObject versionObject = version.getAsJsonObject();
+                if (versionName.equals(string(versionObject, "versionName"))) {
+                    return href(versionObject);
+                }
+            }
+        }
+        return null;
+    }
+
+    private void authenticate() throws IOException {
+        HttpURLConnection connection = open(hubUrl + "/api/tokens/authenticate");
+        try {
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Authorization", "token " + apiToken);
+            connection.setRequestProperty("Accept", "application/vnd.blackducksoftware.user-4+json");
+            connection.setDoOutput(true);
+            connection.getOutputStream().close();
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Hub authentication failed with HTTP " + connection.getResponseCode());
+            }
+            bearerToken = string(read(connection), "bearerToken");
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private JsonObject getJson(String url) throws IOException {
+        if (bearerToken == null) {
+            authenticate();
+        }
+        HttpURLConnection connection = open(url);
+        try {
+            connection.setRequestProperty("Authorization", "Bearer " + bearerToken);
+            connection.setRequestProperty("Accept", "application/json");
+            int code = connection.getResponseCode();
+            if (code != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Hub request failed with HTTP " + code + ": " + url);
+            }
+            return read(connection);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static HttpURLConnection open(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        return connection;
+    }
+
+    private static JsonObject read(HttpURLConnection connection) throws IOException {
+        try (InputStream in = connection.getInputStream();
+             Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            JsonElement element = JsonParser.parseReader(reader);
+            return element.isJsonObject() ? element.getAsJsonObject() : new JsonObject();
+        }
+    }
+
+    private static JsonArray items(JsonObject page) {
+        return page.has("items") && page.get("items").isJsonArray() ? page.getAsJsonArray("items") : new JsonArray();
+    }
+
+    private static String href(JsonObject resource) {
+        JsonObject meta = resource.has("_meta") ? resource.getAsJsonObject("_meta") : null;
+        return meta != null ? string(meta, "href") : null;
+    }
+
+    private static String link(JsonObject resource, String rel) {
+        JsonObject meta = resource.has("_meta") ? resource.getAsJsonObject("_meta") : null;
+        if (meta == null || !meta.has("links")) {
+            return null;
+        }
+        for (JsonElement link : meta.getAsJsonArray("links")) {
+            JsonObject linkObject = link.getAsJsonObject();
+            if (rel.equals(string(linkObject, "rel"))) {
+                return string(linkObject, "href");
+            }
+        }
+        return null;
+    }
+
+    private static String string(JsonObject object, String member) {
+        JsonElement value = object.get(member);
+        return value != null && !value.isJsonNull() ? value.getAsString() : null;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,390 @@
+package securityscanapp;
+
+import com.google.gson.Gson;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BlackDuck hubs available to scans, with static mappings and load-aware routing
+ *
+ * Loaded from the JSON file named by BLACKDUCK_HUB_CONFIG, e.g.
+ * <pre>
+ * {
+ *   "hubs": [
+ *     {"name": "hub1", "url": "https://hub1.blackduck.com", "weight": 2, "maxInFlight": 20, "apiTokenEnv": "HUB1_TOKEN"},
+ *     {"name": "hub2", "url": "https://hub2.blackduck.com", "weight": 1, "pool": true}
+ *   ],
+ *   "almMappings": {"ALM1": "hub1"},
+ *   "sourceSystemMappings": {"SYSTEM1": "hub2"},
+ *   "componentMappings": {"app-123/payments": "hub1", "app-456": "hub2"},
+ *   "failureThreshold": 3,
+ *   "openSeconds": 300
+ * }
+ * </pre>
+ * Mapping values are hub names or URLs. Component mappings match "appId/component" first, then "appId".
+ *
+ * Unmapped scans are routed across pool hubs by weighted least outstanding scans
+ * ((inFlight + 1) / weight), ties broken by the lower scan latency EWMA. A hub whose
+ * Detect runs fail with hub-related exit codes failureThreshold times in a row is taken
+ * out of routing for openSeconds, then gets one trial scan (half-open). When every healthy
+ * hub is at maxInFlight the scan queues on the least loaded of them; broken hubs are never
+ * used as a fallback, and if none is healthy routing fails with a retryable error.
+ *
+ * Load and health are tracked per worker JVM (one registry shared by all activity instances).
+ */
+public class BlackDuckHubRegistry {
+
+    // Weight of the newest scan duration in the latency average
+    private static final double LATENCY_EWMA_ALPHA = 0.2;
+
+    private static final int DEFAULT_FAILURE_THRESHOLD = 3;
+    private static final int DEFAULT_OPEN_SECONDS = 300;
+
+    private static volatile BlackDuckHubRegistry instance;
+
+    /**
+     * Hub definition from the configuration file
+     */
+    static class HubDefinition {
+        String name;
+        String url;
+        int weight = 1;
+        int maxInFlight; // 0 = unlimited
+        boolean pool = true; // Eligible for load-aware routing of unmapped scans
+        String apiTokenEnv; // Environment variable holding this hub's API token
+    }
+
+    /**
+     * Configuration file layout
+     */
+    static class RegistryConfig {
+        List<HubDefinition> hubs = new ArrayList<>();
+        Map<String, String> almMappings = new HashMap<>();
+        Map<String, String> sourceSystemMappings = new HashMap<>();
+        Map<String, String> componentMappings = new HashMap<>();
+        int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+        int openSeconds = DEFAULT_OPEN_SECONDS;
+    }
+
+    /**
+     * Runtime state of one hub
+     */
+    static class Hub {
+        final HubDefinition definition;
+        int inFlight;
+        double latencyEwmaMs;
+        int consecutiveFailures;
+        long openUntil; // Circuit open (not routed to) until this time
+        boolean trialInFlight; // Half-open trial scan running
+
+        Hub(HubDefinition definition) {
+            this.definition = definition;
+        }
+    }
+
+    /**
+     * A scan's use of a hub; release it with the scan outcome
+     */
+    public class HubLease {
+        private final Hub hub; // null for a URL that is not in the registry
+        private final String url;
+        private final long startTime = System.currentTimeMillis();
+        private boolean released;
+
+        HubLease(Hub hub, String url) {
+            this.hub = hub;
+            this.url = url;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * Registered hub name, or null for an unregistered URL
+         */
+        public String getHubName() {
+            return hub != null ? hub.definition.name : null;
+        }
+
+        /**
+         * API token configured for this hub, or null
+         */
+        public String getApiToken() {
+            if (hub == null || hub.definition.apiTokenEnv == null) {
+                return null;
+            }
+            return System.getenv(hub.definition.apiTokenEnv);
+        }
+
+        /**
+         * Release the hub
+         * @param hubFailure Whether the scan failed because of the hub (counts towards the circuit breaker)
+         */
+        public void release(boolean hubFailure) {
+            if (hub == null) {
+                return;
+            }
+            synchronized (BlackDuckHubRegistry.this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+                hub.inFlight--;
+                hub.trialInFlight = false;
+                if (hubFailure) {
+                    hub.consecutiveFailures++;
+                    if (hub.consecutiveFailures >= config.failureThreshold) {
+                        hub.openUntil = System.currentTimeMillis() + config.openSeconds * 1000L;
+                        System.err.println("BlackDuck hub " + hub.definition.name + " taken out of routing for " +
+                            config.openSeconds + "s after " + hub.consecutiveFailures + " consecutive failures");
+                    }
+                } else {
+                    long duration = System.currentTimeMillis() - startTime;
+                    hub.consecutiveFailures = 0;
+                    hub.openUntil = 0;
+                    hub.latencyEwmaMs = hub.latencyEwmaMs == 0 ? duration
+                        : LATENCY_EWMA_ALPHA * duration + (1 - LATENCY_EWMA_ALPHA) * hub.latencyEwmaMs;
+                }
+            }
+        }
+    }
+
+    private final RegistryConfig config;
+    private final Map<String, Hub> hubsByName = new LinkedHashMap<>();
+    private final Map<String, Hub> hubsByUrl = new HashMap<>();
+
+    public BlackDuckHubRegistry(RegistryConfig config) {
+        this.config = config;
+        for (HubDefinition definition : config.hubs) {
+            if (definition.url == null) {
+                continue;
+            }
+            if (definition.name == null) {
+                definition.name = definition.url;
+            }
+            definition.weight = Math.max(1, definition.weight);
+            Hub hub = new Hub(definition);
+            hubsByName.put(definition.name, hub);
+            hubsByUrl.put(normalizeUrl(definition.url), hub);
+        }
+    }
+
+    /**
+     * Registry shared by all activity instances in this worker, loaded from BLACKDUCK_HUB_CONFIG
+     * (empty if the variable is unset or the file cannot be read)
+     */
+    public static BlackDuckHubRegistry getInstance() {
+        if (instance == null) {
+            synchronized (BlackDuckHubRegistry.class) {
+                if (instance == null) {
+                    instance = new BlackDuckHubRegistry(loadConfig(System.getenv("BLACKDUCK_HUB_CONFIG")));
+                }
+            }
+        }
+        return instance;
+    }
+
+    static RegistryConfig loadConfig(String path) {
+        if (path == null || path.isEmpty()) {
+            return new RegistryConfig();
+        }
+        try {
+            String json = new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
+            RegistryConfig config = new Gson().fromJson(json, RegistryConfig.class);
+            if (config == null) {
+                return new RegistryConfig();
+            }
+            withDefaults(config);
+            System.out.println("Loaded " + config.hubs.size() + " BlackDuck hubs from " + path);
+            return config;
+        } catch (Exception e) {
+            System.err.println("Failed to load BlackDuck hub configuration from " + path + ": " + e.getMessage());
+            return new RegistryConfig();
+        }
+    }
+
+    private static RegistryConfig withDefaults(RegistryConfig config) {
+        // Gson leaves fields absent from the file null/zero
+        if (config.hubs == null) {
+            config.hubs = new ArrayList<>();
+        }
+        if (config.almMappings == null) {
+            config.almMappings = new HashMap<>();
+        }
+        if (config.sourceSystemMappings == null) {
+            config.sourceSystemMappings = new HashMap<>();
+        }
+        if (config.componentMappings == null) {
+            config.componentMappings = new HashMap<>();
+        }
+        if (config.failureThreshold <= 0) {
+            config.failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+        }
+        if (config.openSeconds <= 0) {
+            config.openSeconds = DEFAULT_OPEN_SECONDS;
+        }
+        return config;
+    }
+
+    /**
+     * Hub URL mapped to an ALM, or null
+     */
+    public String mapAlm(String alm) {
+        return alm != null ? resolve(config.almMappings.get(alm)) : null;
+    }
+
+    /**
+     * Hub URL mapped to a source system, or null
+     */
+    public String mapSourceSystem(String sourceSystem) {
+        return sourceSystem != null ? resolve(config.sourceSystemMappings.get(sourceSystem)) : null;
+    }
+
+    /**
+     * Hub URL mapped to "appId/component", else to "appId", or null
+     */
+    public String mapComponent(String appId, String component) {
+        if (appId != null && component != null) {
+            String url = resolve(config.componentMappings.get(appId + "/" + component));
+            if (url != null) {
+                return url;
+            }
+        }
+        if (appId != null) {
+            return resolve(config.componentMappings.get(appId));
+        }
+        return component != null ? resolve(config.componentMappings.get(component)) : null;
+    }
+
+    /**
+     * API token configured for a registered hub URL, or null
+     */
+    public synchronized String apiTokenFor(String url) {
+        Hub hub = hubsByUrl.get(normalizeUrl(url));
+        if (hub == null || hub.definition.apiTokenEnv == null) {
+            return null;
+        }
+        return System.getenv(hub.definition.apiTokenEnv);
+    }
+    
+    /**
+     * Whether any hub is available for load-aware routing
+     */
+    public synchronized boolean hasPool() {
+        for (Hub hub : hubsByName.values()) {
+            if (hub.definition.pool) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Take a lease on a specific hub URL (explicit or mapped); load is tracked if the hub is registered
+     */
+    public synchronized HubLease acquire(String url) {
+        Hub hub = hubsByUrl.get(normalizeUrl(url));
+        if (hub != null) {
+            hub.inFlight++;
+        }
+        return new HubLease(hub, url);
+    }
+
+    /**
+     * Route to the pool hub with the fewest outstanding scans per unit of weight
+     * @return Lease on the chosen hub, or null if the pool is empty
+     * @throws HubUnavailableException if every pool hub is out of routing
+     */
+    public synchronized HubLease route() {
+        long now = System.currentTimeMillis();
+        Hub best = null;
+        double bestLoad = Double.MAX_VALUE;
+        Hub leastLoadedFull = null;
+        boolean pool = false;
+        long soonestClose = Long.MAX_VALUE;
+
+        for (Hub hub : hubsByName.values()) {
+            if (!hub.definition.pool) {
+                continue;
+            }
+            pool = true;
+            if (hub.openUntil > now || hub.trialInFlight) {
+                // Circuit open, or half-open with its trial scan still running
+                if (hub.openUntil > now) {
+                    soonestClose = Math.min(soonestClose, hub.openUntil);
+                }
+                continue;
+            }
+            double load = (hub.inFlight + 1.0) / hub.definition.weight;
+            if (hub.definition.maxInFlight > 0 && hub.inFlight >= hub.definition.maxInFlight) {
+                if (leastLoadedFull == null
+                        || load < (leastLoadedFull.inFlight + 1.0) / leastLoadedFull.definition.weight) {
+                    leastLoadedFull = hub;
+                }
+                continue;
+            }
+            if (best == null || load < bestLoad
+                    || (load == bestLoad && hub.latencyEwmaMs < best.latencyEwmaMs)) {
+                best = hub;
+                bestLoad = load;
+            }
+        }
+
+        if (best == null) {
+            if (!pool) {
+                return null;
+            }
+            // Every healthy hub is full: queue on the least loaded one rather than failing the scan
+            best = leastLoadedFull;
+            if (best == null) {
+                throw new HubUnavailableException("All BlackDuck pool hubs are out of routing after failures",
+                    soonestClose == Long.MAX_VALUE ? 0 : soonestClose - now);
+            }
+        }
+
+        if (best.consecutiveFailures >= config.failureThreshold) {
+            // Half-open: one trial scan decides whether the circuit closes
+            best.trialInFlight = true;
+        }
+        best.inFlight++;
+        return new HubLease(best, best.definition.url);
+    }
+
+    /**
+     * Detect exit codes that indicate a hub problem rather than a problem with the scanned code:
+     * 1 = FAILURE_BLACKDUCK_CONNECTIVITY, 2 = FAILURE_TIMEOUT, 11 = FAILURE_BLACKDUCK_FEATURE_ERROR
+     */
+    public static boolean isHubFailure(int detectExitCode) {
+        return detectExitCode == 1 || detectExitCode == 2 || detectExitCode == 11;
+    }
+
+    /**
+     * Resolve a mapping value (hub name or URL) to a URL
+     */
+    private synchronized String resolve(String nameOrUrl) {
+        if (nameOrUrl == null) {
+            return null;
+        }
+        Hub hub = hubsByName.get(nameOrUrl);
+        return hub != null ? hub.definition.url : nameOrUrl;
+    }
+
+    private static String normalizeUrl(String url) {
+        if (url == null) {
+            return "";
+        }
+        String normalized = url.trim().toLowerCase();
+        while (normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized;
+    }
+}
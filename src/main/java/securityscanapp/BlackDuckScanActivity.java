@@ -23,5 +23,31 @@ public interface BlackDuckScanActivity {
      */
     @ActivityMethod
     ScanResult scanSignatures(String repoPath, ScanRequest request);
+    
+    /**
+     * Choose rapid vs full scan mode and the scan timeout for a cloned repository
+     * 
+     * Uses the repository's file count, size and package manifests from the clone
+     * plus the durations of earlier scans of the same component.
+     * 
+     * @param cloneResult Result of cloning the repository
+     * @param request Scan request
+     * @return Scan plan (mode, timeout and the reason for them)
+     */
+    @ActivityMethod
+    ScanPlan planScan(CloneResult cloneResult, ScanRequest request);
+    
+    /**
+     * Check once whether the hub has finished processing a full scan
+     * 
+     * Does not wait: the workflow calls this repeatedly with durable timers in between,
+     * so no worker slot is held while the hub builds the BOM.
+     * 
+     * @param scanResult Result of scanSignatures (hub URL and project version from Detect)
+     * @param request Scan request (project/version names, API token)
+     * @return Processing state, with risk counts and policy status once complete
+     */
+    @ActivityMethod
+    HubScanStatus checkHubScanStatus(ScanResult scanResult, ScanRequest request);
 }
 
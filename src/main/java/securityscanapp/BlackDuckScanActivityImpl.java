@@ -2,13 +2,23 @@ package securityscanapp;
 
 import io.temporal.activity.Activity;
 import io.temporal.activity.ActivityExecutionContext;
+import io.temporal.client.ActivityCompletionException;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Implementation of BlackDuck Detect scanning activities
@@ -20,12 +30,111 @@ import java.nio.file.Paths;
  */
 public class BlackDuckScanActivityImpl implements BlackDuckScanActivity {
     
+    // Detect log capture: rotating files under DETECT_LOG_DIR/<scanId>, bounded summary in ScanResult
+    private static final String DETECT_LOG_NAME = "detect.log";
+    private static final long DETECT_LOG_RETENTION_MS = TimeUnit.DAYS.toMillis(Long.parseLong(
+        System.getenv().getOrDefault("DETECT_LOG_RETENTION_DAYS", "7")));
+    private static final long DETECT_LOG_PRUNE_INTERVAL_MS = TimeUnit.HOURS.toMillis(1);
+    private static final AtomicLong lastLogPrune = new AtomicLong();
+    
+    // Detect progress banners (message prefix -> phase), matched at the start of the log message
+    private static final String[][] DETECT_PHASE_BANNERS = {
+        {"Detect Version:", "INITIALIZING"},
+        {"Starting search for detectors", "RUNNING_DETECTORS"},
+        {"Running detectors", "RUNNING_DETECTORS"},
+        {"Creating BDIO code locations", "CREATING_BDIO"},
+        {"Creating BDIO files", "CREATING_BDIO"},
+        {"Starting the Black Duck Signature Scan", "SIGNATURE_SCAN"},
+        {"Starting the signature scan", "SIGNATURE_SCAN"},
+        {"Uploading BDIO files", "UPLOADING"},
+        {"Starting BDIO upload", "UPLOADING"},
+        {"Waiting for the BOM", "WAITING_FOR_BOM"},
+        {"Overall Status:", "COMPLETED"},
+    };
+    private static final List<String> DETECT_PHASE_ORDER = Arrays.asList(
+        "STARTING", "INITIALIZING", "RUNNING_DETECTORS", "CREATING_BDIO", "SIGNATURE_SCAN",
+        "UPLOADING", "WAITING_FOR_BOM", "COMPLETED");
+    private static final long DETECT_LOG_MAX_FILE_BYTES = 50L * 1024 * 1024; // 50MB per file
+    private static final int DETECT_LOG_MAX_FILES = 5;
+    private static final int DETECT_LOG_TAIL_LINES = 200;
+    private static final int DETECT_LOG_MAX_ERROR_LINES = 50;
+    
+    // Detect is killed this long before the activity's start-to-close timeout
+    private static final long DETECT_KILL_MARGIN_MS = 60000;
+    
+    // Detect JAR and tool downloads shared across scans and workers on the PVC
+    private final DetectToolCache toolCache = new DetectToolCache();
+    
+    // Resource limits and process tree supervision for Detect
+    private final ProcessSupervisor processSupervisor = new ProcessSupervisor();
+    
+    // Scan mode/timeout planning and the scan duration history it learns from
+    private final ScanModePolicy scanModePolicy = new ScanModePolicy();
+    
+    // Hub mappings, load and health - shared by all activity instances in this worker
+    private final BlackDuckHubRegistry hubRegistry = BlackDuckHubRegistry.getInstance();
+    
+    @Override
+    public HubScanStatus checkHubScanStatus(ScanResult scanResult, ScanRequest request) {
+        BlackDuckConfig blackDuckConfig = request.getBlackDuckConfig();
+        ScanConfig scanConfig = request.getScanConfig();
+        String hubUrl = scanResult.getMetadata().get("hubUrl");
+        if (hubUrl == null) {
+            return new HubScanStatus(HubScanStatus.State.NOT_FOUND, "Scan result has no hub URL");
+        }
+        
+        String apiToken = blackDuckConfig != null ? blackDuckConfig.getHubApiToken() : null;
+        if (apiToken == null) {
+            apiToken = hubRegistry.apiTokenFor(hubUrl);
+        }
+        if (apiToken == null && scanConfig != null) {
+            apiToken = scanConfig.getBlackduckApiToken();
+        }
+        if (apiToken == null) {
+            return new HubScanStatus(HubScanStatus.State.NOT_FOUND, "No API token for hub " + hubUrl);
+        }
+        
+        String projectName = blackDuckConfig != null && blackDuckConfig.getProjectName() != null
+            ? blackDuckConfig.getProjectName()
+            : scanConfig != null ? scanConfig.getBlackduckProjectName() : null;
+        String versionName = blackDuckConfig != null && blackDuckConfig.getProjectVersion() != null
+            ? blackDuckConfig.getProjectVersion()
+            : scanConfig != null ? scanConfig.getBlackduckProjectVersion() : null;
+        String codeLocationName = blackDuckConfig != null && blackDuckConfig.getTransId() != null
+            ? "scan-" + blackDuckConfig.getTransId()
+            : null;
+        
+        try {
+            HubScanStatus status = new BlackDuckHubClient(hubUrl, apiToken).checkStatus(
+                scanResult.getMetadata().get("hubProjectVersionUrl"), projectName, versionName, codeLocationName);
+            Activity.getExecutionContext().heartbeat("Hub processing: " + status.getState() + " - " + status.getMessage());
+            return status;
+        } catch (java.io.IOException e) {
+            // Retried by the activity retry policy
+            throw Activity.wrap(e);
+        }
+    }
+    
+    @Override
+    public ScanPlan planScan(CloneResult cloneResult, ScanRequest request) {
+        ScanPlan plan = scanModePolicy.plan(cloneResult, request);
+        Activity.getExecutionContext().heartbeat("Scan plan: " + (plan.isRapidScan() ? "rapid" : "full") +
+            ", timeout " + plan.getTimeoutSeconds() + "s (" + plan.getReason() + ")");
+        return plan;
+    }
+    
     @Override
     public ScanResult scanSignatures(String repoPath, ScanRequest request) {
         ActivityExecutionContext context = Activity.getExecutionContext();
         long startTime = System.currentTimeMillis();
         
-        ScanResult result = new ScanResult(ScanType.BLACKDUCK_DETECT, false);
+        ScanType scanType = request.getToolType() == ScanType.BLACKDUCK_DETECTORS
+            ? ScanType.BLACKDUCK_DETECTORS : ScanType.BLACKDUCK_DETECT;
+        ScanResult result = new ScanResult(scanType, false);
+        DetectToolCache.Lease detectLease = null;
+        DetectToolCache.ToolsDir toolsDir = null;
+        BlackDuckHubRegistry.HubLease hubLease = null;
+        boolean hubFailure = false;
         
         try {
             // Check storage health before accessing repository
@@ -39,9 +148,16 @@ public class BlackDuckScanActivityImpl implements BlackDuckScanActivity {
                 throw new RuntimeException("BlackDuck configuration is missing in ScanRequest");
             }
             
-            // Determine hub URL (if not already set)
-            String hubUrl = determineHubUrl(blackDuckConfig, request, context);
+            // Determine hub URL (if not already set); the lease counts this scan against the hub's load
+            hubLease = determineHub(blackDuckConfig, request, context);
+            String hubUrl = hubLease.getUrl();
             blackDuckConfig.setHubUrl(hubUrl);
+            if (blackDuckConfig.getHubApiToken() == null && hubLease.getApiToken() != null) {
+                blackDuckConfig.setHubApiToken(hubLease.getApiToken());
+            }
+            if (hubLease.getHubName() != null) {
+                result.addMetadata("hubName", hubLease.getHubName());
+            }
             
             context.heartbeat("Using BlackDuck Hub: " + hubUrl);
             
@@ -51,8 +167,18 @@ public class BlackDuckScanActivityImpl implements BlackDuckScanActivity {
             
             context.heartbeat("Scan type: " + (isRapidScan ? "Rapid Scan" : "Full Scan"));
             
-            // Build detect command using detect shell script
-            String[] command = buildDetectCommand(repoPath, request, blackDuckConfig);
+            // Run the cached Detect JAR when a version is pinned, detect.sh otherwise
+            if (toolCache.isEnabled()) {
+                detectLease = toolCache.acquire(context);
+                result.addMetadata("detectVersion", detectLease.getVersion());
+            }
+            result.addMetadata("detectLauncher", detectLease != null ? "cached-jar" : "script");
+            
+            // Shared tools directory if no other scan is using it, otherwise one in the workspace
+            toolsDir = toolCache.openToolsDir(detectLease, toolWorkDir(repoPath, scanType, "detect-tools"));
+            result.addMetadata("detectToolsShared", String.valueOf(toolsDir.isShared()));
+            
+            String[] command = buildDetectCommand(repoPath, request, blackDuckConfig, detectLease, toolsDir.getPath());
             
             context.heartbeat("Executing BlackDuck Detect command");
             
@@ -78,31 +204,96 @@ public class BlackDuckScanActivityImpl implements BlackDuckScanActivity {
             if (blackDuckConfig.getScanSourceType() != null) {
                 processBuilder.environment().put("DETECT_SCAN_SOURCE_TYPE", blackDuckConfig.getScanSourceType());
             }
+            if (detectLease == null) {
+                // detect.sh reuses a JAR already present in its download directory
+                processBuilder.environment().put("DETECT_JAR_DOWNLOAD_DIR", toolCache.getScriptDownloadDir().toString());
+                if (processSupervisor.getJavaOpts() != null) {
+                    // detect.sh passes DETECT_JAVA_OPTS to the JVM it starts
+                    processBuilder.environment().put("DETECT_JAVA_OPTS", processSupervisor.getJavaOpts());
+                }
+            }
             
-            Process process = processBuilder.start();
-            
-            // Capture output
-            StringBuilder output = new StringBuilder();
+            // Kill Detect shortly before the activity's start-to-close timeout so the scan reports
+            // a timeout instead of leaving the process tree running after Temporal gives up
+            Duration startToClose = context.getInfo().getStartToCloseTimeout();
+            long deadline = startToClose != null && !startToClose.isZero()
+                ? startTime + startToClose.toMillis() - DETECT_KILL_MARGIN_MS : 0;
             
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
-                    if (output.length() % 1000 == 0) {
-                        context.heartbeat("BlackDuck scanning in progress...");
+            // Full log goes to a rotating file outside the workspace, so it is still there after the
+            // workspace is cleaned up; only a bounded summary is kept in memory
+            Path logDir = detectLogDir(request, context);
+            int exitCode;
+            String killReason = null;
+            try (BoundedLogSink log = new BoundedLogSink(logDir, DETECT_LOG_NAME, DETECT_LOG_MAX_FILE_BYTES,
+                    DETECT_LOG_MAX_FILES, DETECT_LOG_TAIL_LINES, DETECT_LOG_MAX_ERROR_LINES)) {
+                
+                // Heartbeats run on the worker's scheduler thread at a fixed cadence, so a quiet
+                // Detect phase never trips the heartbeat timeout; cancellation kills the process tree
+                long processStart = System.currentTimeMillis();
+                AtomicReference<String> phase = new AtomicReference<>("STARTING");
+                DetectToolCache.Lease runningLease = detectLease;
+                try (ProcessSupervisor.Supervised supervised = processSupervisor.start(processBuilder, deadline);
+                     HeartbeatScheduler.Registration heartbeat = HeartbeatScheduler.register(context,
+                        () -> {
+                            if (runningLease != null) {
+                                // Keeps the version from being evicted however long the scan runs
+                                runningLease.touch();
+                            }
+                            return new ScanProgress(scanType.name(), phase.get(),
+                                System.currentTimeMillis() - processStart,
+                                log.getTotalBytes(), log.getTotalLines(), log.getLastLine());
+                        },
+                        supervised::destroyTree)) {
+                    Process process = supervised.getProcess();
+                    if (supervised.getCgroupPath() != null) {
+                        result.addMetadata("detectCgroup", supervised.getCgroupPath());
+                    }
+                    
+                    try (BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            log.append(line);
+                            String detectedPhase = parseDetectPhase(line);
+                            if (detectedPhase != null
+                                    && detectPhaseOrder(detectedPhase) > detectPhaseOrder(phase.get())) {
+                                phase.set(detectedPhase);
+                            }
+                            String projectVersionUrl = parseProjectVersionUrl(line);
+                            if (projectVersionUrl != null) {
+                                result.addMetadata("hubProjectVersionUrl", projectVersionUrl);
+                            }
+                        }
+                    }
+                    
+                    exitCode = process.waitFor();
+                    
+                    if (heartbeat.isCancelled()) {
+                        // Activity was cancelled or timed out - report that, not the killed process' exit code
+                        throw heartbeat.getCancellation();
+                    }
+                    
+                    result.addMetadata("detectPeakProcesses", String.valueOf(supervised.getPeakProcesses()));
+                    if (supervised.isTimedOut()) {
+                        killReason = "deadline";
+                    } else if (supervised.isOomKilled()) {
+                        killReason = "oom";
                     }
                 }
+                
+                result.setOutput(log.getSummary());
+                result.addMetadata("detectLogPath", log.getLogPath().toString());
+                result.addMetadata("detectLogBytes", String.valueOf(log.getTotalBytes()));
+                result.addMetadata("detectLogLines", String.valueOf(log.getTotalLines()));
+                result.addMetadata("detectLogErrorLines", String.valueOf(log.getTotalErrorLines()));
             }
             
-            int exitCode = process.waitFor();
-            
             long executionTime = System.currentTimeMillis() - startTime;
             result.setExecutionTimeMs(executionTime);
-            result.setOutput(output.toString());
             
             if (exitCode == 0) {
                 result.setSuccess(true);
+                scanModePolicy.recordDuration(request, isRapidScan, executionTime);
                 
                 // For rapid scans, results may be available immediately
                 // For full scans, results may need to be polled
@@ -117,9 +308,18 @@ public class BlackDuckScanActivityImpl implements BlackDuckScanActivity {
                 // Extract scan results if available
                 extractScanResults(repoPath, result, blackDuckConfig);
                 
+            } else if (killReason != null) {
+                // Killed by the supervisor - a problem with this scan, not with the hub
+                result.setSuccess(false);
+                result.addMetadata("detectKilled", killReason);
+                result.setErrorMessage("deadline".equals(killReason)
+                    ? "BlackDuck Detect killed after running past the scan timeout"
+                    : "BlackDuck Detect killed for exceeding its memory limit (DETECT_MEMORY_LIMIT)");
+                context.heartbeat("BlackDuck Detect scan killed: " + killReason);
             } else {
                 result.setSuccess(false);
                 result.setErrorMessage("BlackDuck Detect exited with code: " + exitCode);
+                hubFailure = BlackDuckHubRegistry.isHubFailure(exitCode);
                 context.heartbeat("BlackDuck Detect scan failed");
             }
             
@@ -129,113 +329,184 @@ public class BlackDuckScanActivityImpl implements BlackDuckScanActivity {
             // Re-throw storage failures as-is (not wrapped)
             // Workflow will handle these specially
             throw e;
+        } catch (ActivityCompletionException e) {
+            // Cancellation/timeout reported by Temporal - rethrow as-is so it is not retried as a failure
+            throw e;
         } catch (Exception e) {
             long executionTime = System.currentTimeMillis() - startTime;
             result.setExecutionTimeMs(executionTime);
             result.setSuccess(false);
             result.setErrorMessage("BlackDuck Detect scan failed: " + e.getMessage());
             throw Activity.wrap(new RuntimeException("BlackDuck Detect scan error", e));
+        } finally {
+            if (toolsDir != null) {
+                toolsDir.close();
+            }
+            if (detectLease != null) {
+                detectLease.close();
+            }
+            if (hubLease != null) {
+                hubLease.release(hubFailure);
+            }
+        }
+    }
+    
+    /**
+     * Log directory of this scan attempt: DETECT_LOG_DIR/<scanId>/<runId>-<activityId>-<attempt>
+     * (the activity id tells apart the tools of a multi-tool scan)
+     * Logs of scans older than DETECT_LOG_RETENTION_DAYS are pruned, at most hourly per worker
+     */
+    private static Path detectLogDir(ScanRequest request, ActivityExecutionContext context) {
+        Path baseDir = Paths.get(Shared.DETECT_LOG_DIR);
+        long now = System.currentTimeMillis();
+        long last = lastLogPrune.get();
+        if (now - last >= DETECT_LOG_PRUNE_INTERVAL_MS && lastLogPrune.compareAndSet(last, now)) {
+            pruneDetectLogs(baseDir, now - DETECT_LOG_RETENTION_MS);
+        }
+        String scanId = request.getScanId() != null ? request.getScanId() : "unknown";
+        return baseDir.resolve(scanId)
+            .resolve(context.getInfo().getRunId() + "-" + context.getInfo().getActivityId()
+                + "-" + context.getInfo().getAttempt());
+    }
+    
+    /**
+     * Delete per-scan log directories not written to since the cutoff
+     */
+    static void pruneDetectLogs(Path baseDir, long cutoffMillis) {
+        if (!Files.isDirectory(baseDir)) {
+            return;
+        }
+        try (DirectoryStream<Path> scans = Files.newDirectoryStream(baseDir)) {
+            for (Path scanDir : scans) {
+                try {
+                    if (Files.getLastModifiedTime(scanDir).toMillis() < cutoffMillis) {
+                        WorkspaceDeleter.deleteTree(scanDir);
+                    }
+                } catch (java.io.IOException e) {
+                    System.err.println("Failed to prune Detect logs " + scanDir + ": " + e.getMessage());
+                }
+            }
+        } catch (java.io.IOException e) {
+            System.err.println("Failed to list Detect logs in " + baseDir + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Extract the hub project version URL from Detect's "Black Duck Project BOM: <url>/components" line
+     * @return Project version URL, or null if the line does not carry it
+     */
+    static String parseProjectVersionUrl(String line) {
+        int marker = line.indexOf("Project BOM:");
+        if (marker < 0) {
+            return null;
         }
+        String url = line.substring(marker + "Project BOM:".length()).trim();
+        int space = url.indexOf(' ');
+        if (space > 0) {
+            url = url.substring(0, space);
+        }
+        if (!url.startsWith("http")) {
+            return null;
+        }
+        return url.endsWith("/components") ? url.substring(0, url.length() - "/components".length()) : url;
     }
     
     /**
-     * Determine the appropriate BlackDuck Hub URL for this scan
+     * Map a line of Detect console output to a coarse scan phase for heartbeats
      * 
-     * This method can implement various strategies:
-     * - Based on ALM
-     * - Based on source system
-     * - Based on component/appId
-     * - Round-robin or load balancing
+     * Only Detect's own progress banners count: the message after the log prefix
+     * ("<timestamp> INFO [main] --- ") has to start with a banner, so file paths, detector
+     * names or tool output that merely mention "upload" or "BDIO" do not change the phase.
+     * 
+     * @return Phase name, or null if the line does not start a new phase
+     */
+    static String parseDetectPhase(String line) {
+        String message = line;
+        int prefixEnd = line.indexOf(" --- ");
+        if (prefixEnd >= 0) {
+            message = line.substring(prefixEnd + " --- ".length());
+        }
+        message = message.trim();
+        for (String[] banner : DETECT_PHASE_BANNERS) {
+            if (message.regionMatches(true, 0, banner[0], 0, banner[0].length())) {
+                return banner[1];
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Position of a phase in Detect's run order; phases only move forward
+     */
+    static int detectPhaseOrder(String phase) {
+        return DETECT_PHASE_ORDER.indexOf(phase);
+    }
+    
+    /**
+     * Determine the BlackDuck Hub for this scan and take a lease on it
+     * 
+     * Strategies, in order:
+     * - Explicit hub URL in BlackDuckConfig
+     * - Static mappings from the hub registry: ALM, source system, component/appId
+     * - Load-aware routing across the registry's hub pool
+     * - Default hub URL from ScanConfig
      * 
      * @param blackDuckConfig BlackDuck configuration
      * @param request Scan request
      * @param context Activity context for heartbeats
-     * @return Hub URL
+     * @return Lease on the hub; release it with the scan outcome
      */
-    private String determineHubUrl(BlackDuckConfig blackDuckConfig, ScanRequest request, 
-                                   ActivityExecutionContext context) {
+    private BlackDuckHubRegistry.HubLease determineHub(BlackDuckConfig blackDuckConfig, ScanRequest request, 
+                                                      ActivityExecutionContext context) {
         // If hub URL is already set, use it
         if (blackDuckConfig.getHubUrl() != null && !blackDuckConfig.getHubUrl().isEmpty()) {
-            return blackDuckConfig.getHubUrl();
+            return hubRegistry.acquire(blackDuckConfig.getHubUrl());
         }
         
         context.heartbeat("Determining BlackDuck Hub URL...");
         
         // Strategy 1: Determine based on ALM
-        if (blackDuckConfig.getAlm() != null) {
-            // Map ALM to hub URL (implement your mapping logic)
-            String hubUrl = mapAlmToHubUrl(blackDuckConfig.getAlm());
-            if (hubUrl != null) {
-                context.heartbeat("Hub URL determined from ALM: " + hubUrl);
-                return hubUrl;
-            }
+        String hubUrl = hubRegistry.mapAlm(blackDuckConfig.getAlm());
+        if (hubUrl != null) {
+            context.heartbeat("Hub URL determined from ALM: " + hubUrl);
+            return hubRegistry.acquire(hubUrl);
         }
         
         // Strategy 2: Determine based on source system
-        if (blackDuckConfig.getSourceSystem() != null) {
-            String hubUrl = mapSourceSystemToHubUrl(blackDuckConfig.getSourceSystem());
-            if (hubUrl != null) {
-                context.heartbeat("Hub URL determined from source system: " + hubUrl);
-                return hubUrl;
-            }
+        hubUrl = hubRegistry.mapSourceSystem(blackDuckConfig.getSourceSystem());
+        if (hubUrl != null) {
+            context.heartbeat("Hub URL determined from source system: " + hubUrl);
+            return hubRegistry.acquire(hubUrl);
         }
         
         // Strategy 3: Determine based on component/appId
-        if (request.getComponent() != null || request.getAppId() != null) {
-            String hubUrl = mapComponentToHubUrl(request.getAppId(), request.getComponent());
-            if (hubUrl != null) {
-                context.heartbeat("Hub URL determined from component: " + hubUrl);
-                return hubUrl;
-            }
+        hubUrl = hubRegistry.mapComponent(request.getAppId(), request.getComponent());
+        if (hubUrl != null) {
+            context.heartbeat("Hub URL determined from component: " + hubUrl);
+            return hubRegistry.acquire(hubUrl);
+        }
+        
+        // Strategy 4: Least-loaded healthy hub from the pool
+        BlackDuckHubRegistry.HubLease routed = hubRegistry.route();
+        if (routed != null) {
+            context.heartbeat("Hub routed by load: " + routed.getHubName() + " (" + routed.getUrl() + ")");
+            return routed;
         }
         
         // Fallback: Use default hub URL from ScanConfig (if available)
         ScanConfig scanConfig = request.getScanConfig();
         if (scanConfig != null && scanConfig.getBlackduckUrl() != null) {
             context.heartbeat("Using default hub URL from config: " + scanConfig.getBlackduckUrl());
-            return scanConfig.getBlackduckUrl();
+            return hubRegistry.acquire(scanConfig.getBlackduckUrl());
         }
         
         // If no hub URL can be determined, throw exception
         throw new RuntimeException(
             "Cannot determine BlackDuck Hub URL. " +
-            "Please provide hub URL in BlackDuckConfig or implement hub determination logic."
+            "Please provide hub URL in BlackDuckConfig or configure hubs in BLACKDUCK_HUB_CONFIG."
         );
     }
     
-    /**
-     * Map ALM to hub URL
-     * Implement your ALM-to-hub mapping logic here
-     */
-    private String mapAlmToHubUrl(String alm) {
-        // TODO: Implement ALM to hub URL mapping
-        // Example:
-        // if ("ALM1".equals(alm)) return "https://hub1.blackduck.com";
-        // if ("ALM2".equals(alm)) return "https://hub2.blackduck.com";
-        return null;
-    }
-    
-    /**
-     * Map source system to hub URL
-     * Implement your source-system-to-hub mapping logic here
-     */
-    private String mapSourceSystemToHubUrl(String sourceSystem) {
-        // TODO: Implement source system to hub URL mapping
-        // Example:
-        // if ("SYSTEM1".equals(sourceSystem)) return "https://hub1.blackduck.com";
-        return null;
-    }
-    
-    /**
-     * Map component/appId to hub URL
-     * Implement your component-to-hub mapping logic here
-     */
-    private String mapComponentToHubUrl(String appId, String component) {
-        // TODO: Implement component/appId to hub URL mapping
-        // This could be based on component name patterns, appId ranges, etc.
-        return null;
-    }
-    
     /**
      * Determine if this is a rapid scan
      * 
@@ -255,17 +526,13 @@ public class BlackDuckScanActivityImpl implements BlackDuckScanActivity {
         }
         
         // Strategy 1: Based on scan source type
-        if (blackDuckConfig.getScanSourceType() != null) {
-            String scanSourceType = blackDuckConfig.getScanSourceType().toUpperCase();
-            // Some scan source types indicate rapid scans
-            if (scanSourceType.contains("RAPID") || scanSourceType.contains("QUICK")) {
-                return true;
-            }
+        // Some scan source types indicate rapid scans
+        if (ScanModePolicy.isRapidSourceType(blackDuckConfig.getScanSourceType())) {
+            return true;
         }
         
-        // Strategy 2: Based on repository size (if available)
-        // Could check repo size and determine if it's small enough for rapid scan
-        // This would require checking the repository size first
+        // Strategy 2: Based on repository size and manifests
+        // Chosen by planScan before the scan and passed in as blackDuckConfig.rapidScan
         
         // Default: full scan
         return false;
@@ -283,12 +550,21 @@ public class BlackDuckScanActivityImpl implements BlackDuckScanActivity {
      * - Additional parameters from BlackDuckConfig
      */
     private String[] buildDetectCommand(String repoPath, ScanRequest request, 
-                                         BlackDuckConfig blackDuckConfig) {
+                                         BlackDuckConfig blackDuckConfig,
+                                         DetectToolCache.Lease detectLease, Path toolsDir) {
         java.util.List<String> command = new java.util.ArrayList<>();
         
-        // Find detect shell script (typically detect.sh or detect8.sh)
-        String detectScript = findDetectScript();
-        command.add(detectScript);
+        if (detectLease != null) {
+            // Verified JAR from the tool cache - no download on this pod
+            command.add("java");
+            command.addAll(processSupervisor.getJavaOptions());
+            command.add("-jar");
+            command.add(detectLease.getJarPath().toString());
+        } else {
+            // Find detect shell script (typically detect.sh or detect8.sh)
+            String detectScript = findDetectScript();
+            command.add(detectScript);
+        }
         
         // Source path (Detect scans the repository directory)
         command.add("--detect.source.path");
@@ -332,7 +608,7 @@ public class BlackDuckScanActivityImpl implements BlackDuckScanActivity {
         }
         
         // Output directory (outside repo to save space)
-        String outputDir = Paths.get(repoPath).getParent().resolve("blackduck-output").toString();
+        String outputDir = toolWorkDir(repoPath, request.getToolType(), "blackduck-output").toString();
         command.add("--detect.output.path");
         command.add(outputDir);
         
@@ -340,12 +616,17 @@ public class BlackDuckScanActivityImpl implements BlackDuckScanActivity {
         // These can be passed as environment variables or Detect properties
         // For now, we'll use environment variables (set in scanSignatures method)
         
+        // Signature scanner and inspectors are downloaded once into the tool cache
+        // (not the per-scan output directory, which --detect.cleanup removes)
+        command.add("--detect.tools.output.path");
+        command.add(toolsDir.toString());
+        
         // Cleanup option for space efficiency
         command.add("--detect.cleanup");
         
-        // Only signature scan to save space
+        // One Detect tool per scan type: signature scan only (to save space), or the detectors
         command.add("--detect.tools");
-        command.add("SIGNATURE_SCAN");
+        command.add(request.getToolType() == ScanType.BLACKDUCK_DETECTORS ? "DETECTOR" : "SIGNATURE_SCAN");
         
         // Additional properties that might be useful
         // --detect.code.location.name (optional, for organizing scans)
@@ -357,6 +638,15 @@ public class BlackDuckScanActivityImpl implements BlackDuckScanActivity {
         return command.toArray(new String[0]);
     }
     
+    /**
+     * Directory next to the checkout for one scan type: name for signature scans, name-detectors
+     * for detector scans, so tools scanning the same checkout concurrently do not share it
+     */
+    static Path toolWorkDir(String repoPath, ScanType scanType, String name) {
+        String dirName = scanType == ScanType.BLACKDUCK_DETECTORS ? name + "-detectors" : name;
+        return Paths.get(repoPath).getParent().resolve(dirName);
+    }
+    
     /**
      * Find the detect shell script
      * Looks for detect.sh, detect8.sh, or detect script in common locations
@@ -396,7 +686,7 @@ public class BlackDuckScanActivityImpl implements BlackDuckScanActivity {
                                      BlackDuckConfig blackDuckConfig) {
         try {
             // Look for Detect output files
-            Path outputDir = Paths.get(repoPath).getParent().resolve("blackduck-output");
+            Path outputDir = toolWorkDir(repoPath, result.getScanType(), "blackduck-output");
             
             if (Files.exists(outputDir)) {
                 // Detect typically creates:
@@ -420,12 +710,17 @@ public class BlackDuckScanActivityImpl implements BlackDuckScanActivity {
                     if (Files.exists(rbdumpFile)) {
                         result.addMetadata("rapidScanResults", rbdumpFile.toString());
                         result.addMetadata("resultsAvailable", "true");
+                        addFindings(result, rbdumpFile);
                     }
                 } else {
                     // For full scans, results may need to be polled from Hub
                     result.addMetadata("resultsAvailable", "false");
                     result.addMetadata("pollRequired", "true");
                     result.addMetadata("hubUrl", blackDuckConfig.getHubUrl());
+                    if (Files.exists(bdioFile)) {
+                        // Component inventory only; vulnerabilities come from the hub once processed
+                        addFindings(result, bdioFile);
+                    }
                 }
             }
         } catch (Exception e) {
@@ -433,4 +728,25 @@ public class BlackDuckScanActivityImpl implements BlackDuckScanActivity {
             System.err.println("Error extracting scan results: " + e.getMessage());
         }
     }
+
+    /**
+     * Stream a Detect output file into compact findings on the result
+     *
+     * The files can be hundreds of MB for large repositories, so they are never loaded
+     * whole; only counts and the most severe findings are kept.
+     */
+    private void addFindings(ScanResult result, Path file) {
+        try {
+            ScanFindings findings = new DetectResultParser().parse(file);
+            result.setFindings(findings);
+            result.addMetadata("findings.components", String.valueOf(findings.getComponentCount()));
+            result.addMetadata("findings.vulnerabilities", String.valueOf(findings.getVulnerabilityCount()));
+            result.addMetadata("findings.policyViolations", String.valueOf(findings.getPolicyViolationCount()));
+            for (Map.Entry<String, Long> entry : findings.getVulnerabilitiesBySeverity().entrySet()) {
+                result.addMetadata("findings.vulnerabilities." + entry.getKey(), String.valueOf(entry.getValue()));
+            }
+        } catch (Exception e) {
+            System.err.println("Error parsing Detect output " + file + ": " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,174 @@
+package securityscanapp;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded capture of subprocess output
+ *
+ * Every line is streamed to a rotating log file in the workspace (base, base.1, ... base.N).
+ * Memory use is bounded regardless of how much the process prints: only the last
+ * N lines and the most recent lines matching an error pattern are kept. The summary
+ * built from them is what goes into ScanResult (and Temporal history); the full log
+ * stays on the workspace volume.
+ */
+public class BoundedLogSink implements Closeable {
+
+    // Lines matching this are kept separately so they survive the tail window
+    static final Pattern DEFAULT_ERROR_PATTERN = Pattern.compile(
+        "(?i)(\\bERROR\\b|\\bFATAL\\b|Exception|Overall Status: FAILURE|\\bfailed\\b)");
+
+    // Longer lines are truncated in memory (the file keeps them whole)
+    private static final int MAX_LINE_CHARS = 2000;
+
+    private final Path logDir;
+    private final String baseName;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final int tailLines;
+    private final int maxErrorLines;
+    private final Pattern errorPattern;
+
+    private final Deque<String> tail = new ArrayDeque<>();
+    private final Deque<String> errors = new ArrayDeque<>();
+
+    private BufferedWriter writer;
+    private long currentFileBytes;
+    private long totalBytes;
+    private long totalLines;
+    private long totalErrorLines;
+
+    /**
+     * @param logDir Directory receiving the log files (created if missing)
+     * @param baseName Log file name, rotated files get .1, .2, ... suffixes
+     * @param maxFileBytes Size at which the current file is rotated
+     * @param maxFiles Number of files kept including the current one
+     * @param tailLines Last lines kept in memory
+     * @param maxErrorLines Most recent error lines kept in memory
+     */
+    public BoundedLogSink(Path logDir, String baseName, long maxFileBytes, int maxFiles,
+                          int tailLines, int maxErrorLines) throws IOException {
+        this.logDir = logDir;
+        this.baseName = baseName;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = Math.max(1, maxFiles);
+        this.tailLines = tailLines;
+        this.maxErrorLines = maxErrorLines;
+        this.errorPattern = DEFAULT_ERROR_PATTERN;
+
+        Files.createDirectories(logDir);
+        this.writer = Files.newBufferedWriter(getLogPath(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Append one line of output
+     */
+    public synchronized void append(String line) throws IOException {
+        long lineBytes = line.length() + 1L;
+        if (currentFileBytes > 0 && currentFileBytes + lineBytes > maxFileBytes) {
+            rotate();
+        }
+        writer.write(line);
+        writer.newLine();
+        currentFileBytes += lineBytes;
+        totalBytes += lineBytes;
+        totalLines++;
+
+        String kept = line.length() > MAX_LINE_CHARS ? line.substring(0, MAX_LINE_CHARS) + "..." : line;
+        tail.addLast(kept);
+        if (tail.size() > tailLines) {
+            tail.removeFirst();
+        }
+        if (errorPattern.matcher(line).find()) {
+            totalErrorLines++;
+            errors.addLast(kept);
+            if (errors.size() > maxErrorLines) {
+                errors.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * Shift base -> base.1 -> base.2 ..., dropping the oldest, and start a new file
+     */
+    private void rotate() throws IOException {
+        writer.close();
+        Files.deleteIfExists(logDir.resolve(baseName + "." + (maxFiles - 1)));
+        for (int i = maxFiles - 2; i >= 1; i--) {
+            Path source = logDir.resolve(baseName + "." + i);
+            if (Files.exists(source)) {
+                Files.move(source, logDir.resolve(baseName + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles > 1) {
+            Files.move(getLogPath(), logDir.resolve(baseName + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        writer = Files.newBufferedWriter(getLogPath(), StandardCharsets.UTF_8);
+        currentFileBytes = 0;
+    }
+
+    /**
+     * Compact summary for ScanResult: error lines (if any) followed by the last lines
+     */
+    public synchronized String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        if (!errors.isEmpty()) {
+            summary.append("--- ").append(errors.size()).append(" of ").append(totalErrorLines)
+                   .append(" error lines ---\n");
+            for (String line : errors) {
+                summary.append(line).append("\n");
+            }
+        }
+        if (totalLines > tail.size()) {
+            summary.append("--- last ").append(tail.size()).append(" of ").append(totalLines)
+                   .append(" lines, full log: ").append(getLogPath()).append(" ---\n");
+        }
+        for (String line : tail) {
+            summary.append(line).append("\n");
+        }
+        return summary.toString();
+    }
+
+    public synchronized List<String> getTail() {
+        return new ArrayList<>(tail);
+    }
+
+    public synchronized List<String> getErrorLines() {
+        return new ArrayList<>(errors);
+    }
+
+    public synchronized String getLastLine() {
+        return tail.peekLast();
+    }
+
+    public Path getLogPath() {
+        return logDir.resolve(baseName);
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized long getTotalLines() {
+        return totalLines;
+    }
+
+    public synchronized long getTotalErrorLines() {
+        return totalErrorLines;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,83 @@
+package securityscanapp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of cloning a repository into the scan workspace
+ * Carries the repository path plus clone metadata that is reported in the ScanSummary
+ */
+public class CloneResult {
+    private String repoPath;
+    private long repositorySizeBytes;
+    private long fileCount; // Regular files in the repository after compaction
+    private String treeHash; // Git tree hash of the checked-out commit (null if unknown)
+    private List<String> manifestTypes; // Package manager ecosystems with manifests (e.g. maven, npm)
+    private Map<String, String> metadata;
+    
+    public CloneResult() {
+        this.manifestTypes = new ArrayList<>();
+        this.metadata = new HashMap<>();
+    }
+    
+    public CloneResult(String repoPath) {
+        this.repoPath = repoPath;
+        this.manifestTypes = new ArrayList<>();
+        this.metadata = new HashMap<>();
+    }
+    
+    // Getters and Setters
+    public String getRepoPath() {
+        return repoPath;
+    }
+    
+    public void setRepoPath(String repoPath) {
+        this.repoPath = repoPath;
+    }
+    
+    public long getRepositorySizeBytes() {
+        return repositorySizeBytes;
+    }
+    
+    public void setRepositorySizeBytes(long repositorySizeBytes) {
+        this.repositorySizeBytes = repositorySizeBytes;
+    }
+    
+    public long getFileCount() {
+        return fileCount;
+    }
+    
+    public void setFileCount(long fileCount) {
+        this.fileCount = fileCount;
+    }
+    
+    public String getTreeHash() {
+        return treeHash;
+    }
+    
+    public void setTreeHash(String treeHash) {
+        this.treeHash = treeHash;
+    }
+    
+    public List<String> getManifestTypes() {
+        return manifestTypes;
+    }
+    
+    public void setManifestTypes(List<String> manifestTypes) {
+        this.manifestTypes = manifestTypes;
+    }
+    
+    public Map<String, String> getMetadata() {
+        return metadata;
+    }
+    
+    public void setMetadata(Map<String, String> metadata) {
+        this.metadata = metadata;
+    }
+    
+    public void addMetadata(String key, String value) {
+        this.metadata.put(key, value);
+    }
+}
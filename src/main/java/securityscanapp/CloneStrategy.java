@@ -27,7 +27,38 @@ public enum CloneStrategy {
      * Shallow single branch - combination of shallow and single branch
      * Smallest size, fastest, recommended for large repos
      */
-    SHALLOW_SINGLE_BRANCH("shallow-single-branch", "Shallow clone of single branch");
+    SHALLOW_SINGLE_BRANCH("shallow-single-branch", "Shallow clone of single branch"),
+    
+    /**
+     * Fetch by commit - git init + fetch --depth 1 of the requested commit SHA
+     * Transfers exactly one tree and checks it out detached, no branch tip download
+     * Requires commitSha; falls back to SHALLOW_SINGLE_BRANCH when it is missing
+     * or the server refuses to serve the commit directly
+     */
+    COMMIT_FETCH("commit-fetch", "Fetch only the requested commit"),
+    
+    /**
+     * Blobless partial clone - --filter=blob:none
+     * Full commit and tree history, file contents fetched only for what is checked out
+     * Combined with sparse checkout, only blobs under the sparse paths are downloaded
+     * Keeps git log based tooling working at close to shallow-clone cost
+     */
+    PARTIAL_BLOBLESS("partial-blobless", "Partial clone without blobs"),
+    
+    /**
+     * Treeless partial clone - --filter=tree:0
+     * Commit history only, trees and blobs fetched on demand for the checked-out commit
+     * Cheapest partial clone; history walks that need trees trigger extra fetches
+     */
+    PARTIAL_TREELESS("partial-treeless", "Partial clone without trees or blobs"),
+    
+    /**
+     * Archive download - streams a tarball/zip of the ref over HTTP and extracts it
+     * No git objects at all, sparse checkout paths filter the extraction
+     * Requires ScanConfig.archiveUrlTemplate; falls back to SHALLOW_SINGLE_BRANCH
+     * when it is missing or the download fails
+     */
+    ARCHIVE("archive", "Download and extract a source archive");
     
     private final String id;
     private final String description;
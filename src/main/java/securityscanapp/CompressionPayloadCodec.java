@@ -0,0 +1,181 @@
+package securityscanapp;
+
+import com.github.luben.zstd.Zstd;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.EncodingKeys;
+import io.temporal.payload.codec.PayloadCodec;
+import io.temporal.payload.codec.PayloadCodecException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Temporal payload codec that compresses payloads
+ *
+ * Scan payloads are repetitive JSON (ScanRequest carries the same ids, paths and config
+ * objects on every activity call; ScanSummary repeats field names per ScanResult), so they
+ * compress well. The whole serialized payload (data and metadata) is compressed and wrapped:
+ * <pre>
+ *   metadata: encoding = binary/zstd or binary/gzip
+ *   data:     compressed serialized payload
+ * </pre>
+ * Payloads below the minimum size, or that do not get smaller, pass through unchanged.
+ * Both formats are always decoded, whatever this worker writes.
+ *
+ * Configured from the environment:
+ * - PAYLOAD_COMPRESSION: none (default), zstd or gzip; opt-in, since history can then only
+ *   be read through this codec (e.g. a codec server for the UI and CLI)
+ * - PAYLOAD_COMPRESSION_MIN_BYTES: smaller payloads are not compressed (default 1024)
+ */
+public class CompressionPayloadCodec implements PayloadCodec {
+
+    static final String ENCODING_ZSTD = "binary/zstd";
+    static final String ENCODING_GZIP = "binary/gzip";
+
+    private static final int DEFAULT_MIN_BYTES = 1024;
+
+    // Fast level; payloads are small and encoded on the workflow task path
+    private static final int ZSTD_LEVEL = 3;
+
+    /**
+     * Compression applied when encoding
+     */
+    public enum Algorithm {
+        ZSTD,
+        GZIP,
+        NONE
+    }
+
+    private final Algorithm algorithm;
+    private final int minBytes;
+
+    public CompressionPayloadCodec() {
+        this(parseAlgorithm(System.getenv().getOrDefault("PAYLOAD_COMPRESSION", "none")),
+             Integer.parseInt(System.getenv().getOrDefault(
+                 "PAYLOAD_COMPRESSION_MIN_BYTES", String.valueOf(DEFAULT_MIN_BYTES))));
+    }
+
+    public CompressionPayloadCodec(Algorithm algorithm, int minBytes) {
+        this.algorithm = algorithm == Algorithm.ZSTD && !zstdAvailable() ? Algorithm.GZIP : algorithm;
+        this.minBytes = minBytes;
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    @Override
+    public List<Payload> encode(List<Payload> payloads) {
+        if (algorithm == Algorithm.NONE) {
+            return payloads;
+        }
+        List<Payload> encoded = new ArrayList<>(payloads.size());
+        for (Payload payload : payloads) {
+            encoded.add(payload.getSerializedSize() >= minBytes ? compress(payload) : payload);
+        }
+        return encoded;
+    }
+
+    @Override
+    public List<Payload> decode(List<Payload> payloads) {
+        List<Payload> decoded = new ArrayList<>(payloads.size());
+        for (Payload payload : payloads) {
+            ByteString encoding = payload.getMetadataMap().get(EncodingKeys.METADATA_ENCODING_KEY);
+            String name = encoding != null ? encoding.toStringUtf8() : null;
+            if (ENCODING_ZSTD.equals(name) || ENCODING_GZIP.equals(name)) {
+                decoded.add(decompress(payload, name));
+            } else {
+                decoded.add(payload);
+            }
+        }
+        return decoded;
+    }
+
+    private Payload compress(Payload payload) {
+        byte[] bytes = payload.toByteArray();
+        byte[] compressed;
+        String encoding;
+        try {
+            if (algorithm == Algorithm.ZSTD) {
+                compressed = Zstd.compress(bytes, ZSTD_LEVEL);
+                encoding = ENCODING_ZSTD;
+            } else {
+                compressed = gzip(bytes);
+                encoding = ENCODING_GZIP;
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new PayloadCodecException("Failed to compress " + bytes.length + " byte payload", e);
+        }
+        if (compressed.length >= bytes.length) {
+            return payload;
+        }
+        return Payload.newBuilder()
+            .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ByteString.copyFromUtf8(encoding))
+            .setData(ByteString.copyFrom(compressed))
+            .build();
+    }
+
+    private static Payload decompress(Payload payload, String encoding) {
+        byte[] compressed = payload.getData().toByteArray();
+        try {
+            byte[] bytes;
+            if (ENCODING_ZSTD.equals(encoding)) {
+                long size = Zstd.decompressedSize(compressed);
+                if (size <= 0 || size > Integer.MAX_VALUE) {
+                    throw new IOException("zstd frame does not record a usable content size");
+                }
+                bytes = Zstd.decompress(compressed, (int) size);
+            } else {
+                bytes = gunzip(compressed);
+            }
+            return Payload.parseFrom(bytes);
+        } catch (InvalidProtocolBufferException e) {
+            throw new PayloadCodecException("Decompressed " + encoding + " payload is not a valid payload", e);
+        } catch (IOException | RuntimeException | UnsatisfiedLinkError e) {
+            throw new PayloadCodecException("Failed to decompress " + encoding + " payload", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return gzip.readAllBytes();
+        }
+    }
+
+    static Algorithm parseAlgorithm(String value) {
+        try {
+            return Algorithm.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown PAYLOAD_COMPRESSION '" + value + "', using zstd");
+            return Algorithm.ZSTD;
+        }
+    }
+
+    /**
+     * Whether the zstd native library loads on this platform
+     */
+    private static boolean zstdAvailable() {
+        try {
+            Zstd.compress(new byte[1]);
+            return true;
+        } catch (Throwable t) {
+            System.err.println("zstd is not available on this platform, compressing payloads with gzip: " + t);
+            return false;
+        }
+    }
+}
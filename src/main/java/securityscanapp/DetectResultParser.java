@@ -0,0 +1,322 @@
+package securityscanapp;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Streaming parser for Detect output files (BDIO and rapid scan results)
+ *
+ * Reads with Gson's JsonReader token by token and never builds a document tree: records
+ * are counted as they stream past, only the current record's fields are held, and only
+ * the most severe findings are kept. Memory use is independent of the file size.
+ *
+ * Understood layouts:
+ * - Rapid scan results: an array of component records (or an object wrapping it in
+ *   "items"/"components"/"results") with componentName, versionName, violatingPolicyNames
+ *   and vulnerability arrays (policyViolationVulnerabilities, allVulnerabilities, ...)
+ * - BDIO 1: an array of JSON-LD nodes; nodes whose @type is Component are counted
+ * - BDIO 2: an object with an "@graph" array of the same kind of nodes
+ */
+public class DetectResultParser {
+
+    // Individual findings kept in ScanFindings.topFindings
+    static final int DEFAULT_MAX_TOP_FINDINGS = 50;
+
+    private final int maxTopFindings;
+
+    public DetectResultParser() {
+        this(DEFAULT_MAX_TOP_FINDINGS);
+    }
+
+    public DetectResultParser(int maxTopFindings) {
+        this.maxTopFindings = maxTopFindings;
+    }
+
+    /**
+     * Parse a Detect output file into compact findings
+     */
+    public ScanFindings parse(Path file) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             JsonReader reader = new JsonReader(in)) {
+            reader.setLenient(true);
+            State state = new State();
+            JsonToken token = reader.peek();
+            if (token == JsonToken.BEGIN_ARRAY) {
+                readRecords(reader, state);
+            } else if (token == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if (isRecordArray(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        readRecords(reader, state);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+            ScanFindings findings = state.toFindings();
+            findings.setSource(file.toString());
+            return findings;
+        }
+    }
+
+    /**
+     * Parse state: counts plus a bounded min-heap of the most severe findings
+     */
+    private class State {
+        final ScanFindings findings = new ScanFindings();
+        final PriorityQueue<ScanFindings.Finding> top = new PriorityQueue<>(
+            Comparator.comparingInt((ScanFindings.Finding f) -> severityRank(f.getSeverity())));
+        long totalFindings;
+
+        void addFinding(ScanFindings.Finding finding) {
+            totalFindings++;
+            if (top.size() < maxTopFindings) {
+                top.add(finding);
+            } else if (maxTopFindings > 0 && severityRank(finding.getSeverity()) > severityRank(top.peek().getSeverity())) {
+                top.poll();
+                top.add(finding);
+            }
+        }
+
+        ScanFindings toFindings() {
+            List<ScanFindings.Finding> sorted = new ArrayList<>(top);
+            sorted.sort(Comparator.comparingInt((ScanFindings.Finding f) -> severityRank(f.getSeverity())).reversed());
+            findings.setTopFindings(sorted);
+            findings.setTruncated(totalFindings > sorted.size());
+            return findings;
+        }
+    }
+
+    /**
+     * One record's fields; discarded after the record is counted
+     */
+    private static class RecordFields {
+        String name;
+        String version;
+        boolean component = true; // Records without @type (rapid results) are components
+        String policySeverity;
+        final List<String> policies = new ArrayList<>();
+        final List<String[]> vulnerabilities = new ArrayList<>(); // {id, severity}
+        final Set<String> vulnerabilityIds = new HashSet<>();
+    }
+
+    private void readRecords(JsonReader reader, State state) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            RecordFields record = readRecord(reader);
+            if (!record.component) {
+                continue;
+            }
+            ScanFindings findings = state.findings;
+            findings.setComponentCount(findings.getComponentCount() + 1);
+
+            for (String[] vulnerability : record.vulnerabilities) {
+                String severity = vulnerability[1];
+                findings.setVulnerabilityCount(findings.getVulnerabilityCount() + 1);
+                findings.getVulnerabilitiesBySeverity().merge(severity, 1L, Long::sum);
+                state.addFinding(new ScanFindings.Finding(record.name, record.version, vulnerability[0], null, severity));
+            }
+            String policySeverity = record.policySeverity != null ? record.policySeverity : "UNSPECIFIED";
+            for (String policy : record.policies) {
+                findings.setPolicyViolationCount(findings.getPolicyViolationCount() + 1);
+                findings.getPolicyViolationsBySeverity().merge(policySeverity, 1L, Long::sum);
+                state.addFinding(new ScanFindings.Finding(record.name, record.version, null, policy, policySeverity));
+            }
+        }
+        reader.endArray();
+    }
+
+    private RecordFields readRecord(JsonReader reader) throws IOException {
+        RecordFields record = new RecordFields();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            JsonToken token = reader.peek();
+            switch (field) {
+                case "componentName":
+                case "name":
+                    if (token == JsonToken.STRING) {
+                        record.name = reader.nextString();
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                case "versionName":
+                case "componentVersion":
+                case "version":
+                case "revision":
+                    if (token == JsonToken.STRING) {
+                        record.version = reader.nextString();
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                case "@type":
+                    record.component = typeIsComponent(reader);
+                    break;
+                case "violatingPolicyNames":
+                    readStrings(reader, record.policies);
+                    break;
+                case "policySeverity":
+                case "highestPolicySeverity":
+                    if (token == JsonToken.STRING) {
+                        record.policySeverity = reader.nextString().toUpperCase(Locale.ROOT);
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                default:
+                    if (field.toLowerCase(Locale.ROOT).contains("vulnerabilit") && token == JsonToken.BEGIN_ARRAY) {
+                        readVulnerabilities(reader, record);
+                    } else {
+                        reader.skipValue();
+                    }
+            }
+        }
+        reader.endObject();
+        return record;
+    }
+
+    private boolean typeIsComponent(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.STRING) {
+            return reader.nextString().endsWith("Component");
+        }
+        if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+            boolean component = false;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (reader.peek() == JsonToken.STRING) {
+                    component |= reader.nextString().endsWith("Component");
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endArray();
+            return component;
+        }
+        reader.skipValue();
+        return false;
+    }
+
+    /**
+     * Vulnerabilities of one record, de-duplicated by id (rapid results list some twice)
+     */
+    private void readVulnerabilities(JsonReader reader, RecordFields record) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            String id = null;
+            String severity = null;
+            double score = -1;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String field = reader.nextName();
+                JsonToken token = reader.peek();
+                if ((field.equals("name") || field.equals("id") || field.equals("vulnerabilityId"))
+                        && token == JsonToken.STRING) {
+                    id = reader.nextString();
+                } else if ((field.equals("severity") || field.equals("vulnSeverity")
+                        || field.equals("vulnerabilitySeverity")) && token == JsonToken.STRING) {
+                    severity = reader.nextString().toUpperCase(Locale.ROOT);
+                } else if ((field.equals("overallScore") || field.equals("baseScore")) && token == JsonToken.NUMBER) {
+                    score = reader.nextDouble();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            if (severity == null) {
+                severity = severityFromScore(score);
+            }
+            if (id == null || record.vulnerabilityIds.add(id)) {
+                record.vulnerabilities.add(new String[]{id, severity});
+            }
+        }
+        reader.endArray();
+    }
+
+    private static void readStrings(JsonReader reader, List<String> into) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() == JsonToken.STRING) {
+                into.add(reader.nextString());
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endArray();
+    }
+
+    private static boolean isRecordArray(String name) {
+        return name.equals("@graph") || name.equals("items") || name.equals("components") || name.equals("results");
+    }
+
+    /**
+     * CVSS score bands
+     */
+    static String severityFromScore(double score) {
+        if (score >= 9.0) {
+            return "CRITICAL";
+        }
+        if (score >= 7.0) {
+            return "HIGH";
+        }
+        if (score >= 4.0) {
+            return "MEDIUM";
+        }
+        if (score > 0) {
+            return "LOW";
+        }
+        return "UNSPECIFIED";
+    }
+
+    static int severityRank(String severity) {
+        if (severity == null) {
+            return 0;
+        }
+        switch (severity) {
+            case "BLOCKER":
+            case "CRITICAL":
+                return 4;
+            case "HIGH":
+            case "MAJOR":
+                return 3;
+            case "MEDIUM":
+            case "MINOR":
+                return 2;
+            case "LOW":
+            case "TRIVIAL":
+                return 1;
+            default:
+                return 0;
+        }
+    }
+}
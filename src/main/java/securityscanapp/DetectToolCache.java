@@ -0,0 +1,415 @@
+package securityscanapp;
+
+import io.temporal.activity.ActivityExecutionContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Versioned cache of the BlackDuck Detect JAR and Detect's tool downloads on the shared PVC
+ *
+ * Layout under {@link Shared#TOOL_CACHE_DIR}/detect:
+ * <pre>
+ *   versions/&lt;version&gt;/detect-&lt;version&gt;.jar   verified JAR
+ *   versions/&lt;version&gt;/install.properties       sha256 and size recorded at install
+ *   versions/&lt;version&gt;/leases/                   one file per scan using this version
+ *   versions/&lt;version&gt;/tools/                    --detect.tools.output.path (signature scanner, inspectors)
+ *   tools/                                         --detect.tools.output.path when running detect.sh
+ *   script-downloads/                              DETECT_JAR_DOWNLOAD_DIR when running detect.sh
+ * </pre>
+ *
+ * Configured from the environment:
+ * - DETECT_VERSION: Detect version to run from the cache (unset = use detect.sh, caching its download)
+ * - DETECT_JAR_URL: download URL, {version} is replaced (default: Black Duck release repository)
+ * - DETECT_JAR_SHA256: expected checksum of the JAR (recommended; otherwise recorded on first install)
+ *
+ * Installs are single-flight across workers (file lock), downloaded into a temporary
+ * directory, verified and then moved into place atomically. Versions without live
+ * leases beyond the most recently used ones are evicted. Leases are refreshed while
+ * Detect runs, so a long scan's version is never evicted under it.
+ */
+public class DetectToolCache {
+
+    private static final String DEFAULT_JAR_URL =
+        "https://repo.blackduck.com/bds-integrations-release/com/blackduck/integration/detect/{version}/detect-{version}.jar";
+
+    // Installed versions kept, including the one in use
+    private static final int MAX_CACHED_VERSIONS = 2;
+
+    // Running scans refresh their lease this often (from the heartbeat thread)
+    private static final long LEASE_TOUCH_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+
+    // Leases not refreshed for this long belong to dead workers and are ignored
+    private static final long LEASE_STALE_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final long PROGRESS_INTERVAL_MS = 5000;
+
+    private final Path cacheDir;
+    private final String version;
+    private final String jarUrl;
+    private final String expectedSha256;
+
+    public DetectToolCache() {
+        this(Paths.get(Shared.TOOL_CACHE_DIR, "detect"),
+             System.getenv("DETECT_VERSION"),
+             System.getenv().getOrDefault("DETECT_JAR_URL", DEFAULT_JAR_URL),
+             System.getenv("DETECT_JAR_SHA256"));
+    }
+
+    public DetectToolCache(Path cacheDir, String version, String jarUrl, String expectedSha256) {
+        this.cacheDir = cacheDir;
+        this.version = version != null && !version.trim().isEmpty() ? version.trim() : null;
+        this.jarUrl = jarUrl;
+        this.expectedSha256 = expectedSha256 != null ? expectedSha256.trim().toLowerCase() : null;
+    }
+
+    /**
+     * A scan's use of a cached Detect version; closing it releases the reference
+     */
+    public static class Lease implements AutoCloseable {
+        private final String version;
+        private final Path jarPath;
+        private final Path leaseFile;
+        private volatile long lastTouched;
+
+        Lease(String version, Path jarPath, Path leaseFile) {
+            this.version = version;
+            this.jarPath = jarPath;
+            this.leaseFile = leaseFile;
+            this.lastTouched = System.currentTimeMillis();
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public Path getJarPath() {
+            return jarPath;
+        }
+
+        /**
+         * Mark the lease as still in use; cheap to call on every heartbeat
+         */
+        public void touch() {
+            long now = System.currentTimeMillis();
+            if (now - lastTouched < LEASE_TOUCH_INTERVAL_MS) {
+                return;
+            }
+            lastTouched = now;
+            try {
+                Files.setLastModifiedTime(leaseFile, FileTime.fromMillis(now));
+            } catch (IOException e) {
+                System.err.println("Failed to refresh Detect lease " + leaseFile + ": " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                Files.deleteIfExists(leaseFile);
+            } catch (IOException e) {
+                System.err.println("Failed to release Detect lease " + leaseFile + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Detect's tools directory for one scan; closing it lets the next scan use the shared directory
+     */
+    public static class ToolsDir implements AutoCloseable {
+        private final Path path;
+        private final FileChannel channel;
+        private final FileLock lock;
+
+        ToolsDir(Path path, FileChannel channel, FileLock lock) {
+            this.path = path;
+            this.channel = channel;
+            this.lock = lock;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        /**
+         * Whether this scan got the shared directory rather than its private fallback
+         */
+        public boolean isShared() {
+            return lock != null;
+        }
+
+        @Override
+        public void close() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                lock.release();
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Failed to release Detect tools directory " + path + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Whether a Detect version is configured to run from the cache
+     */
+    public boolean isEnabled() {
+        return version != null;
+    }
+
+    /**
+     * Directory for Detect's tool downloads (--detect.tools.output.path)
+     *
+     * Detect downloads and updates the signature scanner and inspectors in place, so only
+     * one Detect run at a time may use the shared directory of a version: the scan that gets
+     * its lock keeps it until Detect exits, scans starting meanwhile use privateDir instead.
+     *
+     * @param lease Lease on the cached version, null when running detect.sh
+     * @param privateDir Fallback for this scan, e.g. in its workspace
+     */
+    public ToolsDir openToolsDir(Lease lease, Path privateDir) throws IOException {
+        Path shared = lease != null
+            ? cacheDir.resolve("versions").resolve(lease.getVersion()).resolve("tools")
+            : cacheDir.resolve("tools");
+        Files.createDirectories(shared);
+        FileChannel channel = FileChannel.open(shared.resolveSibling("tools.lock"),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock = null;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Held by another scan in this JVM
+        }
+        if (lock != null) {
+            return new ToolsDir(shared, channel, lock);
+        }
+        channel.close();
+        return new ToolsDir(Files.createDirectories(privateDir), null, null);
+    }
+
+    /**
+     * Directory detect.sh downloads its JAR into when the cache is not enabled (DETECT_JAR_DOWNLOAD_DIR)
+     */
+    public Path getScriptDownloadDir() throws IOException {
+        return Files.createDirectories(cacheDir.resolve("script-downloads"));
+    }
+
+    /**
+     * Get the configured Detect JAR, installing it if needed, and take a reference on it
+     */
+    public Lease acquire(ActivityExecutionContext context) throws IOException, InterruptedException {
+        if (!isEnabled()) {
+            throw new IllegalStateException("DETECT_VERSION is not configured");
+        }
+        Path versionsDir = Files.createDirectories(cacheDir.resolve("versions"));
+        Path versionDir = versionsDir.resolve(version);
+        Path jarPath = versionDir.resolve("detect-" + version + ".jar");
+
+        if (!isInstalled(versionDir, jarPath)) {
+            // One install per version across workers sharing the volume
+            try (FileChannel channel = FileChannel.open(versionsDir.resolve(version + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = acquireFileLock(channel, context);
+                try {
+                    if (!isInstalled(versionDir, jarPath)) {
+                        install(versionsDir, versionDir, context);
+                    }
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+
+        Path leasesDir = Files.createDirectories(versionDir.resolve("leases"));
+        Path leaseFile = leasesDir.resolve(System.getenv().getOrDefault("HOSTNAME", "worker") + "-" + System.nanoTime());
+        Files.write(leaseFile, new byte[0]);
+        // Directory mtime records last use for eviction
+        Files.setLastModifiedTime(versionDir, FileTime.fromMillis(System.currentTimeMillis()));
+
+        evictUnusedVersions(versionsDir, versionDir);
+        return new Lease(version, jarPath, leaseFile);
+    }
+
+    private boolean isInstalled(Path versionDir, Path jarPath) {
+        Path marker = versionDir.resolve("install.properties");
+        if (!Files.exists(marker) || !Files.exists(jarPath)) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(marker)) {
+            Properties properties = new Properties();
+            properties.load(in);
+            // Full checksum is verified at install; a size check catches truncation afterwards
+            long size = Long.parseLong(properties.getProperty("size", "-1"));
+            if (size != Files.size(jarPath)) {
+                return false;
+            }
+            return expectedSha256 == null || expectedSha256.equals(properties.getProperty("sha256"));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Download into a temporary directory, verify, and move into place - caller holds the version lock
+     */
+    private void install(Path versionsDir, Path versionDir, ActivityExecutionContext context) throws IOException {
+        String url = jarUrl.replace("{version}", version);
+        Path tempDir = versionsDir.resolve(version + ".tmp-" + System.nanoTime());
+        Files.createDirectories(tempDir);
+        try {
+            context.heartbeat("Downloading Detect " + version + " into tool cache");
+            Path tempJar = tempDir.resolve("detect-" + version + ".jar");
+
+            MessageDigest digest = sha256();
+            long bytes = 0;
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(30000);
+            connection.setReadTimeout(120000);
+            try {
+                if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                    throw new IOException("Detect download returned HTTP " + connection.getResponseCode() + ": " + url);
+                }
+                try (InputStream in = new DigestInputStream(connection.getInputStream(), digest);
+                     OutputStream out = Files.newOutputStream(tempJar)) {
+                    byte[] buffer = new byte[64 * 1024];
+                    long lastProgress = System.currentTimeMillis();
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, read);
+                        bytes += read;
+                        long now = System.currentTimeMillis();
+                        if (now - lastProgress >= PROGRESS_INTERVAL_MS) {
+                            context.heartbeat("Downloading Detect " + version + ": " + (bytes / (1024 * 1024)) + " MB");
+                            lastProgress = now;
+                        }
+                    }
+                }
+            } finally {
+                connection.disconnect();
+            }
+
+            String sha256 = toHex(digest.digest());
+            if (expectedSha256 != null && !expectedSha256.equals(sha256)) {
+                throw new IOException("Detect " + version + " checksum mismatch: expected " + expectedSha256 +
+                    ", got " + sha256);
+            }
+
+            Properties properties = new Properties();
+            properties.setProperty("version", version);
+            properties.setProperty("sha256", sha256);
+            properties.setProperty("size", String.valueOf(bytes));
+            properties.setProperty("url", url);
+            properties.setProperty("installedAt", String.valueOf(System.currentTimeMillis()));
+            try (OutputStream out = Files.newOutputStream(tempDir.resolve("install.properties"))) {
+                properties.store(out, "Detect tool cache entry");
+            }
+
+            // Replace a broken previous install; nothing can be using it since it failed verification
+            WorkspaceDeleter.deleteTree(versionDir);
+            Files.move(tempDir, versionDir, StandardCopyOption.ATOMIC_MOVE);
+            context.heartbeat("Detect " + version + " installed in tool cache (sha256 " + sha256 + ")");
+        } finally {
+            if (Files.exists(tempDir)) {
+                WorkspaceDeleter.deleteTree(tempDir);
+            }
+        }
+    }
+
+    /**
+     * Remove installed versions that have no live leases, keeping the most recently used ones
+     */
+    private void evictUnusedVersions(Path versionsDir, Path current) {
+        List<Path> versions = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(versionsDir)) {
+            for (Path entry : entries) {
+                if (Files.isDirectory(entry) && !entry.equals(current) && !entry.getFileName().toString().contains(".tmp-")) {
+                    versions.add(entry);
+                }
+            }
+            versions.sort(Comparator.comparingLong(this::lastModified).reversed());
+            for (int i = MAX_CACHED_VERSIONS - 1; i < versions.size(); i++) {
+                Path candidate = versions.get(i);
+                if (!hasLiveLeases(candidate)) {
+                    WorkspaceDeleter.deleteTree(candidate);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Detect tool cache eviction failed: " + e.getMessage());
+        }
+    }
+
+    private boolean hasLiveLeases(Path versionDir) throws IOException {
+        Path leasesDir = versionDir.resolve("leases");
+        if (!Files.isDirectory(leasesDir)) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        try (DirectoryStream<Path> leases = Files.newDirectoryStream(leasesDir)) {
+            for (Path lease : leases) {
+                if (now - lastModified(lease) < LEASE_STALE_MS) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private FileLock acquireFileLock(FileChannel channel, ActivityExecutionContext context)
+            throws IOException, InterruptedException {
+        while (true) {
+            FileLock lock = channel.tryLock();
+            if (lock != null) {
+                return lock;
+            }
+            context.heartbeat("Waiting for Detect " + version + " install on another worker");
+            Thread.sleep(TimeUnit.SECONDS.toMillis(1));
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] hash) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : hash) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
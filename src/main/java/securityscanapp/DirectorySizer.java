@@ -0,0 +1,233 @@
+package securityscanapp;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size accounting for workspaces, repositories and mirrors
+ *
+ * - One Files.walkFileTree pass per tree, sizes come from the BasicFileAttributes
+ *   the walk already read (no second stat per file)
+ * - Top-level subdirectories are walked in parallel, which hides NFS round-trip latency
+ * - Results are cached per directory, and for each top-level subdirectory measured
+ *   along the way (e.g. .git of a repository), so repeated checks (heartbeats, quota
+ *   checks, compaction decisions) do not walk again
+ * - A cached entry is only used while the modification times of the directory and its
+ *   direct entries are unchanged (one listing), so changes by other workers sharing the
+ *   volume - a fetch into the same mirror, a retry in the same workspace - are noticed.
+ *   Code in this JVM that changes a tree also invalidates it, and entries expire after
+ *   a TTL as a safety net for changes deeper in the tree
+ */
+public final class DirectorySizer {
+
+    // Cached measurements older than this are re-measured even if not invalidated
+    private static final long CACHE_TTL_MS = TimeUnit.MINUTES.toMillis(10);
+
+    // Parallel subtree walks per worker JVM
+    private static final ForkJoinPool POOL = new ForkJoinPool(
+        Math.min(8, Runtime.getRuntime().availableProcessors() * 2));
+
+    private static final Map<Path, DirectoryUsage> CACHE = new ConcurrentHashMap<>();
+
+    // Fingerprint of a directory that could not be read; never matches
+    private static final long NO_STAMP = Long.MIN_VALUE;
+
+    private DirectorySizer() {
+    }
+
+    /**
+     * Size and file count of a directory tree
+     */
+    public static class DirectoryUsage {
+        private final long bytes;
+        private final long fileCount;
+        private final long measuredAt;
+        private final long stamp; // Modification-time fingerprint taken before the walk
+
+        DirectoryUsage(long bytes, long fileCount, long measuredAt) {
+            this(bytes, fileCount, measuredAt, NO_STAMP);
+        }
+
+        DirectoryUsage(long bytes, long fileCount, long measuredAt, long stamp) {
+            this.bytes = bytes;
+            this.fileCount = fileCount;
+            this.measuredAt = measuredAt;
+            this.stamp = stamp;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getFileCount() {
+            return fileCount;
+        }
+
+        public long getMeasuredAt() {
+            return measuredAt;
+        }
+    }
+
+    /**
+     * Get the usage of a directory, from cache if it has not changed since it was measured
+     */
+    public static DirectoryUsage usage(Path directory) throws IOException {
+        Path key = directory.toAbsolutePath().normalize();
+        DirectoryUsage cached = CACHE.get(key);
+        if (cached != null && System.currentTimeMillis() - cached.getMeasuredAt() < CACHE_TTL_MS
+                && cached.stamp != NO_STAMP && cached.stamp == stamp(key)) {
+            return cached;
+        }
+        return measure(directory);
+    }
+
+    /**
+     * Measure a directory now and cache the result
+     */
+    public static DirectoryUsage measure(Path directory) throws IOException {
+        Path key = directory.toAbsolutePath().normalize();
+        if (!Files.isDirectory(key, LinkOption.NOFOLLOW_LINKS)) {
+            CACHE.remove(key);
+            if (Files.isRegularFile(key, LinkOption.NOFOLLOW_LINKS)) {
+                return new DirectoryUsage(Files.size(key), 1, System.currentTimeMillis());
+            }
+            return new DirectoryUsage(0, 0, System.currentTimeMillis());
+        }
+
+        long rootStamp = stamp(key);
+        long bytes = 0;
+        long files = 0;
+        List<ForkJoinTask<long[]>> subtrees = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(key)) {
+            for (Path entry : entries) {
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (NoSuchFileException e) {
+                    continue; // Deleted while listing
+                }
+                if (attrs.isDirectory()) {
+                    subtrees.add(POOL.submit(() -> walkAndCache(entry)));
+                } else if (attrs.isRegularFile()) {
+                    bytes += attrs.size();
+                    files++;
+                }
+            }
+        }
+
+        for (ForkJoinTask<long[]> subtree : subtrees) {
+            long[] result = join(subtree);
+            bytes += result[0];
+            files += result[1];
+        }
+
+        DirectoryUsage usage = new DirectoryUsage(bytes, files, System.currentTimeMillis(), rootStamp);
+        CACHE.put(key, usage);
+        return usage;
+    }
+
+    /**
+     * Drop cached measurements of a path, everything below it and every directory containing it
+     * Call after anything that changes the tree (clone, compaction, deletion, mirror fetch)
+     */
+    public static void invalidate(Path path) {
+        Path changed = path.toAbsolutePath().normalize();
+        CACHE.keySet().removeIf(key -> key.startsWith(changed) || changed.startsWith(key));
+    }
+
+    /**
+     * Wait for a subtree walk, rethrowing its IOException as is
+     */
+    private static long[] join(ForkJoinTask<long[]> subtree) throws IOException {
+        try {
+            return subtree.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Directory walk failed", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while measuring directory");
+        }
+    }
+
+    /**
+     * Walk a top-level subtree and cache it, so a later usage() of it (e.g. .git) is free
+     */
+    private static long[] walkAndCache(Path root) throws IOException {
+        long rootStamp = stamp(root);
+        long[] totals = walk(root);
+        CACHE.put(root, new DirectoryUsage(totals[0], totals[1], System.currentTimeMillis(), rootStamp));
+        return totals;
+    }
+
+    /**
+     * Fingerprint of the modification times of a directory and its direct entries
+     * Adding, removing or rewriting a top-level entry changes it
+     */
+    static long stamp(Path directory) {
+        try {
+            long stamp = Files.getLastModifiedTime(directory, LinkOption.NOFOLLOW_LINKS).toMillis();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    long modified;
+                    try {
+                        modified = Files.getLastModifiedTime(entry, LinkOption.NOFOLLOW_LINKS).toMillis();
+                    } catch (NoSuchFileException e) {
+                        continue; // Deleted while listing
+                    }
+                    // Order-independent so listing order does not matter
+                    stamp += (entry.getFileName().toString().hashCode() * 31L) ^ modified;
+                }
+            }
+            return stamp == NO_STAMP ? NO_STAMP + 1 : stamp;
+        } catch (IOException e) {
+            return NO_STAMP;
+        }
+    }
+
+    /**
+     * Walk one subtree, returning {bytes, files}
+     */
+    private static long[] walk(Path root) throws IOException {
+        long[] totals = new long[2];
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    totals[0] += attrs.size();
+                    totals[1]++;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                // Deleted or unreadable during the walk - skip it
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return totals;
+    }
+}
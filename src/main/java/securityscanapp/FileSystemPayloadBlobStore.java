@@ -0,0 +1,105 @@
+package securityscanapp;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Payload blob store on the shared PVC
+ *
+ * Layout: &lt;dir&gt;/&lt;first 2 hex chars of key&gt;/&lt;key&gt;. Blobs are written to a temporary
+ * file and renamed into place, so readers on other pods never see partial content. Writing or
+ * reading a blob refreshes its modification time; {@link PayloadStoreSweeper} deletes blobs
+ * untouched for longer than workflows can still reference them, in the background.
+ */
+public class FileSystemPayloadBlobStore implements PayloadBlobStore {
+
+    private final Path dir;
+
+    public FileSystemPayloadBlobStore(Path dir) {
+        this.dir = dir;
+    }
+
+    @Override
+    public void put(String key, byte[] data) throws IOException {
+        Path file = blobPath(key);
+        if (Files.exists(file)) {
+            // Same key means same content; keep the blob alive for as long as it is referenced
+            touch(file);
+            return;
+        }
+        Files.createDirectories(file.getParent());
+        Path tempFile = file.resolveSibling(key + ".tmp-" + System.nanoTime());
+        try {
+            Files.write(tempFile, data);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @Override
+    public byte[] get(String key) throws IOException {
+        Path file = blobPath(key);
+        try {
+            byte[] data = Files.readAllBytes(file);
+            touch(file);
+            return data;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String describe() {
+        return dir.toString();
+    }
+
+    /**
+     * Delete blobs that have not been written or read within the TTL
+     * Lists every shard directory - run it in the background, not on a codec call
+     */
+    void evict(long ttlMs) {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int deleted = 0;
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(dir)) {
+            for (Path shard : shards) {
+                if (!Files.isDirectory(shard)) {
+                    continue;
+                }
+                try (DirectoryStream<Path> blobs = Files.newDirectoryStream(shard)) {
+                    for (Path blob : blobs) {
+                        if (now - Files.getLastModifiedTime(blob).toMillis() > ttlMs && Files.deleteIfExists(blob)) {
+                            deleted++;
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Payload store eviction failed: " + e.getMessage());
+            return;
+        }
+        if (deleted > 0) {
+            System.out.println("Deleted " + deleted + " expired payload blobs from " + dir);
+        }
+    }
+
+    private Path blobPath(String key) {
+        return dir.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Only delays eviction bookkeeping; the blob itself is intact
+        }
+    }
+}
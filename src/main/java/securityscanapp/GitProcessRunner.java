@@ -0,0 +1,285 @@
+package securityscanapp;
+
+import io.temporal.activity.ActivityExecutionContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Shared runner for git subprocesses in repository activities
+ * 
+ * - Drains combined stdout/stderr on a separate thread so git never blocks on a full pipe
+ * - Parses --progress output (git separates updates with carriage returns) into GitProgress
+ * - Heartbeats structured progress at a bounded rate, including while git is silent,
+ *   so long clones never trip the activity heartbeat timeout
+ * - Status heartbeats ({@link #heartbeat(String)}) also send a GitProgress, so the
+ *   heartbeat details of a clone attempt always have one type
+ * - Keeps the last few output lines (credentials redacted) for error messages
+ */
+public class GitProcessRunner {
+    
+    // Minimum interval between progress heartbeats
+    static final long HEARTBEAT_INTERVAL_MS = 5000;
+    
+    // Output lines kept for error reporting
+    private static final int TAIL_LINES = 20;
+    
+    // e.g. "Receiving objects:  45% (450/1000), 1.20 MiB | 2.00 MiB/s"
+    private static final Pattern PROGRESS_PATTERN = Pattern.compile(
+        "^(?:remote:\\s*)?([A-Za-z][A-Za-z ]*?):\\s+(\\d+)%\\s+\\((\\d+)/(\\d+)\\)" +
+        "(?:,\\s*([\\d.]+)\\s*(bytes|KiB|MiB|GiB))?" +
+        "(?:\\s*\\|\\s*([\\d.]+)\\s*(bytes|KiB|MiB|GiB)/s)?");
+    
+    private final ActivityExecutionContext context;
+    
+    // Latest progress heartbeated by this runner, carried along by status heartbeats
+    private volatile GitProgress lastProgress;
+    
+    public GitProcessRunner(ActivityExecutionContext context) {
+        this.context = context;
+    }
+    
+    /**
+     * Outcome of a git subprocess
+     */
+    public static class Result {
+        private final int exitCode;
+        private final List<String> outputTail;
+        private final GitProgress progress;
+        
+        Result(int exitCode, List<String> outputTail, GitProgress progress) {
+            this.exitCode = exitCode;
+            this.outputTail = outputTail;
+            this.progress = progress;
+        }
+        
+        public int getExitCode() {
+            return exitCode;
+        }
+        
+        public List<String> getOutputTail() {
+            return outputTail;
+        }
+        
+        public GitProgress getProgress() {
+            return progress;
+        }
+        
+        public String getLastLine() {
+            return outputTail.isEmpty() ? null : outputTail.get(outputTail.size() - 1);
+        }
+    }
+    
+    /**
+     * Run a git command and wait for it, heartbeating progress
+     * 
+     * @param directory Working directory
+     * @param operation Short operation name used in progress (clone, fetch, checkout, ...)
+     * @param repositoryHost Remote host for transfer metrics (null for local operations)
+     * @param args Arguments after "git"
+     * @return Result with exit code, output tail and final progress
+     * @throws IOException if the process cannot be started
+     */
+    public Result run(File directory, String operation, String repositoryHost, String... args)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(args));
+        
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.directory(directory);
+        processBuilder.redirectErrorStream(true);
+        
+        long startTime = System.currentTimeMillis();
+        Process process = processBuilder.start();
+        
+        OutputDrainer drainer = new OutputDrainer(process.getInputStream(), new GitProgress(operation, repositoryHost));
+        Thread drainerThread = new Thread(drainer, "git-output-" + operation);
+        drainerThread.setDaemon(true);
+        drainerThread.start();
+        
+        long lastHeartbeat = 0;
+        try {
+            while (!process.waitFor(1, TimeUnit.SECONDS)) {
+                long now = System.currentTimeMillis();
+                if (now - lastHeartbeat >= HEARTBEAT_INTERVAL_MS) {
+                    GitProgress snapshot = drainer.snapshot(now - startTime);
+                    lastProgress = snapshot;
+                    context.heartbeat(snapshot);
+                    lastHeartbeat = now;
+                }
+            }
+        } catch (InterruptedException | RuntimeException e) {
+            // Interrupted or heartbeat failed (e.g. activity cancelled) - don't leave git
+            // (or its remote helpers and index-pack) running
+            HeartbeatScheduler.destroyProcessTree(process);
+            throw e;
+        }
+        
+        // Process exited - wait for the remaining output to be consumed
+        drainerThread.join(TimeUnit.SECONDS.toMillis(10));
+        
+        GitProgress finalProgress = drainer.snapshot(System.currentTimeMillis() - startTime);
+        lastProgress = finalProgress;
+        return new Result(process.exitValue(), drainer.tail(), finalProgress);
+    }
+    
+    /**
+     * Heartbeat a status message
+     * The details are the latest git progress with the message attached, so a retried
+     * attempt can read how far this one got whichever heartbeat came last
+     */
+    public void heartbeat(String message) {
+        GitProgress current = lastProgress;
+        GitProgress details = current != null ? new GitProgress(current) : new GitProgress();
+        details.setMessage(message);
+        context.heartbeat(details);
+    }
+    
+    /**
+     * Record progress of a transfer not run through git (e.g. an archive download)
+     * and heartbeat it
+     */
+    public void heartbeat(GitProgress progress) {
+        lastProgress = progress;
+        context.heartbeat(progress);
+    }
+    
+    /**
+     * Run a git command and fail with a descriptive error on a non-zero exit code
+     */
+    public Result runChecked(File directory, String operation, String repositoryHost, String... args)
+            throws IOException, InterruptedException {
+        Result result = run(directory, operation, repositoryHost, args);
+        if (result.getExitCode() != 0) {
+            String lastLine = result.getLastLine();
+            throw new RuntimeException("Git " + operation + " failed with exit code: " + result.getExitCode() +
+                (lastLine != null ? " (" + lastLine + ")" : ""));
+        }
+        return result;
+    }
+    
+    /**
+     * Extract the host from a repository URL for per-host transfer metrics
+     */
+    static String hostOf(String repositoryUrl) {
+        if (repositoryUrl == null) {
+            return null;
+        }
+        String url = repositoryUrl.replaceAll("://[^@/]+@", "://");
+        int schemeEnd = url.indexOf("://");
+        if (schemeEnd >= 0) {
+            String rest = url.substring(schemeEnd + 3);
+            int end = rest.indexOf('/');
+            return end >= 0 ? rest.substring(0, end) : rest;
+        }
+        // scp-like syntax: git@host:org/repo.git
+        int at = url.indexOf('@');
+        int colon = url.indexOf(':');
+        if (colon > 0) {
+            return url.substring(at >= 0 && at < colon ? at + 1 : 0, colon);
+        }
+        return null;
+    }
+    
+    /**
+     * Redact credentials from a line of git output
+     */
+    static String redact(String line) {
+        return line.replaceAll("://[^@/\\s]+@", "://");
+    }
+    
+    static long toBytes(String value, String unit) {
+        double amount = Double.parseDouble(value);
+        switch (unit) {
+            case "GiB":
+                return (long) (amount * 1024 * 1024 * 1024);
+            case "MiB":
+                return (long) (amount * 1024 * 1024);
+            case "KiB":
+                return (long) (amount * 1024);
+            default:
+                return (long) amount;
+        }
+    }
+    
+    /**
+     * Reads process output, splitting on both \r and \n, and tracks progress
+     */
+    static class OutputDrainer implements Runnable {
+        private final InputStream input;
+        private final GitProgress progress;
+        private final Deque<String> tail = new ArrayDeque<>();
+        
+        OutputDrainer(InputStream input, GitProgress progress) {
+            this.input = input;
+            this.progress = progress;
+        }
+        
+        @Override
+        public void run() {
+            StringBuilder line = new StringBuilder();
+            try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+                int c;
+                while ((c = reader.read()) != -1) {
+                    if (c == '\r' || c == '\n') {
+                        if (line.length() > 0) {
+                            handleLine(line.toString());
+                            line.setLength(0);
+                        }
+                    } else {
+                        line.append((char) c);
+                    }
+                }
+                if (line.length() > 0) {
+                    handleLine(line.toString());
+                }
+            } catch (IOException e) {
+                // Stream closed when the process is destroyed - nothing left to read
+            }
+        }
+        
+        private synchronized void handleLine(String line) {
+            Matcher matcher = PROGRESS_PATTERN.matcher(line.trim());
+            if (matcher.find()) {
+                progress.setPhase(matcher.group(1).trim());
+                progress.setPercent(Integer.parseInt(matcher.group(2)));
+                progress.setObjectsDone(Long.parseLong(matcher.group(3)));
+                progress.setObjectsTotal(Long.parseLong(matcher.group(4)));
+                if (matcher.group(5) != null) {
+                    progress.setBytesReceived(toBytes(matcher.group(5), matcher.group(6)));
+                }
+                if (matcher.group(7) != null) {
+                    progress.setThroughputBytesPerSecond(toBytes(matcher.group(7), matcher.group(8)));
+                }
+                return;
+            }
+            tail.addLast(redact(line.trim()));
+            if (tail.size() > TAIL_LINES) {
+                tail.removeFirst();
+            }
+        }
+        
+        synchronized GitProgress snapshot(long elapsedMs) {
+            GitProgress snapshot = new GitProgress(progress);
+            snapshot.setElapsedMs(elapsedMs);
+            return snapshot;
+        }
+        
+        synchronized List<String> tail() {
+            return new ArrayList<>(tail);
+        }
+    }
+}
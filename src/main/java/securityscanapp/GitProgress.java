@@ -0,0 +1,150 @@
+package securityscanapp;
+
+/**
+ * Structured git transfer progress
+ * Sent as activity heartbeat details while git subprocesses run, so the Temporal
+ * UI and retried attempts can see how far a clone got and how fast it was
+ */
+public class GitProgress {
+    private String operation; // clone, fetch, checkout, ...
+    private String repositoryHost; // Host the data is transferred from (null for local operations)
+    private String phase; // Last git progress phase, e.g. "Receiving objects"
+    private int percent;
+    private long objectsDone;
+    private long objectsTotal;
+    private long bytesReceived;
+    private long throughputBytesPerSecond;
+    private long elapsedMs;
+    private String message; // Status of the activity when this was sent (null for pure git progress)
+    
+    public GitProgress() {
+    }
+    
+    public GitProgress(String operation, String repositoryHost) {
+        this.operation = operation;
+        this.repositoryHost = repositoryHost;
+    }
+    
+    /**
+     * Copy constructor used to publish immutable snapshots from the output reader thread
+     */
+    public GitProgress(GitProgress other) {
+        this.operation = other.operation;
+        this.repositoryHost = other.repositoryHost;
+        this.phase = other.phase;
+        this.percent = other.percent;
+        this.objectsDone = other.objectsDone;
+        this.objectsTotal = other.objectsTotal;
+        this.bytesReceived = other.bytesReceived;
+        this.throughputBytesPerSecond = other.throughputBytesPerSecond;
+        this.elapsedMs = other.elapsedMs;
+        this.message = other.message;
+    }
+    
+    // Getters and Setters
+    public String getOperation() {
+        return operation;
+    }
+    
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+    
+    public String getRepositoryHost() {
+        return repositoryHost;
+    }
+    
+    public void setRepositoryHost(String repositoryHost) {
+        this.repositoryHost = repositoryHost;
+    }
+    
+    public String getPhase() {
+        return phase;
+    }
+    
+    public void setPhase(String phase) {
+        this.phase = phase;
+    }
+    
+    public int getPercent() {
+        return percent;
+    }
+    
+    public void setPercent(int percent) {
+        this.percent = percent;
+    }
+    
+    public long getObjectsDone() {
+        return objectsDone;
+    }
+    
+    public void setObjectsDone(long objectsDone) {
+        this.objectsDone = objectsDone;
+    }
+    
+    public long getObjectsTotal() {
+        return objectsTotal;
+    }
+    
+    public void setObjectsTotal(long objectsTotal) {
+        this.objectsTotal = objectsTotal;
+    }
+    
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+    
+    public void setBytesReceived(long bytesReceived) {
+        this.bytesReceived = bytesReceived;
+    }
+    
+    public long getThroughputBytesPerSecond() {
+        return throughputBytesPerSecond;
+    }
+    
+    public void setThroughputBytesPerSecond(long throughputBytesPerSecond) {
+        this.throughputBytesPerSecond = throughputBytesPerSecond;
+    }
+    
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+    
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    
+    @Override
+    public String toString() {
+        if (operation == null) {
+            // Status only: no git command ran before this heartbeat
+            return message != null ? message : "no progress";
+        }
+        StringBuilder sb = new StringBuilder("git ").append(operation);
+        if (phase != null) {
+            sb.append(": ").append(phase).append(" ").append(percent).append("%");
+            if (objectsTotal > 0) {
+                sb.append(" (").append(objectsDone).append("/").append(objectsTotal).append(")");
+            }
+        }
+        if (bytesReceived > 0) {
+            sb.append(", ").append(bytesReceived / (1024 * 1024)).append(" MB");
+        }
+        if (throughputBytesPerSecond > 0) {
+            sb.append(" @ ").append(throughputBytesPerSecond / 1024).append(" KB/s");
+        }
+        sb.append(", ").append(elapsedMs / 1000).append("s elapsed");
+        if (message != null) {
+            sb.append(" [").append(message).append("]");
+        }
+        return sb.toString();
+    }
+}
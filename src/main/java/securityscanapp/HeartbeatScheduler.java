@@ -0,0 +1,137 @@
+package securityscanapp;
+
+import io.temporal.activity.ActivityExecutionContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Time-based heartbeats for activities that wait on long-running subprocesses
+ *
+ * One scheduled daemon thread per worker heartbeats every registered activity at a
+ * fixed cadence, independent of whether the subprocess prints anything. Details are
+ * produced by the activity's supplier (e.g. elapsed time, output bytes, current phase).
+ *
+ * Temporal reports cancellation (and heartbeat timeouts on the server side) by throwing
+ * from heartbeat(). When that happens the registration is marked cancelled and the whole
+ * subprocess tree is killed, so the activity thread returns promptly and the slot is freed.
+ * The activity thread should then rethrow {@link Registration#getCancellation()}.
+ */
+public final class HeartbeatScheduler {
+
+    // Heartbeat cadence; well below the 60s scan heartbeat timeout
+    static final long HEARTBEAT_INTERVAL_SECONDS = 10;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "activity-heartbeat-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Map<Long, Registration> REGISTRATIONS = new ConcurrentHashMap<>();
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    static {
+        SCHEDULER.scheduleAtFixedRate(HeartbeatScheduler::heartbeatAll,
+            HEARTBEAT_INTERVAL_SECONDS, HEARTBEAT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private HeartbeatScheduler() {
+    }
+
+    /**
+     * An activity subprocess being heartbeated; close it when the subprocess has exited
+     */
+    public static class Registration implements AutoCloseable {
+        private final long id;
+        private final ActivityExecutionContext context;
+        private final Supplier<?> details;
+        private final Runnable onCancel;
+        private volatile RuntimeException cancellation;
+
+        Registration(long id, ActivityExecutionContext context, Supplier<?> details, Runnable onCancel) {
+            this.id = id;
+            this.context = context;
+            this.details = details;
+            this.onCancel = onCancel;
+        }
+
+        /**
+         * Whether Temporal rejected a heartbeat (activity cancelled or timed out)
+         */
+        public boolean isCancelled() {
+            return cancellation != null;
+        }
+
+        /**
+         * The exception thrown by heartbeat() when the activity was cancelled, null otherwise
+         */
+        public RuntimeException getCancellation() {
+            return cancellation;
+        }
+
+        void heartbeat() {
+            try {
+                context.heartbeat(details.get());
+            } catch (RuntimeException e) {
+                cancellation = e;
+                REGISTRATIONS.remove(id);
+                onCancel.run();
+            }
+        }
+
+        @Override
+        public void close() {
+            REGISTRATIONS.remove(id);
+        }
+    }
+
+    /**
+     * Start heartbeating an activity while its subprocess runs
+     *
+     * @param context Activity context to heartbeat
+     * @param details Supplier of heartbeat details, called on the scheduler thread
+     * @param process Subprocess killed (with its descendants) on cancellation
+     */
+    public static Registration register(ActivityExecutionContext context, Supplier<?> details, Process process) {
+        return register(context, details, () -> destroyProcessTree(process));
+    }
+
+    /**
+     * Start heartbeating an activity while its subprocess runs
+     *
+     * @param context Activity context to heartbeat
+     * @param details Supplier of heartbeat details, called on the scheduler thread
+     * @param onCancel Kills the subprocess on cancellation (e.g. {@link ProcessSupervisor.Supervised#destroyTree()})
+     */
+    public static Registration register(ActivityExecutionContext context, Supplier<?> details, Runnable onCancel) {
+        long id = NEXT_ID.incrementAndGet();
+        Registration registration = new Registration(id, context, details, onCancel);
+        REGISTRATIONS.put(id, registration);
+        return registration;
+    }
+
+    private static void heartbeatAll() {
+        for (Registration registration : REGISTRATIONS.values()) {
+            // One failing activity must not stop heartbeats of the others
+            try {
+                registration.heartbeat();
+            } catch (Throwable t) {
+                System.err.println("Heartbeat failed: " + t.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Kill a process and all of its descendants (shell wrappers fork the real work)
+     */
+    static void destroyProcessTree(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+}
@@ -0,0 +1,90 @@
+package securityscanapp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Payload blob store behind plain HTTP PUT/GET, e.g. an S3-compatible bucket (MinIO)
+ *
+ * Blobs are addressed as &lt;baseUrl&gt;/&lt;key&gt;. A HEAD request skips uploading content that
+ * is already stored. Expiry is left to the store's own lifecycle rules.
+ */
+public class HttpPayloadBlobStore implements PayloadBlobStore {
+
+    private static final int CONNECT_TIMEOUT_MS = 10000;
+    private static final int READ_TIMEOUT_MS = 30000;
+
+    private final String baseUrl;
+    private final String token; // Bearer token, or null for an unauthenticated store
+
+    public HttpPayloadBlobStore(String baseUrl, String token) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.token = token != null && !token.isEmpty() ? token : null;
+    }
+
+    @Override
+    public void put(String key, byte[] data) throws IOException {
+        HttpURLConnection head = open(key, "HEAD");
+        try {
+            if (head.getResponseCode() == HttpURLConnection.HTTP_OK) {
+                return;
+            }
+        } finally {
+            head.disconnect();
+        }
+
+        HttpURLConnection connection = open(key, "PUT");
+        try {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/octet-stream");
+            connection.setFixedLengthStreamingMode(data.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(data);
+            }
+            int code = connection.getResponseCode();
+            if (code / 100 != 2) {
+                throw new IOException("Payload store PUT failed with HTTP " + code + " for " + key);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    public byte[] get(String key) throws IOException {
+        HttpURLConnection connection = open(key, "GET");
+        try {
+            int code = connection.getResponseCode();
+            if (code == HttpURLConnection.HTTP_NOT_FOUND) {
+                return null;
+            }
+            if (code != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Payload store GET failed with HTTP " + code + " for " + key);
+            }
+            try (InputStream in = connection.getInputStream()) {
+                return in.readAllBytes();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    public String describe() {
+        return baseUrl;
+    }
+
+    private HttpURLConnection open(String key, String method) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + "/" + key).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        connection.setRequestMethod(method);
+        if (token != null) {
+            connection.setRequestProperty("Authorization", "Bearer " + token);
+        }
+        return connection;
+    }
+}
@@ -0,0 +1,81 @@
+package securityscanapp;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Processing status and findings of a full scan on the BlackDuck Hub
+ */
+public class HubScanStatus {
+
+    /**
+     * Where the hub is with the uploaded scan
+     */
+    public enum State {
+        PENDING,   // Hub is still processing (scan queued, BOM being built)
+        COMPLETE,  // BOM is up to date, findings are available
+        FAILED,    // Hub reported an error processing the scan
+        NOT_FOUND  // Project version or code locations cannot be found
+    }
+
+    private State state;
+    private String message;
+    private String projectVersionUrl;
+    private String policyStatus; // e.g. IN_VIOLATION, NOT_IN_VIOLATION
+    private Map<String, Long> riskCounts; // "<category>.<severity>" -> count, e.g. "VULNERABILITY.HIGH"
+
+    public HubScanStatus() {
+        this.riskCounts = new HashMap<>();
+    }
+
+    public HubScanStatus(State state, String message) {
+        this.state = state;
+        this.message = message;
+        this.riskCounts = new HashMap<>();
+    }
+
+    // Getters and Setters
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getProjectVersionUrl() {
+        return projectVersionUrl;
+    }
+
+    public void setProjectVersionUrl(String projectVersionUrl) {
+        this.projectVersionUrl = projectVersionUrl;
+    }
+
+    public String getPolicyStatus() {
+        return policyStatus;
+    }
+
+    public void setPolicyStatus(String policyStatus) {
+        this.policyStatus = policyStatus;
+    }
+
+    public Map<String, Long> getRiskCounts() {
+        return riskCounts;
+    }
+
+    public void setRiskCounts(Map<String, Long> riskCounts) {
+        this.riskCounts = riskCounts;
+    }
+
+    public void addRiskCount(String key, long count) {
+        this.riskCounts.put(key, count);
+    }
+}
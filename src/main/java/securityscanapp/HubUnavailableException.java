@@ -0,0 +1,19 @@
+package securityscanapp;
+
+/**
+ * Exception thrown when no BlackDuck hub in the routing pool can take a scan
+ * (every hub is out of routing after failures or has a trial scan running)
+ * This is a retryable exception - hubs come back once their circuit closes
+ */
+public class HubUnavailableException extends RuntimeException {
+    private final long retryAfterMs; // Until the first hub's circuit closes, 0 if unknown
+    
+    public HubUnavailableException(String message, long retryAfterMs) {
+        super(message);
+        this.retryAfterMs = retryAfterMs;
+    }
+    
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
@@ -0,0 +1,98 @@
+package securityscanapp;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Detects package manager manifests in a checked-out repository
+ *
+ * Detect's package manager detectors (and therefore rapid scans) only find something
+ * when manifests are present. The walk is limited to the top few directory levels and
+ * skips VCS metadata and dependency directories, so it stays cheap on large trees.
+ */
+public class ManifestDetector {
+
+    // Manifests below this depth are rare enough not to change the scan mode decision
+    private static final int MAX_DEPTH = 4;
+
+    private static final Map<String, String> MANIFESTS = new HashMap<>();
+    static {
+        MANIFESTS.put("pom.xml", "maven");
+        MANIFESTS.put("build.gradle", "gradle");
+        MANIFESTS.put("build.gradle.kts", "gradle");
+        MANIFESTS.put("package.json", "npm");
+        MANIFESTS.put("yarn.lock", "npm");
+        MANIFESTS.put("pnpm-lock.yaml", "npm");
+        MANIFESTS.put("requirements.txt", "pip");
+        MANIFESTS.put("setup.py", "pip");
+        MANIFESTS.put("pyproject.toml", "pip");
+        MANIFESTS.put("Pipfile", "pip");
+        MANIFESTS.put("go.mod", "go");
+        MANIFESTS.put("Cargo.toml", "cargo");
+        MANIFESTS.put("Gemfile", "rubygems");
+        MANIFESTS.put("composer.json", "composer");
+        MANIFESTS.put("packages.config", "nuget");
+        MANIFESTS.put("Package.swift", "swift");
+        MANIFESTS.put("Podfile", "cocoapods");
+    }
+
+    private static final Set<String> SKIPPED_DIRECTORIES = new TreeSet<>();
+    static {
+        SKIPPED_DIRECTORIES.add(".git");
+        SKIPPED_DIRECTORIES.add("node_modules");
+        SKIPPED_DIRECTORIES.add("vendor");
+        SKIPPED_DIRECTORIES.add("target");
+        SKIPPED_DIRECTORIES.add("build");
+        SKIPPED_DIRECTORIES.add(".venv");
+    }
+
+    private ManifestDetector() {
+    }
+
+    /**
+     * Ecosystems with at least one manifest in the repository, sorted (e.g. ["maven", "npm"])
+     */
+    public static List<String> detect(Path repoPath) throws IOException {
+        Set<String> ecosystems = new TreeSet<>();
+        Files.walkFileTree(repoPath, EnumSet.noneOf(FileVisitOption.class), MAX_DEPTH,
+            new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (!dir.equals(repoPath) && SKIPPED_DIRECTORIES.contains(dir.getFileName().toString())) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    String ecosystem = MANIFESTS.get(file.getFileName().toString());
+                    if (ecosystem == null && file.getFileName().toString().endsWith(".csproj")) {
+                        ecosystem = "nuget";
+                    }
+                    if (ecosystem != null) {
+                        ecosystems.add(ecosystem);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        return new ArrayList<>(ecosystems);
+    }
+}
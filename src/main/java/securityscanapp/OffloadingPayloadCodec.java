@@ -0,0 +1,185 @@
+package securityscanapp;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.payload.codec.PayloadCodec;
+import io.temporal.payload.codec.PayloadCodecException;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Temporal payload codec that keeps large payloads out of workflow history
+ *
+ * ScanSummary, ScanResult and ScanRequest travel by value through Temporal; with many
+ * scan results and metadata they bloat history and approach the payload size limit.
+ * Payloads larger than the threshold are serialized, written to a {@link PayloadBlobStore}
+ * under their SHA-256 and replaced by a small reference payload:
+ * <pre>
+ *   metadata: encoding = binary/offloaded, offloaded-size = &lt;bytes&gt;
+ *   data:     &lt;sha256 hex&gt;
+ * </pre>
+ * Decoding resolves references through an LRU cache of recently used blobs, so replays
+ * on the same worker do not re-read the store. Other payloads pass through unchanged.
+ *
+ * Configured from the environment:
+ * - PAYLOAD_OFFLOAD_ENABLED: offload large payloads (default false); references are always
+ *   decoded, so workers can be switched over one at a time. Every client that reads
+ *   workflow inputs or results must be able to reach the store, so offloading is meant to
+ *   be used with PAYLOAD_STORE_URL; with the PVC store only pods mounting it can decode
+ * - PAYLOAD_OFFLOAD_THRESHOLD_BYTES: payloads above this size are offloaded (default 256KB)
+ * - PAYLOAD_CACHE_MAX_BYTES: size of the decoded blob cache (default 64MB)
+ */
+public class OffloadingPayloadCodec implements PayloadCodec {
+
+    static final String ENCODING_OFFLOADED = "binary/offloaded";
+    static final String METADATA_ENCODING = "encoding";
+    static final String METADATA_SIZE = "offloaded-size";
+
+    private static final int DEFAULT_THRESHOLD_BYTES = 256 * 1024;
+    private static final long DEFAULT_CACHE_MAX_BYTES = 64L * 1024 * 1024;
+
+    private final PayloadBlobStore store;
+    private final boolean enabled;
+    private final int thresholdBytes;
+    private final BlobCache cache;
+
+    public OffloadingPayloadCodec() {
+        this(PayloadBlobStore.fromEnvironment(),
+             "true".equalsIgnoreCase(System.getenv("PAYLOAD_OFFLOAD_ENABLED")),
+             Integer.parseInt(System.getenv().getOrDefault(
+                 "PAYLOAD_OFFLOAD_THRESHOLD_BYTES", String.valueOf(DEFAULT_THRESHOLD_BYTES))),
+             Long.parseLong(System.getenv().getOrDefault(
+                 "PAYLOAD_CACHE_MAX_BYTES", String.valueOf(DEFAULT_CACHE_MAX_BYTES))));
+    }
+
+    public OffloadingPayloadCodec(PayloadBlobStore store, boolean enabled, int thresholdBytes, long cacheMaxBytes) {
+        this.store = store;
+        this.enabled = enabled;
+        this.thresholdBytes = thresholdBytes;
+        this.cache = new BlobCache(cacheMaxBytes);
+        if (enabled && store instanceof FileSystemPayloadBlobStore) {
+            System.err.println("Payload offloading uses the PVC store " + store.describe() +
+                "; clients outside the cluster cannot read offloaded payloads (set PAYLOAD_STORE_URL)");
+        }
+    }
+
+    @Override
+    public List<Payload> encode(List<Payload> payloads) {
+        if (!enabled) {
+            return payloads;
+        }
+        List<Payload> encoded = new ArrayList<>(payloads.size());
+        for (Payload payload : payloads) {
+            encoded.add(payload.getSerializedSize() > thresholdBytes ? offload(payload) : payload);
+        }
+        return encoded;
+    }
+
+    @Override
+    public List<Payload> decode(List<Payload> payloads) {
+        List<Payload> decoded = new ArrayList<>(payloads.size());
+        for (Payload payload : payloads) {
+            decoded.add(isReference(payload) ? resolve(payload) : payload);
+        }
+        return decoded;
+    }
+
+    private Payload offload(Payload payload) {
+        byte[] bytes = payload.toByteArray();
+        String key = sha256Hex(bytes);
+        try {
+            store.put(key, bytes);
+        } catch (IOException e) {
+            // Surfaces as a failed workflow/activity task, which Temporal retries
+            throw new PayloadCodecException("Failed to offload " + bytes.length + " byte payload to " +
+                store.describe(), e);
+        }
+        cache.put(key, bytes);
+        return Payload.newBuilder()
+            .putMetadata(METADATA_ENCODING, ByteString.copyFromUtf8(ENCODING_OFFLOADED))
+            .putMetadata(METADATA_SIZE, ByteString.copyFromUtf8(String.valueOf(bytes.length)))
+            .setData(ByteString.copyFromUtf8(key))
+            .build();
+    }
+
+    private Payload resolve(Payload reference) {
+        String key = reference.getData().toStringUtf8();
+        byte[] bytes = cache.get(key);
+        if (bytes == null) {
+            try {
+                bytes = store.get(key);
+            } catch (IOException e) {
+                throw new PayloadCodecException("Failed to read offloaded payload " + key + " from " +
+                    store.describe(), e);
+            }
+            if (bytes == null) {
+                throw new PayloadCodecException("Offloaded payload " + key + " not found in " + store.describe());
+            }
+            if (!key.equals(sha256Hex(bytes))) {
+                throw new PayloadCodecException("Offloaded payload " + key + " is corrupt in " + store.describe());
+            }
+            cache.put(key, bytes);
+        }
+        try {
+            return Payload.parseFrom(bytes);
+        } catch (InvalidProtocolBufferException e) {
+            throw new PayloadCodecException("Offloaded payload " + key + " is not a valid payload", e);
+        }
+    }
+
+    static boolean isReference(Payload payload) {
+        ByteString encoding = payload.getMetadataMap().get(METADATA_ENCODING);
+        return encoding != null && ENCODING_OFFLOADED.equals(encoding.toStringUtf8());
+    }
+
+    /**
+     * LRU cache of blob contents bounded by total bytes
+     */
+    static class BlobCache {
+        private final long maxBytes;
+        private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long totalBytes;
+
+        BlobCache(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized byte[] get(String key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(String key, byte[] bytes) {
+            if (bytes.length > maxBytes || entries.containsKey(key)) {
+                return;
+            }
+            entries.put(key, bytes);
+            totalBytes += bytes.length;
+            Iterator<Map.Entry<String, byte[]>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                totalBytes -= eldest.next().getValue().length;
+                eldest.remove();
+            }
+        }
+    }
+
+    private static String sha256Hex(byte[] bytes) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder hex = new StringBuilder();
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package securityscanapp;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Content-addressed store for Temporal payloads offloaded by {@link OffloadingPayloadCodec}
+ *
+ * Keys are SHA-256 hex digests of the stored bytes, so a blob never changes once written
+ * and storing the same content twice is a no-op.
+ *
+ * Configured from the environment (see {@link #fromEnvironment()}):
+ * - PAYLOAD_STORE_URL: http(s) base URL of an object store (e.g. an S3-compatible bucket);
+ *   unset = files on the shared PVC
+ * - PAYLOAD_STORE_DIR: directory for the PVC store (default {@link Shared#PAYLOAD_STORE_DIR}),
+ *   swept by {@link PayloadStoreSweeper}
+ */
+public interface PayloadBlobStore {
+
+    /**
+     * Store a blob under its content hash (no-op if it is already present)
+     */
+    void put(String key, byte[] data) throws IOException;
+
+    /**
+     * Read a blob
+     * @return Stored bytes, or null if there is no blob with this key
+     */
+    byte[] get(String key) throws IOException;
+
+    /**
+     * Where blobs are kept, for logs
+     */
+    String describe();
+
+    /**
+     * Store selected by PAYLOAD_STORE_URL / PAYLOAD_STORE_DIR
+     */
+    static PayloadBlobStore fromEnvironment() {
+        String url = System.getenv("PAYLOAD_STORE_URL");
+        if (url != null && !url.trim().isEmpty()) {
+            return new HttpPayloadBlobStore(url.trim(), System.getenv("PAYLOAD_STORE_TOKEN"));
+        }
+        return new FileSystemPayloadBlobStore(
+            Paths.get(System.getenv().getOrDefault("PAYLOAD_STORE_DIR", Shared.PAYLOAD_STORE_DIR)));
+    }
+}
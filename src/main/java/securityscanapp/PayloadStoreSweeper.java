@@ -0,0 +1,66 @@
+package securityscanapp;
+
+import io.temporal.api.workflowservice.v1.DescribeNamespaceRequest;
+import io.temporal.api.workflowservice.v1.DescribeNamespaceResponse;
+import io.temporal.serviceclient.WorkflowServiceStubs;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background deletion of expired blobs from the PVC payload store
+ *
+ * An offloaded payload is referenced from workflow history while the workflow is open and
+ * for the namespace's retention period after it closes. A blob is therefore only deleted
+ * once it has been neither written nor read for the namespace retention (read from the
+ * server on every sweep) plus PAYLOAD_MAX_WORKFLOW_DAYS (default 30), the longest a
+ * workflow is expected to stay open. If the retention cannot be read, nothing is deleted.
+ *
+ * Sweeps run on one daemon thread per worker every {@link #SWEEP_INTERVAL_HOURS} hours.
+ * Workers sweeping the same volume concurrently is harmless.
+ */
+public final class PayloadStoreSweeper {
+
+    static final long SWEEP_INTERVAL_HOURS = 6;
+
+    private static final long DEFAULT_MAX_WORKFLOW_DAYS = 30;
+
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "payload-store-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private PayloadStoreSweeper() {
+    }
+
+    /**
+     * Start sweeping the configured store if it is the PVC store
+     */
+    public static void start(WorkflowServiceStubs service, String namespace) {
+        PayloadBlobStore store = PayloadBlobStore.fromEnvironment();
+        if (!(store instanceof FileSystemPayloadBlobStore)) {
+            return; // Object stores expire blobs with their own lifecycle rules
+        }
+        long maxWorkflowMs = TimeUnit.DAYS.toMillis(Long.parseLong(System.getenv().getOrDefault(
+            "PAYLOAD_MAX_WORKFLOW_DAYS", String.valueOf(DEFAULT_MAX_WORKFLOW_DAYS))));
+        SWEEPER.scheduleWithFixedDelay(
+            () -> sweep((FileSystemPayloadBlobStore) store, service, namespace, maxWorkflowMs),
+            1, TimeUnit.HOURS.toMinutes(SWEEP_INTERVAL_HOURS), TimeUnit.MINUTES);
+    }
+
+    static void sweep(FileSystemPayloadBlobStore store, WorkflowServiceStubs service, String namespace,
+                      long maxWorkflowMs) {
+        try {
+            DescribeNamespaceResponse response = service.blockingStub().describeNamespace(
+                DescribeNamespaceRequest.newBuilder().setNamespace(namespace).build());
+            com.google.protobuf.Duration retention = response.getConfig().getWorkflowExecutionRetentionTtl();
+            long retentionMs = TimeUnit.SECONDS.toMillis(retention.getSeconds());
+            store.evict(retentionMs + maxWorkflowMs);
+        } catch (RuntimeException e) {
+            System.err.println("Skipping payload store sweep, cannot read retention of namespace " +
+                namespace + ": " + e.getMessage());
+        }
+    }
+}
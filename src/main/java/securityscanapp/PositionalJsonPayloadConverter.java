@@ -0,0 +1,112 @@
+package securityscanapp;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DataConverterException;
+import io.temporal.common.converter.EncodingKeys;
+import io.temporal.common.converter.JacksonJsonPayloadConverter;
+import io.temporal.common.converter.PayloadConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Schema-based payload converter for the scan model classes
+ *
+ * ScanRequest, ScanSummary, ScanResult, ScanConfig and BlackDuckConfig are written as JSON
+ * arrays in a fixed property order (alphabetical) instead of objects, so field names are
+ * not repeated in every payload. The class structure is the schema: a fingerprint of the
+ * property names of all these classes travels in the payload metadata, and a payload
+ * written by a different version of the classes is rejected instead of being misread.
+ *
+ * Because of that, changing any of these classes makes payloads of running workflows
+ * unreadable by the new code. Only enable it (PAYLOAD_POSITIONAL_ENCODING=true) where
+ * workers are drained before model changes are deployed. Other types fall through to the
+ * standard JSON converter.
+ */
+public class PositionalJsonPayloadConverter implements PayloadConverter {
+
+    static final String ENCODING = "json/scan-positional";
+    static final String METADATA_SCHEMA = "schema";
+
+    // Written as arrays; nested types not listed here stay JSON objects
+    static final List<Class<?>> POSITIONAL_CLASSES = Arrays.asList(
+        ScanRequest.class, ScanSummary.class, ScanResult.class, ScanConfig.class, BlackDuckConfig.class);
+
+    private final ObjectMapper mapper;
+    private final String schema;
+
+    @SuppressWarnings("deprecation")
+    public PositionalJsonPayloadConverter() {
+        this.mapper = JacksonJsonPayloadConverter.newDefaultObjectMapper();
+        this.mapper.configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true);
+        for (Class<?> type : POSITIONAL_CLASSES) {
+            mapper.configOverride(type).setFormat(JsonFormat.Value.forShape(JsonFormat.Shape.ARRAY));
+        }
+        this.schema = fingerprint(mapper);
+    }
+
+    @Override
+    public String getEncodingType() {
+        return ENCODING;
+    }
+
+    @Override
+    public Optional<Payload> toData(Object value) throws DataConverterException {
+        if (value == null || !POSITIONAL_CLASSES.contains(value.getClass())) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Payload.newBuilder()
+                .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ByteString.copyFromUtf8(ENCODING))
+                .putMetadata(METADATA_SCHEMA, ByteString.copyFromUtf8(schema))
+                .setData(ByteString.copyFrom(mapper.writeValueAsBytes(value)))
+                .build());
+        } catch (IOException e) {
+            throw new DataConverterException(e);
+        }
+    }
+
+    @Override
+    public <T> T fromData(Payload content, Class<T> valueClass, Type valueType) throws DataConverterException {
+        ByteString payloadSchema = content.getMetadataMap().get(METADATA_SCHEMA);
+        if (payloadSchema == null || !schema.equals(payloadSchema.toStringUtf8())) {
+            throw new DataConverterException("Positional payload was written with schema " +
+                (payloadSchema != null ? payloadSchema.toStringUtf8() : "unknown") + ", this worker has " + schema +
+                "; the scan model classes changed while the workflow was running", content, new Type[]{valueType});
+        }
+        try {
+            JavaType type = mapper.getTypeFactory().constructType(valueType);
+            return mapper.readValue(content.getData().toByteArray(), type);
+        } catch (IOException e) {
+            throw new DataConverterException(content, new Type[]{valueType}, e);
+        }
+    }
+
+    /**
+     * Short hash of the ordered property names of every positional class
+     */
+    private static String fingerprint(ObjectMapper mapper) {
+        StringBuilder properties = new StringBuilder();
+        for (Class<?> type : POSITIONAL_CLASSES) {
+            BeanDescription description = mapper.getSerializationConfig()
+                .introspect(mapper.constructType(type));
+            List<String> names = new ArrayList<>();
+            for (BeanPropertyDefinition property : description.findProperties()) {
+                names.add(property.getName() + ":" + property.getPrimaryType().toCanonical());
+            }
+            properties.append(type.getSimpleName()).append(names).append(';');
+        }
+        return RepositoryMirrorCache.sha256Hex(properties.toString()).substring(0, 16);
+    }
+}
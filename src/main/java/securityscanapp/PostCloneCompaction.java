@@ -0,0 +1,57 @@
+package securityscanapp;
+
+/**
+ * Post-clone compaction modes for the workspace git directory
+ * 
+ * The workspace is deleted after the scan, so compaction only pays off when
+ * space is tight. The default (AUTO) optimizes for wall-clock time per scan.
+ */
+public enum PostCloneCompaction {
+    /**
+     * Choose a mode from .git size and free workspace space (default)
+     * Picks NONE unless the git directory is large or the volume is running low,
+     * in which case DELETE_GIT_DIR reclaims the space at almost no CPU cost
+     */
+    AUTO("auto", "Choose mode by git directory size and free space"),
+    
+    /**
+     * Leave the git directory untouched
+     * Fastest, keeps git metadata available to tools and retries
+     */
+    NONE("none", "No post-clone compaction"),
+    
+    /**
+     * Delete .git entirely after checkout
+     * Frees all history/object space with a plain directory delete
+     * Tools that need git metadata will not work on the workspace afterwards
+     */
+    DELETE_GIT_DIR("delete-git-dir", "Delete the .git directory after checkout"),
+    
+    /**
+     * Light housekeeping with git gc --auto
+     * Only packs loose objects when git's own thresholds are exceeded
+     */
+    GC_AUTO("gc-auto", "Light git gc --auto"),
+    
+    /**
+     * Legacy behaviour: git gc --aggressive --prune=now
+     * Very CPU-intensive on large repositories, rarely worth it for a throwaway workspace
+     */
+    GC_AGGRESSIVE("gc-aggressive", "Aggressive git gc (legacy)");
+    
+    private final String id;
+    private final String description;
+    
+    PostCloneCompaction(String id, String description) {
+        this.id = id;
+        this.description = description;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+}
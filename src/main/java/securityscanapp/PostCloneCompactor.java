@@ -0,0 +1,108 @@
+package securityscanapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Post-clone compaction stage for workspace repositories
+ * 
+ * Replaces the unconditional git gc --aggressive that used to run after every
+ * shallow clone. The mode is configured per scan (ScanConfig) and AUTO picks
+ * one from the size of .git and the free space left on the workspace volume.
+ * AUTO never deletes .git of a partial clone: those strategies exist to keep
+ * git history available to tools at a fraction of the size.
+ * The chosen mode, the reason and the time spent are recorded on the CloneResult.
+ */
+public class PostCloneCompactor {
+    
+    /**
+     * Run the compaction stage and record what was done
+     * 
+     * @param repoPath Path to the cloned repository
+     * @param requested Configured mode (null means AUTO)
+     * @param cloneStrategy Strategy the repository was cloned with
+     * @param clonedFromMirror Whether objects live in the shared mirror (nothing to compact locally)
+     * @param availableSpace Free space on the workspace volume after the clone
+     * @param maxWorkspaceSize Configured maximum workspace size
+     * @param result Clone result receiving the compaction metadata
+     * @param git Runner for git subprocesses (and status heartbeats)
+     */
+    public void compact(String repoPath, PostCloneCompaction requested, CloneStrategy cloneStrategy,
+                        boolean clonedFromMirror,
+                        long availableSpace, long maxWorkspaceSize, CloneResult result,
+                        GitProcessRunner git) throws IOException, InterruptedException {
+        long startTime = System.currentTimeMillis();
+        Path gitDir = Paths.get(repoPath, ".git");
+        
+        PostCloneCompaction mode = requested != null ? requested : PostCloneCompaction.AUTO;
+        String reason = "configured";
+        
+        if (!Files.isDirectory(gitDir)) {
+            mode = PostCloneCompaction.NONE;
+            reason = "no git directory";
+        } else if (mode == PostCloneCompaction.AUTO) {
+            if (clonedFromMirror) {
+                mode = PostCloneCompaction.NONE;
+                reason = "objects shared with mirror cache";
+            } else if (RepositoryActivityImpl.isPartialClone(cloneStrategy)) {
+                mode = PostCloneCompaction.NONE;
+                reason = "partial clone keeps git metadata for tools";
+            } else {
+                long gitDirSize = RepositoryActivityImpl.calculateDirectorySize(gitDir);
+                long lowWaterMark = maxWorkspaceSize / 4;
+                if (gitDirSize >= Shared.GIT_DIR_DELETE_THRESHOLD_BYTES) {
+                    mode = PostCloneCompaction.DELETE_GIT_DIR;
+                    reason = "git directory " + (gitDirSize / (1024 * 1024)) + " MB";
+                } else if (availableSpace < lowWaterMark) {
+                    mode = PostCloneCompaction.DELETE_GIT_DIR;
+                    reason = "free space below " + (lowWaterMark / (1024 * 1024)) + " MB";
+                } else {
+                    mode = PostCloneCompaction.NONE;
+                    reason = "git directory " + (gitDirSize / (1024 * 1024)) + " MB, space sufficient";
+                }
+            }
+        }
+        
+        git.heartbeat("Post-clone compaction: " + mode.getId() + " (" + reason + ")");
+        
+        switch (mode) {
+            case DELETE_GIT_DIR:
+                RepositoryActivityImpl.deleteDirectory(gitDir);
+                break;
+            case GC_AUTO:
+                runGc(repoPath, git, "gc", "--auto", "--quiet");
+                break;
+            case GC_AGGRESSIVE:
+                runGc(repoPath, git, "gc", "--aggressive", "--prune=now");
+                break;
+            case NONE:
+            default:
+                break;
+        }
+        
+        if (mode != PostCloneCompaction.NONE) {
+            DirectorySizer.invalidate(Paths.get(repoPath));
+        }
+        
+        long elapsed = System.currentTimeMillis() - startTime;
+        result.addMetadata("compactionMode", mode.getId());
+        result.addMetadata("compactionReason", reason);
+        result.addMetadata("compactionTimeMs", String.valueOf(elapsed));
+        
+        git.heartbeat("Post-clone compaction completed in " + elapsed + " ms");
+    }
+    
+    private void runGc(String repoPath, GitProcessRunner git, String... args)
+            throws IOException, InterruptedException {
+        // Runner keeps heartbeating while a long gc is silent
+        int exitCode = git.run(new File(repoPath), "gc", null, args).getExitCode();
+        
+        if (exitCode != 0) {
+            // Non-fatal, just log
+            git.heartbeat("Git gc completed with warnings (non-fatal)");
+        }
+    }
+}
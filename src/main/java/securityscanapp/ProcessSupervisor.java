@@ -0,0 +1,479 @@
+package securityscanapp;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Launches scan subprocesses with resource limits and supervises their whole process tree
+ *
+ * Configured from the environment:
+ * - DETECT_JAVA_OPTS: JVM options for Detect (e.g. "-Xmx2g -XX:+UseSerialGC")
+ * - DETECT_NICE: CPU nice level (default 10; empty disables)
+ * - DETECT_IONICE_CLASS / DETECT_IONICE_LEVEL: I/O scheduling class and level (default 2 / 7; empty class disables)
+ * - DETECT_MEMORY_LIMIT: cgroup v2 memory.max, e.g. "4G" (unset = no cgroup memory limit)
+ * - DETECT_CPU_LIMIT: cgroup v2 CPU limit in cores, e.g. "1.5"
+ * - DETECT_PIDS_LIMIT: cgroup v2 pids.max
+ * - DETECT_CGROUP_PARENT: delegated cgroup under which per-scan cgroups are created
+ *   (default /sys/fs/cgroup/security-scans)
+ *
+ * With any cgroup limit set and a writable cgroup v2 hierarchy, each scan runs in its own
+ * child cgroup: a small shell wrapper joins the cgroup before exec'ing the command, so every
+ * process Detect forks is limited and can be killed at once (cgroup.kill).
+ *
+ * cgroup v2 only lets a cgroup hand controllers to its children while it has no processes
+ * of its own. The first scan therefore enables the controllers on every cgroup from
+ * /sys/fs/cgroup down to DETECT_CGROUP_PARENT, and moves the processes of any of those
+ * cgroups that refuses because it still has some - normally the container's root cgroup,
+ * where the worker JVM runs - into a "worker" leaf below it. This needs write access to the cgroup
+ * hierarchy (a privileged container, or a delegated cgroup namespace). Without cgroups,
+ * the tree is tracked with ProcessHandle.descendants(); handles are remembered as they
+ * appear so orphans reparented away from the scan process are still killed.
+ *
+ * A watchdog kills the tree when the deadline passes: SIGTERM first, SIGKILL after
+ * {@link #KILL_GRACE_SECONDS}. Descendants still alive when the scan finishes (e.g. build
+ * tool daemons started by Detect) are killed on close.
+ */
+public class ProcessSupervisor {
+
+    private static final String CGROUP_ROOT = "/sys/fs/cgroup";
+    private static final String DEFAULT_CGROUP_PARENT = CGROUP_ROOT + "/security-scans";
+
+    // Period of the cgroup cpu.max quota
+    private static final long CPU_PERIOD_MICROS = 100000;
+
+    // How often the watchdog refreshes the process tree and checks the deadline
+    static final long WATCHDOG_INTERVAL_SECONDS = 2;
+
+    // Time between SIGTERM and SIGKILL when killing a tree
+    static final long KILL_GRACE_SECONDS = 10;
+
+    // Removal of a scan cgroup is retried until its killed processes have exited
+    private static final int CGROUP_REMOVE_ATTEMPTS = 10;
+    private static final long CGROUP_REMOVE_RETRY_MS = 200;
+
+    // Leaf cgroup the processes of a delegating cgroup are moved into
+    private static final String WORKER_CGROUP = "worker";
+
+    // Controllers are delegated once per worker JVM
+    private static final Object DELEGATION_LOCK = new Object();
+    private static volatile boolean delegated;
+
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "process-supervisor-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    // Unavailable tools or cgroups are reported once per worker, not per scan
+    private static final Set<String> WARNED = ConcurrentHashMap.newKeySet();
+
+    private final String javaOpts;
+    private final String niceLevel;
+    private final String ioniceClass;
+    private final String ioniceLevel;
+    private final String memoryLimit;
+    private final String cpuLimit;
+    private final String pidsLimit;
+    private final Path cgroupParent;
+
+    public ProcessSupervisor() {
+        this(System.getenv("DETECT_JAVA_OPTS"),
+             System.getenv().getOrDefault("DETECT_NICE", "10"),
+             System.getenv().getOrDefault("DETECT_IONICE_CLASS", "2"),
+             System.getenv().getOrDefault("DETECT_IONICE_LEVEL", "7"),
+             System.getenv("DETECT_MEMORY_LIMIT"),
+             System.getenv("DETECT_CPU_LIMIT"),
+             System.getenv("DETECT_PIDS_LIMIT"),
+             Paths.get(System.getenv().getOrDefault("DETECT_CGROUP_PARENT", DEFAULT_CGROUP_PARENT)));
+    }
+
+    public ProcessSupervisor(String javaOpts, String niceLevel, String ioniceClass, String ioniceLevel,
+                             String memoryLimit, String cpuLimit, String pidsLimit, Path cgroupParent) {
+        this.javaOpts = trimToNull(javaOpts);
+        this.niceLevel = trimToNull(niceLevel);
+        this.ioniceClass = trimToNull(ioniceClass);
+        this.ioniceLevel = trimToNull(ioniceLevel);
+        this.memoryLimit = trimToNull(memoryLimit);
+        this.cpuLimit = trimToNull(cpuLimit);
+        this.pidsLimit = trimToNull(pidsLimit);
+        this.cgroupParent = cgroupParent;
+    }
+
+    /**
+     * DETECT_JAVA_OPTS as configured, or null
+     */
+    public String getJavaOpts() {
+        return javaOpts;
+    }
+
+    /**
+     * DETECT_JAVA_OPTS split into JVM arguments (empty if unset)
+     */
+    public List<String> getJavaOptions() {
+        return javaOpts != null ? Arrays.asList(javaOpts.split("\\s+")) : Collections.emptyList();
+    }
+
+    /**
+     * A supervised subprocess; close it once the process has exited
+     */
+    public static class Supervised implements AutoCloseable {
+        private final Process process;
+        private final Path cgroup; // null when not running in its own cgroup
+        private final long deadline; // 0 = none
+        private final Set<ProcessHandle> tree = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean killing = new AtomicBoolean();
+        private volatile boolean timedOut;
+        private volatile int peakProcesses;
+        private ScheduledFuture<?> watchdog;
+
+        Supervised(Process process, Path cgroup, long deadline) {
+            this.process = process;
+            this.cgroup = cgroup;
+            this.deadline = deadline;
+        }
+
+        public Process getProcess() {
+            return process;
+        }
+
+        /**
+         * Whether the watchdog killed the tree because the deadline passed
+         */
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        /**
+         * Whether the kernel OOM-killed a process in the scan's cgroup
+         */
+        public boolean isOomKilled() {
+            if (cgroup == null) {
+                return false;
+            }
+            try {
+                for (String line : Files.readAllLines(cgroup.resolve("memory.events"))) {
+                    if (line.startsWith("oom_kill ")) {
+                        return Long.parseLong(line.substring("oom_kill ".length()).trim()) > 0;
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                // No memory controller in this cgroup
+            }
+            return false;
+        }
+
+        public String getCgroupPath() {
+            return cgroup != null ? cgroup.toString() : null;
+        }
+
+        /**
+         * Largest number of processes seen in the tree at once (including the root)
+         */
+        public int getPeakProcesses() {
+            return peakProcesses;
+        }
+
+        /**
+         * Kill the process and every descendant: SIGTERM now, SIGKILL after the grace period
+         */
+        public void destroyTree() {
+            if (!killing.compareAndSet(false, true)) {
+                return;
+            }
+            refreshTree();
+            for (ProcessHandle handle : tree) {
+                handle.destroy();
+            }
+            process.destroy();
+            WATCHDOG.schedule(this::killTree, KILL_GRACE_SECONDS, TimeUnit.SECONDS);
+        }
+
+        private void killTree() {
+            if (cgroup != null) {
+                writeQuietly(cgroup.resolve("cgroup.kill"), "1");
+            }
+            refreshTree();
+            for (ProcessHandle handle : tree) {
+                handle.destroyForcibly();
+            }
+            process.destroyForcibly();
+        }
+
+        void watch() {
+            refreshTree();
+            if (deadline > 0 && System.currentTimeMillis() > deadline && process.isAlive() && !timedOut) {
+                timedOut = true;
+                System.err.println("Subprocess " + process.pid() + " exceeded its deadline, killing " +
+                    (tree.size() + 1) + " processes");
+                destroyTree();
+            }
+        }
+
+        /**
+         * Remember every process that has been part of the tree; a descendant whose parent
+         * exits is reparented and no longer shows up in process.descendants()
+         */
+        private void refreshTree() {
+            process.descendants().forEach(tree::add);
+            tree.removeIf(handle -> !handle.isAlive());
+            peakProcesses = Math.max(peakProcesses, tree.size() + (process.isAlive() ? 1 : 0));
+        }
+
+        @Override
+        public void close() {
+            if (watchdog != null) {
+                watchdog.cancel(false);
+            }
+            refreshTree();
+            if (!tree.isEmpty()) {
+                System.out.println("Killing " + tree.size() + " processes left behind by subprocess " + process.pid());
+                killTree();
+            }
+            if (cgroup != null) {
+                // In the background: the activity thread does not wait for killed processes to exit
+                removeCgroup(cgroup, 1);
+            }
+        }
+    }
+
+    /**
+     * Start a command under supervision
+     *
+     * @param builder Configured process builder; its command is wrapped with the limits
+     * @param deadline Epoch millis after which the tree is killed (0 = no deadline)
+     */
+    public Supervised start(ProcessBuilder builder, long deadline) throws IOException {
+        List<String> command = new ArrayList<>();
+        Path cgroup = createCgroup();
+        if (cgroup != null) {
+            // Join the cgroup before exec so the command and all of its children are limited
+            command.add("/bin/sh");
+            command.add("-c");
+            command.add("echo $$ > \"$0\" && exec \"$@\"");
+            command.add(cgroup.resolve("cgroup.procs").toString());
+        }
+        if (niceLevel != null && isAvailable("nice")) {
+            command.add("nice");
+            command.add("-n");
+            command.add(niceLevel);
+        }
+        if (ioniceClass != null && isAvailable("ionice")) {
+            command.add("ionice");
+            command.add("-c");
+            command.add(ioniceClass);
+            if (ioniceLevel != null && !"3".equals(ioniceClass)) {
+                command.add("-n");
+                command.add(ioniceLevel);
+            }
+        }
+        command.addAll(builder.command());
+        builder.command(command);
+
+        Process process;
+        try {
+            process = builder.start();
+        } catch (IOException e) {
+            if (cgroup != null) {
+                removeCgroup(cgroup, 1);
+            }
+            throw e;
+        }
+        Supervised supervised = new Supervised(process, cgroup, deadline);
+        supervised.watchdog = WATCHDOG.scheduleWithFixedDelay(supervised::watch,
+            WATCHDOG_INTERVAL_SECONDS, WATCHDOG_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        return supervised;
+    }
+
+    /**
+     * Create a per-scan cgroup with the configured limits, or null if none are configured
+     * or cgroup v2 is not writable here
+     */
+    private Path createCgroup() {
+        if (memoryLimit == null && cpuLimit == null && pidsLimit == null) {
+            return null;
+        }
+        if (!Files.exists(Paths.get(CGROUP_ROOT, "cgroup.controllers"))) {
+            warnOnce("cgroup-v1", "cgroup v2 is not available, scans run without cgroup limits");
+            return null;
+        }
+        Path cgroup = cgroupParent.resolve("scan-" + ProcessHandle.current().pid() + "-" + NEXT_ID.incrementAndGet());
+        try {
+            delegateControllers();
+            Files.createDirectory(cgroup);
+            if (memoryLimit != null) {
+                write(cgroup.resolve("memory.max"), memoryLimit);
+                // Keep the scan out of swap so the limit is a real memory bound
+                writeQuietly(cgroup.resolve("memory.swap.max"), "0");
+            }
+            if (cpuLimit != null) {
+                long quota = Math.round(Double.parseDouble(cpuLimit) * CPU_PERIOD_MICROS);
+                write(cgroup.resolve("cpu.max"), quota + " " + CPU_PERIOD_MICROS);
+            }
+            if (pidsLimit != null) {
+                write(cgroup.resolve("pids.max"), pidsLimit);
+            }
+            return cgroup;
+        } catch (IOException | RuntimeException e) {
+            warnOnce("cgroup-create", "Cannot create scan cgroups under " + cgroupParent +
+                ", scans run without cgroup limits: " + e.getMessage());
+            removeCgroup(cgroup, 1);
+            return null;
+        }
+    }
+
+    /**
+     * Delegate the controllers the limits need from the hierarchy root down to the per-scan cgroups
+     */
+    private void delegateControllers() throws IOException {
+        if (delegated) {
+            return;
+        }
+        synchronized (DELEGATION_LOCK) {
+            if (delegated) {
+                return;
+            }
+            List<String> needed = new ArrayList<>();
+            if (memoryLimit != null) {
+                needed.add("memory");
+            }
+            if (cpuLimit != null) {
+                needed.add("cpu");
+            }
+            if (pidsLimit != null) {
+                needed.add("pids");
+            }
+
+            // Root first: a cgroup can only enable controllers its parent passes on
+            List<Path> chain = new ArrayList<>();
+            Path root = Paths.get(CGROUP_ROOT);
+            for (Path dir = cgroupParent; dir != null && dir.startsWith(root); dir = dir.getParent()) {
+                chain.add(0, dir);
+            }
+            for (Path dir : chain) {
+                Files.createDirectories(dir);
+                Set<String> enabled = controllers(dir.resolve("cgroup.subtree_control"));
+                List<String> missing = new ArrayList<>();
+                for (String controller : needed) {
+                    if (!enabled.contains(controller)) {
+                        missing.add("+" + controller);
+                    }
+                }
+                if (missing.isEmpty()) {
+                    continue;
+                }
+                try {
+                    write(dir.resolve("cgroup.subtree_control"), String.join(" ", missing));
+                } catch (IOException e) {
+                    // EBUSY: a non-root cgroup with processes of its own cannot delegate controllers
+                    if (!moveProcessesToLeaf(dir)) {
+                        throw e;
+                    }
+                    write(dir.resolve("cgroup.subtree_control"), String.join(" ", missing));
+                }
+            }
+            delegated = true;
+        }
+    }
+
+    /**
+     * Move every process of a cgroup (e.g. this JVM in the container's root cgroup) into a leaf child
+     * @return Whether there were processes to move
+     */
+    private static boolean moveProcessesToLeaf(Path dir) throws IOException {
+        List<String> pids = Files.readAllLines(dir.resolve("cgroup.procs"));
+        if (pids.stream().allMatch(pid -> pid.trim().isEmpty())) {
+            return false;
+        }
+        Path leaf = dir.resolve(WORKER_CGROUP);
+        Files.createDirectories(leaf);
+        for (String pid : pids) {
+            if (!pid.trim().isEmpty()) {
+                try {
+                    write(leaf.resolve("cgroup.procs"), pid.trim());
+                } catch (IOException e) {
+                    // Exited meanwhile, or a kernel thread that cannot be moved
+                }
+            }
+        }
+        System.out.println("Moved " + pids.size() + " processes from " + dir + " into " + leaf +
+            " to delegate cgroup controllers");
+        return true;
+    }
+
+    /**
+     * Controller names in a cgroup.controllers / cgroup.subtree_control file
+     */
+    static Set<String> controllers(Path file) throws IOException {
+        String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+        return content.isEmpty()
+            ? new HashSet<>()
+            : new LinkedHashSet<>(Arrays.asList(content.split("\\s+")));
+    }
+
+    /**
+     * Remove a scan cgroup on the watchdog thread; rmdir only succeeds once the last process
+     * has left, and killed processes exit asynchronously
+     */
+    private static void removeCgroup(Path cgroup, int attempt) {
+        try {
+            Files.deleteIfExists(cgroup);
+        } catch (IOException e) {
+            if (attempt < CGROUP_REMOVE_ATTEMPTS) {
+                WATCHDOG.schedule(() -> removeCgroup(cgroup, attempt + 1), CGROUP_REMOVE_RETRY_MS, TimeUnit.MILLISECONDS);
+            } else {
+                System.err.println("Could not remove cgroup " + cgroup + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static boolean isAvailable(String tool) {
+        for (String dir : new String[]{"/usr/bin", "/bin", "/usr/local/bin"}) {
+            if (Files.isExecutable(Paths.get(dir, tool))) {
+                return true;
+            }
+        }
+        warnOnce(tool, tool + " is not installed, scans run without it");
+        return false;
+    }
+
+    private static void warnOnce(String key, String message) {
+        if (WARNED.add(key)) {
+            System.err.println(message);
+        }
+    }
+
+    private static void write(Path file, String value) throws IOException {
+        Files.write(file, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeQuietly(Path file, String value) {
+        try {
+            write(file, value);
+        } catch (IOException e) {
+            // Optional interface file (e.g. no swap accounting, kernel without cgroup.kill)
+        }
+    }
+
+    private static String trimToNull(String value) {
+        return value != null && !value.trim().isEmpty() ? value.trim() : null;
+    }
+}
@@ -12,10 +12,26 @@ public interface RepositoryActivity {
     /**
      * Clone a repository from SCM to the workspace
      * @param request Scan request containing repository information
-     * @return Path to the cloned repository
+     * @return Clone result with the path to the cloned repository and clone metadata
      */
     @ActivityMethod
-    String cloneRepository(ScanRequest request);
+    CloneResult cloneRepository(ScanRequest request);
+    
+    /**
+     * Reserve workspace space for a scan in the PVC-wide ledger, waiting in FIFO order
+     * Runs before cloneRepository so the wait does not use up the clone's timeout;
+     * the clone then reuses the reservation
+     * @param request Scan request (workspace path, clone settings for the size estimate)
+     */
+    @ActivityMethod
+    void reserveWorkspaceSpace(ScanRequest request);
+    
+    /**
+     * Release the space reservation of a workspace that is kept (e.g. after a failed scan)
+     * @param workspacePath Path to the workspace directory
+     */
+    @ActivityMethod
+    void releaseWorkspaceReservation(String workspacePath);
     
     /**
      * Clean up workspace directory to free space
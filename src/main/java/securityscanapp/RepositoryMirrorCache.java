@@ -0,0 +1,355 @@
+package securityscanapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache of bare repository mirrors on the shared PVC
+ *
+ * Each repository URL (normalized, credentials stripped) maps to one bare
+ * mirror under {@link Shared#MIRROR_CACHE_DIR}. The first scan of a repository
+ * creates the mirror with a full network clone; later scans only fetch new
+ * objects into it. Workspace clones are then made from the mirror with
+ * {@code git clone --shared}, which borrows the mirror's objects through git
+ * alternates instead of copying or downloading them.
+ *
+ * Mirrors have automatic gc disabled so objects referenced by live workspace
+ * clones are never pruned underneath them.
+ *
+ * Refreshes are single-flight per repository: activity threads in one worker
+ * serialize on a striped lock, and workers sharing the RWX volume serialize on
+ * a file lock next to the mirror. A caller that waited while another refresh
+ * completed reuses that result instead of fetching again.
+ *
+ * Mirrors fetch branches and tags only. A requested commit that none of them reaches
+ * (e.g. a pull request head) is fetched by SHA into refs/scan-commits/, so workspace
+ * clones can check it out through the alternates; if the server refuses, the refresh
+ * fails and the caller clones directly.
+ *
+ * Completed refreshes are counted in a per-mirror generation file, written only
+ * under the file lock. Callers compare generations rather than timestamps, so
+ * clock skew between pods cannot make a stale mirror look fresh.
+ */
+public class RepositoryMirrorCache {
+    
+    // Number of in-process lock stripes (repositories hash onto stripes)
+    private static final int LOCK_STRIPES = 256;
+    
+    // How often waiting callers heartbeat while another refresh is in progress
+    private static final long LOCK_WAIT_HEARTBEAT_SECONDS = 10;
+    
+    // Shared by all activity instances in this worker JVM
+    private static final ReentrantLock[] STRIPES = createStripes();
+
+    private final Path cacheDir;
+
+    public RepositoryMirrorCache() {
+        this(Paths.get(Shared.MIRROR_CACHE_DIR));
+    }
+
+    public RepositoryMirrorCache(Path cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Get the mirror location for a repository URL
+     * The directory name is derived from the normalized URL so that credentials,
+     * trailing slashes and ".git" suffixes all map to the same mirror
+     */
+    public Path getMirrorPath(String repositoryUrl) {
+        return cacheDir.resolve(mirrorKey(repositoryUrl) + ".git");
+    }
+
+    /**
+     * Create or incrementally update the mirror for a repository
+     *
+     * @param repositoryUrl Repository URL as given in the scan request (used for the cache key)
+     * @param fetchUrl URL used for network access (may contain credentials, never persisted)
+     * @param commitSha Commit the caller needs (may be null); a reused refresh must contain it
+     * @param git Runner for git subprocesses (heartbeats transfer progress and status)
+     * @return Progress of the network transfer, or null if a concurrent refresh was reused
+     */
+    public GitProgress refreshMirror(String repositoryUrl, String fetchUrl, String commitSha,
+                                     GitProcessRunner git) throws IOException, InterruptedException {
+        String key = mirrorKey(repositoryUrl);
+        Path mirrorPath = getMirrorPath(repositoryUrl);
+        Files.createDirectories(cacheDir);
+        // Generation seen before waiting; any refresh completing after this point bumps it
+        long requestedGeneration = readGeneration(key);
+
+        // One refresh per repository at a time within this worker
+        ReentrantLock stripe = STRIPES[Math.floorMod(key.hashCode(), LOCK_STRIPES)];
+        while (!stripe.tryLock(LOCK_WAIT_HEARTBEAT_SECONDS, TimeUnit.SECONDS)) {
+            git.heartbeat("Waiting for in-progress mirror refresh: " + key);
+        }
+        try {
+            // One refresh per repository at a time across workers sharing the volume
+            Path lockFile = cacheDir.resolve(key + ".lock");
+            try (FileChannel channel = FileChannel.open(lockFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock fileLock = acquireFileLock(channel, key, git);
+                try {
+                    if (isRefreshedSince(key, mirrorPath, requestedGeneration, commitSha, git)) {
+                        git.heartbeat("Reusing mirror refreshed by concurrent scan: " + key);
+                        return null;
+                    }
+                    GitProgress transfer = refreshLocked(mirrorPath, repositoryUrl, fetchUrl, git);
+                    fetchMissingCommit(mirrorPath, repositoryUrl, fetchUrl, commitSha, git);
+                    markRefreshed(key, readGeneration(key) + 1);
+                    return transfer;
+                } finally {
+                    fileLock.release();
+                }
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Fetch into (or create) the mirror - caller must hold both locks for the repository
+     */
+    private GitProgress refreshLocked(Path mirrorPath, String repositoryUrl, String fetchUrl,
+                                      GitProcessRunner git) 
+                                      throws IOException, InterruptedException {
+        String host = GitProcessRunner.hostOf(repositoryUrl);
+        DirectorySizer.invalidate(mirrorPath);
+        if (isValidMirror(mirrorPath)) {
+            git.heartbeat("Updating repository mirror: " + mirrorPath);
+            GitProcessRunner.Result fetch = runGit(git, mirrorPath.toFile(), host, "fetch", "--prune", "--progress",
+                fetchUrl, "+refs/heads/*:refs/heads/*", "+refs/tags/*:refs/tags/*");
+            git.heartbeat("Repository mirror updated");
+            return fetch.getProgress();
+        }
+
+        // Build the mirror next to its final location and move it into place once complete,
+        // so an interrupted first clone never leaves a half-populated mirror behind
+        String tempPrefix = mirrorPath.getFileName() + ".tmp-";
+        removeStaleTempMirrors(tempPrefix);
+        Path tempPath = cacheDir.resolve(tempPrefix + System.nanoTime());
+        GitProgress transfer;
+        try {
+            git.heartbeat("Creating repository mirror: " + mirrorPath);
+            transfer = runGit(git, cacheDir.toFile(), host, "clone", "--mirror", "--progress",
+                fetchUrl, tempPath.toString()).getProgress();
+
+            // Never keep credentials in the mirror config on shared storage
+            runGit(git, tempPath.toFile(), null, "remote", "set-url", "origin",
+                   RepositoryActivityImpl.normalizeGitUrl(repositoryUrl));
+            runGit(git, tempPath.toFile(), null, "config", "gc.auto", "0");
+
+            // Remove any leftover from a crashed worker before moving the new mirror into place
+            RepositoryActivityImpl.deleteDirectory(mirrorPath);
+            Files.move(tempPath, mirrorPath, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            if (Files.exists(tempPath)) {
+                RepositoryActivityImpl.deleteDirectory(tempPath);
+            }
+        }
+
+        git.heartbeat("Repository mirror created");
+        return transfer;
+    }
+
+    /**
+     * Fetch a commit that no branch or tag reaches - caller must hold both locks for the repository
+     * The ref keeps it reachable, so it survives even a manual gc of the mirror
+     */
+    private void fetchMissingCommit(Path mirrorPath, String repositoryUrl, String fetchUrl, String commitSha,
+                                    GitProcessRunner git) throws IOException, InterruptedException {
+        if (commitSha == null || hasCommit(mirrorPath, commitSha, git)) {
+            return;
+        }
+        git.heartbeat("Commit " + commitSha + " is not on a branch or tag, fetching it into the mirror");
+        runGit(git, mirrorPath.toFile(), GitProcessRunner.hostOf(repositoryUrl), "fetch", "--progress", "--no-tags",
+            fetchUrl, "+" + commitSha + ":refs/scan-commits/" + commitSha);
+    }
+
+    private boolean hasCommit(Path mirrorPath, String commitSha, GitProcessRunner git) {
+        try {
+            runGit(git, mirrorPath.toFile(), null, "cat-file", "-e", commitSha + "^{commit}");
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Remove temporary mirrors left behind by workers that died mid-clone
+     * Safe because the caller holds the repository's file lock
+     */
+    private void removeStaleTempMirrors(String tempPrefix) throws IOException {
+        try (java.util.stream.Stream<Path> entries = Files.list(cacheDir)) {
+            for (Path entry : (Iterable<Path>) entries::iterator) {
+                if (entry.getFileName().toString().startsWith(tempPrefix)) {
+                    RepositoryActivityImpl.deleteDirectory(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Block until the cross-worker file lock is held, heartbeating while waiting
+     */
+    private FileLock acquireFileLock(FileChannel channel, String key, GitProcessRunner git)
+            throws IOException, InterruptedException {
+        while (true) {
+            FileLock lock = channel.tryLock();
+            if (lock != null) {
+                return lock;
+            }
+            git.heartbeat("Waiting for mirror refresh on another worker: " + key);
+            Thread.sleep(TimeUnit.SECONDS.toMillis(1));
+        }
+    }
+
+    /**
+     * Check whether a concurrent caller completed a refresh after this request was made
+     * If a commit is requested it must already be present, otherwise we fetch again
+     */
+    private boolean isRefreshedSince(String key, Path mirrorPath, long requestedGeneration, String commitSha,
+                                     GitProcessRunner git) {
+        if (!isValidMirror(mirrorPath)) {
+            return false;
+        }
+        try {
+            if (readGeneration(key) <= requestedGeneration) {
+                return false;
+            }
+            return commitSha == null || hasCommit(mirrorPath, commitSha, git);
+        } catch (Exception e) {
+            // Missing commit - refresh again
+            return false;
+        }
+    }
+
+    /**
+     * Number of completed refreshes of a repository's mirror (0 if never refreshed)
+     * The marker is replaced atomically, so reading without the lock is safe
+     */
+    public long getRefreshGeneration(String repositoryUrl) {
+        return readGeneration(mirrorKey(repositoryUrl));
+    }
+
+    private long readGeneration(String key) {
+        Path marker = cacheDir.resolve(key + ".refreshed");
+        try {
+            if (!Files.exists(marker)) {
+                return 0;
+            }
+            return Long.parseLong(new String(Files.readAllBytes(marker), StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            // Unreadable marker: treat as never refreshed so callers fetch
+            return 0;
+        }
+    }
+
+    /**
+     * Record a completed refresh - caller must hold the repository's file lock
+     */
+    private void markRefreshed(String key, long generation) throws IOException {
+        Path marker = cacheDir.resolve(key + ".refreshed");
+        Path tempMarker = cacheDir.resolve(key + ".refreshed.tmp");
+        Files.write(tempMarker, String.valueOf(generation).getBytes(StandardCharsets.UTF_8));
+        Files.move(tempMarker, marker, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static ReentrantLock[] createStripes() {
+        ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        return stripes;
+    }
+
+    /**
+     * Build the git clone command that creates a workspace clone from a mirror
+     * Objects are shared with the mirror, so depth options are irrelevant here
+     */
+    public String[] buildWorkspaceCloneCommand(Path mirrorPath, String branch, boolean singleBranch,
+                                               String repoPath) {
+        List<String> command = new ArrayList<>(Arrays.asList("git", "clone", "--shared", "--progress"));
+        if (singleBranch) {
+            command.add("--single-branch");
+        }
+        if (branch != null) {
+            command.add("--branch");
+            command.add(branch);
+        }
+        command.add(mirrorPath.toString());
+        command.add(repoPath);
+        return command.toArray(new String[0]);
+    }
+
+    /**
+     * Point the workspace clone's origin at the real repository URL
+     * Keeps the idempotency check in cloneRepository working for retries
+     */
+    public void restoreOriginUrl(String repoPath, String repositoryUrl, GitProcessRunner git)
+            throws IOException, InterruptedException {
+        runGit(git, new File(repoPath), null, "remote", "set-url", "origin",
+               RepositoryActivityImpl.normalizeGitUrl(repositoryUrl));
+    }
+
+    private boolean isValidMirror(Path mirrorPath) {
+        return Files.isDirectory(mirrorPath)
+            && Files.exists(mirrorPath.resolve("HEAD"))
+            && Files.isDirectory(mirrorPath.resolve("objects"));
+    }
+
+    /**
+     * Derive a stable, filesystem-safe cache key from the normalized repository URL
+     */
+    static String mirrorKey(String repositoryUrl) {
+        String normalized = RepositoryActivityImpl.normalizeGitUrl(repositoryUrl);
+
+        String name = normalized;
+        int lastSlash = name.lastIndexOf('/');
+        if (lastSlash >= 0) {
+            name = name.substring(lastSlash + 1);
+        }
+        name = name.replaceAll("[^A-Za-z0-9._-]", "_");
+
+        return name + "-" + sha256Hex(normalized).substring(0, 16);
+    }
+
+    static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private GitProcessRunner.Result runGit(GitProcessRunner git, File directory, String repositoryHost,
+                                           String... args) throws IOException, InterruptedException {
+        GitProcessRunner.Result result = git.run(directory, args[0], repositoryHost, args);
+        if (result.getExitCode() != 0) {
+            String lastLine = result.getLastLine();
+            throw new RuntimeException("Mirror git " + args[0] + " failed with exit code: " + result.getExitCode() +
+                (lastLine != null ? " (" + lastLine + ")" : ""));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,295 @@
+package securityscanapp;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Estimates the on-disk size of a repository clone before it is made
+ *
+ * Sources, in order of preference:
+ * 1. History - measured sizes of previous clones of the same URL, clone strategy
+ *    and sparse paths, kept in a small JSON index on the PVC ({@link Shared#SIZE_INDEX_DIR})
+ * 2. Mirror - size of the pack files of the repository's bare mirror, if the mirror
+ *    cache has one (a single directory listing, the object store is not walked)
+ * 3. Remote archive - Content-Length of the source archive, if an archive URL is configured
+ * 4. Default - static per-strategy estimate for a 4GB repository
+ *
+ * Each estimate carries a confidence that sets the admission safety margin.
+ *
+ * The index is updated under a file lock (workers) and an in-process lock (activity
+ * threads), like {@link WorkspaceSpaceLedger}, so concurrent clones never lose samples.
+ */
+public class RepositorySizeEstimator {
+
+    // Weight of the newest sample in the moving average
+    private static final double EWMA_ALPHA = 0.3;
+
+    // History samples needed before an estimate is considered HIGH confidence
+    private static final int HIGH_CONFIDENCE_SAMPLES = 3;
+
+    // Uncompressed source is typically ~3x the size of a .tar.gz archive
+    private static final int ARCHIVE_EXPANSION_FACTOR = 3;
+
+    // Base estimate for a repository nothing is known about
+    private static final long DEFAULT_REPO_SIZE = 4L * 1024 * 1024 * 1024; // 4GB
+
+    // Serializes index updates between activity threads of this worker (file locks are per JVM)
+    private static final ReentrantLock LOCAL_LOCK = new ReentrantLock();
+
+    private final Path indexDir;
+    private final RepositoryMirrorCache mirrorCache;
+    private final Gson gson = new Gson();
+
+    public RepositorySizeEstimator(RepositoryMirrorCache mirrorCache) {
+        this(Paths.get(Shared.SIZE_INDEX_DIR), mirrorCache);
+    }
+
+    public RepositorySizeEstimator(Path indexDir, RepositoryMirrorCache mirrorCache) {
+        this.indexDir = indexDir;
+        this.mirrorCache = mirrorCache;
+    }
+
+    /**
+     * Measured clone sizes for one index key (persisted as JSON)
+     */
+    static class SizeHistory {
+        String repositoryUrl;
+        String cloneStrategy;
+        double ewmaBytes;
+        long lastBytes;
+        long maxBytes;
+        int samples;
+        long updatedAt;
+    }
+
+    /**
+     * Estimate the clone size for a scan request
+     */
+    public SizeEstimate estimate(ScanRequest request) {
+        ScanConfig config = request.getScanConfig();
+        CloneStrategy strategy = resolveStrategy(config);
+        boolean useSparse = isSparse(config);
+
+        SizeHistory history = readHistory(indexKey(request));
+        if (history != null && history.samples > 0) {
+            // Repositories mostly grow, so never estimate below the latest measurement
+            long bytes = Math.max((long) history.ewmaBytes, history.lastBytes);
+            SizeEstimate.Confidence confidence = history.samples >= HIGH_CONFIDENCE_SAMPLES
+                ? SizeEstimate.Confidence.HIGH
+                : SizeEstimate.Confidence.MEDIUM;
+            return new SizeEstimate(bytes, confidence, "history");
+        }
+
+        long mirrorBytes = mirrorSize(request.getRepositoryUrl());
+        if (mirrorBytes > 0) {
+            // Packed history approximates the working tree; history-keeping strategies need both
+            long bytes = includesHistory(strategy) ? mirrorBytes * 2 : mirrorBytes;
+            return new SizeEstimate(useSparse ? bytes / 2 : bytes, SizeEstimate.Confidence.MEDIUM, "mirror");
+        }
+
+        long archiveBytes = remoteArchiveSize(request);
+        if (archiveBytes > 0) {
+            long bytes = archiveBytes * ARCHIVE_EXPANSION_FACTOR;
+            return new SizeEstimate(useSparse ? bytes / 2 : bytes, SizeEstimate.Confidence.MEDIUM, "remote-archive");
+        }
+
+        return new SizeEstimate(defaultEstimate(strategy, useSparse), SizeEstimate.Confidence.LOW, "default");
+    }
+
+    /**
+     * Record the measured size of a completed clone
+     * Failures are ignored - the index is only an optimization
+     */
+    public void recordActualSize(ScanRequest request, long bytes) {
+        String key = indexKey(request);
+        LOCAL_LOCK.lock();
+        try {
+            Files.createDirectories(indexDir);
+            try (FileChannel channel = FileChannel.open(indexDir.resolve("index.lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                updateHistory(key, request, bytes);
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to record repository size for " + key + ": " + e.getMessage());
+        } finally {
+            LOCAL_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Read-modify-write of one index entry - caller must hold both index locks
+     */
+    private void updateHistory(String key, ScanRequest request, long bytes) throws IOException {
+        SizeHistory history = readHistory(key);
+        if (history == null) {
+            history = new SizeHistory();
+            history.repositoryUrl = RepositoryActivityImpl.normalizeGitUrl(request.getRepositoryUrl());
+            history.cloneStrategy = resolveStrategy(request.getScanConfig()).getId();
+            history.ewmaBytes = bytes;
+        } else {
+            history.ewmaBytes = EWMA_ALPHA * bytes + (1 - EWMA_ALPHA) * history.ewmaBytes;
+        }
+        history.lastBytes = bytes;
+        history.maxBytes = Math.max(history.maxBytes, bytes);
+        history.samples++;
+        history.updatedAt = System.currentTimeMillis();
+
+        // Write then rename so readers (which do not lock) never see a partial file
+        Path file = indexDir.resolve(key + ".json");
+        Path tempFile = indexDir.resolve(key + ".json.tmp");
+        Files.write(tempFile, gson.toJson(history).getBytes(StandardCharsets.UTF_8));
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private SizeHistory readHistory(String key) {
+        Path file = indexDir.resolve(key + ".json");
+        try {
+            if (!Files.exists(file)) {
+                return null;
+            }
+            String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            return gson.fromJson(json, SizeHistory.class);
+        } catch (Exception e) {
+            // Corrupt or unreadable entry - treat as unknown, next record overwrites it
+            return null;
+        }
+    }
+
+    /**
+     * Index key: normalized URL, clone strategy and sparse paths (order-independent)
+     */
+    static String indexKey(ScanRequest request) {
+        ScanConfig config = request.getScanConfig();
+        StringBuilder key = new StringBuilder();
+        key.append(RepositoryActivityImpl.normalizeGitUrl(request.getRepositoryUrl()));
+        key.append('|').append(resolveStrategy(config).getId());
+        if (isSparse(config)) {
+            List<String> paths = new ArrayList<>(config.getSparseCheckoutPaths());
+            Collections.sort(paths);
+            key.append('|').append(String.join(",", paths));
+        }
+        return RepositoryMirrorCache.mirrorKey(request.getRepositoryUrl()) + "-" +
+            RepositoryMirrorCache.sha256Hex(key.toString()).substring(0, 16);
+    }
+
+    /**
+     * Size of the mirror's pack files
+     * Mirrors are fetched into packs, so this approximates the object store without walking it
+     */
+    private long mirrorSize(String repositoryUrl) {
+        if (mirrorCache == null) {
+            return 0;
+        }
+        Path packDir = mirrorCache.getMirrorPath(repositoryUrl).resolve("objects").resolve("pack");
+        if (!Files.isDirectory(packDir)) {
+            return 0;
+        }
+        long total = 0;
+        try (java.util.stream.Stream<Path> packs = Files.list(packDir)) {
+            for (Path pack : (Iterable<Path>) packs::iterator) {
+                if (pack.getFileName().toString().endsWith(".pack")) {
+                    total += Files.size(pack);
+                }
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+        return total;
+    }
+
+    /**
+     * Ask the archive endpoint for the archive size without downloading it
+     */
+    private long remoteArchiveSize(ScanRequest request) {
+        ScanConfig config = request.getScanConfig();
+        if (config == null || config.getArchiveUrlTemplate() == null) {
+            return 0;
+        }
+        String ref = request.getCommitSha() != null ? request.getCommitSha()
+            : request.getBranch() != null ? request.getBranch() : "HEAD";
+        String url = RepositoryActivityImpl.buildArchiveUrl(
+            config.getArchiveUrlTemplate(), request.getRepositoryUrl(), ref);
+
+        HttpURLConnection connection = null;
+        try {
+            connection = RepositoryActivityImpl.openArchiveConnection(url, config);
+            connection.setRequestMethod("HEAD");
+            connection.setConnectTimeout(10000);
+            connection.setReadTimeout(10000);
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                return 0;
+            }
+            // Streamed archives often have no Content-Length (-1)
+            return Math.max(0, connection.getContentLengthLong());
+        } catch (IOException e) {
+            return 0;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Static estimate by clone strategy, used when nothing is known about the repository
+     */
+    private long defaultEstimate(CloneStrategy strategy, boolean useSparse) {
+        switch (strategy) {
+            case FULL:
+                // Full clone: repo + history
+                return DEFAULT_REPO_SIZE + (2L * 1024 * 1024 * 1024); // +2GB for history
+
+            case SHALLOW:
+            case SHALLOW_SINGLE_BRANCH:
+            case COMMIT_FETCH:
+            case PARTIAL_BLOBLESS:
+            case PARTIAL_TREELESS:
+                // Shallow or partial clone: checked-out files + minimal history/metadata
+                if (useSparse) {
+                    // Sparse checkout: only selected paths
+                    return DEFAULT_REPO_SIZE / 2; // Assume 50% reduction
+                }
+                return DEFAULT_REPO_SIZE + (100L * 1024 * 1024); // +100MB for minimal history
+
+            case ARCHIVE:
+                // Archive: working tree files only, no git metadata
+                return useSparse ? DEFAULT_REPO_SIZE / 2 : DEFAULT_REPO_SIZE;
+
+            case SINGLE_BRANCH:
+                // Single branch: repo + branch history
+                return DEFAULT_REPO_SIZE + (500L * 1024 * 1024); // +500MB for branch history
+
+            default:
+                return DEFAULT_REPO_SIZE;
+        }
+    }
+
+    private static boolean includesHistory(CloneStrategy strategy) {
+        return strategy == CloneStrategy.FULL || strategy == CloneStrategy.SINGLE_BRANCH;
+    }
+
+    private static CloneStrategy resolveStrategy(ScanConfig config) {
+        return (config != null && config.getCloneStrategy() != null)
+            ? config.getCloneStrategy()
+            : CloneStrategy.SHALLOW;
+    }
+
+    private static boolean isSparse(ScanConfig config) {
+        return config != null && config.isUseSparseCheckout() && !config.getSparseCheckoutPaths().isEmpty();
+    }
+}
@@ -2,6 +2,7 @@ package securityscanapp;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Configuration for security scans
@@ -21,9 +22,16 @@ public class ScanConfig {
     private int shallowCloneDepth; // Depth for shallow clone (1 = only latest commit)
     private boolean useSparseCheckout; // Use sparse checkout for large repos
     private List<String> sparseCheckoutPaths; // Paths to include in sparse checkout
+    private boolean useMirrorCache; // Clone from a shared bare mirror on the PVC (fetched incrementally)
+    private PostCloneCompaction postCloneCompaction; // Compaction of .git after clone (AUTO = time-optimized)
+    private String archiveUrlTemplate; // Archive download URL for ARCHIVE strategy ({url}, {repo}, {ref} placeholders)
+    private int archiveStripComponents; // Leading path components removed from archive entries
+    private boolean useResultCache; // Reuse the result of an earlier scan of the identical source tree
     private StorageConfig storageConfig; // Configuration for storing results to external storage
     private Integer scanTimeoutSeconds; // Per-scan timeout in seconds (null = use default)
+    private Map<ScanType, Integer> toolTimeoutSeconds; // Per-tool timeouts in multi-tool scans (override scanTimeoutSeconds)
     private Integer workflowTimeoutSeconds; // Workflow execution timeout in seconds (null = no timeout)
+    private Integer hubResultTimeoutSeconds; // Wait for hub processing of full scans (null = default, 0 = don't wait)
     private String taskQueue; // Task queue name (null = auto-determined based on scan type)
     
     public ScanConfig() {
@@ -33,6 +41,10 @@ public class ScanConfig {
         this.shallowCloneDepth = 1; // Only latest commit by default
         this.useSparseCheckout = false; // Disabled by default
         this.sparseCheckoutPaths = new ArrayList<>();
+        this.useMirrorCache = false; // Opt-in: mirrors keep full history on the PVC
+        this.postCloneCompaction = PostCloneCompaction.AUTO;
+        this.archiveStripComponents = 1; // Archive endpoints wrap content in a "<repo>-<ref>/" directory
+        this.useResultCache = false; // Opt-in: a hit uploads nothing to the hub for this run
     }
     
     // Getters and Setters
@@ -164,6 +176,52 @@ public class ScanConfig {
         this.sparseCheckoutPaths.add(path);
     }
     
+    public boolean isUseMirrorCache() {
+        return useMirrorCache;
+    }
+    
+    public void setUseMirrorCache(boolean useMirrorCache) {
+        this.useMirrorCache = useMirrorCache;
+    }
+    
+    public PostCloneCompaction getPostCloneCompaction() {
+        return postCloneCompaction;
+    }
+    
+    public void setPostCloneCompaction(PostCloneCompaction postCloneCompaction) {
+        this.postCloneCompaction = postCloneCompaction;
+    }
+    
+    public String getArchiveUrlTemplate() {
+        return archiveUrlTemplate;
+    }
+    
+    /**
+     * Set the archive download URL used by CloneStrategy.ARCHIVE
+     * Placeholders: {url} = repository URL without ".git", {repo} = repository name,
+     * {ref} = commit SHA (or branch if no commit is given)
+     * e.g. "{url}/archive/{ref}.tar.gz"
+     */
+    public void setArchiveUrlTemplate(String archiveUrlTemplate) {
+        this.archiveUrlTemplate = archiveUrlTemplate;
+    }
+    
+    public int getArchiveStripComponents() {
+        return archiveStripComponents;
+    }
+    
+    public void setArchiveStripComponents(int archiveStripComponents) {
+        this.archiveStripComponents = archiveStripComponents;
+    }
+    
+    public boolean isUseResultCache() {
+        return useResultCache;
+    }
+    
+    public void setUseResultCache(boolean useResultCache) {
+        this.useResultCache = useResultCache;
+    }
+    
     public StorageConfig getStorageConfig() {
         return storageConfig;
     }
@@ -180,6 +238,14 @@ public class ScanConfig {
         this.scanTimeoutSeconds = scanTimeoutSeconds;
     }
     
+    public Map<ScanType, Integer> getToolTimeoutSeconds() {
+        return toolTimeoutSeconds;
+    }
+    
+    public void setToolTimeoutSeconds(Map<ScanType, Integer> toolTimeoutSeconds) {
+        this.toolTimeoutSeconds = toolTimeoutSeconds;
+    }
+    
     public Integer getWorkflowTimeoutSeconds() {
         return workflowTimeoutSeconds;
     }
@@ -188,6 +254,14 @@ public class ScanConfig {
         this.workflowTimeoutSeconds = workflowTimeoutSeconds;
     }
     
+    public Integer getHubResultTimeoutSeconds() {
+        return hubResultTimeoutSeconds;
+    }
+    
+    public void setHubResultTimeoutSeconds(Integer hubResultTimeoutSeconds) {
+        this.hubResultTimeoutSeconds = hubResultTimeoutSeconds;
+    }
+    
     public String getTaskQueue() {
         return taskQueue;
     }
@@ -0,0 +1,110 @@
+package securityscanapp;
+
+import io.temporal.api.common.v1.Payload;
+import io.temporal.client.WorkflowClientOptions;
+import io.temporal.common.converter.CodecDataConverter;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DefaultDataConverter;
+import io.temporal.common.converter.JacksonJsonPayloadConverter;
+import io.temporal.common.converter.PayloadConverter;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Data converter shared by the worker and every client
+ *
+ * Workers and clients must use the same converter: a client without the payload codecs
+ * cannot read workflow results a worker has compressed or offloaded.
+ *
+ * Values are converted to JSON (positional JSON for the scan model classes when
+ * PAYLOAD_POSITIONAL_ENCODING=true), then compressed ({@link CompressionPayloadCodec}),
+ * then offloaded if still large ({@link OffloadingPayloadCodec}). Compression and
+ * offloading are off by default. This build decodes every encoding, so once all workers run
+ * it the settings can differ between them.
+ */
+public final class ScanDataConverter {
+
+    private static volatile DataConverter instance;
+
+    private ScanDataConverter() {
+    }
+
+    /**
+     * Converter configured from the environment, shared by everything in this JVM
+     */
+    public static DataConverter getInstance() {
+        if (instance == null) {
+            synchronized (ScanDataConverter.class) {
+                if (instance == null) {
+                    instance = create("true".equalsIgnoreCase(System.getenv("PAYLOAD_POSITIONAL_ENCODING")),
+                        new CompressionPayloadCodec(), new OffloadingPayloadCodec());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Build a converter
+     *
+     * @param positional Write the scan model classes with {@link PositionalJsonPayloadConverter}
+     * @param compression Compression codec
+     * @param offloading Offloading codec
+     */
+    static DataConverter create(boolean positional, CompressionPayloadCodec compression,
+                                OffloadingPayloadCodec offloading) {
+        // Positional payloads are always readable; writing them is what the flag controls
+        PositionalJsonPayloadConverter positionalConverter = new PositionalJsonPayloadConverter();
+        List<PayloadConverter> converters = new ArrayList<>();
+        for (PayloadConverter converter : DefaultDataConverter.STANDARD_PAYLOAD_CONVERTERS) {
+            if (converter instanceof JacksonJsonPayloadConverter) {
+                // Converters are tried in order and JSON accepts any value
+                converters.add(positional ? positionalConverter : new ReadOnlyPayloadConverter(positionalConverter));
+            }
+            converters.add(converter);
+        }
+        // CodecDataConverter encodes with the last codec first: compress, then offload what is still large
+        return new CodecDataConverter(new DefaultDataConverter(converters.toArray(new PayloadConverter[0])),
+            Arrays.asList(offloading, compression));
+    }
+
+    /**
+     * Decodes a converter's encoding without using it to encode
+     */
+    private static class ReadOnlyPayloadConverter implements PayloadConverter {
+        private final PayloadConverter delegate;
+
+        ReadOnlyPayloadConverter(PayloadConverter delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getEncodingType() {
+            return delegate.getEncodingType();
+        }
+
+        @Override
+        public Optional<Payload> toData(Object value) {
+            return Optional.empty();
+        }
+
+        @Override
+        public <T> T fromData(Payload content, Class<T> valueClass,
+                              Type valueType) {
+            return delegate.fromData(content, valueClass, valueType);
+        }
+    }
+
+    /**
+     * Workflow client options using this converter
+     */
+    public static WorkflowClientOptions clientOptions() {
+        return WorkflowClientOptions.newBuilder()
+            .setDataConverter(getInstance())
+            .build();
+    }
+}
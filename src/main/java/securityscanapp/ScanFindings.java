@@ -0,0 +1,159 @@
+package securityscanapp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact findings extracted from Detect output files
+ *
+ * Totals and per-severity counts cover every record in the file; only the most severe
+ * findings are kept as individual records so the structure stays small enough for
+ * ScanResult (and Temporal history) regardless of the size of the scan output.
+ */
+public class ScanFindings {
+
+    /**
+     * One finding: a vulnerability or policy violation on a component
+     */
+    public static class Finding {
+        private String componentName;
+        private String componentVersion;
+        private String vulnerabilityId; // null for a pure policy violation
+        private String policyName; // null if no policy is violated
+        private String severity;
+
+        public Finding() {
+        }
+
+        public Finding(String componentName, String componentVersion, String vulnerabilityId,
+                       String policyName, String severity) {
+            this.componentName = componentName;
+            this.componentVersion = componentVersion;
+            this.vulnerabilityId = vulnerabilityId;
+            this.policyName = policyName;
+            this.severity = severity;
+        }
+
+        public String getComponentName() {
+            return componentName;
+        }
+
+        public void setComponentName(String componentName) {
+            this.componentName = componentName;
+        }
+
+        public String getComponentVersion() {
+            return componentVersion;
+        }
+
+        public void setComponentVersion(String componentVersion) {
+            this.componentVersion = componentVersion;
+        }
+
+        public String getVulnerabilityId() {
+            return vulnerabilityId;
+        }
+
+        public void setVulnerabilityId(String vulnerabilityId) {
+            this.vulnerabilityId = vulnerabilityId;
+        }
+
+        public String getPolicyName() {
+            return policyName;
+        }
+
+        public void setPolicyName(String policyName) {
+            this.policyName = policyName;
+        }
+
+        public String getSeverity() {
+            return severity;
+        }
+
+        public void setSeverity(String severity) {
+            this.severity = severity;
+        }
+    }
+
+    private String source; // File the findings were read from
+    private long componentCount;
+    private long vulnerabilityCount;
+    private long policyViolationCount;
+    private Map<String, Long> vulnerabilitiesBySeverity;
+    private Map<String, Long> policyViolationsBySeverity;
+    private List<Finding> topFindings; // Most severe findings, bounded
+    private boolean truncated; // More findings exist than topFindings holds
+
+    public ScanFindings() {
+        this.vulnerabilitiesBySeverity = new HashMap<>();
+        this.policyViolationsBySeverity = new HashMap<>();
+        this.topFindings = new ArrayList<>();
+    }
+
+    // Getters and Setters
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public long getComponentCount() {
+        return componentCount;
+    }
+
+    public void setComponentCount(long componentCount) {
+        this.componentCount = componentCount;
+    }
+
+    public long getVulnerabilityCount() {
+        return vulnerabilityCount;
+    }
+
+    public void setVulnerabilityCount(long vulnerabilityCount) {
+        this.vulnerabilityCount = vulnerabilityCount;
+    }
+
+    public long getPolicyViolationCount() {
+        return policyViolationCount;
+    }
+
+    public void setPolicyViolationCount(long policyViolationCount) {
+        this.policyViolationCount = policyViolationCount;
+    }
+
+    public Map<String, Long> getVulnerabilitiesBySeverity() {
+        return vulnerabilitiesBySeverity;
+    }
+
+    public void setVulnerabilitiesBySeverity(Map<String, Long> vulnerabilitiesBySeverity) {
+        this.vulnerabilitiesBySeverity = vulnerabilitiesBySeverity;
+    }
+
+    public Map<String, Long> getPolicyViolationsBySeverity() {
+        return policyViolationsBySeverity;
+    }
+
+    public void setPolicyViolationsBySeverity(Map<String, Long> policyViolationsBySeverity) {
+        this.policyViolationsBySeverity = policyViolationsBySeverity;
+    }
+
+    public List<Finding> getTopFindings() {
+        return topFindings;
+    }
+
+    public void setTopFindings(List<Finding> topFindings) {
+        this.topFindings = topFindings;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+}
@@ -0,0 +1,229 @@
+package securityscanapp;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Chooses rapid vs full BlackDuck scan mode and the scan timeout for a cloned repository
+ *
+ * Inputs:
+ * - Explicit settings win: BlackDuckConfig.rapidScan, a RAPID/QUICK scanSourceType,
+ *   ScanConfig.scanTimeoutSeconds
+ * - Repository characteristics measured by the clone activity: file count, size on disk
+ *   and detected package manifests
+ * - Durations of earlier scans of the same component, scan type and mode, kept in a small JSON
+ *   index on the PVC ({@link Shared#SCAN_HISTORY_DIR})
+ *
+ * Small repositories with package manifests get a rapid scan (dependency-only, results in
+ * seconds). Everything else gets a full scan. The timeout comes from scan history where
+ * available, otherwise from the repository size, and is clamped to sane bounds.
+ *
+ * The index is updated under a file lock (workers) and an in-process lock (activity
+ * threads), like {@link RepositorySizeEstimator}, so concurrent scans never lose samples.
+ */
+public class ScanModePolicy {
+
+    // Rapid scan only pays off (and only finds something) for small trees with manifests
+    private static final long RAPID_MAX_FILES = 5000;
+    private static final long RAPID_MAX_BYTES = 200L * 1024 * 1024; // 200MB
+
+    // Timeout bounds
+    private static final int MIN_TIMEOUT_SECONDS = 300; // 5 minutes
+    private static final int MAX_TIMEOUT_SECONDS = 4 * 3600; // 4 hours
+    private static final int RAPID_DEFAULT_TIMEOUT_SECONDS = 600; // 10 minutes
+
+    // Size-based full scan estimate: fixed setup + signature scan throughput
+    private static final int FULL_BASE_SECONDS = 600;
+    private static final int FULL_SECONDS_PER_GB = 900;
+    private static final int FULL_SECONDS_PER_10K_FILES = 120;
+
+    // Headroom over observed durations
+    private static final double HISTORY_MAX_FACTOR = 1.5;
+    private static final double HISTORY_EWMA_FACTOR = 2.0;
+
+    // Weight of the newest sample in the moving average
+    private static final double EWMA_ALPHA = 0.3;
+
+    // Serializes index updates between activity threads of this worker (file locks are per JVM)
+    private static final ReentrantLock LOCAL_LOCK = new ReentrantLock();
+
+    private final Path indexDir;
+    private final Gson gson = new Gson();
+
+    public ScanModePolicy() {
+        this(Paths.get(Shared.SCAN_HISTORY_DIR));
+    }
+
+    public ScanModePolicy(Path indexDir) {
+        this.indexDir = indexDir;
+    }
+
+    /**
+     * Measured scan durations for one component and mode (persisted as JSON)
+     */
+    static class DurationHistory {
+        String component;
+        String scanType;
+        String mode;
+        double ewmaSeconds;
+        long maxSeconds;
+        int samples;
+        long updatedAt;
+    }
+
+    /**
+     * Plan the scan of a cloned repository
+     */
+    public ScanPlan plan(CloneResult cloneResult, ScanRequest request) {
+        ScanConfig config = request.getScanConfig();
+        BlackDuckConfig blackDuckConfig = request.getBlackDuckConfig();
+
+        // Mode
+        boolean rapid;
+        String reason;
+        if (blackDuckConfig != null && blackDuckConfig.isRapidScan()) {
+            rapid = true;
+            reason = "rapid scan requested";
+        } else if (blackDuckConfig != null && isRapidSourceType(blackDuckConfig.getScanSourceType())) {
+            rapid = true;
+            reason = "scan source type " + blackDuckConfig.getScanSourceType();
+        } else {
+            List<String> manifests = cloneResult.getManifestTypes();
+            boolean small = cloneResult.getFileCount() <= RAPID_MAX_FILES
+                && cloneResult.getRepositorySizeBytes() <= RAPID_MAX_BYTES;
+            rapid = small && manifests != null && !manifests.isEmpty();
+            reason = rapid
+                ? "small repository (" + cloneResult.getFileCount() + " files) with manifests " + manifests
+                : (small ? "no package manifests" : "large repository (" + cloneResult.getFileCount() + " files, "
+                    + (cloneResult.getRepositorySizeBytes() / (1024 * 1024)) + " MB)");
+        }
+
+        // Timeout
+        if (config != null && config.getScanTimeoutSeconds() != null) {
+            return new ScanPlan(rapid, config.getScanTimeoutSeconds(), reason + ", configured timeout");
+        }
+
+        DurationHistory history = readHistory(historyKey(request, rapid));
+        int timeoutSeconds;
+        ScanPlan plan;
+        if (history != null && history.samples > 0) {
+            // Cover the slowest observed scan and a bad day relative to the average
+            timeoutSeconds = (int) Math.max(history.maxSeconds * HISTORY_MAX_FACTOR,
+                history.ewmaSeconds * HISTORY_EWMA_FACTOR);
+            plan = new ScanPlan(rapid, clamp(timeoutSeconds), reason + ", timeout from " + history.samples + " earlier scans");
+            plan.setHistorySamples(history.samples);
+        } else if (rapid) {
+            plan = new ScanPlan(rapid, RAPID_DEFAULT_TIMEOUT_SECONDS, reason + ", default rapid timeout");
+        } else {
+            // Never below the static default without evidence that this component scans faster
+            long gigabytes = cloneResult.getRepositorySizeBytes() / (1024L * 1024 * 1024);
+            long estimate = FULL_BASE_SECONDS
+                + gigabytes * FULL_SECONDS_PER_GB
+                + (cloneResult.getFileCount() / 10000) * FULL_SECONDS_PER_10K_FILES;
+            timeoutSeconds = (int) Math.max(Shared.SCAN_TIMEOUT_SECONDS, Math.min(estimate, Integer.MAX_VALUE));
+            plan = new ScanPlan(rapid, clamp(timeoutSeconds), reason + ", timeout from repository size");
+        }
+        return plan;
+    }
+
+    /**
+     * Record the duration of a completed scan
+     * Failures are ignored - the index is only an optimization
+     */
+    public void recordDuration(ScanRequest request, boolean rapid, long durationMs) {
+        String key = historyKey(request, rapid);
+        LOCAL_LOCK.lock();
+        try {
+            Files.createDirectories(indexDir);
+            try (FileChannel channel = FileChannel.open(indexDir.resolve("index.lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                updateHistory(key, request, rapid, durationMs);
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to record scan duration for " + key + ": " + e.getMessage());
+        } finally {
+            LOCAL_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Read-modify-write of one index entry - caller must hold both index locks
+     */
+    private void updateHistory(String key, ScanRequest request, boolean rapid, long durationMs) throws IOException {
+        long seconds = Math.max(1, durationMs / 1000);
+        DurationHistory history = readHistory(key);
+        if (history == null) {
+            history = new DurationHistory();
+            history.component = componentOf(request);
+            history.scanType = request.getToolType() != null ? request.getToolType().getId() : null;
+            history.mode = rapid ? "RAPID" : "FULL";
+            history.ewmaSeconds = seconds;
+        } else {
+            history.ewmaSeconds = EWMA_ALPHA * seconds + (1 - EWMA_ALPHA) * history.ewmaSeconds;
+        }
+        history.maxSeconds = Math.max(history.maxSeconds, seconds);
+        history.samples++;
+        history.updatedAt = System.currentTimeMillis();
+
+        // Write then rename so readers (which do not lock) never see a partial file
+        Path file = indexDir.resolve(key + ".json");
+        Path tempFile = indexDir.resolve(key + ".json.tmp");
+        Files.write(tempFile, gson.toJson(history).getBytes(StandardCharsets.UTF_8));
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private DurationHistory readHistory(String key) {
+        Path file = indexDir.resolve(key + ".json");
+        try {
+            if (!Files.exists(file)) {
+                return null;
+            }
+            String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            return gson.fromJson(json, DurationHistory.class);
+        } catch (Exception e) {
+            // Corrupt or unreadable entry - treat as unknown, next record overwrites it
+            return null;
+        }
+    }
+
+    /**
+     * Index key: component (appId/component, or repository URL), scan type and scan mode
+     * Tools scan the same component at very different speeds, so each keeps its own history
+     */
+    static String historyKey(ScanRequest request, boolean rapid) {
+        String scanType = request.getToolType() != null ? "-" + request.getToolType().getId() : "";
+        return RepositoryMirrorCache.sha256Hex(componentOf(request)).substring(0, 24) + scanType
+            + (rapid ? "-rapid" : "-full");
+    }
+
+    private static String componentOf(ScanRequest request) {
+        if (request.getAppId() != null && request.getComponent() != null) {
+            return request.getAppId() + "/" + request.getComponent();
+        }
+        return RepositoryActivityImpl.normalizeGitUrl(request.getRepositoryUrl());
+    }
+
+    static boolean isRapidSourceType(String scanSourceType) {
+        if (scanSourceType == null) {
+            return false;
+        }
+        String upper = scanSourceType.toUpperCase();
+        return upper.contains("RAPID") || upper.contains("QUICK");
+    }
+
+    private static int clamp(int timeoutSeconds) {
+        return Math.max(MIN_TIMEOUT_SECONDS, Math.min(MAX_TIMEOUT_SECONDS, timeoutSeconds));
+    }
+}
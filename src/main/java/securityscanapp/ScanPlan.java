@@ -0,0 +1,53 @@
+package securityscanapp;
+
+/**
+ * Scan mode and timeout chosen for a cloned repository before the scan runs
+ */
+public class ScanPlan {
+    private boolean rapidScan;
+    private int timeoutSeconds;
+    private String reason; // Why this mode/timeout was chosen (reported in the summary)
+    private int historySamples; // Earlier scans of the component the timeout is based on
+
+    public ScanPlan() {
+    }
+
+    public ScanPlan(boolean rapidScan, int timeoutSeconds, String reason) {
+        this.rapidScan = rapidScan;
+        this.timeoutSeconds = timeoutSeconds;
+        this.reason = reason;
+    }
+
+    // Getters and Setters
+    public boolean isRapidScan() {
+        return rapidScan;
+    }
+
+    public void setRapidScan(boolean rapidScan) {
+        this.rapidScan = rapidScan;
+    }
+
+    public int getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    public void setTimeoutSeconds(int timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public int getHistorySamples() {
+        return historySamples;
+    }
+
+    public void setHistorySamples(int historySamples) {
+        this.historySamples = historySamples;
+    }
+}
@@ -0,0 +1,80 @@
+package securityscanapp;
+
+/**
+ * Structured heartbeat details of a running scan subprocess
+ */
+public class ScanProgress {
+    private String scanType;
+    private String phase;
+    private long elapsedMs;
+    private long outputBytes;
+    private long outputLines;
+    private String lastLine;
+
+    public ScanProgress() {
+    }
+
+    public ScanProgress(String scanType, String phase, long elapsedMs, long outputBytes,
+                        long outputLines, String lastLine) {
+        this.scanType = scanType;
+        this.phase = phase;
+        this.elapsedMs = elapsedMs;
+        this.outputBytes = outputBytes;
+        this.outputLines = outputLines;
+        this.lastLine = lastLine;
+    }
+
+    // Getters and Setters
+    public String getScanType() {
+        return scanType;
+    }
+
+    public void setScanType(String scanType) {
+        this.scanType = scanType;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public void setPhase(String phase) {
+        this.phase = phase;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+
+    public long getOutputBytes() {
+        return outputBytes;
+    }
+
+    public void setOutputBytes(long outputBytes) {
+        this.outputBytes = outputBytes;
+    }
+
+    public long getOutputLines() {
+        return outputLines;
+    }
+
+    public void setOutputLines(long outputLines) {
+        this.outputLines = outputLines;
+    }
+
+    public String getLastLine() {
+        return lastLine;
+    }
+
+    public void setLastLine(String lastLine) {
+        this.lastLine = lastLine;
+    }
+
+    @Override
+    public String toString() {
+        return scanType + " " + phase + " (" + (elapsedMs / 1000) + "s, " + outputLines + " lines)";
+    }
+}
@@ -1,5 +1,10 @@
 package securityscanapp;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
 /**
  * Request object containing all information needed to perform security scans
  * 
@@ -7,7 +12,8 @@ package securityscanapp;
  * - Application ID: Identifies the application
  * - Component: Component within the application
  * - Build ID: Unique build identifier for the component
- * - Tool Type: Single scan type (BlackDuck, etc.)
+ * - Tool Type: Primary scan type (BlackDuck, etc.)
+ * - Tool Types: Optional further scan types run against the same checkout in the same workflow
  * 
  * Workflow ID format: {appId}-{component}-{buildId}-{toolType}
  */
@@ -15,7 +21,8 @@ public class ScanRequest {
     private String appId; // Application ID
     private String component; // Component name
     private String buildId; // Build ID (unique per component build)
-    private ScanType toolType; // Single scan tool type (BlackDuck, etc.)
+    private ScanType toolType; // Primary scan tool type (BlackDuck, etc.); determines scanId and task queue
+    private List<ScanType> toolTypes; // Tools to run on one checkout (null/empty = toolType only)
     
     private String scanId; // Generated from appId-component-buildId-toolType
     private String repositoryUrl;
@@ -63,6 +70,62 @@ public class ScanRequest {
         return appId + "-" + component + "-" + buildId + "-" + toolType.getId();
     }
     
+    /**
+     * Fill in scanId and workspacePath when absent, as the constructor does; deserializers
+     * (e.g. Gson reading a batch source line) do not run the constructor
+     * @return false if appId, component, buildId or toolType is missing
+     */
+    public boolean deriveIds() {
+        if (appId == null || component == null || buildId == null || toolType == null) {
+            return false;
+        }
+        if (scanId == null) {
+            scanId = generateScanId(appId, component, buildId, toolType);
+        }
+        if (workspacePath == null) {
+            workspacePath = Shared.WORKSPACE_BASE_DIR + "/" + scanId;
+        }
+        return true;
+    }
+    
+    /**
+     * Copy of this request for one of its tools: same scanId and workspace, toolType set to
+     * the tool and its own BlackDuckConfig, so tools running concurrently do not share state
+     */
+    public ScanRequest forTool(ScanType tool) {
+        ScanRequest copy = new ScanRequest();
+        copy.appId = appId;
+        copy.component = component;
+        copy.buildId = buildId;
+        copy.toolType = tool;
+        copy.scanId = scanId;
+        copy.repositoryUrl = repositoryUrl;
+        copy.branch = branch;
+        copy.commitSha = commitSha;
+        copy.workspacePath = workspacePath;
+        copy.scanConfig = scanConfig;
+        copy.blackDuckConfig = blackDuckConfig != null ? new BlackDuckConfig(blackDuckConfig) : null;
+        return copy;
+    }
+    
+    /**
+     * Tools this request runs: the primary toolType first, then toolTypes, without duplicates
+     */
+    public List<ScanType> toolTypesToRun() {
+        Set<ScanType> tools = new LinkedHashSet<>();
+        if (toolType != null) {
+            tools.add(toolType);
+        }
+        if (toolTypes != null) {
+            for (ScanType type : toolTypes) {
+                if (type != null) {
+                    tools.add(type);
+                }
+            }
+        }
+        return new ArrayList<>(tools);
+    }
+    
     // Getters and Setters
     public String getScanId() {
         return scanId;
@@ -161,6 +224,14 @@ public class ScanRequest {
     }
     
     
+    public List<ScanType> getToolTypes() {
+        return toolTypes;
+    }
+    
+    public void setToolTypes(List<ScanType> toolTypes) {
+        this.toolTypes = toolTypes;
+    }
+    
     public ScanConfig getScanConfig() {
         return scanConfig;
     }
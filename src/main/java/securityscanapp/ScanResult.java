@@ -13,6 +13,8 @@ public class ScanResult {
     private String errorMessage;
     private Map<String, String> metadata;
     private long executionTimeMs;
+    private boolean cacheHit; // Result served from the scan result cache (no scan was run)
+    private ScanFindings findings; // Compact findings parsed from Detect output, if any
     
     public ScanResult() {
         this.metadata = new HashMap<>();
@@ -76,5 +78,20 @@ public class ScanResult {
     public void setExecutionTimeMs(long executionTimeMs) {
         this.executionTimeMs = executionTimeMs;
     }
-}
+    
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+    
+    public void setCacheHit(boolean cacheHit) {
+        this.cacheHit = cacheHit;
+    }
 
+    public ScanFindings getFindings() {
+        return findings;
+    }
+
+    public void setFindings(ScanFindings findings) {
+        this.findings = findings;
+    }
+}
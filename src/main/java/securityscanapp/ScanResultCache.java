@@ -0,0 +1,208 @@
+package securityscanapp;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * File-backed index of scan results keyed by scanned content
+ *
+ * The same commit is often scanned again under a different buildId (re-runs, promotion
+ * pipelines). The cache key covers exactly what determines the scan outcome: the git tree
+ * hash of the checked-out commit, the sparse paths and the scan-relevant BlackDuckConfig
+ * fields - not buildId or transId. Entries live in {@link Shared#RESULT_CACHE_DIR} as one
+ * JSON file per key, written atomically.
+ *
+ * Configured from the environment:
+ * - SCAN_RESULT_CACHE_TTL_HOURS: entry lifetime (default 24)
+ * - SCAN_RESULT_CACHE_MAX_ENTRIES: entries kept, oldest evicted first (default 10000)
+ */
+public class ScanResultCache {
+
+    private static final long DEFAULT_TTL_HOURS = 24;
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    // Stores between eviction sweeps; a sweep lists the whole index directory
+    private static final int EVICTION_INTERVAL = 100;
+
+    private final Path cacheDir;
+    private final long ttlMs;
+    private final int maxEntries;
+    private final Gson gson = new Gson();
+    private final AtomicInteger storesSinceEviction = new AtomicInteger();
+
+    public ScanResultCache() {
+        this(Paths.get(Shared.RESULT_CACHE_DIR),
+             TimeUnit.HOURS.toMillis(Long.parseLong(System.getenv().getOrDefault(
+                 "SCAN_RESULT_CACHE_TTL_HOURS", String.valueOf(DEFAULT_TTL_HOURS)))),
+             Integer.parseInt(System.getenv().getOrDefault(
+                 "SCAN_RESULT_CACHE_MAX_ENTRIES", String.valueOf(DEFAULT_MAX_ENTRIES))));
+    }
+
+    public ScanResultCache(Path cacheDir, long ttlMs, int maxEntries) {
+        this.cacheDir = cacheDir;
+        this.ttlMs = ttlMs;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Cached result for one key (persisted as JSON)
+     */
+    static class CacheEntry {
+        String cacheKey;
+        String scanId;
+        String repositoryUrl;
+        long storedAt;
+        ScanResult result;
+    }
+
+    /**
+     * Build the cache key for a scan of the given tree
+     *
+     * Pure function of its inputs so the workflow can call it deterministically.
+     * @return Key, or null if the content cannot be identified (no tree hash)
+     */
+    public static String cacheKey(String treeHash, ScanType scanType, ScanRequest request) {
+        if (treeHash == null || treeHash.isEmpty()) {
+            return null;
+        }
+        ScanConfig config = request.getScanConfig();
+        BlackDuckConfig blackDuckConfig = request.getBlackDuckConfig();
+
+        StringBuilder key = new StringBuilder();
+        key.append(treeHash);
+        key.append('|').append(scanType);
+        if (config != null && config.isUseSparseCheckout() && !config.getSparseCheckoutPaths().isEmpty()) {
+            List<String> paths = new ArrayList<>(config.getSparseCheckoutPaths());
+            Collections.sort(paths);
+            key.append("|sparse=").append(String.join(",", paths));
+        }
+        if (blackDuckConfig != null) {
+            // Fields that change where or how results are produced; buildId/transId do not
+            key.append("|hub=").append(blackDuckConfig.getHubUrl());
+            key.append("|alm=").append(blackDuckConfig.getAlm());
+            key.append("|source=").append(blackDuckConfig.getSourceSystem());
+            key.append("|sourceType=").append(blackDuckConfig.getScanSourceType());
+            key.append("|rapid=").append(blackDuckConfig.isRapidScan());
+            key.append("|project=").append(blackDuckConfig.getProjectName());
+            key.append("|version=").append(blackDuckConfig.getProjectVersion());
+        }
+        if (config != null) {
+            key.append("|cfgProject=").append(config.getBlackduckProjectName());
+            key.append("|cfgVersion=").append(config.getBlackduckProjectVersion());
+        }
+        return RepositoryMirrorCache.sha256Hex(key.toString());
+    }
+
+    /**
+     * Look up a live entry
+     * @return Cached entry, or null on a miss or expired/unreadable entry
+     */
+    public CacheEntry lookup(String cacheKey) {
+        Path file = entryPath(cacheKey);
+        try {
+            if (!Files.exists(file)) {
+                return null;
+            }
+            CacheEntry entry = gson.fromJson(
+                new String(Files.readAllBytes(file), StandardCharsets.UTF_8), CacheEntry.class);
+            if (entry == null || entry.result == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() - entry.storedAt > ttlMs) {
+                Files.deleteIfExists(file);
+                return null;
+            }
+            return entry;
+        } catch (Exception e) {
+            // Corrupt or unreadable entry - treat as a miss, the next store overwrites it
+            return null;
+        }
+    }
+
+    /**
+     * Store a result; failures are logged and ignored - the cache is only an optimization
+     */
+    public void store(String cacheKey, String scanId, String repositoryUrl, ScanResult result) {
+        try {
+            Files.createDirectories(cacheDir);
+
+            CacheEntry entry = new CacheEntry();
+            entry.cacheKey = cacheKey;
+            entry.scanId = scanId;
+            entry.repositoryUrl = repositoryUrl;
+            entry.storedAt = System.currentTimeMillis();
+            entry.result = result;
+
+            // Write then rename so concurrent readers never see a partial file
+            Path file = entryPath(cacheKey);
+            Path tempFile = cacheDir.resolve(cacheKey + ".json.tmp-" + System.nanoTime());
+            Files.write(tempFile, gson.toJson(entry).getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            if (storesSinceEviction.incrementAndGet() >= EVICTION_INTERVAL) {
+                storesSinceEviction.set(0);
+                evict();
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to store scan result in cache for " + cacheKey + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Delete expired entries, then the oldest ones beyond the entry limit
+     */
+    void evict() {
+        if (!Files.isDirectory(cacheDir)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<Path> live = new ArrayList<>();
+        List<Long> modified = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(cacheDir, "*.json")) {
+            for (Path entry : entries) {
+                long lastModified = Files.getLastModifiedTime(entry).toMillis();
+                if (now - lastModified > ttlMs) {
+                    Files.deleteIfExists(entry);
+                } else {
+                    live.add(entry);
+                    modified.add(lastModified);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Scan result cache eviction failed: " + e.getMessage());
+            return;
+        }
+
+        if (live.size() > maxEntries) {
+            List<Integer> order = new ArrayList<>();
+            for (int i = 0; i < live.size(); i++) {
+                order.add(i);
+            }
+            order.sort(Comparator.comparingLong(modified::get));
+            for (int i = 0; i < live.size() - maxEntries; i++) {
+                try {
+                    Files.deleteIfExists(live.get(order.get(i)));
+                } catch (IOException e) {
+                    // Next sweep retries
+                }
+            }
+        }
+    }
+
+    private Path entryPath(String cacheKey) {
+        return cacheDir.resolve(cacheKey + ".json");
+    }
+}
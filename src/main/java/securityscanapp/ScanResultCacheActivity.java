@@ -0,0 +1,30 @@
+package securityscanapp;
+
+import io.temporal.activity.ActivityInterface;
+import io.temporal.activity.ActivityMethod;
+
+/**
+ * Activity interface for the content-hash scan result cache
+ * Lets the workflow skip scanning a source tree that was already scanned with the same settings
+ */
+@ActivityInterface
+public interface ScanResultCacheActivity {
+
+    /**
+     * Look up a cached scan result
+     * @param cacheKey Key from ScanResultCache.cacheKey
+     * @return Cached result marked as a cache hit, or null if there is no live entry
+     */
+    @ActivityMethod
+    ScanResult lookupScanResult(String cacheKey);
+
+    /**
+     * Store a successful scan result
+     * @param cacheKey Key from ScanResultCache.cacheKey
+     * @param scanId Scan that produced the result
+     * @param repositoryUrl Repository that was scanned
+     * @param result Scan result to cache
+     */
+    @ActivityMethod
+    void storeScanResult(String cacheKey, String scanId, String repositoryUrl, ScanResult result);
+}
@@ -0,0 +1,49 @@
+package securityscanapp;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Implementation of scan result cache activities backed by the file index on the PVC
+ */
+public class ScanResultCacheActivityImpl implements ScanResultCacheActivity {
+
+    private final ScanResultCache cache = new ScanResultCache();
+
+    // Metadata describing the run that produced a result (logs, process, hub processing of
+    // that upload) - not true of a later scan that reuses it
+    private static final Set<String> RUN_METADATA = new HashSet<>(Arrays.asList(
+        "detectLogPath", "detectLogBytes", "detectLogLines", "detectLogErrorLines", "detectCgroup",
+        "detectPeakProcesses", "detectToolsShared", "detectLauncher", "scanLog", "bdioFile",
+        "pollRequired", "hubProjectVersionUrl", "hubProcessingState", "hubProcessingMessage",
+        "policyStatus", "hubResultsPolls", "hubResultsWaitSeconds", "hubResultsTimedOut", "hubResultsError"));
+    private static final String RISK_METADATA_PREFIX = "risk.";
+
+    @Override
+    public ScanResult lookupScanResult(String cacheKey) {
+        ScanResultCache.CacheEntry entry = cache.lookup(cacheKey);
+        if (entry == null) {
+            return null;
+        }
+        ScanResult result = entry.result;
+        // Entries stored before run metadata was stripped on store still carry it
+        stripRunMetadata(result);
+        result.setCacheHit(true);
+        result.addMetadata("resultCacheKey", cacheKey);
+        result.addMetadata("cachedFromScanId", String.valueOf(entry.scanId));
+        result.addMetadata("cachedAt", String.valueOf(entry.storedAt));
+        return result;
+    }
+
+    @Override
+    public void storeScanResult(String cacheKey, String scanId, String repositoryUrl, ScanResult result) {
+        stripRunMetadata(result);
+        cache.store(cacheKey, scanId, repositoryUrl, result);
+    }
+
+    static void stripRunMetadata(ScanResult result) {
+        result.getMetadata().keySet().removeIf(
+            key -> RUN_METADATA.contains(key) || key.startsWith(RISK_METADATA_PREFIX));
+    }
+}
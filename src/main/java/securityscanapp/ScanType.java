@@ -4,10 +4,11 @@ package securityscanapp;
  * Enumeration of supported security scan types
  * 
  * Structure is designed to support multiple scan types.
- * Currently only BlackDuck Detect is implemented.
+ * Currently BlackDuck Detect signature and detector (package manager) scans are implemented.
  */
 public enum ScanType {
-    BLACKDUCK_DETECT("blackduck-detect", "BlackDuck Detect signature scanning");
+    BLACKDUCK_DETECT("blackduck-detect", "BlackDuck Detect signature scanning"),
+    BLACKDUCK_DETECTORS("blackduck-detectors", "BlackDuck Detect package manager (detector) scanning");
     
     private final String id;
     private final String description;
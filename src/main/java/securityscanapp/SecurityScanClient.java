@@ -25,8 +25,8 @@ public class SecurityScanClient {
                 .build()
         );
         
-        // Create Workflow client
-        WorkflowClient client = WorkflowClient.newInstance(serviceStub);
+        // Create Workflow client (payload codecs must match the worker's)
+        WorkflowClient client = WorkflowClient.newInstance(serviceStub, ScanDataConverter.clientOptions());
         
         // Example: Create a scan request
         ScanRequest request = createExampleScanRequest();
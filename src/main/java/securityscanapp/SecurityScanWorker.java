@@ -5,6 +5,8 @@ import io.temporal.serviceclient.WorkflowServiceStubs;
 import io.temporal.worker.Worker;
 import io.temporal.worker.WorkerFactory;
 
+import java.util.Arrays;
+
 /**
  * Worker that processes security scanning workflows and activities
  * This worker should run on Kubernetes pods separate from the Temporal service
@@ -46,11 +48,18 @@ public class SecurityScanWorker {
                 .build()
         );
         
-        // Create Workflow client
-        WorkflowClient client = WorkflowClient.newInstance(serviceStub);
+        // Create Workflow client (clients must use the same data converter)
+        WorkflowClient client = WorkflowClient.newInstance(serviceStub, ScanDataConverter.clientOptions());
+        
+        // Expired offloaded payloads are deleted in the background, never inside a codec call
+        PayloadStoreSweeper.start(serviceStub, client.getOptions().getNamespace());
+        
+        // Slot counts, pollers, workflow cache and group queue slots (see WorkerTuningConfig)
+        WorkerTuningConfig tuning = WorkerTuningConfig.fromEnvironment();
+        System.out.println("Worker tuning: " + tuning.describe());
         
         // Create Worker factory
-        WorkerFactory factory = WorkerFactory.newInstance(client);
+        WorkerFactory factory = WorkerFactory.newInstance(client, tuning.toWorkerFactoryOptions());
         
         // Get scan type (tool type) for this worker from environment variable
         // Each worker is dedicated to a specific scan type
@@ -65,7 +74,7 @@ public class SecurityScanWorker {
                 System.out.println("Worker configured for scan type: " + scanType);
             } catch (IllegalArgumentException e) {
                 System.err.println("Invalid SCAN_TYPE: " + scanTypeEnv);
-                System.err.println("Valid values: BLACKDUCK_DETECT");
+                System.err.println("Valid values: " + Arrays.toString(ScanType.values()));
                 System.err.println("Falling back to default queue");
                 taskQueue = Shared.SECURITY_SCAN_TASK_QUEUE_DEFAULT;
             }
@@ -82,8 +91,8 @@ public class SecurityScanWorker {
         
         if (taskQueue != null) {
             // Single queue worker
-            Worker worker = factory.newWorker(taskQueue);
-            registerWorkerComponents(worker);
+            Worker worker = factory.newWorker(taskQueue, tuning.toWorkerOptions());
+            registerWorkerComponents(factory, worker, taskQueue, tuning);
             System.out.println("Security Scan Worker started");
             System.out.println("Task Queue: " + taskQueue);
         } else {
@@ -94,8 +103,8 @@ public class SecurityScanWorker {
             };
             
             for (String queue : taskQueues) {
-                Worker worker = factory.newWorker(queue);
-                registerWorkerComponents(worker);
+                Worker worker = factory.newWorker(queue, tuning.toWorkerOptions());
+                registerWorkerComponents(factory, worker, queue, tuning);
                 System.out.println("Registered worker for task queue: " + queue);
             }
             
@@ -118,18 +127,46 @@ public class SecurityScanWorker {
     }
     
     /**
-     * Register workflow and activity implementations with a worker
+     * Register workflow and activity implementations with a worker, and create the
+     * workers of the queue's activity groups
+     * The group workers share the activity instances of the queue's worker; each group
+     * queue only receives its group's activities.
      */
-    private static void registerWorkerComponents(Worker worker) {
+    private static void registerWorkerComponents(WorkerFactory factory, Worker worker, String taskQueue,
+                                                 WorkerTuningConfig tuning) {
         // Register workflow implementation
-        worker.registerWorkflowImplementationTypes(SecurityScanWorkflowImpl.class);
+        worker.registerWorkflowImplementationTypes(SecurityScanWorkflowImpl.class, BatchScanWorkflowImpl.class);
+        
+        RepositoryActivityImpl repositoryActivity = new RepositoryActivityImpl();
+        BlackDuckScanActivityImpl blackDuckActivity = new BlackDuckScanActivityImpl();
+        StorageActivityImpl storageActivity = new StorageActivityImpl();
         
         // Register activity implementations
+        // (also on the workflow queue for executions started before the group queues)
         worker.registerActivitiesImplementations(
-            new RepositoryActivityImpl(),
-            new BlackDuckScanActivityImpl(),
-            new StorageActivityImpl()
+            repositoryActivity,
+            blackDuckActivity,
+            storageActivity,
+            new ScanResultCacheActivityImpl(),
+            new BatchSourceActivityImpl(),
+            new BatchChildActivityImpl(factory.getWorkflowClient())
         );
+        
+        for (ActivityGroup group : ActivityGroup.values()) {
+            Worker groupWorker = factory.newWorker(group.queueFor(taskQueue), tuning.toWorkerOptions(group));
+            switch (group) {
+                case SCAN:
+                    groupWorker.registerActivitiesImplementations(blackDuckActivity);
+                    break;
+                case STORAGE:
+                    groupWorker.registerActivitiesImplementations(storageActivity);
+                    break;
+                default:
+                    groupWorker.registerActivitiesImplementations(repositoryActivity);
+            }
+            System.out.println("Registered " + group.getId() + " worker for task queue: " + group.queueFor(taskQueue) +
+                " (slots: " + (tuning.groupLimit(group) != null ? tuning.groupLimit(group) : "default") + ")");
+        }
     }
 }
 
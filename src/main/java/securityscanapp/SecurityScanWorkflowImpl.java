@@ -1,21 +1,44 @@
 package securityscanapp;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import io.temporal.activity.ActivityOptions;
 import io.temporal.common.RetryOptions;
+import io.temporal.failure.ActivityFailure;
+import io.temporal.workflow.ActivityStub;
+import io.temporal.workflow.Async;
+import io.temporal.workflow.Promise;
 import io.temporal.workflow.Workflow;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Implementation of the security scanning workflow
  * Orchestrates repository cloning, BlackDuck Detect scan, and cleanup
  * Designed for space-efficient execution on Kubernetes with limited PVC storage
  * 
- * Each workflow execution handles a single BlackDuck Detect scan.
- * The structure is designed to support additional scan types in the future.
+ * Each workflow execution clones the repository once and runs the requested tools
+ * against that checkout: the primary tool type, plus any further tool types, which
+ * then run concurrently (currently only BlackDuck Detect is implemented).
+ * 
+ * Every change to the sequence of activities and timers is gated with
+ * Workflow.getVersion, so executions started by an older worker replay their
+ * original sequence after a deploy instead of failing as non-deterministic.
  */
 public class SecurityScanWorkflowImpl implements SecurityScanWorkflow {
     
+    // Change IDs for Workflow.getVersion (never rename or reuse these)
+    static final String CLONE_RESULT_CHANGE = "clone-result";   // cloneRepository returns CloneResult
+    static final String MULTI_TOOL_CHANGE = "multi-tool";       // tools fan out in Async branches
+    static final String SCAN_PLAN_CHANGE = "scan-plan";         // planScan activity before the scan
+    static final String RESULT_CACHE_CHANGE = "result-cache";   // result cache lookup/store activities
+    static final String HUB_POLLING_CHANGE = "hub-polling";     // hub status activities and timers
+    static final String SPACE_RESERVATION_CHANGE = "space-reservation"; // reserve activity before the clone
+    static final String RELEASE_RETAINED_CHANGE = "release-retained";   // release space of kept workspaces
+    static final String SETTLE_TOOLS_CHANGE = "settle-tools";   // multi-tool join waits for every tool
+    static final String ACTIVITY_GROUP_QUEUES_CHANGE = "activity-group-queues"; // clone/scan/storage on group queues
+    
     // Retry options for activities (general)
     private final RetryOptions retryOptions = RetryOptions.newBuilder()
         .setInitialInterval(Duration.ofSeconds(5))
@@ -45,10 +68,17 @@ public class SecurityScanWorkflowImpl implements SecurityScanWorkflow {
     
     // Base activity options for scanning operations (can be overridden per scan)
     private ActivityOptions createScanActivityOptions(int timeoutSeconds) {
+        return ActivityOptions.newBuilder(createQueuedScanActivityOptions(timeoutSeconds))
+            .setScheduleToCloseTimeout(Duration.ofSeconds(timeoutSeconds + 120))
+            .build();
+    }
+    
+    // Options for an activity group queue: the task may wait there for a free slot first,
+    // so only the attempts are bounded, not the time since scheduling
+    private ActivityOptions createQueuedScanActivityOptions(int timeoutSeconds) {
         return ActivityOptions.newBuilder()
             .setRetryOptions(retryOptions)
             .setStartToCloseTimeout(Duration.ofSeconds(timeoutSeconds))
-            .setScheduleToCloseTimeout(Duration.ofSeconds(timeoutSeconds + 120))
             .setHeartbeatTimeout(Duration.ofSeconds(60))
             .build();
     }
@@ -60,6 +90,24 @@ public class SecurityScanWorkflowImpl implements SecurityScanWorkflow {
     private final RepositoryActivity repositoryActivity = 
         Workflow.newActivityStub(RepositoryActivity.class, repositoryActivityOptions);
     
+    // Space reservation waits in the ledger's FIFO queue; its own timeout keeps that wait
+    // out of the clone's budget
+    private final RepositoryActivity spaceReservationActivity = Workflow.newActivityStub(RepositoryActivity.class,
+        ActivityOptions.newBuilder(repositoryActivityOptions)
+            .setStartToCloseTimeout(Duration.ofSeconds(Shared.SPACE_RESERVATION_MAX_WAIT_SECONDS + 60))
+            .build());
+    
+    // Releases only update the ledger; they stay on the workflow queue and never wait for a slot
+    private final RepositoryActivity releaseActivity = Workflow.newActivityStub(RepositoryActivity.class,
+        ActivityOptions.newBuilder()
+            .setRetryOptions(retryOptions)
+            .setStartToCloseTimeout(Duration.ofSeconds(60))
+            .build());
+    
+    // Clone for executions started before cloneRepository returned a CloneResult
+    private final ActivityStub legacyRepositoryActivity = 
+        Workflow.newUntypedActivityStub(repositoryActivityOptions);
+    
     // Activity stubs with default options (can be overridden per request)
     private final BlackDuckScanActivity blackduckActivity = 
         Workflow.newActivityStub(BlackDuckScanActivity.class, defaultScanActivityOptions);
@@ -67,9 +115,38 @@ public class SecurityScanWorkflowImpl implements SecurityScanWorkflow {
     private final StorageActivity storageActivity = 
         Workflow.newActivityStub(StorageActivity.class, defaultScanActivityOptions);
     
+    // Result cache lookups are small file reads; a failing cache must never hold up the scan
+    private final ActivityOptions resultCacheActivityOptions = ActivityOptions.newBuilder()
+        .setRetryOptions(RetryOptions.newBuilder().setMaximumAttempts(2).build())
+        .setStartToCloseTimeout(Duration.ofSeconds(30))
+        .build();
+    
+    private final ScanResultCacheActivity resultCacheActivity = 
+        Workflow.newActivityStub(ScanResultCacheActivity.class, resultCacheActivityOptions);
+    
+    // Scan planning reads a small history file; same short options as the cache
+    private final BlackDuckScanActivity blackduckPlanningActivity = 
+        Workflow.newActivityStub(BlackDuckScanActivity.class, resultCacheActivityOptions);
+    
+    // One hub status check per call; waiting happens in durable timers between calls
+    private final ActivityOptions hubStatusActivityOptions = ActivityOptions.newBuilder()
+        .setRetryOptions(retryOptions)
+        .setStartToCloseTimeout(Duration.ofSeconds(120))
+        .build();
+    
+    private final BlackDuckScanActivity blackduckHubStatusActivity = 
+        Workflow.newActivityStub(BlackDuckScanActivity.class, hubStatusActivityOptions);
+    
+    // Hub polling backoff
+    private static final Duration HUB_POLL_INITIAL_INTERVAL = Duration.ofSeconds(30);
+    private static final Duration HUB_POLL_MAX_INTERVAL = Duration.ofMinutes(10);
+    
     // Store original request for querying (used by WorkflowRestartClient)
     private ScanRequest originalRequest;
     
+    // Clones, scans and uploads go to their ActivityGroup task queues (decided once per run)
+    private boolean groupQueues;
+    
     @Override
     public ScanSummary executeScans(ScanRequest request) {
         // Store original request for querying
@@ -102,25 +179,80 @@ public class SecurityScanWorkflowImpl implements SecurityScanWorkflow {
         String repoPath = null;
         
         try {
+            groupQueues = Workflow.getVersion(ACTIVITY_GROUP_QUEUES_CHANGE, Workflow.DEFAULT_VERSION, 1)
+                != Workflow.DEFAULT_VERSION;
+            
             // Step 1: Clone repository
             // Repository is cloned to shared storage (NFS/PVC RWX)
             // It persists across pod failures and is available for activity retries
             // Cleanup only happens after all activities complete successfully
-            repoPath = repositoryActivity.cloneRepository(request);
+            if (Workflow.getVersion(SPACE_RESERVATION_CHANGE, Workflow.DEFAULT_VERSION, 1) != Workflow.DEFAULT_VERSION) {
+                spaceReservationActivity().reserveWorkspaceSpace(request);
+            }
+            CloneResult cloneResult = cloneRepository(request);
+            repoPath = cloneResult.getRepoPath();
+            
+            // Report clone details (compaction mode/time, repository size) in the summary
+            for (java.util.Map.Entry<String, String> entry : cloneResult.getMetadata().entrySet()) {
+                summary.addMetadata(entry.getKey(), entry.getValue());
+            }
             
-            // Step 2: Execute BlackDuck Detect scan
-            // Each workflow execution handles a single scan
-            ScanType toolType = request.getToolType();
-            if (toolType == null) {
+            // Step 2: Run the requested tools against the single checkout
+            // One tool runs as before; several tools fan out concurrently and are joined
+            List<ScanType> toolTypes;
+            if (Workflow.getVersion(MULTI_TOOL_CHANGE, Workflow.DEFAULT_VERSION, 1) == Workflow.DEFAULT_VERSION) {
+                // Started before multi-tool scans: only the primary tool, on the workflow thread
+                toolTypes = new ArrayList<>();
+                if (request.getToolType() != null) {
+                    toolTypes.add(request.getToolType());
+                }
+            } else {
+                toolTypes = request.toolTypesToRun();
+            }
+            if (toolTypes.isEmpty()) {
                 throw new IllegalArgumentException("Tool type (scan type) must be specified in ScanRequest");
             }
+            boolean multiTool = toolTypes.size() > 1;
+            if (multiTool) {
+                summary.addMetadata("toolTypes", toolTypes.toString());
+            }
             
-            // Execute scan
-            ScanResult scanResult = executeSingleScan(toolType, repoPath, request);
-            summary.addScanResult(scanResult);
+            final String checkoutPath = repoPath;
+            List<Promise<ScanResult>> toolResults = new ArrayList<>();
+            if (multiTool) {
+                boolean settleTools = Workflow.getVersion(SETTLE_TOOLS_CHANGE, Workflow.DEFAULT_VERSION, 1)
+                    != Workflow.DEFAULT_VERSION;
+                for (ScanType toolType : toolTypes) {
+                    toolResults.add(Async.function(() ->
+                        runTool(toolType, cloneResult, checkoutPath, request, summary, true)));
+                }
+                if (settleTools) {
+                    // Every tool finishes with the workspace before it can be released or deleted;
+                    // a failed tool becomes a failed result next to the others' results
+                    List<Promise<ScanResult>> settled = new ArrayList<>();
+                    for (int i = 0; i < toolTypes.size(); i++) {
+                        ScanType toolType = toolTypes.get(i);
+                        settled.add(toolResults.get(i).handle((result, failure) ->
+                            failure == null ? result : createToolErrorResult(toolType, failure)));
+                    }
+                    Promise.allOf(settled).get();
+                    toolResults = settled;
+                } else {
+                    // Started before: fails with the first failed tool, like a failed single-tool scan
+                    Promise.allOf(toolResults).get();
+                }
+            } else {
+                toolResults.add(Workflow.newPromise(
+                    runTool(toolTypes.get(0), cloneResult, checkoutPath, request, summary, false)));
+            }
             
             // Step 3: Determine overall success
-            boolean allSuccessful = scanResult.isSuccess();
+            boolean allSuccessful = true;
+            for (Promise<ScanResult> toolResult : toolResults) {
+                ScanResult scanResult = toolResult.get();
+                summary.addScanResult(scanResult);
+                allSuccessful &= scanResult.isSuccess();
+            }
             summary.setAllScansSuccessful(allSuccessful);
             
             // Step 4: Final cleanup
@@ -134,6 +266,7 @@ public class SecurityScanWorkflowImpl implements SecurityScanWorkflow {
                 // If scan failed, keep repository for investigation
                 // Repository will be cleaned up manually or by a separate cleanup process
                 summary.addMetadata("cleanupDeferred", "Repository retained due to scan failure");
+                releaseRetainedWorkspace(request);
             }
             
             long totalExecutionTime = System.currentTimeMillis() - workflowStartTime;
@@ -142,14 +275,15 @@ public class SecurityScanWorkflowImpl implements SecurityScanWorkflow {
             // Step 5: Store results to external storage if configured
             if (config != null && config.getStorageConfig() != null) {
                 try {
-                    String storagePath = storageActivity.storeScanResults(summary, config.getStorageConfig());
+                    StorageActivity storage = storageActivity();
+                    String storagePath = storage.storeScanResults(summary, config.getStorageConfig());
                     summary.addMetadata("storagePath", storagePath);
                     
                     // Store individual report files if configured
                     // Currently only BlackDuck reports are stored
                     if (config.getStorageConfig().isStoreReportFiles()) {
                         String reportPath = request.getWorkspacePath() + "/blackduck-output";
-                        storageActivity.storeReportFile(
+                        storage.storeReportFile(
                             request.getScanId(),
                             reportPath,
                             "blackduck-detect",
@@ -230,6 +364,7 @@ public class SecurityScanWorkflowImpl implements SecurityScanWorkflow {
             // Create error summary
             summary.setAllScansSuccessful(false);
             summary.addScanResult(createErrorResult("Workflow execution failed: " + e.getMessage()));
+            releaseRetainedWorkspace(request);
             
             long totalExecutionTime = System.currentTimeMillis() - workflowStartTime;
             summary.setTotalExecutionTimeMs(totalExecutionTime);
@@ -243,43 +378,314 @@ public class SecurityScanWorkflowImpl implements SecurityScanWorkflow {
         return originalRequest;
     }
     
+    /**
+     * Plan, run (or reuse from the result cache) and finish one tool's scan of the checkout
+     *
+     * Runs in its own workflow thread when several tools are requested. Summary metadata
+     * is prefixed with the tool id in that case so concurrent tools do not overwrite each other,
+     * and each tool works on its own copy of the request (the scan plan sets its scan mode).
+     */
+    private ScanResult runTool(ScanType toolType, CloneResult cloneResult, String repoPath, ScanRequest workflowRequest,
+                               ScanSummary summary, boolean multiTool) {
+        ScanRequest request = workflowRequest.forTool(toolType);
+        ScanConfig config = request.getScanConfig();
+        String prefix = multiTool ? toolType.getId() + "." : "";
+        
+        // Choose rapid vs full mode and the timeout from the measured repository
+        // (before the cache key, which includes the scan mode)
+        ScanPlan scanPlan = Workflow.getVersion(SCAN_PLAN_CHANGE, Workflow.DEFAULT_VERSION, 1) != Workflow.DEFAULT_VERSION
+            ? planScan(toolType, cloneResult, request)
+            : null;
+        if (scanPlan != null) {
+            if (request.getBlackDuckConfig() != null) {
+                request.getBlackDuckConfig().setRapidScan(scanPlan.isRapidScan());
+            }
+            summary.addMetadata(prefix + "scanMode", scanPlan.isRapidScan() ? "RAPID" : "FULL");
+            summary.addMetadata(prefix + "scanTimeoutSeconds", String.valueOf(scanPlan.getTimeoutSeconds()));
+            summary.addMetadata(prefix + "scanPlanReason", scanPlan.getReason());
+        }
+        
+        // Identical source tree + scan settings was scanned before: reuse that result (opt-in;
+        // version 1 treated a missing ScanConfig as opted in)
+        int cacheVersion = Workflow.getVersion(RESULT_CACHE_CHANGE, Workflow.DEFAULT_VERSION, 2);
+        boolean useResultCache = config != null
+            ? config.isUseResultCache()
+            : cacheVersion == 1;
+        String cacheKey = cacheVersion != Workflow.DEFAULT_VERSION && useResultCache
+            ? ScanResultCache.cacheKey(cloneResult.getTreeHash(), toolType, request)
+            : null;
+        ScanResult scanResult = cacheKey != null ? lookupCachedResult(cacheKey, summary, prefix) : null;
+        
+        if (scanResult == null) {
+            // Execute scan
+            scanResult = executeSingleScan(toolType, repoPath, request, scanPlan, multiTool);
+            
+            // Full scans: wait for the hub to process the upload, without holding a worker slot
+            if ("true".equals(scanResult.getMetadata().get("pollRequired"))
+                    && Workflow.getVersion(HUB_POLLING_CHANGE, Workflow.DEFAULT_VERSION, 1) != Workflow.DEFAULT_VERSION) {
+                awaitHubResults(scanResult, request, summary, prefix);
+            }
+            if (cacheKey != null && scanResult.isSuccess()) {
+                storeCachedResult(cacheKey, request, scanResult, summary, prefix);
+            }
+        }
+        summary.addMetadata(prefix + "resultCacheHit", String.valueOf(scanResult.isCacheHit()));
+        return scanResult;
+    }
+    
+    /**
+     * Clone the repository
+     * 
+     * Executions started before cloneRepository returned a CloneResult have a plain path
+     * recorded in their history. Those read the result as raw JSON, which accepts both
+     * the recorded path and a CloneResult returned by a retry on an upgraded worker.
+     */
+    private CloneResult cloneRepository(ScanRequest request) {
+        if (Workflow.getVersion(CLONE_RESULT_CHANGE, Workflow.DEFAULT_VERSION, 1) != Workflow.DEFAULT_VERSION) {
+            return cloneActivity().cloneRepository(request);
+        }
+        JsonNode recorded = legacyRepositoryActivity.execute("CloneRepository", JsonNode.class, request);
+        String repoPath = recorded == null || recorded.isNull()
+            ? null
+            : recorded.isTextual() ? recorded.asText() : recorded.path("repoPath").asText(null);
+        return new CloneResult(repoPath);
+    }
+    
+    /**
+     * Reservation stub: on the space group queue, so reservations waiting in the ledger
+     * hold reservation slots rather than clone slots
+     */
+    private RepositoryActivity spaceReservationActivity() {
+        if (!groupQueues) {
+            return spaceReservationActivity;
+        }
+        return Workflow.newActivityStub(RepositoryActivity.class, ActivityOptions.newBuilder(repositoryActivityOptions)
+            .setStartToCloseTimeout(Duration.ofSeconds(Shared.SPACE_RESERVATION_MAX_WAIT_SECONDS + 60))
+            .setTaskQueue(ActivityGroup.SPACE.queueFor(Workflow.getInfo().getTaskQueue()))
+            .build());
+    }
+    
+    /**
+     * Clone stub: on the clone group queue, where clones wait for a free slot before they start
+     */
+    private RepositoryActivity cloneActivity() {
+        if (!groupQueues) {
+            return repositoryActivity;
+        }
+        return Workflow.newActivityStub(RepositoryActivity.class, ActivityOptions.newBuilder(repositoryActivityOptions)
+            .setTaskQueue(ActivityGroup.CLONE.queueFor(Workflow.getInfo().getTaskQueue()))
+            .build());
+    }
+    
+    /**
+     * Storage stub: on the storage group queue, where uploads wait for a free slot before they start
+     */
+    private StorageActivity storageActivity() {
+        if (!groupQueues) {
+            return storageActivity;
+        }
+        return Workflow.newActivityStub(StorageActivity.class,
+            ActivityOptions.newBuilder(createQueuedScanActivityOptions(Shared.SCAN_TIMEOUT_SECONDS))
+                .setTaskQueue(ActivityGroup.STORAGE.queueFor(Workflow.getInfo().getTaskQueue()))
+                .build());
+    }
+    
+    /**
+     * Release the space reservation of a workspace kept for investigation
+     * Its files stay on the volume (and count as used space); only the headroom reserved
+     * for the scan is handed back. Failures are ignored - the reservation then expires.
+     */
+    private void releaseRetainedWorkspace(ScanRequest request) {
+        if (request.getWorkspacePath() == null
+                || Workflow.getVersion(RELEASE_RETAINED_CHANGE, Workflow.DEFAULT_VERSION, 1) == Workflow.DEFAULT_VERSION) {
+            return;
+        }
+        try {
+            (groupQueues ? releaseActivity : repositoryActivity).releaseWorkspaceReservation(request.getWorkspacePath());
+        } catch (Exception e) {
+            // Non-fatal
+        }
+    }
+    
+    /**
+     * Plan scan mode and timeout; planning failures fall back to the static defaults
+     * @return Scan plan, or null if the scan type has no planner or planning failed
+     */
+    private ScanPlan planScan(ScanType scanType, CloneResult cloneResult, ScanRequest request) {
+        if (scanType != ScanType.BLACKDUCK_DETECT && scanType != ScanType.BLACKDUCK_DETECTORS) {
+            return null;
+        }
+        try {
+            return blackduckPlanningActivity.planScan(cloneResult, request);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+    
     /**
      * Execute a single scan based on scan type
-     * Uses configurable timeout if provided in config
+     * Uses the tool's configured timeout, else the planned timeout, else the configured
+     * scan timeout, else the default
+     * 
+     * In a multi-tool scan the activity goes to the tool's own task queue, so each tool
+     * runs on workers dedicated to it. With group queues the scan goes to the scan group
+     * queue next to that (or the workflow's) queue, and waits there for a free scan slot.
      * 
-     * Currently only supports BLACKDUCK_DETECT.
+     * Currently supports the BlackDuck Detect scan types.
      * Structure supports adding additional scan types in the future.
      */
-    private ScanResult executeSingleScan(ScanType scanType, String repoPath, ScanRequest request) {
+    private ScanResult executeSingleScan(ScanType scanType, String repoPath, ScanRequest request,
+                                         ScanPlan scanPlan, boolean multiTool) {
         ScanConfig config = request.getScanConfig();
         
-        // Use configurable timeout if provided, otherwise use default
-        int timeoutSeconds = (config != null && config.getScanTimeoutSeconds() != null) 
-            ? config.getScanTimeoutSeconds() 
-            : Shared.SCAN_TIMEOUT_SECONDS;
+        // Plan already honours a configured timeout; without a plan use config, then default
+        Integer toolTimeout = (config != null && config.getToolTimeoutSeconds() != null)
+            ? config.getToolTimeoutSeconds().get(scanType)
+            : null;
+        int timeoutSeconds = toolTimeout != null
+            ? toolTimeout
+            : scanPlan != null
+                ? scanPlan.getTimeoutSeconds()
+                : (config != null && config.getScanTimeoutSeconds() != null) 
+                    ? config.getScanTimeoutSeconds() 
+                    : Shared.SCAN_TIMEOUT_SECONDS;
         
-        // Create activity stub with custom timeout if different from default
+        // Create activity stub with custom timeout or queue if different from default
         BlackDuckScanActivity blackduckStub = blackduckActivity;
         
-        if (timeoutSeconds != Shared.SCAN_TIMEOUT_SECONDS) {
-            ActivityOptions customOptions = createScanActivityOptions(timeoutSeconds);
-            blackduckStub = Workflow.newActivityStub(BlackDuckScanActivity.class, customOptions);
+        if (groupQueues) {
+            String taskQueue = multiTool
+                ? Shared.getTaskQueueForScanType(scanType)
+                : Workflow.getInfo().getTaskQueue();
+            blackduckStub = Workflow.newActivityStub(BlackDuckScanActivity.class,
+                ActivityOptions.newBuilder(createQueuedScanActivityOptions(timeoutSeconds))
+                    .setTaskQueue(ActivityGroup.SCAN.queueFor(taskQueue))
+                    .build());
+        } else if (timeoutSeconds != Shared.SCAN_TIMEOUT_SECONDS || multiTool) {
+            ActivityOptions.Builder customOptions = ActivityOptions.newBuilder(createScanActivityOptions(timeoutSeconds));
+            if (multiTool) {
+                customOptions.setTaskQueue(Shared.getTaskQueueForScanType(scanType));
+            }
+            blackduckStub = Workflow.newActivityStub(BlackDuckScanActivity.class, customOptions.build());
         }
         
         // Currently only BlackDuck is supported
         // Switch statement structure allows adding new scan types in the future
         switch (scanType) {
             case BLACKDUCK_DETECT:
-                // Pass the full request to BlackDuck activity (includes BlackDuckConfig)
+            case BLACKDUCK_DETECTORS:
+                // Pass the full request to BlackDuck activity (includes BlackDuckConfig);
+                // the request's toolType selects the Detect tool
                 return blackduckStub.scanSignatures(repoPath, request);
                 
             default:
                 ScanResult result = new ScanResult(scanType, false);
-                result.setErrorMessage("Unsupported scan type: " + scanType + ". Currently only BLACKDUCK_DETECT is supported.");
+                result.setErrorMessage("Unsupported scan type: " + scanType + ". Currently only BlackDuck Detect scans are supported.");
                 return result;
         }
     }
     
+    /**
+     * Poll the hub until it has processed a full scan, sleeping on durable timers with
+     * exponential backoff in between. Findings (risk counts, policy status) are added to
+     * the scan result and summary. Hub problems never fail the scan itself.
+     */
+    private void awaitHubResults(ScanResult scanResult, ScanRequest request, ScanSummary summary, String prefix) {
+        ScanConfig config = request.getScanConfig();
+        int timeoutSeconds = (config != null && config.getHubResultTimeoutSeconds() != null)
+            ? config.getHubResultTimeoutSeconds()
+            : Shared.HUB_RESULT_TIMEOUT_SECONDS;
+        if (timeoutSeconds <= 0) {
+            return;
+        }
+        
+        long startTime = Workflow.currentTimeMillis();
+        long deadline = startTime + timeoutSeconds * 1000L;
+        Duration interval = HUB_POLL_INITIAL_INTERVAL;
+        HubScanStatus status = null;
+        int polls = 0;
+        
+        while (true) {
+            try {
+                status = blackduckHubStatusActivity.checkHubScanStatus(scanResult, request);
+                polls++;
+            } catch (Exception e) {
+                scanResult.addMetadata("hubResultsError", "Hub status check failed: " + e.getMessage());
+                break;
+            }
+            if (status.getState() != HubScanStatus.State.PENDING) {
+                break;
+            }
+            long remaining = deadline - Workflow.currentTimeMillis();
+            if (remaining <= 0) {
+                scanResult.addMetadata("hubResultsTimedOut", "true");
+                break;
+            }
+            Workflow.sleep(Duration.ofMillis(Math.min(interval.toMillis(), remaining)));
+            interval = interval.multipliedBy(2);
+            if (interval.compareTo(HUB_POLL_MAX_INTERVAL) > 0) {
+                interval = HUB_POLL_MAX_INTERVAL;
+            }
+        }
+        
+        scanResult.addMetadata("hubResultsPolls", String.valueOf(polls));
+        scanResult.addMetadata("hubResultsWaitSeconds",
+            String.valueOf((Workflow.currentTimeMillis() - startTime) / 1000));
+        if (status == null) {
+            return;
+        }
+        scanResult.addMetadata("hubProcessingState", status.getState().name());
+        scanResult.addMetadata("hubProcessingMessage", status.getMessage());
+        if (status.getProjectVersionUrl() != null) {
+            scanResult.addMetadata("hubProjectVersionUrl", status.getProjectVersionUrl());
+        }
+        if (status.getState() == HubScanStatus.State.COMPLETE) {
+            scanResult.addMetadata("resultsAvailable", "true");
+            scanResult.addMetadata("pollRequired", "false");
+            for (java.util.Map.Entry<String, Long> risk : status.getRiskCounts().entrySet()) {
+                scanResult.addMetadata("risk." + risk.getKey(), String.valueOf(risk.getValue()));
+            }
+            if (status.getPolicyStatus() != null) {
+                scanResult.addMetadata("policyStatus", status.getPolicyStatus());
+                summary.addMetadata(prefix + "policyStatus", status.getPolicyStatus());
+            }
+        }
+        summary.addMetadata(prefix + "hubProcessingState", status.getState().name());
+    }
+    
+    /**
+     * Look up a cached result; a failed cache activity counts as a miss
+     */
+    private ScanResult lookupCachedResult(String cacheKey, ScanSummary summary, String prefix) {
+        try {
+            return resultCacheActivity.lookupScanResult(cacheKey);
+        } catch (ActivityFailure e) {
+            summary.addMetadata(prefix + "resultCacheError", "lookup: " + e.getCause().getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Store a successful result for later scans of the same tree; a failed cache activity is only recorded
+     */
+    private void storeCachedResult(String cacheKey, ScanRequest request, ScanResult scanResult,
+                                   ScanSummary summary, String prefix) {
+        try {
+            resultCacheActivity.storeScanResult(cacheKey, request.getScanId(), request.getRepositoryUrl(), scanResult);
+        } catch (ActivityFailure e) {
+            // Non-fatal: the next scan of this tree runs normally
+            summary.addMetadata(prefix + "resultCacheError", "store: " + e.getCause().getMessage());
+        }
+    }
+    
+    private ScanResult createToolErrorResult(ScanType toolType, RuntimeException failure) {
+        ScanResult result = new ScanResult(toolType, false);
+        // Activity failures wrap the exception the activity threw
+        Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+        result.setErrorMessage("Scan failed: " + cause.getMessage());
+        return result;
+    }
+    
     private ScanResult createErrorResult(String errorMessage) {
         ScanResult result = new ScanResult();
         result.setSuccess(false);
@@ -10,11 +10,41 @@ public interface Shared {
     // Base directory for workspace operations (should be on PVC)
     static final String WORKSPACE_BASE_DIR = "/workspace/security-scans";
     
+    // Bare repository mirrors shared by all workers (on the same PVC as workspaces)
+    static final String MIRROR_CACHE_DIR = WORKSPACE_BASE_DIR + "/.mirror-cache";
+    
+    // Measured clone sizes of previous scans, used for size estimation
+    static final String SIZE_INDEX_DIR = WORKSPACE_BASE_DIR + "/.size-index";
+    
+    // Space reservations of running clones/scans shared by all workers
+    static final String SPACE_LEDGER_DIR = WORKSPACE_BASE_DIR + "/.space-ledger";
+    
+    // Workspaces renamed here are deleted in the background (WORKSPACE_CLEANUP_MODE=trash)
+    static final String TRASH_DIR = WORKSPACE_BASE_DIR + "/.trash";
+    
+    // Versioned Detect JARs and Detect tool downloads shared by all workers
+    static final String TOOL_CACHE_DIR = WORKSPACE_BASE_DIR + "/.tool-cache";
+    
+    // Scan results indexed by source tree hash and scan settings
+    static final String RESULT_CACHE_DIR = WORKSPACE_BASE_DIR + "/.result-cache";
+    
+    // Scan durations per component, used to plan scan mode and timeout
+    static final String SCAN_HISTORY_DIR = WORKSPACE_BASE_DIR + "/.scan-history";
+    
+    // Detect console logs per scan; outside the workspace so they outlive workspace cleanup
+    static final String DETECT_LOG_DIR = WORKSPACE_BASE_DIR + "/.detect-logs";
+    
+    // Large Temporal payloads offloaded out of workflow history, keyed by content hash
+    static final String PAYLOAD_STORE_DIR = WORKSPACE_BASE_DIR + "/.payload-store";
+    
     // Maximum workspace size in bytes (configurable, e.g., 10GB)
     static final long MAX_WORKSPACE_SIZE_BYTES = 10L * 1024 * 1024 * 1024;
     
+    // Git directories at least this large are deleted after checkout (AUTO compaction)
+    static final long GIT_DIR_DELETE_THRESHOLD_BYTES = 512L * 1024 * 1024; // 512MB
+    
     // CLI tool size estimates (for space calculations)
-    static final long BLACKDUCK_DETECT_JAR_SIZE = 100L * 1024 * 1024; // ~100MB (downloaded on first run)
+    static final long BLACKDUCK_DETECT_JAR_SIZE = 100L * 1024 * 1024; // ~100MB (cached on the PVC after first download)
     static final long BLACKDUCK_DETECT_SCRIPT_SIZE = 10L * 1024; // ~10KB
     static final long TOTAL_CLI_TOOLS_SIZE = BLACKDUCK_DETECT_JAR_SIZE + 
                                                BLACKDUCK_DETECT_SCRIPT_SIZE; // ~110MB
@@ -23,6 +53,12 @@ public interface Shared {
     static final int CLONE_TIMEOUT_SECONDS = 600; // 10 minutes for large repos
     static final int SCAN_TIMEOUT_SECONDS = 1800; // 30 minutes for scans (default)
     
+    // How long a full scan waits for the hub to process the upload (durable timers, no worker slot)
+    static final int HUB_RESULT_TIMEOUT_SECONDS = 7200; // 2 hours
+    
+    // How long a clone queues for workspace space before failing with InsufficientSpaceException
+    static final int SPACE_RESERVATION_MAX_WAIT_SECONDS = 300; // 5 minutes
+    
     // Task queue names for scan type-based routing (one queue per tool type)
     static final String TASK_QUEUE_BLACKDUCK = "SECURITY_SCAN_TASK_QUEUE_BLACKDUCK";
     
@@ -42,6 +78,7 @@ public interface Shared {
         
         switch (scanType) {
             case BLACKDUCK_DETECT:
+            case BLACKDUCK_DETECTORS:
                 return TASK_QUEUE_BLACKDUCK;
             default:
                 return SECURITY_SCAN_TASK_QUEUE_DEFAULT;
@@ -0,0 +1,75 @@
+package securityscanapp;
+
+/**
+ * Estimated on-disk size of a repository clone, with how much it can be trusted
+ */
+public class SizeEstimate {
+
+    /**
+     * Confidence of an estimate - decides the safety margin used for admission
+     */
+    public enum Confidence {
+        HIGH(0.10),   // Several previous clones with the same strategy
+        MEDIUM(0.25), // One previous clone, or derived from mirror/remote metadata
+        LOW(0.0);     // Static default: already the worst-case size admission always assumed
+
+        private final double safetyMargin;
+
+        Confidence(double safetyMargin) {
+            this.safetyMargin = safetyMargin;
+        }
+
+        public double getSafetyMargin() {
+            return safetyMargin;
+        }
+    }
+
+    private long bytes;
+    private Confidence confidence;
+    private String source; // history, mirror, remote-archive, default
+
+    public SizeEstimate() {
+    }
+
+    public SizeEstimate(long bytes, Confidence confidence, String source) {
+        this.bytes = bytes;
+        this.confidence = confidence;
+        this.source = source;
+    }
+
+    /**
+     * Bytes to require for admission: estimate plus the confidence-based safety margin
+     */
+    public long getRequiredBytes() {
+        return (long) (bytes * (1.0 + confidence.getSafetyMargin()));
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    public Confidence getConfidence() {
+        return confidence;
+    }
+
+    public void setConfidence(Confidence confidence) {
+        this.confidence = confidence;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    @Override
+    public String toString() {
+        return (bytes / (1024 * 1024)) + " MB (" + confidence + ", " + source + ")";
+    }
+}
@@ -0,0 +1,342 @@
+package securityscanapp;
+
+import com.google.gson.Gson;
+import io.temporal.worker.WorkerFactoryOptions;
+import io.temporal.worker.WorkerOptions;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Concurrency settings of the scan worker: activity and workflow task slots, pollers,
+ * workflow cache size and the slots of the clone, scan and storage group queues
+ *
+ * Settings are resolved in this order, later ones winning:
+ * 1. SDK defaults, or values derived from the pod's resources when WORKER_TUNING_MODE=auto
+ * 2. JSON file named by WORKER_TUNING_CONFIG, with the field names of this class
+ *    (e.g. {"maxConcurrentScans": 2, "workflowCacheSize": 300})
+ * 3. Environment variables:
+ *    - WORKER_MAX_CONCURRENT_ACTIVITIES, WORKER_MAX_CONCURRENT_WORKFLOW_TASKS
+ *    - WORKER_ACTIVITY_POLLERS, WORKER_WORKFLOW_POLLERS
+ *    - WORKER_WORKFLOW_CACHE_SIZE, WORKER_MAX_WORKFLOW_THREADS
+ *    - WORKER_MAX_CONCURRENT_CLONES, WORKER_MAX_CONCURRENT_SCANS, WORKER_MAX_CONCURRENT_STORAGE
+ * Unset values keep the SDK default, for the group queues as well. The activity slots
+ * (WORKER_MAX_CONCURRENT_ACTIVITIES) apply to each workflow task queue; clone, scan and
+ * storage limits apply to each of their group queues (see ActivityGroup). Space
+ * reservations get as many slots as clones.
+ *
+ * Auto mode sizes for the pod, not the node: scans by CPU cores and by memory per Detect
+ * run (DETECT_MEMORY_LIMIT, else 2GB), clones by cores and by free workspace space per
+ * workspace (Shared.MAX_WORKSPACE_SIZE_BYTES), and the workflow cache by worker heap.
+ * The workflow queue's activity slots cover clones, scans and storage as well as the
+ * short activities, for executions started before the group queues.
+ */
+public class WorkerTuningConfig {
+
+    // Memory assumed per Detect run when DETECT_MEMORY_LIMIT is not set
+    static final long DEFAULT_SCAN_MEMORY_BYTES = 2L * 1024 * 1024 * 1024;
+
+    // Activity slots of a workflow task queue: cache, planning, hub status, release, cleanup, batch source
+    static final int OTHER_ACTIVITY_SLOTS = 4;
+
+    // Worker heap assumed per cached workflow execution in auto mode
+    static final long HEAP_PER_CACHED_WORKFLOW_BYTES = 1024 * 1024;
+
+    private Integer maxConcurrentActivities;
+    private Integer maxConcurrentWorkflowTasks;
+    private Integer activityPollers;
+    private Integer workflowPollers;
+    private Integer workflowCacheSize;
+    private Integer maxWorkflowThreads;
+    private Integer maxConcurrentClones;
+    private Integer maxConcurrentScans;
+    private Integer maxConcurrentStorage;
+
+    /**
+     * Resolve the configuration from WORKER_TUNING_MODE, WORKER_TUNING_CONFIG and the environment
+     */
+    public static WorkerTuningConfig fromEnvironment() {
+        WorkerTuningConfig config = "auto".equalsIgnoreCase(System.getenv("WORKER_TUNING_MODE"))
+            ? derive(Runtime.getRuntime().availableProcessors(), detectMemoryBytes(),
+                     freeWorkspaceBytes(), Runtime.getRuntime().maxMemory(), scanMemoryBytes())
+            : new WorkerTuningConfig();
+        config.apply(loadFile(System.getenv("WORKER_TUNING_CONFIG")));
+        config.applyEnvironment();
+        return config;
+    }
+
+    /**
+     * Derive settings from the resources available to this worker
+     *
+     * @param cores CPU cores available to the JVM (container-aware)
+     * @param memoryBytes Memory limit of the pod, 0 if unknown
+     * @param freeWorkspaceBytes Usable space on the workspace PVC, 0 if unknown
+     * @param heapBytes Maximum heap of the worker JVM
+     * @param scanMemoryBytes Memory of one Detect run
+     */
+    static WorkerTuningConfig derive(int cores, long memoryBytes, long freeWorkspaceBytes,
+                                     long heapBytes, long scanMemoryBytes) {
+        WorkerTuningConfig config = new WorkerTuningConfig();
+
+        // Detect is CPU-heavy and runs outside the worker heap
+        int scans = Math.max(1, cores / 2);
+        if (memoryBytes > 0) {
+            scans = Math.min(scans, (int) Math.max(1, (memoryBytes - heapBytes) / scanMemoryBytes));
+        }
+        int clones = Math.max(1, cores);
+        if (freeWorkspaceBytes > 0) {
+            clones = Math.min(clones, (int) Math.max(1, freeWorkspaceBytes / Shared.MAX_WORKSPACE_SIZE_BYTES));
+        }
+        int storage = Math.max(2, cores);
+
+        config.maxConcurrentClones = clones;
+        config.maxConcurrentScans = scans;
+        config.maxConcurrentStorage = storage;
+        // Executions started before the activity-group-queues change still run their clones, scans
+        // and uploads on the workflow queue, so it keeps room for them until that change is rolled out
+        config.maxConcurrentActivities = clones + scans + storage + OTHER_ACTIVITY_SLOTS;
+        config.activityPollers = Math.max(1, Math.min(5, config.maxConcurrentActivities / 4));
+        config.maxConcurrentWorkflowTasks = Math.max(16, cores * 8);
+        config.workflowPollers = Math.max(2, Math.min(5, cores));
+        config.workflowCacheSize = (int) Math.max(50, Math.min(600, heapBytes / 4 / HEAP_PER_CACHED_WORKFLOW_BYTES));
+        // Multi-tool scans and batches run several workflow threads per execution
+        config.maxWorkflowThreads = config.workflowCacheSize * 2;
+        return config;
+    }
+
+    /**
+     * Options for each worker created by the factory
+     */
+    public WorkerOptions toWorkerOptions() {
+        WorkerOptions.Builder builder = WorkerOptions.newBuilder();
+        if (maxConcurrentActivities != null) {
+            builder.setMaxConcurrentActivityExecutionSize(maxConcurrentActivities);
+        }
+        if (maxConcurrentWorkflowTasks != null) {
+            builder.setMaxConcurrentWorkflowTaskExecutionSize(maxConcurrentWorkflowTasks);
+        }
+        if (activityPollers != null) {
+            builder.setMaxConcurrentActivityTaskPollers(activityPollers);
+        }
+        if (workflowPollers != null) {
+            builder.setMaxConcurrentWorkflowTaskPollers(workflowPollers);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Options for the worker of an activity group queue: its slots are the group's limit
+     */
+    public WorkerOptions toWorkerOptions(ActivityGroup group) {
+        WorkerOptions.Builder builder = WorkerOptions.newBuilder();
+        Integer limit = groupLimit(group);
+        if (limit != null && limit > 0) {
+            builder.setMaxConcurrentActivityExecutionSize(limit);
+            builder.setMaxConcurrentActivityTaskPollers(Math.max(1, Math.min(5, limit / 2)));
+        }
+        return builder.build();
+    }
+
+    Integer groupLimit(ActivityGroup group) {
+        switch (group) {
+            case SPACE:
+            case CLONE:
+                return maxConcurrentClones;
+            case SCAN:
+                return maxConcurrentScans;
+            default:
+                return maxConcurrentStorage;
+        }
+    }
+
+    /**
+     * Options for the worker factory
+     */
+    public WorkerFactoryOptions toWorkerFactoryOptions() {
+        WorkerFactoryOptions.Builder builder = WorkerFactoryOptions.newBuilder();
+        if (workflowCacheSize != null) {
+            builder.setWorkflowCacheSize(workflowCacheSize);
+        }
+        if (maxWorkflowThreads != null) {
+            builder.setMaxWorkflowThreadCount(maxWorkflowThreads);
+        }
+        return builder.build();
+    }
+
+    public String describe() {
+        return "activities=" + orDefault(maxConcurrentActivities) +
+            ", clones=" + orDefault(maxConcurrentClones) +
+            ", scans=" + orDefault(maxConcurrentScans) +
+            ", storage=" + orDefault(maxConcurrentStorage) +
+            ", workflowTasks=" + orDefault(maxConcurrentWorkflowTasks) +
+            ", activityPollers=" + orDefault(activityPollers) +
+            ", workflowPollers=" + orDefault(workflowPollers) +
+            ", workflowCacheSize=" + orDefault(workflowCacheSize) +
+            ", maxWorkflowThreads=" + orDefault(maxWorkflowThreads);
+    }
+
+    private static String orDefault(Integer value) {
+        return value != null ? String.valueOf(value) : "default";
+    }
+
+    /**
+     * Overwrite settings with the ones set in another configuration
+     */
+    void apply(WorkerTuningConfig other) {
+        if (other == null) {
+            return;
+        }
+        maxConcurrentActivities = pick(other.maxConcurrentActivities, maxConcurrentActivities);
+        maxConcurrentWorkflowTasks = pick(other.maxConcurrentWorkflowTasks, maxConcurrentWorkflowTasks);
+        activityPollers = pick(other.activityPollers, activityPollers);
+        workflowPollers = pick(other.workflowPollers, workflowPollers);
+        workflowCacheSize = pick(other.workflowCacheSize, workflowCacheSize);
+        maxWorkflowThreads = pick(other.maxWorkflowThreads, maxWorkflowThreads);
+        maxConcurrentClones = pick(other.maxConcurrentClones, maxConcurrentClones);
+        maxConcurrentScans = pick(other.maxConcurrentScans, maxConcurrentScans);
+        maxConcurrentStorage = pick(other.maxConcurrentStorage, maxConcurrentStorage);
+    }
+
+    private void applyEnvironment() {
+        maxConcurrentActivities = pick(envInt("WORKER_MAX_CONCURRENT_ACTIVITIES"), maxConcurrentActivities);
+        maxConcurrentWorkflowTasks = pick(envInt("WORKER_MAX_CONCURRENT_WORKFLOW_TASKS"), maxConcurrentWorkflowTasks);
+        activityPollers = pick(envInt("WORKER_ACTIVITY_POLLERS"), activityPollers);
+        workflowPollers = pick(envInt("WORKER_WORKFLOW_POLLERS"), workflowPollers);
+        workflowCacheSize = pick(envInt("WORKER_WORKFLOW_CACHE_SIZE"), workflowCacheSize);
+        maxWorkflowThreads = pick(envInt("WORKER_MAX_WORKFLOW_THREADS"), maxWorkflowThreads);
+        maxConcurrentClones = pick(envInt("WORKER_MAX_CONCURRENT_CLONES"), maxConcurrentClones);
+        maxConcurrentScans = pick(envInt("WORKER_MAX_CONCURRENT_SCANS"), maxConcurrentScans);
+        maxConcurrentStorage = pick(envInt("WORKER_MAX_CONCURRENT_STORAGE"), maxConcurrentStorage);
+    }
+
+    private static Integer pick(Integer override, Integer current) {
+        return override != null ? override : current;
+    }
+
+    private static Integer envInt(String name) {
+        String value = System.getenv(name);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Ignoring invalid " + name + ": " + value);
+            return null;
+        }
+    }
+
+    static WorkerTuningConfig loadFile(String path) {
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        try {
+            String json = new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
+            WorkerTuningConfig config = new Gson().fromJson(json, WorkerTuningConfig.class);
+            System.out.println("Loaded worker tuning from " + path);
+            return config;
+        } catch (Exception e) {
+            System.err.println("Failed to load worker tuning from " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Memory limit of the pod's cgroup (v2, then v1), else physical memory; 0 if unknown
+     */
+    static long detectMemoryBytes() {
+        for (String file : new String[]{"/sys/fs/cgroup/memory.max", "/sys/fs/cgroup/memory/memory.limit_in_bytes"}) {
+            try {
+                String value = new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8).trim();
+                long limit = Long.parseLong(value);
+                // cgroup v1 reports an unlimited group as a huge page-aligned number
+                if (limit > 0 && limit < Long.MAX_VALUE / 2) {
+                    return limit;
+                }
+            } catch (IOException | NumberFormatException e) {
+                // "max", or not this cgroup version
+            }
+        }
+        java.lang.management.OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getTotalPhysicalMemorySize();
+        }
+        return 0;
+    }
+
+    static long freeWorkspaceBytes() {
+        try {
+            Path workspace = Paths.get(Shared.WORKSPACE_BASE_DIR);
+            return Files.exists(workspace) ? Files.getFileStore(workspace).getUsableSpace() : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    static long scanMemoryBytes() {
+        long limit = parseSize(System.getenv("DETECT_MEMORY_LIMIT"));
+        return limit > 0 ? limit : DEFAULT_SCAN_MEMORY_BYTES;
+    }
+
+    /**
+     * Parse a size like "4G", "512M" or a byte count; 0 if unset or invalid
+     */
+    static long parseSize(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return 0;
+        }
+        String size = value.trim().toUpperCase();
+        long unit = 1;
+        char suffix = size.charAt(size.length() - 1);
+        if (suffix == 'K' || suffix == 'M' || suffix == 'G' || suffix == 'T') {
+            unit = 1L << (10 * ("KMGT".indexOf(suffix) + 1));
+            size = size.substring(0, size.length() - 1);
+        }
+        try {
+            return Long.parseLong(size) * unit;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // Getters
+    public Integer getMaxConcurrentActivities() {
+        return maxConcurrentActivities;
+    }
+
+    public Integer getMaxConcurrentWorkflowTasks() {
+        return maxConcurrentWorkflowTasks;
+    }
+
+    public Integer getActivityPollers() {
+        return activityPollers;
+    }
+
+    public Integer getWorkflowPollers() {
+        return workflowPollers;
+    }
+
+    public Integer getWorkflowCacheSize() {
+        return workflowCacheSize;
+    }
+
+    public Integer getMaxWorkflowThreads() {
+        return maxWorkflowThreads;
+    }
+
+    public Integer getMaxConcurrentClones() {
+        return maxConcurrentClones;
+    }
+
+    public Integer getMaxConcurrentScans() {
+        return maxConcurrentScans;
+    }
+
+    public Integer getMaxConcurrentStorage() {
+        return maxConcurrentStorage;
+    }
+}
@@ -62,7 +62,7 @@ public class WorkflowRestartClient {
                 .setTarget(temporalAddress)
                 .build()
         );
-        this.client = WorkflowClient.newInstance(serviceStub);
+        this.client = WorkflowClient.newInstance(serviceStub, ScanDataConverter.clientOptions());
     }
     
     /**
@@ -0,0 +1,221 @@
+package securityscanapp;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletion engine for workspaces and other large directory trees
+ *
+ * - Trees are walked with Files.walkFileTree, never materializing the full path list
+ * - Subdirectories are deleted in parallel on a bounded fork-join pool; deletion on
+ *   NFS is latency-bound, so parallel unlinks cut wall-clock time substantially
+ * - Failures are counted and logged, deletion continues with the rest of the tree
+ *
+ * With WORKSPACE_CLEANUP_MODE=trash, workspaces are renamed into {@link Shared#TRASH_DIR}
+ * (same volume, so the rename is instant) and reclaimed by a background thread, taking
+ * deletion out of scan latency. Trash left behind by a restarted worker is reclaimed
+ * on startup. The default mode (inline) deletes in parallel before returning.
+ */
+public class WorkspaceDeleter {
+
+    /**
+     * How cleanupWorkspace removes a workspace
+     */
+    public enum CleanupMode {
+        INLINE, // Parallel delete before returning
+        TRASH   // Rename to trash, delete in the background
+    }
+
+    // Parallel deletions; unlinks on NFS wait on the server, so more threads than cores help
+    private static final int PARALLELISM = Integer.parseInt(System.getenv().getOrDefault(
+        "WORKSPACE_DELETE_PARALLELISM",
+        String.valueOf(Math.min(16, Runtime.getRuntime().availableProcessors() * 4))));
+
+    // Shared by all activity instances in this worker JVM
+    private static final ForkJoinPool POOL = new ForkJoinPool(PARALLELISM);
+
+    // Single background thread reclaiming trash, one per worker
+    private static final ExecutorService RECLAIMER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "workspace-trash-reclaimer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final AtomicBoolean STARTUP_RECLAIM_SCHEDULED = new AtomicBoolean(false);
+
+    private final Path trashDir;
+    private final CleanupMode mode;
+
+    public WorkspaceDeleter() {
+        this(Paths.get(Shared.TRASH_DIR), cleanupModeFromEnvironment());
+    }
+
+    public WorkspaceDeleter(Path trashDir, CleanupMode mode) {
+        this.trashDir = trashDir;
+        this.mode = mode;
+        if (mode == CleanupMode.TRASH && STARTUP_RECLAIM_SCHEDULED.compareAndSet(false, true)) {
+            RECLAIMER.submit(this::reclaimTrash);
+        }
+    }
+
+    /**
+     * Remove a workspace using the configured cleanup mode
+     * @return true if the workspace was moved to trash (space is reclaimed asynchronously)
+     */
+    public boolean removeWorkspace(Path workspace) throws IOException {
+        if (!Files.exists(workspace)) {
+            return false;
+        }
+        if (mode == CleanupMode.TRASH) {
+            try {
+                Files.createDirectories(trashDir);
+                Path trashed = trashDir.resolve(workspace.getFileName() + "-" + System.nanoTime());
+                Files.move(workspace, trashed, StandardCopyOption.ATOMIC_MOVE);
+                DirectorySizer.invalidate(workspace);
+                RECLAIMER.submit(() -> deleteQuietly(trashed));
+                return true;
+            } catch (IOException e) {
+                // Not on the same volume or rename refused - delete in place instead
+                System.err.println("Moving workspace to trash failed, deleting inline: " + e.getMessage());
+            }
+        }
+        deleteTree(workspace);
+        return false;
+    }
+
+    /**
+     * Delete everything currently in the trash directory (startup recovery)
+     */
+    private void reclaimTrash() {
+        if (!Files.isDirectory(trashDir)) {
+            return;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(trashDir)) {
+            for (Path entry : entries) {
+                deleteQuietly(entry);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to reclaim workspace trash: " + e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            deleteTree(path);
+        } catch (Exception e) {
+            System.err.println("Background deletion failed: " + path + " - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Delete a directory tree in parallel, continuing past individual failures
+     * @return Number of entries that could not be deleted
+     */
+    public static long deleteTree(Path root) throws IOException {
+        if (!Files.exists(root, java.nio.file.LinkOption.NOFOLLOW_LINKS)) {
+            return 0;
+        }
+        if (!Files.isDirectory(root, java.nio.file.LinkOption.NOFOLLOW_LINKS)) {
+            Files.deleteIfExists(root);
+            return 0;
+        }
+
+        AtomicLong failures = new AtomicLong();
+        POOL.invoke(new DeleteDirectoryTask(root, failures));
+        DirectorySizer.invalidate(root);
+
+        if (failures.get() > 0) {
+            System.err.println("Failed to delete " + failures.get() + " entries under: " + root);
+        }
+        return failures.get();
+    }
+
+    /**
+     * Deletes one directory: files are unlinked while walking it, subdirectories are forked
+     * as separate tasks and joined before the directory itself is removed
+     */
+    private static class DeleteDirectoryTask extends RecursiveAction {
+        private final Path directory;
+        private final AtomicLong failures;
+
+        DeleteDirectoryTask(Path directory, AtomicLong failures) {
+            this.directory = directory;
+            this.failures = failures;
+        }
+
+        @Override
+        protected void compute() {
+            List<DeleteDirectoryTask> subtasks = new ArrayList<>();
+            try {
+                Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        if (dir.equals(directory)) {
+                            return FileVisitResult.CONTINUE;
+                        }
+                        DeleteDirectoryTask subtask = new DeleteDirectoryTask(dir, failures);
+                        subtask.fork();
+                        subtasks.add(subtask);
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        delete(file);
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) {
+                        if (!(e instanceof NoSuchFileException)) {
+                            failures.incrementAndGet();
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                failures.incrementAndGet();
+            }
+
+            for (DeleteDirectoryTask subtask : subtasks) {
+                subtask.join();
+            }
+            delete(directory);
+        }
+
+        private void delete(Path path) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                if (failures.incrementAndGet() == 1) {
+                    // Log the first failure only; a read-only tree would otherwise flood the log
+                    System.err.println("Failed to delete: " + path + " - " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static CleanupMode cleanupModeFromEnvironment() {
+        String value = System.getenv("WORKSPACE_CLEANUP_MODE");
+        if (value != null && value.equalsIgnoreCase("trash")) {
+            return CleanupMode.TRASH;
+        }
+        return CleanupMode.INLINE;
+    }
+}
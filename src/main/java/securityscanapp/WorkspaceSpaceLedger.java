@@ -0,0 +1,306 @@
+package securityscanapp;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * PVC-wide space reservation ledger for concurrent clones
+ *
+ * Free space reported by the filesystem does not account for clones that have
+ * been admitted but not yet written. Every clone therefore reserves its expected
+ * size here before starting; admission checks subtract all outstanding
+ * reservations (reserved minus already consumed) from the free space.
+ *
+ * - The ledger is a JSON file on the shared volume, updated under a file lock
+ *   (workers) and an in-process lock (activity threads), and replaced atomically
+ * - Waiting requests queue in FIFO order, so admission is deterministic instead
+ *   of every waiter retrying on InsufficientSpaceException
+ * - Reservations and queue entries carry leases; entries of dead workers expire,
+ *   and reservations whose workspace directory is gone are dropped
+ * - Reservations are keyed by workspace path, so activity retries reuse them
+ */
+public class WorkspaceSpaceLedger {
+
+    // Lease of a reservation while its clone is running
+    private static final long CLONE_LEASE_MS = TimeUnit.SECONDS.toMillis(Shared.CLONE_TIMEOUT_SECONDS * 2L);
+
+    // Lease of a reservation after its clone completed (covers the scan, until cleanupWorkspace)
+    private static final long SETTLED_LEASE_MS = TimeUnit.HOURS.toMillis(6);
+
+    // Lease of a queue entry, renewed on every poll by the waiting activity
+    private static final long QUEUE_LEASE_MS = TimeUnit.MINUTES.toMillis(2);
+
+    // How often queued requests re-check the ledger (and heartbeat)
+    private static final long POLL_INTERVAL_MS = TimeUnit.SECONDS.toMillis(5);
+
+    // Serializes ledger access between activity threads of this worker (file locks are per JVM)
+    private static final ReentrantLock LOCAL_LOCK = new ReentrantLock();
+
+    private final Path ledgerDir;
+    private final Gson gson = new Gson();
+
+    public WorkspaceSpaceLedger() {
+        this(Paths.get(Shared.SPACE_LEDGER_DIR));
+    }
+
+    public WorkspaceSpaceLedger(Path ledgerDir) {
+        this.ledgerDir = ledgerDir;
+    }
+
+    /**
+     * Space held for one workspace
+     */
+    static class Reservation {
+        long bytes;
+        long consumedBytes;
+        String owner;
+        long createdAt;
+        long leaseExpiresAt;
+
+        long outstanding() {
+            return Math.max(0, bytes - consumedBytes);
+        }
+    }
+
+    /**
+     * Request waiting for admission
+     */
+    static class QueueEntry {
+        String workspacePath;
+        long bytes;
+        String owner;
+        long enqueuedAt;
+        long leaseExpiresAt;
+    }
+
+    /**
+     * Persisted ledger state
+     */
+    static class LedgerState {
+        Map<String, Reservation> reservations = new LinkedHashMap<>();
+        List<QueueEntry> queue = new ArrayList<>();
+    }
+
+    /**
+     * Reserve space for a workspace, waiting in FIFO order until it fits
+     *
+     * @param workspacePath Workspace the reservation belongs to (idempotent per path)
+     * @param reserveBytes Bytes to hold for this workspace
+     * @param minFreeBytes Free space (after other reservations) required for admission, at least reserveBytes
+     * @param freeSpace Supplier of the current free space on the volume
+     * @param maxWaitMs How long to queue before giving up
+     * @param heartbeat Receives status messages while waiting (activity heartbeats)
+     * @throws InsufficientSpaceException if the request was not admitted within maxWaitMs
+     */
+    public void reserve(String workspacePath, long reserveBytes, long minFreeBytes, LongSupplier freeSpace,
+                        long maxWaitMs, Consumer<String> heartbeat) throws IOException, InterruptedException {
+        long required = Math.max(reserveBytes, minFreeBytes);
+        long deadline = System.currentTimeMillis() + maxWaitMs;
+
+        while (true) {
+            long availableAfterReservations;
+            int position;
+
+            LOCAL_LOCK.lock();
+            try (FileChannel channel = openLockFile(); FileLock ignored = channel.lock()) {
+                LedgerState state = load();
+                long now = System.currentTimeMillis();
+                expire(state, now);
+
+                Reservation existing = state.reservations.get(workspacePath);
+                if (existing != null) {
+                    // Retry of an admitted clone - keep the reservation alive
+                    existing.leaseExpiresAt = now + CLONE_LEASE_MS;
+                    existing.bytes = Math.max(existing.bytes, reserveBytes);
+                    removeFromQueue(state, workspacePath);
+                    save(state);
+                    heartbeat.accept("Reusing space reservation: " + (existing.bytes / (1024 * 1024)) + " MB");
+                    return;
+                }
+
+                QueueEntry entry = findQueueEntry(state, workspacePath);
+                if (entry == null) {
+                    entry = new QueueEntry();
+                    entry.workspacePath = workspacePath;
+                    entry.owner = owner();
+                    entry.enqueuedAt = now;
+                    state.queue.add(entry);
+                }
+                entry.bytes = reserveBytes;
+                entry.leaseExpiresAt = now + QUEUE_LEASE_MS;
+
+                availableAfterReservations = freeSpace.getAsLong() - outstanding(state);
+                position = state.queue.indexOf(entry);
+
+                if (position == 0 && availableAfterReservations >= required) {
+                    Reservation reservation = new Reservation();
+                    reservation.bytes = reserveBytes;
+                    reservation.owner = entry.owner;
+                    reservation.createdAt = now;
+                    reservation.leaseExpiresAt = now + CLONE_LEASE_MS;
+                    state.reservations.put(workspacePath, reservation);
+                    state.queue.remove(0);
+                    save(state);
+                    heartbeat.accept("Reserved " + (reserveBytes / (1024 * 1024)) + " MB of workspace space");
+                    return;
+                }
+
+                if (System.currentTimeMillis() >= deadline) {
+                    // Give up our place so the queue does not stall behind a request that will be retried
+                    state.queue.remove(entry);
+                    save(state);
+                    throw new InsufficientSpaceException(String.format(
+                        "Insufficient space available: %d MB after %d MB reserved by running scans " +
+                        "(required: %d MB, queue position: %d). " +
+                        "Space may become available when other workflows complete.",
+                        Math.max(0, availableAfterReservations) / (1024 * 1024),
+                        outstanding(state) / (1024 * 1024),
+                        required / (1024 * 1024),
+                        position + 1),
+                        Math.max(0, availableAfterReservations), required);
+                }
+
+                save(state);
+            } finally {
+                LOCAL_LOCK.unlock();
+            }
+
+            heartbeat.accept("Waiting for workspace space: queue position " + (position + 1) + ", " +
+                (Math.max(0, availableAfterReservations) / (1024 * 1024)) + " MB available, " +
+                (required / (1024 * 1024)) + " MB required");
+            Thread.sleep(POLL_INTERVAL_MS);
+        }
+    }
+
+    /**
+     * Record how much of a reservation is now on disk and extend its lease for the scan
+     * Failures are logged only - the reservation then simply expires
+     */
+    public void settle(String workspacePath, long consumedBytes) {
+        update(workspacePath, state -> {
+            Reservation reservation = state.reservations.get(workspacePath);
+            if (reservation != null) {
+                reservation.consumedBytes = consumedBytes;
+                reservation.leaseExpiresAt = System.currentTimeMillis() + SETTLED_LEASE_MS;
+            }
+        });
+    }
+
+    /**
+     * Release the reservation (and any queue entry) of a workspace
+     */
+    public void release(String workspacePath) {
+        update(workspacePath, state -> {
+            state.reservations.remove(workspacePath);
+            removeFromQueue(state, workspacePath);
+        });
+    }
+
+    private void update(String workspacePath, java.util.function.Consumer<LedgerState> change) {
+        LOCAL_LOCK.lock();
+        try (FileChannel channel = openLockFile(); FileLock ignored = channel.lock()) {
+            LedgerState state = load();
+            expire(state, System.currentTimeMillis());
+            change.accept(state);
+            save(state);
+        } catch (IOException e) {
+            System.err.println("Failed to update space ledger for " + workspacePath + ": " + e.getMessage());
+        } finally {
+            LOCAL_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Drop expired leases and reservations whose workspace no longer exists
+     */
+    private void expire(LedgerState state, long now) {
+        Iterator<Map.Entry<String, Reservation>> reservations = state.reservations.entrySet().iterator();
+        while (reservations.hasNext()) {
+            Map.Entry<String, Reservation> entry = reservations.next();
+            if (entry.getValue().leaseExpiresAt < now || !Files.exists(Paths.get(entry.getKey()))) {
+                reservations.remove();
+            }
+        }
+        state.queue.removeIf(entry -> entry.leaseExpiresAt < now);
+    }
+
+    private long outstanding(LedgerState state) {
+        long total = 0;
+        for (Reservation reservation : state.reservations.values()) {
+            total += reservation.outstanding();
+        }
+        return total;
+    }
+
+    private QueueEntry findQueueEntry(LedgerState state, String workspacePath) {
+        for (QueueEntry entry : state.queue) {
+            if (entry.workspacePath.equals(workspacePath)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void removeFromQueue(LedgerState state, String workspacePath) {
+        state.queue.removeIf(entry -> entry.workspacePath.equals(workspacePath));
+    }
+
+    private FileChannel openLockFile() throws IOException {
+        Files.createDirectories(ledgerDir);
+        return FileChannel.open(ledgerDir.resolve("ledger.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    private LedgerState load() {
+        Path file = ledgerDir.resolve("ledger.json");
+        try {
+            if (Files.exists(file)) {
+                LedgerState state = gson.fromJson(
+                    new String(Files.readAllBytes(file), StandardCharsets.UTF_8), LedgerState.class);
+                if (state != null) {
+                    if (state.reservations == null) {
+                        state.reservations = new LinkedHashMap<>();
+                    }
+                    if (state.queue == null) {
+                        state.queue = new ArrayList<>();
+                    }
+                    return state;
+                }
+            }
+        } catch (Exception e) {
+            // Corrupt ledger (e.g. volume hiccup) - start empty; reservations re-form on the next retries
+            System.err.println("Space ledger unreadable, starting empty: " + e.getMessage());
+        }
+        return new LedgerState();
+    }
+
+    private void save(LedgerState state) throws IOException {
+        // Write then rename so a crash never leaves a half-written ledger
+        Path file = ledgerDir.resolve("ledger.json");
+        Path tempFile = ledgerDir.resolve("ledger.json.tmp");
+        Files.write(tempFile, gson.toJson(state).getBytes(StandardCharsets.UTF_8));
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String owner() {
+        String host = System.getenv("HOSTNAME");
+        return host != null ? host : "unknown";
+    }
+}
@@ -0,0 +1,257 @@
+package securityscanapp;
+
+import com.sun.net.httpserver.HttpServer;
+import io.temporal.activity.ActivityExecutionContext;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class ArchiveExtractorTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private HttpServer server;
+
+    @After
+    public void stopServer() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void stripsLeadingComponents() throws Exception {
+        Path target = tmp.newFolder("out").toPath();
+        byte[] tar = tar(files("repo-main/src/App.java", "class App {}", "repo-main/README.md", "hi"));
+
+        ArchiveExtractor.Stats stats = new ArchiveExtractor(target, 1, null, null)
+            .extract(new ByteArrayInputStream(tar));
+
+        assertEquals(2, stats.getFilesExtracted());
+        assertEquals("class App {}", read(target.resolve("src/App.java")));
+        assertEquals("hi", read(target.resolve("README.md")));
+        assertFalse(Files.exists(target.resolve("repo-main")));
+    }
+
+    @Test
+    public void sparsePathsFilterEntries() throws Exception {
+        Path target = tmp.newFolder("out").toPath();
+        byte[] tar = tar(files(
+            "r/src/main/App.java", "a",
+            "r/docs/guide.md", "b",
+            "r/pom.xml", "c",
+            "r/lib/src/Util.java", "d"));
+
+        ArchiveExtractor.Stats stats = new ArchiveExtractor(target, 1, Arrays.asList("src/", "/pom.xml"), null)
+            .extract(new ByteArrayInputStream(tar));
+
+        assertEquals(3, stats.getFilesExtracted());
+        assertEquals(1, stats.getFilesSkipped());
+        assertTrue(Files.exists(target.resolve("src/main/App.java")));
+        assertTrue(Files.exists(target.resolve("lib/src/Util.java"))); // unanchored directory pattern
+        assertTrue(Files.exists(target.resolve("pom.xml")));
+        assertFalse(Files.exists(target.resolve("docs/guide.md")));
+    }
+
+    @Test
+    public void rejectsEntriesEscapingTarget() throws Exception {
+        Path target = tmp.newFolder("out").toPath();
+        byte[] tar = tar(files("r/ok.txt", "ok", "r/../../evil.txt", "evil"));
+
+        try {
+            new ArchiveExtractor(target, 1, null, null).extract(new ByteArrayInputStream(tar));
+            fail("zip-slip entry must be rejected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("escapes target directory"));
+        }
+        assertFalse(Files.exists(target.getParent().resolve("evil.txt")));
+    }
+
+    @Test
+    public void rejectsZipEntriesEscapingTarget() throws Exception {
+        Path target = tmp.newFolder("out").toPath();
+        byte[] zip = zip(files("r/../../evil.txt", "evil"));
+
+        try {
+            new ArchiveExtractor(target, 1, null, null).extract(new ByteArrayInputStream(zip));
+            fail("zip-slip entry must be rejected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("escapes target directory"));
+        }
+    }
+
+    @Test
+    public void downloadsTarFromHttp() throws Exception {
+        assertDownloaded(tar(sampleFiles()));
+    }
+
+    @Test
+    public void downloadsGzipTarFromHttp() throws Exception {
+        assertDownloaded(gzip(tar(sampleFiles())));
+    }
+
+    @Test
+    public void downloadsZipFromHttp() throws Exception {
+        assertDownloaded(zip(sampleFiles()));
+    }
+
+    @Test
+    public void fallsBackOnHttpErrorAndZipSlip() throws Exception {
+        serve(null);
+        assertNull(fetch(tmp.getRoot().toPath().resolve("missing/repo")));
+
+        Path repo = tmp.getRoot().toPath().resolve("slip/repo");
+        serve(gzip(tar(files("r/src/../../../evil.txt", "evil"))));
+        assertNull(fetch(repo));
+        assertFalse(Files.exists(repo));
+        assertFalse(Files.exists(repo.getParent().getParent().resolve("evil.txt")));
+    }
+
+    private void assertDownloaded(byte[] archive) throws Exception {
+        serve(archive);
+        Path repo = tmp.getRoot().toPath().resolve("ws/repo");
+
+        GitProgress progress = fetch(repo);
+
+        assertNotNull(progress);
+        assertEquals("archive", progress.getOperation());
+        assertEquals(2, progress.getObjectsDone());
+        assertEquals(3, progress.getObjectsTotal());
+        assertEquals("class App {}", read(repo.resolve("src/App.java")));
+        assertEquals("<project/>", read(repo.resolve("pom.xml")));
+        assertFalse(Files.exists(repo.resolve("docs/guide.md")));
+    }
+
+    private GitProgress fetch(Path repo) throws Exception {
+        ScanConfig config = new ScanConfig();
+        config.setCloneStrategy(CloneStrategy.ARCHIVE);
+        config.setArchiveUrlTemplate("http://127.0.0.1:" + server.getAddress().getPort() + "/archive/{repo}/{ref}");
+        config.setUseSparseCheckout(true);
+        config.setSparseCheckoutPaths(Arrays.asList("src/", "pom.xml"));
+        ScanRequest request = new ScanRequest("app", "comp", "1", ScanType.BLACKDUCK_DETECT,
+            "https://git.example.com/org/repo.git", "main", null);
+        request.setScanConfig(config);
+
+        ActivityExecutionContext context = mock(ActivityExecutionContext.class);
+        return new RepositoryActivityImpl().fetchArchive(request, repo.toString(), new GitProcessRunner(context));
+    }
+
+    /**
+     * Serve the archive at /archive/repo/main; null answers 404
+     */
+    private void serve(byte[] archive) throws IOException {
+        stopServer();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/archive/repo/main", exchange -> {
+            if (archive == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.sendResponseHeaders(200, archive.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(archive);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    private static Map<String, String> sampleFiles() {
+        return files("repo-main/src/App.java", "class App {}", "repo-main/docs/guide.md", "docs",
+            "repo-main/pom.xml", "<project/>");
+    }
+
+    private static Map<String, String> files(String... namesAndContents) {
+        Map<String, String> files = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndContents.length; i += 2) {
+            files.put(namesAndContents[i], namesAndContents[i + 1]);
+        }
+        return files;
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Minimal ustar writer: regular files only, names up to 100 bytes
+     */
+    static byte[] tar(Map<String, String> files) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            byte[] content = file.getValue().getBytes(StandardCharsets.UTF_8);
+            byte[] header = new byte[512];
+            put(header, 0, file.getKey());
+            put(header, 100, "0000644");
+            put(header, 108, "0000000");
+            put(header, 116, "0000000");
+            put(header, 124, String.format("%011o", content.length));
+            put(header, 136, String.format("%011o", 0));
+            header[156] = '0';
+            put(header, 257, "ustar");
+            put(header, 263, "00");
+            Arrays.fill(header, 148, 156, (byte) ' ');
+            long checksum = 0;
+            for (byte b : header) {
+                checksum += b & 0xff;
+            }
+            put(header, 148, String.format("%06o", checksum));
+            header[154] = 0;
+            out.write(header);
+            out.write(content);
+            out.write(new byte[(512 - content.length % 512) % 512]);
+        }
+        out.write(new byte[1024]);
+        return out.toByteArray();
+    }
+
+    static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] zip(Map<String, String> files) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (Map.Entry<String, String> file : files.entrySet()) {
+                zip.putNextEntry(new ZipEntry(file.getKey()));
+                zip.write(file.getValue().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void put(byte[] header, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+}
@@ -0,0 +1,134 @@
+package securityscanapp;
+
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowClientOptions;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import io.temporal.workflow.Workflow;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchScanWorkflowTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private TestWorkflowEnvironment testEnv;
+
+    /**
+     * Stands in for the scan workflow: every scan succeeds
+     */
+    public static class SucceedingScanWorkflow implements SecurityScanWorkflow {
+        @Override
+        public ScanSummary executeScans(ScanRequest request) {
+            // Build ids ending in "slow" stand for scans that outlive the batch run. The test
+            // server stops skipping time once a child outlives its parent run, so waits stay short
+            if (request.getBuildId().endsWith("slow")) {
+                Workflow.sleep(Duration.ofSeconds(3));
+            }
+            ScanSummary summary = new ScanSummary(request.getScanId());
+            summary.setAllScansSuccessful(true);
+            return summary;
+        }
+
+        @Override
+        public ScanRequest getOriginalRequest() {
+            return null;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        testEnv = TestWorkflowEnvironment.newInstance();
+        Worker batchWorker = testEnv.newWorker(Shared.SECURITY_SCAN_TASK_QUEUE);
+        batchWorker.registerWorkflowImplementationTypes(BatchScanWorkflowImpl.class);
+        batchWorker.registerActivitiesImplementations(new BatchSourceActivityImpl(),
+            new BatchChildActivityImpl(WorkflowClient.newInstance(testEnv.getWorkflowServiceStubs(),
+                WorkflowClientOptions.newBuilder().setNamespace(testEnv.getNamespace()).build())));
+        Worker scanWorker = testEnv.newWorker(Shared.TASK_QUEUE_BLACKDUCK);
+        scanWorker.registerWorkflowImplementationTypes(SucceedingScanWorkflow.class);
+        testEnv.start();
+    }
+
+    @After
+    public void tearDown() {
+        testEnv.close();
+    }
+
+    @Test
+    public void malformedLinesFailOnlyTheirRequest() throws Exception {
+        StringBuilder source = new StringBuilder();
+        for (int i = 1; i <= 5; i++) {
+            source.append("{\"appId\": \"app\", \"component\": \"comp\", \"buildId\": \"").append(i)
+                .append("\", \"toolType\": \"BLACKDUCK_DETECT\"}\n");
+            if (i == 2) {
+                source.append("not json\n");
+            }
+        }
+        Path file = tmp.getRoot().toPath().resolve("sweep.jsonl");
+        Files.write(file, source.toString().getBytes(StandardCharsets.UTF_8));
+
+        BatchScanRequest request = new BatchScanRequest("nightly", file.toString());
+        request.setPageSize(2);
+        request.setChildrenPerRun(3); // continues as new twice, resuming from the byte offset
+        request.setCarriedPollSeconds(1);
+        BatchScanWorkflow batch = testEnv.getWorkflowClient().newWorkflowStub(BatchScanWorkflow.class,
+            WorkflowOptions.newBuilder()
+                .setTaskQueue(Shared.SECURITY_SCAN_TASK_QUEUE)
+                .setWorkflowId("batch-nightly")
+                .build());
+
+        BatchScanProgress progress = batch.executeBatch(request);
+
+        assertTrue(progress.isFinished());
+        assertEquals(6, progress.getTotalRequests());
+        assertEquals(6, progress.getCompleted());
+        assertEquals(5, progress.getSucceeded());
+        assertEquals(1, progress.getFailed());
+        assertTrue(progress.getFailures().get(0).startsWith("invalid request: " + file + "@"));
+        assertTrue(progress.getRuns() > 1);
+    }
+
+    @Test
+    public void continuesAsNewWithoutWaitingForRunningChildren() {
+        List<ScanRequest> requests = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            ScanRequest scan = new ScanRequest("app", "comp", i == 1 ? "1-slow" : String.valueOf(i),
+                ScanType.BLACKDUCK_DETECT, "https://git.example.com/org/repo.git", "main", null);
+            requests.add(scan);
+        }
+        BatchScanRequest request = new BatchScanRequest("handover", requests);
+        request.setChildrenPerRun(2);
+        request.setMaxInFlight(2);
+        request.setCarriedPollSeconds(1);
+        BatchScanWorkflow batch = testEnv.getWorkflowClient().newWorkflowStub(BatchScanWorkflow.class,
+            WorkflowOptions.newBuilder()
+                .setTaskQueue(Shared.SECURITY_SCAN_TASK_QUEUE)
+                .setWorkflowId("batch-handover")
+                .build());
+
+        BatchScanProgress progress = batch.executeBatch(request);
+
+        // The slow scan outlived the run that started it and still counted, once
+        assertTrue(progress.isFinished());
+        assertEquals(3, progress.getRuns());
+        assertEquals(5, progress.getStarted());
+        assertEquals(5, progress.getCompleted());
+        assertEquals(5, progress.getSucceeded());
+        assertEquals(0, progress.getInFlight());
+    }
+}
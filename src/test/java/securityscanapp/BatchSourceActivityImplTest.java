@@ -0,0 +1,89 @@
+package securityscanapp;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BatchSourceActivityImplTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final BatchSourceActivityImpl activity = new BatchSourceActivityImpl();
+
+    @Test
+    public void pagesContinueFromTheByteOffset() throws Exception {
+        String source = write(line("1") + "\n\n" + line("2") + "\n" + line("3") + "\n" + line("4"));
+
+        BatchSourcePage first = activity.fetchPage(source, 0, 0, 2);
+        BatchSourcePage second = activity.fetchPage(source, first.getNextOffset(), 0, 2);
+        BatchSourcePage last = activity.fetchPage(source, second.getNextOffset(), 0, 2);
+
+        assertEquals("1", first.getRequests().get(0).getBuildId());
+        assertEquals("2", first.getRequests().get(1).getBuildId());
+        assertFalse(first.isEndOfSource());
+        assertEquals("3", second.getRequests().get(0).getBuildId());
+        assertEquals("4", second.getRequests().get(1).getBuildId()); // last line has no newline
+        assertEquals(0, last.getRecords());
+        assertTrue(last.isEndOfSource());
+        assertEquals(Files.size(tmp.getRoot().toPath().resolve("sweep.jsonl")), last.getNextOffset());
+    }
+
+    @Test
+    public void derivesScanIdAndWorkspacePath() throws Exception {
+        String source = write(line("7") + "\n");
+
+        ScanRequest request = activity.fetchPage(source, 0, 0, 10).getRequests().get(0);
+
+        assertEquals("app-comp-7-blackduck-detect", request.getScanId());
+        assertEquals(Shared.WORKSPACE_BASE_DIR + "/app-comp-7-blackduck-detect", request.getWorkspacePath());
+        assertEquals("app-comp-7-blackduck-detect", request.generateWorkflowId());
+    }
+
+    @Test
+    public void malformedLinesAreReportedAndSkipped() throws Exception {
+        String bad = "{\"appId\": \"app\", \"component\": ";
+        String incomplete = "{\"appId\": \"app\", \"buildId\": \"9\"}";
+        String source = write(line("1") + "\n" + bad + "\n" + incomplete + "\n" + line("2") + "\n");
+
+        BatchSourcePage page = activity.fetchPage(source, 0, 0, 10);
+
+        assertEquals(4, page.getRecords());
+        assertEquals(2, page.getRequests().size());
+        assertEquals("2", page.getRequests().get(1).getBuildId());
+        assertEquals(2, page.getInvalidLines().size());
+        long badOffset = (line("1") + "\n").getBytes(StandardCharsets.UTF_8).length;
+        assertTrue(page.getInvalidLines().get(0).startsWith(source + "@" + badOffset + ": "));
+        assertTrue(page.getInvalidLines().get(1).contains("toolType are required"));
+        assertTrue(page.isEndOfSource());
+    }
+
+    @Test
+    public void recordOffsetOfOlderRunsIsSkippedOnce() throws Exception {
+        String source = write(line("1") + "\n" + line("2") + "\n" + line("3") + "\n");
+
+        BatchSourcePage page = activity.fetchPage(source, 0, 2, 10);
+
+        assertEquals(1, page.getRecords());
+        assertEquals("3", page.getRequests().get(0).getBuildId());
+    }
+
+    private static String line(String buildId) {
+        return "{\"appId\": \"app\", \"component\": \"comp\", \"buildId\": \"" + buildId +
+            "\", \"toolType\": \"BLACKDUCK_DETECT\", \"repositoryUrl\": \"https://git.example.com/org/repo.git\"}";
+    }
+
+    private String write(String content) throws Exception {
+        Path file = tmp.getRoot().toPath().resolve("sweep.jsonl");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file.toString();
+    }
+}
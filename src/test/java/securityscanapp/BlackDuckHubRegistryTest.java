@@ -0,0 +1,56 @@
+package securityscanapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class BlackDuckHubRegistryTest {
+
+    @Test
+    public void brokenHubIsNotAFallbackForFullHubs() {
+        BlackDuckHubRegistry registry = new BlackDuckHubRegistry(config(hub("full", 1), hub("broken", 0)));
+        openCircuit(registry, "broken");
+
+        registry.route(); // takes the only slot of "full"
+        BlackDuckHubRegistry.HubLease queued = registry.route();
+
+        assertEquals("full", queued.getHubName());
+    }
+
+    @Test
+    public void noHealthyHubFailsFast() {
+        BlackDuckHubRegistry registry = new BlackDuckHubRegistry(config(hub("broken", 0)));
+        openCircuit(registry, "broken");
+
+        try {
+            registry.route();
+            fail("a hub with an open circuit must not be routed to");
+        } catch (HubUnavailableException e) {
+            // Retried by the activity retry policy
+        }
+    }
+
+    private static void openCircuit(BlackDuckHubRegistry registry, String name) {
+        BlackDuckHubRegistry.RegistryConfig config = new BlackDuckHubRegistry.RegistryConfig();
+        for (int i = 0; i < config.failureThreshold; i++) {
+            registry.acquire("https://" + name + ".example.com").release(true);
+        }
+    }
+
+    private static BlackDuckHubRegistry.HubDefinition hub(String name, int maxInFlight) {
+        BlackDuckHubRegistry.HubDefinition hub = new BlackDuckHubRegistry.HubDefinition();
+        hub.name = name;
+        hub.url = "https://" + name + ".example.com";
+        hub.maxInFlight = maxInFlight;
+        return hub;
+    }
+
+    private static BlackDuckHubRegistry.RegistryConfig config(BlackDuckHubRegistry.HubDefinition... hubs) {
+        BlackDuckHubRegistry.RegistryConfig config = new BlackDuckHubRegistry.RegistryConfig();
+        for (BlackDuckHubRegistry.HubDefinition hub : hubs) {
+            config.hubs.add(hub);
+        }
+        return config;
+    }
+}
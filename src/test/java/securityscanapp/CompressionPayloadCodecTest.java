@@ -0,0 +1,105 @@
+package securityscanapp;
+
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.EncodingKeys;
+import io.temporal.payload.codec.PayloadCodecException;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CompressionPayloadCodecTest {
+
+    @Test
+    public void zstdRoundTrip() {
+        assertRoundTrip(CompressionPayloadCodec.Algorithm.ZSTD, CompressionPayloadCodec.ENCODING_ZSTD);
+    }
+
+    @Test
+    public void gzipRoundTrip() {
+        assertRoundTrip(CompressionPayloadCodec.Algorithm.GZIP, CompressionPayloadCodec.ENCODING_GZIP);
+    }
+
+    @Test
+    public void smallAndIncompressiblePayloadsPassThrough() {
+        CompressionPayloadCodec codec = new CompressionPayloadCodec(CompressionPayloadCodec.Algorithm.ZSTD, 1024);
+        Payload small = json("{\"scanId\":\"app-comp-1-blackduck-detect\"}");
+        byte[] random = new byte[4096];
+        new Random(7).nextBytes(random);
+        Payload incompressible = Payload.newBuilder()
+            .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ByteString.copyFromUtf8("binary/plain"))
+            .setData(ByteString.copyFrom(random))
+            .build();
+
+        List<Payload> encoded = codec.encode(Arrays.asList(small, incompressible));
+
+        assertSame(small, encoded.get(0));
+        assertSame(incompressible, encoded.get(1));
+        assertEquals(Arrays.asList(small, incompressible), codec.decode(encoded));
+    }
+
+    @Test
+    public void noneOnlyDecodes() {
+        Payload payload = largeJson();
+        List<Payload> gzipped = new CompressionPayloadCodec(CompressionPayloadCodec.Algorithm.GZIP, 0)
+            .encode(Collections.singletonList(payload));
+        CompressionPayloadCodec none = new CompressionPayloadCodec(CompressionPayloadCodec.Algorithm.NONE, 0);
+
+        assertSame(payload, none.encode(Collections.singletonList(payload)).get(0));
+        // Payloads compressed by other workers are still readable
+        assertEquals(payload, none.decode(gzipped).get(0));
+    }
+
+    @Test
+    public void corruptPayloadIsRejected() {
+        Payload corrupt = Payload.newBuilder()
+            .putMetadata(EncodingKeys.METADATA_ENCODING_KEY,
+                ByteString.copyFromUtf8(CompressionPayloadCodec.ENCODING_GZIP))
+            .setData(ByteString.copyFromUtf8("not gzip"))
+            .build();
+        try {
+            new CompressionPayloadCodec(CompressionPayloadCodec.Algorithm.GZIP, 0)
+                .decode(Collections.singletonList(corrupt));
+            fail("corrupt payload must not decode");
+        } catch (PayloadCodecException e) {
+            assertTrue(e.getMessage().contains(CompressionPayloadCodec.ENCODING_GZIP));
+        }
+    }
+
+    private static void assertRoundTrip(CompressionPayloadCodec.Algorithm algorithm, String encoding) {
+        CompressionPayloadCodec codec = new CompressionPayloadCodec(algorithm, 1024);
+        Payload payload = largeJson();
+
+        Payload encoded = codec.encode(Collections.singletonList(payload)).get(0);
+
+        assertEquals(encoding, encoded.getMetadataMap().get(EncodingKeys.METADATA_ENCODING_KEY).toStringUtf8());
+        assertTrue(encoded.getSerializedSize() < payload.getSerializedSize() / 4);
+        assertEquals(payload, codec.decode(Collections.singletonList(encoded)).get(0));
+    }
+
+    private static Payload largeJson() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 200; i++) {
+            json.append(i > 0 ? "," : "").append("{\"scanType\":\"BLACKDUCK_DETECT\",\"success\":true,")
+                .append("\"metadata\":{\"hubName\":\"hub-1\",\"detectLauncher\":\"cached-jar\",\"index\":\"")
+                .append(i).append("\"}}");
+        }
+        return json(json.append("]").toString());
+    }
+
+    private static Payload json(String json) {
+        return Payload.newBuilder()
+            .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ByteString.copyFromUtf8("json/plain"))
+            .setData(ByteString.copyFrom(json, StandardCharsets.UTF_8))
+            .build();
+    }
+}
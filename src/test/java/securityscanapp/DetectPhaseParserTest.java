@@ -0,0 +1,36 @@
+package securityscanapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DetectPhaseParserTest {
+
+    private static final String PREFIX = "2024-05-02 10:15:01 UTC INFO  [main] --- ";
+
+    @Test
+    public void bannersStartPhases() {
+        assertEquals("INITIALIZING", BlackDuckScanActivityImpl.parseDetectPhase(PREFIX + "Detect Version: 9.10.0"));
+        assertEquals("RUNNING_DETECTORS", BlackDuckScanActivityImpl.parseDetectPhase(PREFIX + "Starting search for detectors."));
+        assertEquals("UPLOADING", BlackDuckScanActivityImpl.parseDetectPhase(PREFIX + "Uploading BDIO files."));
+        assertEquals("COMPLETED", BlackDuckScanActivityImpl.parseDetectPhase("Overall Status: SUCCESS"));
+    }
+
+    @Test
+    public void mentionsInsideMessagesAreIgnored() {
+        assertNull(BlackDuckScanActivityImpl.parseDetectPhase(PREFIX + "Searching /src/upload/Uploader.java"));
+        assertNull(BlackDuckScanActivityImpl.parseDetectPhase(PREFIX + "GRADLE detector applies to /src"));
+        assertNull(BlackDuckScanActivityImpl.parseDetectPhase(PREFIX + "Wrote BDIO to /out/bdio.json"));
+        assertNull(BlackDuckScanActivityImpl.parseDetectPhase(PREFIX + "Property detect.blackduck.signature.scanner.upload.source.mode"));
+    }
+
+    @Test
+    public void phasesOnlyMoveForward() {
+        assertTrue(BlackDuckScanActivityImpl.detectPhaseOrder("UPLOADING")
+            > BlackDuckScanActivityImpl.detectPhaseOrder("RUNNING_DETECTORS"));
+        assertTrue(BlackDuckScanActivityImpl.detectPhaseOrder("INITIALIZING")
+            > BlackDuckScanActivityImpl.detectPhaseOrder("STARTING"));
+    }
+}
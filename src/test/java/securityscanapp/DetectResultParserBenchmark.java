@@ -0,0 +1,115 @@
+package securityscanapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse time of DetectResultParser over synthetic Detect output
+ *
+ * Inputs are generated from a fixed seed, so every run parses the same files:
+ * rapid results (rbdump.json) with vulnerabilities and policy violations, and BDIO 1 / BDIO 2
+ * documents where every second node is a file node the parser has to skip.
+ *
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark=DetectResultParserBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms512m", "-Xmx512m"})
+public class DetectResultParserBenchmark {
+
+    private static final String[] SEVERITIES = {"LOW", "MEDIUM", "HIGH", "CRITICAL"};
+
+    @Param({"RAPID", "BDIO1", "BDIO2"})
+    public String layout;
+
+    @Param({"1000", "50000"})
+    public int components;
+
+    private Path file;
+    private final DetectResultParser parser = new DetectResultParser();
+
+    @Setup(Level.Trial)
+    public void writeInput() throws IOException {
+        file = Files.createTempFile("detect-" + layout.toLowerCase() + "-", ".json");
+        Random random = new Random(42);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            switch (layout) {
+                case "RAPID":
+                    writeRapid(out, random);
+                    break;
+                case "BDIO1":
+                    out.write("[");
+                    writeNodes(out, random);
+                    out.write("]");
+                    break;
+                default:
+                    out.write("{\"@id\":\"uuid:root\",\"@type\":\"BillOfMaterials\",\"@graph\":[");
+                    writeNodes(out, random);
+                    out.write("]}");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteInput() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public ScanFindings parse() throws IOException {
+        return parser.parse(file);
+    }
+
+    private void writeRapid(BufferedWriter out, Random random) throws IOException {
+        out.write("{\"items\":[");
+        for (int i = 0; i < components; i++) {
+            out.write(i > 0 ? "," : "");
+            out.write("{\"componentName\":\"component-" + i + "\",\"versionName\":\"1." + random.nextInt(20) + ".0\"");
+            if (random.nextInt(10) == 0) {
+                out.write(",\"violatingPolicyNames\":[\"No high severity vulnerabilities\"],\"policySeverity\":\"MAJOR\"");
+            }
+            int vulnerabilities = random.nextInt(4);
+            out.write(",\"allVulnerabilities\":[");
+            for (int v = 0; v < vulnerabilities; v++) {
+                out.write(v > 0 ? "," : "");
+                out.write("{\"name\":\"CVE-2024-" + (10000 + random.nextInt(90000)) + "\",\"vulnSeverity\":\""
+                    + SEVERITIES[random.nextInt(SEVERITIES.length)] + "\",\"overallScore\":"
+                    + (random.nextInt(100) / 10.0) + "}");
+            }
+            out.write("]}");
+        }
+        out.write("]}");
+    }
+
+    private void writeNodes(BufferedWriter out, Random random) throws IOException {
+        for (int i = 0; i < components; i++) {
+            out.write(i > 0 ? "," : "");
+            out.write("{\"@id\":\"uuid:c" + i + "\",\"@type\":\"Component\",\"name\":\"component-" + i
+                + "\",\"revision\":\"1." + random.nextInt(20) + ".0\"}");
+            out.write(",{\"@id\":\"uuid:f" + i + "\",\"@type\":\"File\",\"name\":\"src/file-" + i
+                + ".java\",\"size\":" + random.nextInt(100000) + "}");
+        }
+    }
+}
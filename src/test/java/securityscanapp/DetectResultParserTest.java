@@ -0,0 +1,134 @@
+package securityscanapp;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DetectResultParserTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void parsesRapidScanResults() throws Exception {
+        Path file = write("rbdump.json", "{\"items\": [\n"
+            + "  {\"componentName\": \"log4j-core\", \"versionName\": \"2.14.1\",\n"
+            + "   \"violatingPolicyNames\": [\"No critical CVEs\"], \"policySeverity\": \"blocker\",\n"
+            + "   \"policyViolationVulnerabilities\": [\n"
+            + "     {\"name\": \"CVE-2021-44228\", \"vulnSeverity\": \"critical\"},\n"
+            + "     {\"name\": \"CVE-2021-45046\", \"overallScore\": 7.5}]},\n"
+            + "  {\"componentName\": \"commons-io\", \"versionName\": \"2.11.0\"}\n"
+            + "]}");
+
+        ScanFindings findings = new DetectResultParser().parse(file);
+
+        assertEquals(file.toString(), findings.getSource());
+        assertEquals(2, findings.getComponentCount());
+        assertEquals(2, findings.getVulnerabilityCount());
+        assertEquals(Long.valueOf(1), findings.getVulnerabilitiesBySeverity().get("CRITICAL"));
+        assertEquals(Long.valueOf(1), findings.getVulnerabilitiesBySeverity().get("HIGH"));
+        assertEquals(1, findings.getPolicyViolationCount());
+        assertEquals(Long.valueOf(1), findings.getPolicyViolationsBySeverity().get("BLOCKER"));
+
+        List<ScanFindings.Finding> top = findings.getTopFindings();
+        assertEquals(3, top.size());
+        assertEquals("log4j-core", top.get(0).getComponentName());
+        assertEquals("2.14.1", top.get(0).getComponentVersion());
+        assertEquals("HIGH", top.get(2).getSeverity());
+        assertFalse(findings.isTruncated());
+    }
+
+    @Test
+    public void countsOnlyComponentNodesOfBdio1() throws Exception {
+        Path file = write("bdio.json", "[\n"
+            + "  {\"@id\": \"uuid:1\", \"@type\": \"BillOfMaterials\", \"name\": \"scan\"},\n"
+            + "  {\"@id\": \"uuid:2\", \"@type\": \"Component\", \"name\": \"guava\", \"revision\": \"31.1\"},\n"
+            + "  {\"@id\": \"uuid:3\", \"@type\": \"File\", \"name\": \"pom.xml\"},\n"
+            + "  {\"@id\": \"uuid:4\", \"@type\": \"Component\", \"name\": \"gson\", \"revision\": \"2.10.1\"}\n"
+            + "]");
+
+        ScanFindings findings = new DetectResultParser().parse(file);
+
+        assertEquals(2, findings.getComponentCount());
+        assertEquals(0, findings.getVulnerabilityCount());
+        assertTrue(findings.getTopFindings().isEmpty());
+    }
+
+    @Test
+    public void countsComponentNodesOfBdio2Graph() throws Exception {
+        Path file = write("bdio2.json", "{\"@id\": \"uuid:root\", \"@graph\": [\n"
+            + "  {\"@type\": [\"https://blackducksoftware.github.io/bdio#Component\"], \"name\": \"netty\",\n"
+            + "   \"version\": \"4.1.90\", \"vulnerabilities\": [{\"id\": \"CVE-2023-34462\", \"baseScore\": 6.5}]},\n"
+            + "  {\"@type\": [\"https://blackducksoftware.github.io/bdio#File\"], \"name\": \"build.gradle\"},\n"
+            + "  {\"@type\": \"https://blackducksoftware.github.io/bdio#Component\", \"name\": \"slf4j\"}\n"
+            + "]}");
+
+        ScanFindings findings = new DetectResultParser().parse(file);
+
+        assertEquals(2, findings.getComponentCount());
+        assertEquals(1, findings.getVulnerabilityCount());
+        ScanFindings.Finding finding = findings.getTopFindings().get(0);
+        assertEquals("netty", finding.getComponentName());
+        assertEquals("CVE-2023-34462", finding.getVulnerabilityId());
+        assertEquals("MEDIUM", finding.getSeverity());
+        assertNull(finding.getPolicyName());
+    }
+
+    @Test
+    public void deduplicatesVulnerabilityIdsWithinAComponent() throws Exception {
+        // Rapid results list a vulnerability under both policyViolationVulnerabilities and allVulnerabilities
+        Path file = write("rbdump.json", "[{\"componentName\": \"jackson-databind\", \"versionName\": \"2.9.8\",\n"
+            + "  \"policyViolationVulnerabilities\": [{\"name\": \"CVE-2019-12384\", \"vulnSeverity\": \"HIGH\"}],\n"
+            + "  \"allVulnerabilities\": [\n"
+            + "    {\"name\": \"CVE-2019-12384\", \"vulnSeverity\": \"HIGH\"},\n"
+            + "    {\"name\": \"CVE-2019-14379\", \"vulnSeverity\": \"CRITICAL\"}]},\n"
+            + " {\"componentName\": \"jackson-databind\", \"versionName\": \"2.9.9\",\n"
+            + "  \"allVulnerabilities\": [{\"name\": \"CVE-2019-14379\", \"vulnSeverity\": \"CRITICAL\"}]}]");
+
+        ScanFindings findings = new DetectResultParser().parse(file);
+
+        // Same id on another component version is a separate finding
+        assertEquals(3, findings.getVulnerabilityCount());
+        assertEquals(Long.valueOf(1), findings.getVulnerabilitiesBySeverity().get("HIGH"));
+        assertEquals(Long.valueOf(2), findings.getVulnerabilitiesBySeverity().get("CRITICAL"));
+    }
+
+    @Test
+    public void keepsOnlyTheMostSevereTopFindings() throws Exception {
+        StringBuilder json = new StringBuilder("[");
+        String[] severities = {"LOW", "CRITICAL", "MEDIUM", "HIGH", "LOW", "CRITICAL"};
+        for (int i = 0; i < severities.length; i++) {
+            json.append(i > 0 ? "," : "")
+                .append("{\"componentName\": \"c").append(i).append("\", \"allVulnerabilities\": [")
+                .append("{\"name\": \"CVE-").append(i).append("\", \"vulnSeverity\": \"")
+                .append(severities[i]).append("\"}]}");
+        }
+        Path file = write("rbdump.json", json.append("]").toString());
+
+        ScanFindings findings = new DetectResultParser(3).parse(file);
+
+        assertEquals(6, findings.getVulnerabilityCount());
+        assertTrue(findings.isTruncated());
+        List<ScanFindings.Finding> top = findings.getTopFindings();
+        assertEquals(3, top.size());
+        assertEquals("CRITICAL", top.get(0).getSeverity());
+        assertEquals("CRITICAL", top.get(1).getSeverity());
+        assertEquals("HIGH", top.get(2).getSeverity());
+    }
+
+    private Path write(String name, String content) throws Exception {
+        Path file = tmp.getRoot().toPath().resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
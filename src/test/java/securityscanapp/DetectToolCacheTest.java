@@ -0,0 +1,40 @@
+package securityscanapp;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DetectToolCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void sharedToolsDirIsUsedByOneScanAtATime() throws Exception {
+        Path cacheDir = tmp.newFolder("cache").toPath();
+        DetectToolCache cache = new DetectToolCache(cacheDir, "9.10.0", "http://unused/{version}", null);
+        DetectToolCache.Lease lease = new DetectToolCache.Lease("9.10.0", null, cacheDir.resolve("lease"));
+        Path privateA = tmp.getRoot().toPath().resolve("a/detect-tools");
+        Path privateB = tmp.getRoot().toPath().resolve("b/detect-tools");
+
+        try (DetectToolCache.ToolsDir first = cache.openToolsDir(lease, privateA)) {
+            assertTrue(first.isShared());
+            assertEquals(cacheDir.resolve("versions/9.10.0/tools"), first.getPath());
+
+            try (DetectToolCache.ToolsDir second = cache.openToolsDir(lease, privateB)) {
+                assertFalse(second.isShared());
+                assertEquals(privateB, second.getPath());
+            }
+        }
+
+        try (DetectToolCache.ToolsDir next = cache.openToolsDir(lease, privateB)) {
+            assertTrue(next.isShared());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package securityscanapp;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class DirectorySizerTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void cachedUsageIsRefreshedWhenTreeChangesOnDisk() throws Exception {
+        Path repo = tmp.newFolder("repo").toPath();
+        Files.write(repo.resolve("a.txt"), new byte[100]);
+
+        DirectorySizer.DirectoryUsage first = DirectorySizer.measure(repo);
+        assertEquals(100, first.getBytes());
+        assertSame(first, DirectorySizer.usage(repo));
+
+        // Another worker writes into the same tree; nothing invalidates this JVM's cache
+        Path added = repo.resolve("b.txt");
+        Files.write(added, new byte[50]);
+        Files.setLastModifiedTime(repo, FileTime.fromMillis(System.currentTimeMillis() + 5_000));
+
+        assertEquals(150, DirectorySizer.usage(repo).getBytes());
+    }
+
+    @Test
+    public void subdirectoriesAreServedFromTheParentWalk() throws Exception {
+        Path repo = tmp.newFolder("repo").toPath();
+        Path gitDir = Files.createDirectories(repo.resolve(".git/objects"));
+        Files.write(gitDir.resolve("pack"), new byte[300]);
+        Files.write(repo.resolve("README"), new byte[10]);
+
+        assertEquals(310, DirectorySizer.measure(repo).getBytes());
+
+        DirectorySizer.DirectoryUsage git = DirectorySizer.usage(repo.resolve(".git"));
+        assertEquals(300, git.getBytes());
+        assertSame(git, DirectorySizer.usage(repo.resolve(".git")));
+    }
+}
@@ -0,0 +1,109 @@
+package securityscanapp;
+
+import io.temporal.activity.ActivityExecutionContext;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class GitProcessRunnerTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void statusHeartbeatsCarryLatestProgress() throws Exception {
+        ActivityExecutionContext context = mock(ActivityExecutionContext.class);
+        GitProcessRunner git = new GitProcessRunner(context);
+
+        git.heartbeat("Reserving workspace space");
+        git.runChecked(tmp.getRoot(), "init", null, "init", "-q");
+        git.heartbeat("Repository cloned");
+
+        ArgumentCaptor<Object> details = ArgumentCaptor.forClass(Object.class);
+        verify(context, atLeastOnce()).heartbeat(details.capture());
+        List<Object> sent = details.getAllValues();
+        for (Object detail : sent) {
+            assertTrue("heartbeat details must always be GitProgress", detail instanceof GitProgress);
+        }
+
+        GitProgress first = (GitProgress) sent.get(0);
+        assertNull(first.getOperation());
+        assertEquals("Reserving workspace space", first.toString());
+
+        GitProgress last = (GitProgress) sent.get(sent.size() - 1);
+        assertEquals("init", last.getOperation());
+        assertEquals("Repository cloned", last.getMessage());
+    }
+
+    @Test
+    public void parsesCloneProgressSeparatedByCarriageReturns() {
+        // stderr of "git clone --progress", updates of one phase separated by \r
+        String stderr = "Cloning into 'repo'...\n" +
+            "remote: Enumerating objects: 1234, done.\n" +
+            "remote: Counting objects:  50% (617/1234)\rremote: Counting objects: 100% (1234/1234), done.\n" +
+            "remote: Compressing objects: 100% (800/800), done.\n" +
+            "remote: Total 1234 (delta 400), reused 1000 (delta 300), pack-reused 0\n" +
+            "Receiving objects:   9% (112/1234), 860.00 KiB | 1.68 MiB/s\r" +
+            "Receiving objects:  45% (556/1234), 2.50 MiB | 2.40 MiB/s\r" +
+            "Receiving objects: 100% (1234/1234), 1.25 GiB | 3.00 MiB/s, done.\n" +
+            "Resolving deltas:  50% (200/400)\rResolving deltas: 100% (400/400), done.\n";
+        GitProcessRunner.OutputDrainer drainer = new GitProcessRunner.OutputDrainer(
+            new ByteArrayInputStream(stderr.getBytes(StandardCharsets.UTF_8)),
+            new GitProgress("clone", "git.example.com"));
+
+        drainer.run();
+        GitProgress progress = drainer.snapshot(1000);
+
+        assertEquals("Resolving deltas", progress.getPhase());
+        assertEquals(100, progress.getPercent());
+        assertEquals(400, progress.getObjectsDone());
+        assertEquals(400, progress.getObjectsTotal());
+        // Transfer figures of the last "Receiving objects" update
+        assertEquals((long) (1.25 * 1024 * 1024 * 1024), progress.getBytesReceived());
+        assertEquals(3L * 1024 * 1024, progress.getThroughputBytesPerSecond());
+        assertEquals(1000, progress.getElapsedMs());
+        // Only lines that are not progress end up in the tail
+        assertEquals(Arrays.asList("Cloning into 'repo'...", "remote: Enumerating objects: 1234, done.",
+            "remote: Total 1234 (delta 400), reused 1000 (delta 300), pack-reused 0"), drainer.tail());
+    }
+
+    @Test
+    public void parsesProgressInTheMiddleOfATransfer() {
+        GitProcessRunner.OutputDrainer drainer = new GitProcessRunner.OutputDrainer(
+            new ByteArrayInputStream("Receiving objects:  45% (556/1234), 860.00 KiB | 512.00 KiB/s\r"
+                .getBytes(StandardCharsets.UTF_8)),
+            new GitProgress("fetch", null));
+
+        drainer.run();
+        GitProgress progress = drainer.snapshot(0);
+
+        assertEquals("Receiving objects", progress.getPhase());
+        assertEquals(45, progress.getPercent());
+        assertEquals(556, progress.getObjectsDone());
+        assertEquals(1234, progress.getObjectsTotal());
+        assertEquals(860L * 1024, progress.getBytesReceived());
+        assertEquals(512L * 1024, progress.getThroughputBytesPerSecond());
+        assertTrue(drainer.tail().isEmpty());
+    }
+
+    @Test
+    public void convertsSizeUnits() {
+        assertEquals(512, GitProcessRunner.toBytes("512", "bytes"));
+        assertEquals(1536, GitProcessRunner.toBytes("1.50", "KiB"));
+        assertEquals(2621440, GitProcessRunner.toBytes("2.50", "MiB"));
+        assertEquals(1342177280L, GitProcessRunner.toBytes("1.25", "GiB"));
+    }
+}
@@ -0,0 +1,165 @@
+package securityscanapp;
+
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.EncodingKeys;
+import io.temporal.payload.codec.PayloadCodecException;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OffloadingPayloadCodecTest {
+
+    @Test
+    public void largePayloadRoundTripsThroughTheStore() {
+        MemoryStore store = new MemoryStore();
+        Payload payload = largeJson(0);
+
+        Payload reference = new OffloadingPayloadCodec(store, true, 1024, 1024 * 1024)
+            .encode(Collections.singletonList(payload)).get(0);
+
+        assertTrue(OffloadingPayloadCodec.isReference(reference));
+        assertEquals(String.valueOf(payload.getSerializedSize()),
+            reference.getMetadataMap().get(OffloadingPayloadCodec.METADATA_SIZE).toStringUtf8());
+        assertTrue(reference.getSerializedSize() < 200);
+        assertEquals(1, store.blobs.size());
+        // A worker with an empty cache reads the blob from the store
+        OffloadingPayloadCodec other = new OffloadingPayloadCodec(store, true, 1024, 1024 * 1024);
+        assertEquals(payload, other.decode(Collections.singletonList(reference)).get(0));
+        assertEquals(1, store.reads);
+    }
+
+    @Test
+    public void smallPayloadsPassThrough() {
+        MemoryStore store = new MemoryStore();
+        OffloadingPayloadCodec codec = new OffloadingPayloadCodec(store, true, 1024, 1024 * 1024);
+        Payload small = json("{\"scanId\":\"app-comp-1-blackduck-detect\"}");
+
+        List<Payload> encoded = codec.encode(Collections.singletonList(small));
+
+        assertSame(small, encoded.get(0));
+        assertTrue(store.blobs.isEmpty());
+        assertSame(small, codec.decode(encoded).get(0));
+    }
+
+    @Test
+    public void disabledOnlyDecodes() {
+        MemoryStore store = new MemoryStore();
+        Payload payload = largeJson(0);
+        List<Payload> offloaded = new OffloadingPayloadCodec(store, true, 1024, 1024 * 1024)
+            .encode(Collections.singletonList(payload));
+        OffloadingPayloadCodec disabled = new OffloadingPayloadCodec(store, false, 1024, 1024 * 1024);
+
+        assertSame(payload, disabled.encode(Collections.singletonList(payload)).get(0));
+        // Payloads offloaded by other workers are still readable
+        assertEquals(payload, disabled.decode(offloaded).get(0));
+    }
+
+    @Test
+    public void corruptBlobIsRejected() {
+        MemoryStore store = new MemoryStore();
+        Payload reference = new OffloadingPayloadCodec(store, true, 1024, 1024 * 1024)
+            .encode(Collections.singletonList(largeJson(0))).get(0);
+        String key = reference.getData().toStringUtf8();
+        byte[] blob = store.blobs.get(key);
+        blob[blob.length - 1] ^= 1;
+
+        try {
+            new OffloadingPayloadCodec(store, true, 1024, 1024 * 1024).decode(Collections.singletonList(reference));
+            fail("corrupt blob must not decode");
+        } catch (PayloadCodecException e) {
+            assertTrue(e.getMessage().contains(key));
+            assertTrue(e.getMessage().contains("corrupt"));
+        }
+    }
+
+    @Test
+    public void missingBlobIsRejected() {
+        MemoryStore store = new MemoryStore();
+        Payload reference = new OffloadingPayloadCodec(store, true, 1024, 1024 * 1024)
+            .encode(Collections.singletonList(largeJson(0))).get(0);
+        store.blobs.clear();
+
+        try {
+            new OffloadingPayloadCodec(store, true, 1024, 1024 * 1024).decode(Collections.singletonList(reference));
+            fail("missing blob must not decode");
+        } catch (PayloadCodecException e) {
+            assertTrue(e.getMessage().contains("not found"));
+        }
+    }
+
+    @Test
+    public void cacheEvictsLeastRecentlyUsedBlob() {
+        MemoryStore store = new MemoryStore();
+        Payload first = largeJson(0);
+        Payload second = largeJson(1);
+        // Room for one blob only
+        OffloadingPayloadCodec codec = new OffloadingPayloadCodec(store, true, 1024,
+            first.getSerializedSize() + second.getSerializedSize() - 1);
+
+        List<Payload> references = codec.encode(Arrays.asList(first, second));
+        assertFalse(references.get(0).equals(references.get(1)));
+
+        // The second blob is cached, the first was evicted when it was added
+        assertEquals(second, codec.decode(Collections.singletonList(references.get(1))).get(0));
+        assertEquals(0, store.reads);
+        assertEquals(first, codec.decode(Collections.singletonList(references.get(0))).get(0));
+        assertEquals(1, store.reads);
+        // Reading the first one back evicted the second
+        assertEquals(second, codec.decode(Collections.singletonList(references.get(1))).get(0));
+        assertEquals(2, store.reads);
+    }
+
+    private static Payload largeJson(int batch) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 200; i++) {
+            json.append(i > 0 ? "," : "").append("{\"scanType\":\"BLACKDUCK_DETECT\",\"success\":true,")
+                .append("\"metadata\":{\"batch\":\"").append(batch).append("\",\"index\":\"")
+                .append(i).append("\"}}");
+        }
+        return json(json.append("]").toString());
+    }
+
+    private static Payload json(String json) {
+        return Payload.newBuilder()
+            .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ByteString.copyFromUtf8("json/plain"))
+            .setData(ByteString.copyFrom(json, StandardCharsets.UTF_8))
+            .build();
+    }
+
+    /**
+     * Blob store in memory, counting reads
+     */
+    private static class MemoryStore implements PayloadBlobStore {
+        final Map<String, byte[]> blobs = new HashMap<>();
+        int reads;
+
+        @Override
+        public void put(String key, byte[] data) {
+            blobs.putIfAbsent(key, data.clone());
+        }
+
+        @Override
+        public byte[] get(String key) {
+            reads++;
+            byte[] data = blobs.get(key);
+            return data != null ? data.clone() : null;
+        }
+
+        @Override
+        public String describe() {
+            return "memory";
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package securityscanapp;
+
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DefaultDataConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode time of ScanDataConverter against Temporal's DefaultDataConverter
+ *
+ * Payloads are a typical ScanRequest and a ScanSummary of 20 scan results, built from
+ * fixed values. The encoded size of each payload/converter pair is printed at setup, so
+ * one run shows both the CPU cost and the size saved per payload.
+ *
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark=PayloadConverterBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadConverterBenchmark {
+
+    @Param({"default", "gzip", "zstd", "positional-zstd"})
+    public String converter;
+
+    @Param({"request", "summary"})
+    public String payload;
+
+    private DataConverter dataConverter;
+    private Object value;
+    private Class<?> type;
+    private Payload encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        OffloadingPayloadCodec noOffload = new OffloadingPayloadCodec(null, false, Integer.MAX_VALUE, 0);
+        switch (converter) {
+            case "default":
+                dataConverter = DefaultDataConverter.STANDARD_INSTANCE;
+                break;
+            case "gzip":
+                dataConverter = ScanDataConverter.create(false,
+                    new CompressionPayloadCodec(CompressionPayloadCodec.Algorithm.GZIP, 1024), noOffload);
+                break;
+            case "zstd":
+                dataConverter = ScanDataConverter.create(false,
+                    new CompressionPayloadCodec(CompressionPayloadCodec.Algorithm.ZSTD, 1024), noOffload);
+                break;
+            default:
+                dataConverter = ScanDataConverter.create(true,
+                    new CompressionPayloadCodec(CompressionPayloadCodec.Algorithm.ZSTD, 1024), noOffload);
+        }
+        ScanRequest request = PositionalJsonPayloadConverterTest.sampleRequest();
+        value = "request".equals(payload) ? request : sampleSummary(request);
+        type = value.getClass();
+        encoded = dataConverter.toPayload(value).get();
+        System.out.println(payload + " via " + converter + ": " + encoded.getSerializedSize() + " bytes");
+    }
+
+    @Benchmark
+    public Payload encode() {
+        return dataConverter.toPayload(value).get();
+    }
+
+    @Benchmark
+    public Object decode() {
+        return dataConverter.fromPayload(encoded, type, type);
+    }
+
+    private static ScanSummary sampleSummary(ScanRequest request) {
+        ScanSummary summary = new ScanSummary(request.getScanId());
+        summary.setRepositoryUrl(request.getRepositoryUrl());
+        summary.setCommitSha(request.getCommitSha());
+        summary.setAllScansSuccessful(true);
+        for (int i = 0; i < 20; i++) {
+            ScanResult result = new ScanResult(ScanType.BLACKDUCK_DETECT, true);
+            result.setExecutionTimeMs(60_000L + i);
+            result.setOutput("Detect run " + i + " finished: SUCCESS\nOverall Status: SUCCESS");
+            result.addMetadata("hubName", "hub-" + (i % 3));
+            result.addMetadata("detectVersion", "9.10.0");
+            result.addMetadata("detectLauncher", "cached-jar");
+            result.addMetadata("detectLogFile", Shared.DETECT_LOG_DIR + "/" + request.getScanId() + "/run-" + i + "/detect.log");
+            result.addMetadata("pollRequired", "false");
+            summary.addScanResult(result);
+        }
+        summary.addMetadata("scanMode", "FULL");
+        summary.addMetadata("repositorySizeBytes", "4294967296");
+        return summary;
+    }
+}
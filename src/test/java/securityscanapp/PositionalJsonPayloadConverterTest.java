@@ -0,0 +1,97 @@
+package securityscanapp;
+
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DataConverterException;
+import io.temporal.common.converter.DefaultDataConverter;
+import io.temporal.common.converter.EncodingKeys;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PositionalJsonPayloadConverterTest {
+
+    private final PositionalJsonPayloadConverter converter = new PositionalJsonPayloadConverter();
+
+    @Test
+    public void roundTripsScanRequestAsArray() {
+        ScanRequest request = sampleRequest();
+
+        Payload payload = converter.toData(request).get();
+        ScanRequest read = converter.fromData(payload, ScanRequest.class, ScanRequest.class);
+
+        assertTrue(payload.getData().toStringUtf8().startsWith("["));
+        assertFalse(payload.getData().toStringUtf8().contains("repositoryUrl"));
+        assertEquals(request.getScanId(), read.getScanId());
+        assertEquals(request.getWorkspacePath(), read.getWorkspacePath());
+        assertEquals(request.getToolTypes(), read.getToolTypes());
+        assertEquals(CloneStrategy.SHALLOW, read.getScanConfig().getCloneStrategy());
+        assertEquals(Arrays.asList("src/"), read.getScanConfig().getSparseCheckoutPaths());
+        assertTrue(read.getBlackDuckConfig().isRapidScan());
+    }
+
+    @Test
+    public void otherTypesAreLeftToTheStandardConverters() {
+        assertEquals(Optional.empty(), converter.toData("text"));
+        assertEquals(Optional.empty(), converter.toData(new CloneResult("/workspace/repo")));
+    }
+
+    @Test
+    public void payloadOfAnotherSchemaIsRejected() {
+        Payload payload = converter.toData(sampleRequest()).get().toBuilder()
+            .putMetadata(PositionalJsonPayloadConverter.METADATA_SCHEMA, ByteString.copyFromUtf8("0123456789abcdef"))
+            .build();
+        try {
+            converter.fromData(payload, ScanRequest.class, ScanRequest.class);
+            fail("payload written with another schema must be rejected");
+        } catch (DataConverterException e) {
+            assertTrue(e.getMessage().contains("0123456789abcdef"));
+        }
+    }
+
+    @Test
+    public void fullConverterReadsPositionalAndPlainPayloads() {
+        CompressionPayloadCodec zstd = new CompressionPayloadCodec(CompressionPayloadCodec.Algorithm.ZSTD, 0);
+        OffloadingPayloadCodec noOffload = new OffloadingPayloadCodec(null, false, Integer.MAX_VALUE, 0);
+        DataConverter positional = ScanDataConverter.create(true, zstd, noOffload);
+        DataConverter plain = ScanDataConverter.create(false, zstd, noOffload);
+        ScanRequest request = sampleRequest();
+
+        Payload written = positional.toPayload(request).get();
+        assertEquals(CompressionPayloadCodec.ENCODING_ZSTD,
+            written.getMetadataMap().get(EncodingKeys.METADATA_ENCODING_KEY).toStringUtf8());
+
+        // Workers with positional encoding off still read positional payloads, and vice versa
+        assertEquals(request.getScanId(),
+            plain.fromPayload(written, ScanRequest.class, ScanRequest.class).getScanId());
+        assertEquals(request.getScanId(),
+            positional.fromPayload(plain.toPayload(request).get(), ScanRequest.class, ScanRequest.class).getScanId());
+        // Payloads of the default converter (older workers and clients) decode unchanged
+        Payload standard = DefaultDataConverter.STANDARD_INSTANCE.toPayload(request).get();
+        assertEquals(request.getScanId(),
+            positional.fromPayload(standard, ScanRequest.class, ScanRequest.class).getScanId());
+    }
+
+    static ScanRequest sampleRequest() {
+        ScanRequest request = new ScanRequest("app-123", "api-component", "build-456", ScanType.BLACKDUCK_DETECT,
+            "https://git.example.com/org/api.git", "main", "0123456789abcdef0123456789abcdef01234567");
+        request.setToolTypes(Arrays.asList(ScanType.BLACKDUCK_DETECTORS));
+        ScanConfig config = new ScanConfig();
+        config.setCloneStrategy(CloneStrategy.SHALLOW);
+        config.setUseSparseCheckout(true);
+        config.addSparseCheckoutPath("src/");
+        request.setScanConfig(config);
+        BlackDuckConfig blackDuckConfig = new BlackDuckConfig();
+        blackDuckConfig.setAppId("app-123");
+        blackDuckConfig.setRapidScan(true);
+        request.setBlackDuckConfig(blackDuckConfig);
+        return request;
+    }
+}
@@ -0,0 +1,69 @@
+package securityscanapp;
+
+import io.temporal.activity.ActivityExecutionContext;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class PostCloneCompactorTest {
+
+    private static final long MAX_WORKSPACE = 1024L * 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final ActivityExecutionContext context = mock(ActivityExecutionContext.class);
+    private final PostCloneCompactor compactor = new PostCloneCompactor();
+
+    @Test
+    public void autoDeletesGitDirWhenSpaceIsLow() throws Exception {
+        File repo = newRepo();
+        CloneResult result = new CloneResult(repo.getPath());
+
+        compactor.compact(repo.getPath(), null, CloneStrategy.SHALLOW, false, 0, MAX_WORKSPACE,
+            result, new GitProcessRunner(context));
+
+        assertEquals(PostCloneCompaction.DELETE_GIT_DIR.getId(), result.getMetadata().get("compactionMode"));
+        assertFalse(new File(repo, ".git").exists());
+    }
+
+    @Test
+    public void autoKeepsGitDirOfPartialClones() throws Exception {
+        for (CloneStrategy strategy : new CloneStrategy[]{CloneStrategy.PARTIAL_BLOBLESS, CloneStrategy.PARTIAL_TREELESS}) {
+            File repo = newRepo();
+            CloneResult result = new CloneResult(repo.getPath());
+
+            compactor.compact(repo.getPath(), PostCloneCompaction.AUTO, strategy, false, 0, MAX_WORKSPACE,
+                result, new GitProcessRunner(context));
+
+            assertEquals(PostCloneCompaction.NONE.getId(), result.getMetadata().get("compactionMode"));
+            assertTrue(new File(repo, ".git").isDirectory());
+        }
+    }
+
+    @Test
+    public void explicitDeleteStillAppliesToPartialClones() throws Exception {
+        File repo = newRepo();
+        CloneResult result = new CloneResult(repo.getPath());
+
+        compactor.compact(repo.getPath(), PostCloneCompaction.DELETE_GIT_DIR, CloneStrategy.PARTIAL_BLOBLESS,
+            false, Long.MAX_VALUE, MAX_WORKSPACE, result, new GitProcessRunner(context));
+
+        assertFalse(new File(repo, ".git").exists());
+    }
+
+    private File newRepo() throws Exception {
+        File repo = tmp.newFolder();
+        Files.createDirectories(repo.toPath().resolve(".git/objects"));
+        Files.write(repo.toPath().resolve(".git/HEAD"), "ref: refs/heads/main\n".getBytes());
+        return repo;
+    }
+}
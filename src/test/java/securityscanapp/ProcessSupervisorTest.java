@@ -0,0 +1,67 @@
+package securityscanapp;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ProcessSupervisorTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void controllerNamesAreComparedExactly() throws Exception {
+        Path subtreeControl = tmp.newFile("cgroup.subtree_control").toPath();
+        Files.write(subtreeControl, "cpuset io memory\n".getBytes(StandardCharsets.UTF_8));
+
+        Set<String> enabled = ProcessSupervisor.controllers(subtreeControl);
+
+        assertTrue(enabled.contains("memory"));
+        assertTrue(enabled.contains("cpuset"));
+        assertFalse("cpuset does not enable cpu", enabled.contains("cpu"));
+    }
+
+    @Test
+    public void deadlineKillsTheWholeTree() throws Exception {
+        ProcessSupervisor supervisor = new ProcessSupervisor(null, null, null, null, null, null, null,
+            tmp.getRoot().toPath());
+        ProcessBuilder builder = new ProcessBuilder("sh", "-c", "sleep 100 & sleep 100");
+
+        try (ProcessSupervisor.Supervised supervised = supervisor.start(builder, System.currentTimeMillis() + 500)) {
+            Process process = supervised.getProcess();
+            List<ProcessHandle> descendants = waitForDescendants(process, 2);
+
+            assertTrue("killed by the watchdog",
+                process.waitFor(ProcessSupervisor.WATCHDOG_INTERVAL_SECONDS * 3, TimeUnit.SECONDS));
+            assertTrue(supervised.isTimedOut());
+            for (ProcessHandle descendant : descendants) {
+                descendant.onExit().get(5, TimeUnit.SECONDS);
+                assertFalse("descendant " + descendant.pid() + " killed", descendant.isAlive());
+            }
+            assertEquals(3, supervised.getPeakProcesses());
+        }
+    }
+
+    private static List<ProcessHandle> waitForDescendants(Process process, int count) throws InterruptedException {
+        for (int attempt = 0; attempt < 50; attempt++) {
+            List<ProcessHandle> descendants = process.descendants().collect(Collectors.toList());
+            if (descendants.size() >= count) {
+                return descendants;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("sh did not start both sleeps");
+    }
+}
@@ -0,0 +1,107 @@
+package securityscanapp;
+
+import io.temporal.activity.ActivityExecutionContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class RepositoryMirrorCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private ActivityExecutionContext context;
+    private GitProcessRunner git;
+    private String sourceUrl;
+
+    @Before
+    public void setUp() throws Exception {
+        context = mock(ActivityExecutionContext.class);
+        git = new GitProcessRunner(context);
+
+        File source = tmp.newFolder("source");
+        git.runChecked(source, "init", null, "init", "-q", "-b", "main");
+        Files.write(source.toPath().resolve("README"), "hello".getBytes(StandardCharsets.UTF_8));
+        git.runChecked(source, "add", null, "add", "README");
+        git.runChecked(source, "commit", null, "-c", "user.name=test", "-c", "user.email=test@example.com",
+            "commit", "-q", "-m", "initial");
+        sourceUrl = source.getAbsolutePath();
+    }
+
+    @Test
+    public void refreshBumpsGenerationUnderLock() throws Exception {
+        RepositoryMirrorCache cache = new RepositoryMirrorCache(tmp.newFolder("mirrors").toPath());
+        assertEquals(0, cache.getRefreshGeneration(sourceUrl));
+
+        GitProgress created = cache.refreshMirror(sourceUrl, sourceUrl, null, git);
+        assertNotNull(created);
+        assertEquals(1, cache.getRefreshGeneration(sourceUrl));
+        assertTrue(Files.exists(cache.getMirrorPath(sourceUrl).resolve("HEAD")));
+
+        // Nothing completed while this caller waited, so it fetches instead of reusing
+        GitProgress fetched = cache.refreshMirror(sourceUrl, sourceUrl, null, git);
+        assertNotNull(fetched);
+        assertEquals(2, cache.getRefreshGeneration(sourceUrl));
+    }
+
+    @Test
+    public void legacyTimestampMarkerStillIncreases() throws Exception {
+        Path cacheDir = tmp.newFolder("mirrors").toPath();
+        RepositoryMirrorCache cache = new RepositoryMirrorCache(cacheDir);
+        cache.refreshMirror(sourceUrl, sourceUrl, null, git);
+
+        // Markers written by older workers hold a wall-clock timestamp
+        long legacy = 1_700_000_000_000L;
+        Files.write(cacheDir.resolve(RepositoryMirrorCache.mirrorKey(sourceUrl) + ".refreshed"),
+            String.valueOf(legacy).getBytes(StandardCharsets.UTF_8));
+
+        cache.refreshMirror(sourceUrl, sourceUrl, null, git);
+        assertEquals(legacy + 1, cache.getRefreshGeneration(sourceUrl));
+    }
+
+    @Test
+    public void fetchesCommitReachableOnlyFromOtherRefs() throws Exception {
+        // A pull request head: reachable from refs/pull/1/head, not from any branch or tag
+        File source = new File(sourceUrl);
+        git.runChecked(source, "checkout", null, "checkout", "-q", "-b", "feature");
+        Files.write(source.toPath().resolve("CHANGE"), "change".getBytes(StandardCharsets.UTF_8));
+        git.runChecked(source, "add", null, "add", "CHANGE");
+        git.runChecked(source, "commit", null, "-c", "user.name=test", "-c", "user.email=test@example.com",
+            "commit", "-q", "-m", "change");
+        String prCommit = git.runChecked(source, "rev-parse", null, "rev-parse", "HEAD").getLastLine().trim();
+        git.runChecked(source, "update-ref", null, "update-ref", "refs/pull/1/head", prCommit);
+        git.runChecked(source, "checkout", null, "checkout", "-q", "main");
+        git.runChecked(source, "branch", null, "branch", "-q", "-D", "feature");
+
+        RepositoryMirrorCache cache = new RepositoryMirrorCache(tmp.newFolder("mirrors").toPath());
+        cache.refreshMirror(sourceUrl, sourceUrl, prCommit, git);
+
+        // The workspace clone borrows the mirror's objects, so the commit can be checked out
+        String repoPath = new File(tmp.getRoot(), "repo").getAbsolutePath();
+        String[] clone = cache.buildWorkspaceCloneCommand(cache.getMirrorPath(sourceUrl), "main", true, repoPath);
+        git.runChecked(tmp.getRoot(), "clone", null, Arrays.copyOfRange(clone, 1, clone.length));
+        assertEquals(0, git.run(new File(repoPath), "checkout", null, "checkout", "-q", prCommit).getExitCode());
+
+        // A commit the server does not have fails the refresh, so the caller clones directly
+        String unknown = "0123456789abcdef0123456789abcdef01234567";
+        try {
+            cache.refreshMirror(sourceUrl, sourceUrl, unknown, git);
+            fail("Refresh should fail for an unknown commit");
+        } catch (RuntimeException expected) {
+            // fall back to a direct clone
+        }
+    }
+}
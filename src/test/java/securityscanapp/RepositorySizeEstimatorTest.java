@@ -0,0 +1,87 @@
+package securityscanapp;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RepositorySizeEstimatorTest {
+
+    private static final long GB = 1024L * 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void unknownRepositoryNeedsNoMoreThanBaseline() throws Exception {
+        RepositorySizeEstimator estimator = new RepositorySizeEstimator(tmp.newFolder("index").toPath(), null);
+
+        SizeEstimate estimate = estimator.estimate(request());
+
+        assertEquals(SizeEstimate.Confidence.LOW, estimate.getConfidence());
+        // Baseline admission assumed a fixed 4GB repository (plus 100MB for shallow history)
+        assertTrue(estimate.getRequiredBytes() <= 4 * GB + 100L * 1024 * 1024);
+    }
+
+    @Test
+    public void mirrorEstimateUsesPackFiles() throws Exception {
+        RepositoryMirrorCache mirrors = new RepositoryMirrorCache(tmp.newFolder("mirrors").toPath());
+        Path packDir = mirrors.getMirrorPath(request().getRepositoryUrl()).resolve("objects/pack");
+        Files.createDirectories(packDir);
+        Files.write(packDir.resolve("pack-1.pack"), new byte[3000]);
+        Files.write(packDir.resolve("pack-1.idx"), new byte[500]);
+        Files.write(packDir.resolve("pack-2.pack"), new byte[1000]);
+
+        SizeEstimate estimate = new RepositorySizeEstimator(tmp.newFolder("index").toPath(), mirrors)
+            .estimate(request());
+
+        assertEquals("mirror", estimate.getSource());
+        assertEquals(4000, estimate.getBytes());
+    }
+
+    @Test
+    public void concurrentRecordsKeepEverySample() throws Exception {
+        RepositorySizeEstimator estimator = new RepositorySizeEstimator(tmp.newFolder("index").toPath(), null);
+        ScanRequest request = request();
+        int samples = 32;
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < samples; i++) {
+                futures.add(pool.submit(() -> estimator.recordActualSize(request, GB)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        SizeEstimate estimate = estimator.estimate(request);
+        assertEquals("history", estimate.getSource());
+        assertEquals(SizeEstimate.Confidence.HIGH, estimate.getConfidence());
+        assertEquals(GB, estimate.getBytes());
+
+        RepositorySizeEstimator.SizeHistory history = new com.google.gson.Gson().fromJson(
+            new String(Files.readAllBytes(tmp.getRoot().toPath().resolve("index")
+                .resolve(RepositorySizeEstimator.indexKey(request) + ".json"))),
+            RepositorySizeEstimator.SizeHistory.class);
+        assertEquals(samples, history.samples);
+    }
+
+    private static ScanRequest request() {
+        return new ScanRequest("app", "comp", "1", ScanType.BLACKDUCK_DETECT,
+            "https://git.example.com/org/repo.git", "main", null);
+    }
+}
@@ -0,0 +1,64 @@
+package securityscanapp;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ScanModePolicyTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void concurrentRecordsKeepEverySample() throws Exception {
+        ScanModePolicy policy = new ScanModePolicy(tmp.newFolder("history").toPath());
+        ScanRequest request = new ScanRequest("app", "comp", "1", ScanType.BLACKDUCK_DETECT,
+            "https://git.example.com/org/repo.git", "main", null);
+        int samples = 32;
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < samples; i++) {
+                futures.add(pool.submit(() -> policy.recordDuration(request, false, 1_200_000)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        CloneResult clone = new CloneResult("/tmp/repo");
+        ScanPlan plan = policy.plan(clone, request);
+        assertEquals(samples, plan.getHistorySamples());
+        assertTrue(plan.getReason().contains("from " + samples + " earlier scans"));
+    }
+
+    @Test
+    public void scanTypesKeepSeparateHistories() throws Exception {
+        ScanModePolicy policy = new ScanModePolicy(tmp.newFolder("history").toPath());
+        ScanRequest signatures = new ScanRequest("app", "comp", "1", ScanType.BLACKDUCK_DETECT,
+            "https://git.example.com/org/repo.git", "main", null);
+        ScanRequest detectors = signatures.forTool(ScanType.BLACKDUCK_DETECTORS);
+        assertNotEquals(ScanModePolicy.historyKey(signatures, false), ScanModePolicy.historyKey(detectors, false));
+
+        // Slow signature scans must not stretch the detector scan's timeout
+        policy.recordDuration(signatures, false, 3_600_000);
+        policy.recordDuration(detectors, false, 400_000);
+
+        CloneResult clone = new CloneResult("/tmp/repo");
+        assertEquals(7200, policy.plan(clone, signatures).getTimeoutSeconds());
+        assertEquals(800, policy.plan(clone, detectors).getTimeoutSeconds());
+    }
+}
@@ -0,0 +1,19 @@
+package securityscanapp;
+
+import io.temporal.testing.WorkflowReplayer;
+import org.junit.Test;
+
+/**
+ * Histories recorded by earlier versions of the workflow must still replay
+ *
+ * legacy-single-scan.json was recorded with the baseline workflow (cloneRepository
+ * returned a plain path, one scan, cleanup) and covers every getVersion gate.
+ */
+public class SecurityScanWorkflowReplayTest {
+
+    @Test
+    public void replaysHistoryFromBeforeVersionedChanges() throws Exception {
+        WorkflowReplayer.replayWorkflowExecutionFromResource(
+            "histories/legacy-single-scan.json", SecurityScanWorkflowImpl.class);
+    }
+}
@@ -0,0 +1,182 @@
+package securityscanapp;
+
+import io.temporal.activity.Activity;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.failure.ApplicationFailure;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class SecurityScanWorkflowTest {
+
+    private static final String REPO_PATH = "/workspace/security-scans/scan/repo";
+
+    private TestWorkflowEnvironment testEnv;
+    private RepositoryActivity repositoryActivity;
+    private BlackDuckScanActivity blackDuckActivity;
+    private final Set<String> cloneQueues = Collections.synchronizedSet(new HashSet<>());
+    private final Set<String> scanQueues = Collections.synchronizedSet(new HashSet<>());
+
+    @Before
+    public void setUp() {
+        testEnv = TestWorkflowEnvironment.newInstance();
+        // Multi-tool scan activities go to the tool's queue; both tools use the BlackDuck queue
+        Worker worker = testEnv.newWorker(Shared.TASK_QUEUE_BLACKDUCK);
+        worker.registerWorkflowImplementationTypes(SecurityScanWorkflowImpl.class);
+        repositoryActivity = mock(RepositoryActivity.class, withSettings().withoutAnnotations());
+        blackDuckActivity = mock(BlackDuckScanActivity.class, withSettings().withoutAnnotations());
+        worker.registerActivitiesImplementations(repositoryActivity, blackDuckActivity);
+        // Group queues next to the workflow queue, as the worker polls them
+        for (ActivityGroup group : ActivityGroup.values()) {
+            Worker groupWorker = testEnv.newWorker(group.queueFor(Shared.TASK_QUEUE_BLACKDUCK));
+            groupWorker.registerActivitiesImplementations(
+                group == ActivityGroup.SCAN ? blackDuckActivity : repositoryActivity);
+        }
+        testEnv.start();
+    }
+
+    @After
+    public void tearDown() {
+        testEnv.close();
+    }
+
+    @Test
+    public void toolsFanOutOnOneCheckoutAndReportPerTool() {
+        when(repositoryActivity.cloneRepository(any())).thenAnswer(invocation -> {
+            cloneQueues.add(Activity.getExecutionContext().getInfo().getActivityTaskQueue());
+            return new CloneResult(REPO_PATH);
+        });
+        when(repositoryActivity.cleanupWorkspace(anyString())).thenReturn(true);
+        // Detector scans are planned rapid, signature scans full
+        when(blackDuckActivity.planScan(any(), any())).thenAnswer(invocation -> {
+            ScanRequest request = invocation.getArgument(1);
+            return new ScanPlan(request.getToolType() == ScanType.BLACKDUCK_DETECTORS, 600, "test plan");
+        });
+        when(blackDuckActivity.scanSignatures(anyString(), any())).thenAnswer(invocation -> {
+            scanQueues.add(Activity.getExecutionContext().getInfo().getActivityTaskQueue());
+            ScanRequest request = invocation.getArgument(1);
+            ScanResult result = new ScanResult(request.getToolType(), true);
+            if (!request.getBlackDuckConfig().isRapidScan()) {
+                result.addMetadata("pollRequired", "true");
+            }
+            return result;
+        });
+        HubScanStatus hubStatus = new HubScanStatus(HubScanStatus.State.COMPLETE, "processed");
+        hubStatus.setPolicyStatus("NOT_IN_VIOLATION");
+        when(blackDuckActivity.checkHubScanStatus(any(), any())).thenReturn(hubStatus);
+
+        ScanRequest request = multiToolRequest();
+        ScanSummary summary = execute(request);
+
+        // One checkout, both tools scanned it, results joined
+        verify(repositoryActivity, times(1)).cloneRepository(any());
+        verify(blackDuckActivity, times(2)).scanSignatures(eq(REPO_PATH), any());
+        assertEquals(2, summary.getScanResults().size());
+        Set<ScanType> scanned = EnumSet.noneOf(ScanType.class);
+        for (ScanResult result : summary.getScanResults()) {
+            scanned.add(result.getScanType());
+        }
+        assertEquals(EnumSet.of(ScanType.BLACKDUCK_DETECT, ScanType.BLACKDUCK_DETECTORS), scanned);
+        assertTrue(summary.isAllScansSuccessful());
+        verify(repositoryActivity).cleanupWorkspace(request.getWorkspacePath());
+        
+        // Clone and scans waited for slots on their group queues, not inside the activity
+        assertEquals(Collections.singleton(ActivityGroup.CLONE.queueFor(Shared.TASK_QUEUE_BLACKDUCK)), cloneQueues);
+        assertEquals(Collections.singleton(ActivityGroup.SCAN.queueFor(Shared.TASK_QUEUE_BLACKDUCK)), scanQueues);
+
+        // Every tool's metadata is prefixed, including the hub results of the full scan
+        assertEquals("FULL", summary.getMetadata("blackduck-detect.scanMode"));
+        assertEquals("RAPID", summary.getMetadata("blackduck-detectors.scanMode"));
+        assertEquals("NOT_IN_VIOLATION", summary.getMetadata("blackduck-detect.policyStatus"));
+        assertEquals("COMPLETE", summary.getMetadata("blackduck-detect.hubProcessingState"));
+        assertEquals("false", summary.getMetadata("blackduck-detect.resultCacheHit"));
+        assertEquals("false", summary.getMetadata("blackduck-detectors.resultCacheHit"));
+        assertNull(summary.getMetadata("scanMode"));
+        assertNull(summary.getMetadata("policyStatus"));
+        assertNull(summary.getMetadata("hubProcessingState"));
+
+        // The rapid plan of the detector scan did not leak into the signature scan's request
+        ArgumentCaptor<ScanRequest> polled = ArgumentCaptor.forClass(ScanRequest.class);
+        verify(blackDuckActivity, times(1)).checkHubScanStatus(any(), polled.capture());
+        assertEquals(ScanType.BLACKDUCK_DETECT, polled.getValue().getToolType());
+        assertFalse(polled.getValue().getBlackDuckConfig().isRapidScan());
+    }
+
+    @Test
+    public void failedToolWaitsForTheOthersAndKeepsTheirResults() {
+        when(repositoryActivity.cloneRepository(any())).thenReturn(new CloneResult(REPO_PATH));
+        when(blackDuckActivity.planScan(any(), any())).thenReturn(new ScanPlan(true, 600, "test plan"));
+        when(blackDuckActivity.scanSignatures(anyString(), any())).thenAnswer(invocation -> {
+            ScanRequest request = invocation.getArgument(1);
+            if (request.getToolType() == ScanType.BLACKDUCK_DETECTORS) {
+                throw ApplicationFailure.newNonRetryableFailure("detector failure", "DetectFailure");
+            }
+            // The other tool is still scanning the workspace when the first one fails
+            Thread.sleep(500);
+            return new ScanResult(request.getToolType(), true);
+        });
+
+        ScanRequest request = multiToolRequest();
+        ScanSummary summary = execute(request);
+
+        // Both results are reported; the failed tool as a failed result
+        assertEquals(2, summary.getScanResults().size());
+        assertFalse(summary.isAllScansSuccessful());
+        for (ScanResult result : summary.getScanResults()) {
+            if (result.getScanType() == ScanType.BLACKDUCK_DETECTORS) {
+                assertFalse(result.isSuccess());
+                assertTrue(result.getErrorMessage().contains("detector failure"));
+            } else {
+                assertTrue(result.isSuccess());
+            }
+        }
+
+        // The retained workspace is released only after both scans finished, and never deleted
+        InOrder order = inOrder(blackDuckActivity, repositoryActivity);
+        order.verify(blackDuckActivity, times(2)).scanSignatures(eq(REPO_PATH), any());
+        order.verify(repositoryActivity).releaseWorkspaceReservation(request.getWorkspacePath());
+        verify(repositoryActivity, never()).cleanupWorkspace(anyString());
+    }
+
+    private static ScanRequest multiToolRequest() {
+        ScanRequest request = new ScanRequest("app", "comp", "1", ScanType.BLACKDUCK_DETECT,
+            "https://git.example.com/org/repo.git", "main", null);
+        request.setToolTypes(Arrays.asList(ScanType.BLACKDUCK_DETECTORS));
+        request.setBlackDuckConfig(new BlackDuckConfig());
+        return request;
+    }
+
+    private ScanSummary execute(ScanRequest request) {
+        SecurityScanWorkflow workflow = testEnv.getWorkflowClient().newWorkflowStub(SecurityScanWorkflow.class,
+            WorkflowOptions.newBuilder()
+                .setTaskQueue(Shared.TASK_QUEUE_BLACKDUCK)
+                .setWorkflowId(request.generateWorkflowId())
+                .build());
+        return workflow.executeScans(request);
+    }
+}
@@ -0,0 +1,80 @@
+package securityscanapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class WorkerTuningConfigTest {
+
+    private static final long GB = 1024L * 1024 * 1024;
+    private static final long MB = 1024L * 1024;
+
+    @Test
+    public void derivesFromCoresWhenResourcesAreAmple() {
+        WorkerTuningConfig config = WorkerTuningConfig.derive(8, 32 * GB, 200 * GB, 2 * GB, 2 * GB);
+
+        assertEquals(Integer.valueOf(4), config.getMaxConcurrentScans());
+        assertEquals(Integer.valueOf(8), config.getMaxConcurrentClones());
+        assertEquals(Integer.valueOf(8), config.getMaxConcurrentStorage());
+        // Room on the workflow queue for executions started before the group queues
+        assertEquals(Integer.valueOf(8 + 4 + 8 + WorkerTuningConfig.OTHER_ACTIVITY_SLOTS),
+            config.getMaxConcurrentActivities());
+        assertEquals(Integer.valueOf(5), config.getActivityPollers());
+        assertEquals(Integer.valueOf(64), config.getMaxConcurrentWorkflowTasks());
+        assertEquals(Integer.valueOf(5), config.getWorkflowPollers());
+        assertEquals(Integer.valueOf(512), config.getWorkflowCacheSize());
+        assertEquals(Integer.valueOf(1024), config.getMaxWorkflowThreads());
+    }
+
+    @Test
+    public void scansAreCappedByMemoryBesideTheHeap() {
+        WorkerTuningConfig config = WorkerTuningConfig.derive(16, 10 * GB, 0, 2 * GB, 4 * GB);
+
+        assertEquals(Integer.valueOf(2), config.getMaxConcurrentScans());
+        // Unknown free space leaves clones at the core count
+        assertEquals(Integer.valueOf(16), config.getMaxConcurrentClones());
+    }
+
+    @Test
+    public void clonesAreCappedByWorkspaceSpace() {
+        WorkerTuningConfig config = WorkerTuningConfig.derive(8, 0, 25 * GB, GB, 2 * GB);
+
+        assertEquals(Integer.valueOf(2), config.getMaxConcurrentClones());
+        // Unknown memory leaves scans at half the cores
+        assertEquals(Integer.valueOf(4), config.getMaxConcurrentScans());
+        assertEquals(Integer.valueOf(256), config.getWorkflowCacheSize());
+    }
+
+    @Test
+    public void smallPodKeepsAtLeastOneSlotPerGroup() {
+        WorkerTuningConfig config = WorkerTuningConfig.derive(1, GB, 5 * GB, 512 * MB, 2 * GB);
+
+        assertEquals(Integer.valueOf(1), config.getMaxConcurrentScans());
+        assertEquals(Integer.valueOf(1), config.getMaxConcurrentClones());
+        assertEquals(Integer.valueOf(2), config.getMaxConcurrentStorage());
+        assertEquals(Integer.valueOf(1 + 1 + 2 + WorkerTuningConfig.OTHER_ACTIVITY_SLOTS),
+            config.getMaxConcurrentActivities());
+        assertEquals(Integer.valueOf(2), config.getActivityPollers());
+        assertEquals(Integer.valueOf(16), config.getMaxConcurrentWorkflowTasks());
+        assertEquals(Integer.valueOf(2), config.getWorkflowPollers());
+        assertEquals(Integer.valueOf(128), config.getWorkflowCacheSize());
+    }
+
+    @Test
+    public void parsesSizes() {
+        assertEquals(4 * GB, WorkerTuningConfig.parseSize("4G"));
+        assertEquals(512 * MB, WorkerTuningConfig.parseSize("512m"));
+        assertEquals(2048, WorkerTuningConfig.parseSize(" 2K "));
+        assertEquals(1024 * GB, WorkerTuningConfig.parseSize("1T"));
+        assertEquals(1500, WorkerTuningConfig.parseSize("1500"));
+    }
+
+    @Test
+    public void invalidSizesAreZero() {
+        assertEquals(0, WorkerTuningConfig.parseSize(null));
+        assertEquals(0, WorkerTuningConfig.parseSize(" "));
+        assertEquals(0, WorkerTuningConfig.parseSize("4GB"));
+        assertEquals(0, WorkerTuningConfig.parseSize("1.5G"));
+        assertEquals(0, WorkerTuningConfig.parseSize("max"));
+    }
+}
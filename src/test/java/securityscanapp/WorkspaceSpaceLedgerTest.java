@@ -0,0 +1,45 @@
+package securityscanapp;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+
+import static org.junit.Assert.fail;
+
+public class WorkspaceSpaceLedgerTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void releasedReservationAdmitsNextClone() throws Exception {
+        WorkspaceSpaceLedger ledger = new WorkspaceSpaceLedger(tmp.newFolder("ledger").toPath());
+        String first = tmp.newFolder("scan-1").getPath();
+        String second = tmp.newFolder("scan-2").getPath();
+
+        ledger.reserve(first, 80, 0, () -> 100, 0, message -> { });
+        try {
+            ledger.reserve(second, 50, 0, () -> 100, 0, message -> { });
+            fail("second clone must not fit next to the first reservation");
+        } catch (InsufficientSpaceException expected) {
+            // 20 bytes left after the first reservation
+        }
+
+        // Failed clone or retained workspace hands its space back
+        ledger.release(first);
+        ledger.reserve(second, 50, 0, () -> 100, 0, message -> { });
+    }
+
+    @Test
+    public void retryReusesReservation() throws Exception {
+        Path ledgerDir = tmp.newFolder("ledger").toPath();
+        WorkspaceSpaceLedger ledger = new WorkspaceSpaceLedger(ledgerDir);
+        String workspace = tmp.newFolder("scan-1").getPath();
+
+        ledger.reserve(workspace, 80, 0, () -> 100, 0, message -> { });
+        // Workflow reserved before the clone: the clone's own reserve returns at once
+        ledger.reserve(workspace, 80, 0, () -> 100, 0, message -> { });
+    }
+}